@@ -0,0 +1,74 @@
+package org.freeplane.core.io;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+
+/**
+ * Counts characters passed through and allows to abort reading from another thread.
+ */
+public class ProgressReader extends FilterReader {
+	private final long expectedLength;
+	private volatile long readCount;
+	private volatile boolean canceled;
+
+	public ProgressReader(final Reader in, final long expectedLength) {
+		super(in);
+		this.expectedLength = expectedLength;
+		this.readCount = 0;
+		this.canceled = false;
+	}
+
+	@Override
+	public int read() throws IOException {
+		checkCanceled();
+		final int c = super.read();
+		if (c != -1)
+			readCount++;
+		return c;
+	}
+
+	@Override
+	public int read(final char[] cbuf, final int off, final int len) throws IOException {
+		checkCanceled();
+		final int count = super.read(cbuf, off, len);
+		if (count > 0)
+			readCount += count;
+		return count;
+	}
+
+	@Override
+	public long skip(final long n) throws IOException {
+		checkCanceled();
+		final long count = super.skip(n);
+		readCount += count;
+		return count;
+	}
+
+	private void checkCanceled() throws InterruptedIOException {
+		if (canceled)
+			throw new InterruptedIOException("reading canceled");
+	}
+
+	public void cancel() {
+		canceled = true;
+	}
+
+	public boolean isCanceled() {
+		return canceled;
+	}
+
+	public long getReadCount() {
+		return readCount;
+	}
+
+	/**
+	 * @return read percentage between 0 and 100, or -1 if expected length is unknown
+	 */
+	public int getPercentage() {
+		if (expectedLength <= 0)
+			return -1;
+		return (int) Math.min(100, readCount * 100 / expectedLength);
+	}
+}
@@ -30,11 +30,13 @@ import org.freeplane.features.map.NodeModel;
 public class ReadManager {
 	final private Hashtable<String, Hashtable<String, IAttributeHandler>> attributeHandlers;
 	final private ListHashTable<String, IElementHandler> elementHandlers;
+	final private Hashtable<String, IElementContentHandler> unparsedElementHandlers;
 	final private Collection<IReadCompletionListener> readCompletionListeners;
 
 	public ReadManager() {
 		super();
 		elementHandlers = new ListHashTable<String, IElementHandler>();
+		unparsedElementHandlers = new Hashtable<String, IElementContentHandler>();
 		attributeHandlers = new Hashtable<String, Hashtable<String, IAttributeHandler>>();
 		readCompletionListeners = new LinkedList<IReadCompletionListener>();
 	}
@@ -64,6 +66,21 @@ public class ReadManager {
 		elementHandlers.add(parentTag, handler);
 	}
 
+	/**
+	 * Registers a handler which is asked before all element handlers of the tag.
+	 * If it creates an element, the element content is not parsed
+	 * and passed as a string to its endElement method together with the element attributes.
+	 */
+	public void addUnparsedElementHandler(final String tag, final IElementContentHandler handler) {
+		if (null != unparsedElementHandlers.put(tag, handler)) {
+			throw new RuntimeException("unparsed element handler " + tag + " already registered");
+		}
+	}
+
+	public IElementContentHandler getUnparsedElementHandler(final String tag) {
+		return unparsedElementHandlers.get(tag);
+	}
+
 	public void addReadCompletionListener(final IReadCompletionListener listener) {
 		readCompletionListeners.add(listener);
 	}
@@ -304,6 +304,20 @@ public class TreeXmlReader implements IXMLBuilder {
 		pushParentObjects();
 		parentElement = currentElement;
 		currentElement = null;
+		final IElementContentHandler unparsedElementHandler = parseManager.getUnparsedElementHandler(tag);
+		if (unparsedElementHandler != null) {
+			try {
+				currentElement = unparsedElementHandler.createElement(parentElement, tag, null);
+			} catch (Exception e) {
+				LogUtils.severe("Can not process element" + tag, e);
+			}
+			if (currentElement != null) {
+				nodeCreator = unparsedElementHandler;
+				attributeHandlersForTag = null;
+				parser.notParseNextElementContent();
+				return;
+			}
+		}
 		final List<IElementHandler> handlers = getElementHandlers().list(tag);
 		if (handlers != null && handlers.size() == 1) {
 			nodeCreator = handlers.get(0);
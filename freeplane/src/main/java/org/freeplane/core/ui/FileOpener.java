@@ -32,6 +32,7 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -126,6 +127,10 @@ public class FileOpener implements DropTargetListener {
 			}
 			listener.filesDropped(droppedUrls);
 		}
+		catch (final CancellationException e) {
+			dtde.dropComplete(false);
+			return;
+		}
 		catch (final Exception e) {
 			UITools.errorMessage(TextUtils.format("dropped_file_error", e.getMessage()));
 			dtde.dropComplete(false);
@@ -127,8 +127,8 @@ public class UndoHandler implements IUndoHandler {
 		else {
 			CompoundActor compoundActor = new CompoundActor();
 			final Controller controller = Controller.getCurrentController();
-			if(map == controller.getMap()){
-				final IMapSelection selection = controller.getSelection();
+			final IMapSelection selection = map == controller.getMap() ? controller.getSelection() : null;
+			if(selection != null){
 				final SelectionActor selectionActor = SelectionActor.create(selection);
 				compoundActor.add(selectionActor);
 			}
@@ -0,0 +1,346 @@
+package org.freeplane.core.util;
+
+/**
+ * Converts html to plain text in a single pass, see {@link HtmlUtils#htmlToPlain(String, boolean, boolean)}.
+ *
+ * The output is the same as of the former chain of regular expression replacements:
+ * white space is collapsed, line breaking tags become new lines, list items become "   * ",
+ * other tags are removed together with the spaces around them, the text is trimmed
+ * and entities are decoded.
+ * Tags are expected not to contain '&lt;'. Entities "&amp;;" and "&amp;#;" are kept as they are.
+ */
+class HtmlToPlainConverter {
+	private static final int TEXT = 0;
+	private static final int P = 1;
+	private static final int DIV = 2;
+	private static final int TR = 3;
+	private static final int BR = 4;
+	private static final int DT = 5;
+	private static final int DD = 6;
+	private static final int TD = 7;
+	private static final int LIST = 8;
+	private static final int LI = 9;
+	private static final int END_TAG = 10;
+	private static final int OTHER_TAG = 11;
+
+	private static final String[] NAMED_ENTITIES = { "&lt;", "&gt;", "&quot;", "&nbsp;", "&amp;" };
+	private static final char[] NAMED_ENTITY_CHARACTERS = { '<', '>', '"', ' ', '&' };
+
+	private final String text;
+	private final int length;
+	private final boolean removeNewLines;
+	private final StringBuilder result;
+	private int position;
+	private final int lastGreaterThanSign;
+
+	// state of the markup removal
+	private boolean isTextStarted;
+	private boolean skipsSpaces;
+	private final StringBuilder trailingWhitespace = new StringBuilder();
+	private int removableSpaceCount;
+
+	// state of the entity decoding
+	private StringBuilder entity;
+	private boolean readsEntity;
+	private int namedEntitySearchStart;
+	private int nonBreakingSpaceEnd;
+
+	static String convert(String text, boolean removeNewLines) {
+		return new HtmlToPlainConverter(text, removeNewLines).convert();
+	}
+
+	private HtmlToPlainConverter(String text, boolean removeNewLines) {
+		this.text = text;
+		this.length = text.length();
+		this.removeNewLines = removeNewLines;
+		this.result = new StringBuilder(length);
+		this.lastGreaterThanSign = text.lastIndexOf('>');
+	}
+
+	private String convert() {
+		while (position < length) {
+			final char c = text.charAt(position);
+			if (c == '<') {
+				final int tagEnd = tagEnd(position);
+				if (tagEnd >= 0) {
+					convertTag(tagKind(position, tagEnd), tagEnd + 1);
+					continue;
+				}
+			}
+			position++;
+			if (removeNewLines && isCollapsedWhitespace(c)) {
+				while (position < length && isCollapsedWhitespace(text.charAt(position)))
+					position++;
+				appendText(' ');
+			}
+			else {
+				appendText(c);
+				if (c == '>')
+					skipNewLinesAfterTag();
+			}
+		}
+		if (readsEntity && entity.length() > 0)
+			appendRestoredEntity(false);
+		return result.toString();
+	}
+
+	private void convertTag(int kind, int nextPosition) {
+		position = nextPosition;
+		skipNewLinesAfterTag();
+		switch (kind) {
+		case P:
+		case DIV:
+		case TR:
+			if (isFollowedByWhitespace(kind, position)) {
+				skipWhitespaceRun(kind);
+				appendText('\n');
+			}
+			else
+				removeStartTag();
+			break;
+		case BR:
+		case DT:
+		case LIST:
+			appendText('\n');
+			break;
+		case DD:
+			appendText("\n   ");
+			break;
+		case TD:
+			appendText(' ');
+			break;
+		case LI:
+			appendText("\n   * ");
+			break;
+		case END_TAG:
+			trailingWhitespace.setLength(trailingWhitespace.length() - removableSpaceCount);
+			removableSpaceCount = 0;
+			break;
+		default:
+			removeStartTag();
+		}
+	}
+
+	private void removeStartTag() {
+		removableSpaceCount = 0;
+		skipsSpaces = true;
+	}
+
+	private void skipNewLinesAfterTag() {
+		position = skipNewLinesAfterTag(position);
+	}
+
+	private int skipNewLinesAfterTag(int i) {
+		while (i < length && (text.charAt(i) == '\n' || text.charAt(i) == '\t'))
+			i++;
+		return i;
+	}
+
+	/** p, div and tr tags become new lines only if white space or other tags which became new lines before follow them */
+	private boolean isFollowedByWhitespace(int kind, int i) {
+		i = skipNewLinesAfterTag(i);
+		if (i >= length)
+			return false;
+		final char c = text.charAt(i);
+		if (isWhitespace(c))
+			return true;
+		if (c != '<')
+			return false;
+		final int tagEnd = tagEnd(i);
+		if (tagEnd < 0)
+			return false;
+		final int nextKind = tagKind(i, tagEnd);
+		return nextKind == BR || nextKind < kind && isFollowedByWhitespace(nextKind, tagEnd + 1);
+	}
+
+	private void skipWhitespaceRun(int kind) {
+		while (position < length) {
+			final char c = text.charAt(position);
+			if (isWhitespace(c))
+				position++;
+			else if (c == '<') {
+				final int tagEnd = tagEnd(position);
+				if (tagEnd < 0)
+					return;
+				final int nextKind = tagKind(position, tagEnd);
+				if (nextKind == BR || nextKind < kind && isFollowedByWhitespace(nextKind, tagEnd + 1))
+					position = tagEnd + 1;
+				else
+					return;
+			}
+			else
+				return;
+		}
+	}
+
+	private int tagEnd(int tagStart) {
+		if (tagStart >= lastGreaterThanSign)
+			return -1;
+		if (text.charAt(tagStart + 1) == '>')
+			return text.indexOf('>', tagStart + 2);
+		return text.indexOf('>', tagStart + 1);
+	}
+
+	private int tagKind(int tagStart, int tagEnd) {
+		final int nameStart = tagStart + 1;
+		final char first = lowerCaseAt(nameStart, tagEnd);
+		final char second = lowerCaseAt(nameStart + 1, tagEnd);
+		switch (first) {
+		case '/':
+			return END_TAG;
+		case 'p':
+			return P;
+		case 'b':
+			return second == 'r' ? BR : OTHER_TAG;
+		case 'd':
+			if (second == 'i')
+				return lowerCaseAt(nameStart + 2, tagEnd) == 'v' ? DIV : OTHER_TAG;
+			return second == 't' ? DT : second == 'd' ? DD : OTHER_TAG;
+		case 't':
+			return second == 'r' ? TR : second == 'd' ? TD : OTHER_TAG;
+		case 'u':
+		case 'o':
+			return second == 'l' ? LIST : OTHER_TAG;
+		case 'l':
+			return second == 'i' ? LI : OTHER_TAG;
+		default:
+			return OTHER_TAG;
+		}
+	}
+
+	private char lowerCaseAt(int i, int end) {
+		if (i >= end)
+			return 0;
+		return toLowerCase(text.charAt(i));
+	}
+
+	private static char toLowerCase(char c) {
+		return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+	}
+
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\n' || c == '\t' || c == '\r' || c == '\f' || c == '\u000B';
+	}
+
+	private static boolean isCollapsedWhitespace(char c) {
+		return c == ' ' || c == '\n' || c == '\t';
+	}
+
+	private void appendText(String s) {
+		for (int i = 0; i < s.length(); i++)
+			appendText(s.charAt(i));
+	}
+
+	/** removes spaces after removed tags and trims the text */
+	private void appendText(char c) {
+		if (skipsSpaces) {
+			if (c == ' ')
+				return;
+			skipsSpaces = false;
+		}
+		if (c <= ' ') {
+			if (isTextStarted) {
+				trailingWhitespace.append(c);
+				removableSpaceCount = c == ' ' ? removableSpaceCount + 1 : 0;
+			}
+			return;
+		}
+		isTextStarted = true;
+		removableSpaceCount = 0;
+		if (trailingWhitespace.length() > 0) {
+			for (int i = 0; i < trailingWhitespace.length(); i++)
+				decodeNumericEntities(trailingWhitespace.charAt(i));
+			trailingWhitespace.setLength(0);
+		}
+		decodeNumericEntities(c);
+	}
+
+	private void decodeNumericEntities(char c) {
+		if (readsEntity) {
+			if (c == ';') {
+				readsEntity = false;
+				decodeNumericEntity();
+			}
+			else
+				entity.append(c);
+		}
+		else if (c == '&') {
+			readsEntity = true;
+			if (entity == null)
+				entity = new StringBuilder();
+			else
+				entity.setLength(0);
+		}
+		else
+			decodeNamedEntities(c);
+	}
+
+	private void decodeNumericEntity() {
+		if (entity.length() >= 2 && entity.charAt(0) == '#') {
+			try {
+				final char c;
+				if (entity.charAt(1) == 'x')
+					c = (char) Integer.parseInt(entity.substring(2), 16);
+				else
+					c = (char) Integer.parseInt(entity.substring(1), 10);
+				if (c >= ' ' || c == '\t' || c == '\r' || c == '\n')
+					decodeNamedEntities(c);
+				else
+					decodeNamedEntities(' ');
+				return;
+			}
+			catch (final NumberFormatException e) {
+			}
+		}
+		appendRestoredEntity(true);
+	}
+
+	private void appendRestoredEntity(boolean isTerminated) {
+		decodeNamedEntities('&');
+		for (int i = 0; i < entity.length(); i++)
+			decodeNamedEntities(entity.charAt(i));
+		if (isTerminated)
+			decodeNamedEntities(';');
+	}
+
+	private void decodeNamedEntities(char c) {
+		if (c == '\n') {
+			int end = result.length();
+			while (end > nonBreakingSpaceEnd && (result.charAt(end - 1) == ' ' || result.charAt(end - 1) == '\t'))
+				end--;
+			result.setLength(end);
+			namedEntitySearchStart = Math.min(namedEntitySearchStart, end);
+			result.append(c);
+		}
+		else if (c == ' ') {
+			result.append(' ');
+			nonBreakingSpaceEnd = result.length();
+		}
+		else {
+			result.append(c);
+			if (c == ';')
+				replaceNamedEntity();
+		}
+	}
+
+	private void replaceNamedEntity() {
+		for (int i = 0; i < NAMED_ENTITIES.length; i++) {
+			final String namedEntity = NAMED_ENTITIES[i];
+			final int start = result.length() - namedEntity.length();
+			if (start >= namedEntitySearchStart && endsWithIgnoreCase(namedEntity, start)) {
+				result.setLength(start);
+				result.append(NAMED_ENTITY_CHARACTERS[i]);
+				namedEntitySearchStart = result.length();
+				return;
+			}
+		}
+	}
+
+	private boolean endsWithIgnoreCase(String namedEntity, int start) {
+		for (int i = 0; i < namedEntity.length(); i++) {
+			if (toLowerCase(result.charAt(start + i)) != namedEntity.charAt(i))
+				return false;
+		}
+		return true;
+	}
+}
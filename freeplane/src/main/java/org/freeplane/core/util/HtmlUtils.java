@@ -77,7 +77,6 @@ public class HtmlUtils {
 
 	private static final Pattern FIND_TAGS_PATTERN = Pattern.compile("([^<]*)(<[^>]+>)");
 	private static final Pattern HTML_PATTERN = Pattern.compile("(?s)^\\s*<\\s*html[^>]*>.*", Pattern.CASE_INSENSITIVE);
-	private static Pattern[] PATTERNS;
 	private static HtmlUtils sInstance = new HtmlUtils();
 	private static final Pattern SLASHED_TAGS_PATTERN = Pattern.compile("<((" + "br|area|base|basefont|"
 	        + "bgsound|button|col|colgroup|embed|hr" + "|img|input|isindex|keygen|link|meta"
@@ -108,61 +107,7 @@ public class HtmlUtils {
 		if (strictHTMLOnly && !HtmlUtils.isHtmlNode(text)) {
 			return text;
 		}
-		if (PATTERNS == null) {
-			PATTERNS = new Pattern[] { 
-					Pattern.compile("(?ims)>[\n\t]+"), 
-					Pattern.compile("(?ims)[\n\t ]+"), 
-			        Pattern.compile("(?ims)<br[^>]*>"), 
-			        Pattern.compile("(?ims)<p[^>]*>\\s+"),
-			        Pattern.compile("(?ims)<div[^>]*>\\s+"), 
-			        Pattern.compile("(?ims)<tr[^>]*>\\s+"),
-			        Pattern.compile("(?ims)<dt[^>]*>"), 
-			        Pattern.compile("(?ims)<dd[^>]*>"),
-			        Pattern.compile("(?ims)<td[^>]*>"), 
-			        Pattern.compile("(?ims)<[uo]l[^>]*>"),
-			        Pattern.compile("(?ims)<li[^>]*>"), 
-			        Pattern.compile("(?ims) *</[^>]*>"),
-			        Pattern.compile("(?ims)<[^/][^>]*> *"), 
-			        Pattern.compile("^\n+"), 
-			        Pattern.compile("(?ims)&lt;"),
-			        Pattern.compile("(?ims)&gt;"), 
-			        Pattern.compile("(?ims)&quot;"), 
-			        Pattern.compile("(?ims)&nbsp;"),
-			        Pattern.compile("(?ims)&amp;"),
-			        Pattern.compile("(?ims)[ \t]+\n") };
-		}
-		String intermediate = text;
-		int i = 0;
-		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll(">");
-		if (removeNewLines)
-			intermediate = PATTERNS[i++].matcher(intermediate).replaceAll(" ");
-		else
-			i++;
-		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll("\n");
-		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll("\n");
-		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll("\n");
-		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll("\n");
-		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll("\n");
-		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll("\n   ");
-		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll(" ");
-		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll("\n");
-		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll("\n   * ");
-		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll("");
-		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll("");
-		if (removeNewLines)
-			intermediate = PATTERNS[i++].matcher(intermediate).replaceAll("");
-		else
-			i++;
-		intermediate = intermediate.trim();
-		intermediate = HtmlUtils.unescapeHTMLUnicodeEntity(intermediate);
-		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll("<");
-		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll(">");
-		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll("\"");
-		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll(" ");
-		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll("&");
-		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll("\n");
-		intermediate = intermediate.replace('\u00a0', ' ');
-		return intermediate;
+		return HtmlToPlainConverter.convert(text, removeNewLines);
 	}
 
 	public static boolean isHtmlNode(final String text) {
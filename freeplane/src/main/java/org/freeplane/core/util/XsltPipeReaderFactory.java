@@ -30,7 +30,6 @@ import java.net.URL;
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.TransformerFactoryConfigurationError;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
@@ -61,16 +60,11 @@ public class XsltPipeReaderFactory {
 			
 			@Override
 			public void run() {
-				InputStream xsltFile = null;
 				try{
-					xsltFile = xsltUrl.openStream();
 					final Result result = new StreamResult(writer);
-					transform(new StreamSource(in), xsltFile, result);
-				} catch (IOException e) {
-					e.printStackTrace();
+					transform(new StreamSource(in), xsltUrl, result);
 				}
 				finally {
-					FileUtils.silentlyClose(xsltFile);
 					FileUtils.silentlyClose(writer);
 				}
 			}
@@ -79,12 +73,10 @@ public class XsltPipeReaderFactory {
 		return reader;
 	}
 
-	private void transform(final Source xmlSource, final InputStream xsltStream, final Result result)
+	private void transform(final Source xmlSource, final URL xsltUrl, final Result result)
 			throws TransformerFactoryConfigurationError {
-		final Source xsltSource = new StreamSource(xsltStream);
 		try {
-			final TransformerFactory transFact = TransformerFactory.newInstance();
-			final Transformer trans = transFact.newTransformer(xsltSource);
+			final Transformer trans = XsltTemplatesCache.getInstance().getTemplates(xsltUrl).newTransformer();
 			trans.transform(xmlSource, result);
 		}
 		catch (final Exception e) {
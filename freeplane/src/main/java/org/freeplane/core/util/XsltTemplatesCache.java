@@ -0,0 +1,82 @@
+package org.freeplane.core.util;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
+
+/**
+ * Compiled XSLT stylesheets by their URL.
+ *
+ * Stylesheet files are compiled again when their modification time changes,
+ * stylesheets from other URLs like jar entries are compiled only once.
+ * Templates are thread safe, each transformation creates its own transformer from them.
+ */
+public class XsltTemplatesCache {
+	private static final XsltTemplatesCache INSTANCE = new XsltTemplatesCache();
+
+	public static XsltTemplatesCache getInstance() {
+		return INSTANCE;
+	}
+
+	private static class CompiledStylesheet {
+		final long lastModified;
+		final Templates templates;
+
+		CompiledStylesheet(final long lastModified, final Templates templates) {
+			this.lastModified = lastModified;
+			this.templates = templates;
+		}
+	}
+
+	private final Map<String, CompiledStylesheet> stylesheets = new HashMap<String, CompiledStylesheet>();
+
+	public Templates getTemplates(final File xsltFile) throws IOException, TransformerConfigurationException {
+		return getTemplates(xsltFile.toURI().toURL());
+	}
+
+	public Templates getTemplates(final URL xsltUrl) throws IOException, TransformerConfigurationException {
+		final String systemId = xsltUrl.toExternalForm();
+		final long lastModified = lastModified(xsltUrl);
+		synchronized (stylesheets) {
+			final CompiledStylesheet stylesheet = stylesheets.get(systemId);
+			if (stylesheet != null && stylesheet.lastModified == lastModified)
+				return stylesheet.templates;
+		}
+		final InputStream xsltStream = new BufferedInputStream(xsltUrl.openStream());
+		final Templates templates;
+		try {
+			templates = TransformerFactory.newInstance().newTemplates(new StreamSource(xsltStream, systemId));
+		}
+		finally {
+			FileUtils.silentlyClose(xsltStream);
+		}
+		synchronized (stylesheets) {
+			stylesheets.put(systemId, new CompiledStylesheet(lastModified, templates));
+		}
+		return templates;
+	}
+
+	private static long lastModified(final URL url) {
+		if (!"file".equals(url.getProtocol()))
+			return 0;
+		try {
+			return new File(url.toURI()).lastModified();
+		}
+		catch (final URISyntaxException e) {
+			return 0;
+		}
+		catch (final IllegalArgumentException e) {
+			return 0;
+		}
+	}
+}
@@ -19,11 +19,14 @@
  */
 package org.freeplane.features.attribute;
 
+import java.util.Set;
+
 import org.freeplane.core.io.xml.TreeXmlReader;
 import org.freeplane.core.io.xml.TreeXmlWriter;
 import org.freeplane.core.util.TypeReference;
 import org.freeplane.features.filter.condition.ASelectableCondition;
 import org.freeplane.features.filter.condition.CompareConditionAdapter;
+import org.freeplane.features.filter.condition.ConditionDependency;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.features.text.TextController;
 import org.freeplane.n3.nanoxml.XMLElement;
@@ -108,6 +111,11 @@ public class AttributeCompareCondition extends CompareConditionAdapter {
 	    return isComparisonOK() &&  succeed == (getComparisonResult() == comparationResult);
     }
 
+	@Override
+	public Set<ConditionDependency> getDependencies() {
+		return ConditionDependency.of(ConditionDependency.ATTRIBUTES);
+	}
+
 	@Override
 	protected String createDescription() {
 		return super.createDescription(attribute.toString(), comparationResult, succeed);
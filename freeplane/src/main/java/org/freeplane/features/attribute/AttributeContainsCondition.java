@@ -19,9 +19,12 @@
  */
 package org.freeplane.features.attribute;
 
+import java.util.Set;
+
 import org.freeplane.core.util.TextUtils;
 import org.freeplane.features.filter.StringMatchingStrategy;
 import org.freeplane.features.filter.condition.ASelectableCondition;
+import org.freeplane.features.filter.condition.ConditionDependency;
 import org.freeplane.features.filter.condition.ConditionFactory;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.features.text.TextController;
@@ -100,6 +103,11 @@ public class AttributeContainsCondition extends ASelectableCondition {
 	    return stringMatchingStrategy.matches(comparedValue, text, true, matchCase);
     }
 
+	@Override
+	public Set<ConditionDependency> getDependencies() {
+		return ConditionDependency.of(ConditionDependency.ATTRIBUTES);
+	}
+
 	@Override
 	protected String createDescription() {
 		final String simpleCondition = TextUtils.getText(ConditionFactory.FILTER_CONTAINS);
@@ -19,8 +19,11 @@
  */
 package org.freeplane.features.attribute;
 
+import java.util.Set;
+
 import org.freeplane.core.util.TextUtils;
 import org.freeplane.features.filter.condition.ASelectableCondition;
+import org.freeplane.features.filter.condition.ConditionDependency;
 import org.freeplane.features.filter.condition.ConditionFactory;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.n3.nanoxml.XMLElement;
@@ -66,6 +69,11 @@ public class AttributeExistsCondition extends ASelectableCondition {
 		return false;
 	}
 
+	@Override
+	public Set<ConditionDependency> getDependencies() {
+		return ConditionDependency.of(ConditionDependency.ATTRIBUTES);
+	}
+
 	@Override
 	protected String createDescription() {
 		final String simpleCondition = TextUtils.getText(ConditionFactory.FILTER_EXIST);
@@ -19,10 +19,12 @@
  */
 package org.freeplane.features.attribute;
 
+import java.util.Set;
 import java.util.regex.Pattern;
 
 import org.freeplane.core.util.TextUtils;
 import org.freeplane.features.filter.condition.ASelectableCondition;
+import org.freeplane.features.filter.condition.ConditionDependency;
 import org.freeplane.features.filter.condition.ConditionFactory;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.features.text.TextController;
@@ -94,6 +96,11 @@ public class AttributeMatchesCondition extends ASelectableCondition {
 	    return searchPattern.matcher(text).find();
     }
 
+	@Override
+	public Set<ConditionDependency> getDependencies() {
+		return ConditionDependency.of(ConditionDependency.ATTRIBUTES);
+	}
+
 	@Override
 	protected String createDescription() {
 		final String simpleCondition = TextUtils.getText(ConditionFactory.FILTER_REGEXP);
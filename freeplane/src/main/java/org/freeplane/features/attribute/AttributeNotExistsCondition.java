@@ -19,8 +19,11 @@
  */
 package org.freeplane.features.attribute;
 
+import java.util.Set;
+
 import org.freeplane.core.util.TextUtils;
 import org.freeplane.features.filter.condition.ASelectableCondition;
+import org.freeplane.features.filter.condition.ConditionDependency;
 import org.freeplane.features.filter.condition.ConditionFactory;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.n3.nanoxml.XMLElement;
@@ -64,6 +67,11 @@ public class AttributeNotExistsCondition extends ASelectableCondition {
 		return true;
 	}
 
+	@Override
+	public Set<ConditionDependency> getDependencies() {
+		return ConditionDependency.of(ConditionDependency.ATTRIBUTES);
+	}
+
 	@Override
 	protected String createDescription() {
 		final String simpleCondition = TextUtils.getText(ConditionFactory.FILTER_DOES_NOT_EXIST);
@@ -165,6 +165,16 @@ class SingleCopySource extends NodeModel {
 	    return delegate.getFilterInfo();
     }
 
+	@Override
+    public int getFilterFlags() {
+	    return delegate.getFilterFlags();
+    }
+
+	@Override
+    public void setFilterFlags(int flags) {
+	    delegate.setFilterFlags(flags);
+    }
+
 	@Override
     public HistoryInformationModel getHistoryInformation() {
 	    return delegate.getHistoryInformation();
@@ -1,14 +1,27 @@
 package org.freeplane.features.export.mindmapmode;
 
+import org.freeplane.core.util.FileUtils;
 import org.freeplane.features.map.MapWriter;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.features.mode.Controller;
 
+import javax.xml.transform.Result;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.stream.StreamSource;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 class BranchXmlWriter{
+	private static final int PIPE_SIZE = 64 * 1024;
 	private final List<NodeModel> branches;
 
 	 BranchXmlWriter(List<NodeModel> branches) {
@@ -29,4 +42,71 @@ class BranchXmlWriter{
 			throw new RuntimeException(e);
 		}
 	}
+
+	/**
+	 * Transforms the XML while it is written without keeping it in memory.
+	 * The calling thread writes the XML, the transformer parses it from a pipe in its own thread.
+	 */
+	void transformXml(final Transformer transformer, final Result result, MapWriter.Mode mode) throws TransformerException {
+		final PipedInputStream xmlInput = new PipedInputStream(PIPE_SIZE);
+		final Writer xmlWriter;
+		try {
+			xmlWriter = new OutputStreamWriter(new PipedOutputStream(xmlInput), StandardCharsets.UTF_8);
+		}
+		catch (IOException e) {
+			throw new TransformerException(e);
+		}
+		final FutureTask<Void> transformation = new FutureTask<Void>(new Callable<Void>() {
+			@Override
+			public Void call() throws TransformerException {
+				try {
+					transformer.transform(new StreamSource(xmlInput), result);
+					return null;
+				}
+				finally {
+					FileUtils.silentlyClose(xmlInput);
+				}
+			}
+		});
+		new Thread(transformation, "XSLT Transformation").start();
+		RuntimeException writeException = null;
+		try {
+			writeXml(xmlWriter, mode);
+		}
+		catch (RuntimeException e) {
+			writeException = e;
+		}
+		finally {
+			FileUtils.silentlyClose(xmlWriter);
+		}
+		// pipe exceptions are caused by the failed transformation
+		if(writeException != null && ! (writeException.getCause() instanceof IOException)) {
+			awaitTransformation(transformation);
+			throw writeException;
+		}
+		try {
+			transformation.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new TransformerException(e);
+		}
+		catch (ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if(cause instanceof TransformerException)
+				throw (TransformerException) cause;
+			throw new TransformerException(cause);
+		}
+	}
+
+	private void awaitTransformation(final FutureTask<Void> transformation) {
+		try {
+			transformation.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		catch (ExecutionException e) {
+		}
+	}
 }
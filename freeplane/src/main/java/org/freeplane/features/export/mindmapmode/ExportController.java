@@ -77,6 +77,9 @@ public class ExportController implements IExtension{
 		addMapExportEngine(pngExport.getFileFilter(), pngExport);
 		final ExportToImage jpgExport = new ExportToImage("jpg","Compressed image (JPEG)");
 		addMapExportEngine(jpgExport.getFileFilter(), jpgExport);
+		final ExportToImage tiffExport = new ExportToImage("tif","Tagged Image File Format (TIFF)");
+		if(tiffExport.isSupported())
+			addMapExportEngine(tiffExport.getFileFilter(), tiffExport);
 	}
 	
 	private void createXSLTExportActions( final String xmlDescriptorFile) {
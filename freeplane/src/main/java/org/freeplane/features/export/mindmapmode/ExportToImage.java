@@ -21,7 +21,6 @@ import java.awt.Dimension;
 import java.awt.image.BufferedImage;
 import java.awt.image.RenderedImage;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.Iterator;
 import java.util.List;
@@ -34,6 +33,7 @@ import javax.imageio.ImageWriter;
 import javax.imageio.metadata.IIOInvalidTreeException;
 import javax.imageio.metadata.IIOMetadata;
 import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.FileImageOutputStream;
 import javax.imageio.stream.ImageOutputStream;
 import javax.swing.filechooser.FileFilter;
 
@@ -99,15 +99,16 @@ public class ExportToImage implements IExportEngine {
 					continue;
                 }
 				addDpiToMetadata(metadata);
-				final FileOutputStream outFile = new FileOutputStream(chosenFile);
-				final ImageOutputStream stream = ImageIO.createImageOutputStream(outFile);
+				// the image is painted while it is written, so the file is written directly without a cache
+				chosenFile.delete();
+				final ImageOutputStream stream = new FileImageOutputStream(chosenFile);
 				try {
-					writer.setOutput(ImageIO.createImageOutputStream(outFile));
+					writer.setOutput(stream);
 					writer.write(metadata, new IIOImage(image, null, metadata), writeParam);
 					break;
 				} finally {
+					writer.dispose();
 					stream.close();
-					outFile.close();
 				}
 			}
 		}
@@ -116,6 +117,7 @@ public class ExportToImage implements IExportEngine {
 			UITools.errorMessage(TextUtils.getText("export_failed"));
 		}
 		finally{
+			ImageCreator.dispose(image);
 			Controller.getCurrentController().getViewController().setWaitingCursor(false);
 		}
 		return true;
@@ -124,11 +126,13 @@ public class ExportToImage implements IExportEngine {
 	private void addDpiToMetadata(IIOMetadata metadata) throws IIOInvalidTreeException {
 	    int dpi = getImageResolutionDPI();
 	    double dotsPerMilli = 1.0 * dpi / 10 / 2.54;
+	    // only the tiff writer takes the pixel size in millimeters as the metadata format specifies
+	    double pixelSize = imageType.equals("tif") ? 1 / dotsPerMilli : dotsPerMilli;
 	    IIOMetadataNode root = new IIOMetadataNode("javax_imageio_1.0");
 	    IIOMetadataNode horiz = new IIOMetadataNode("HorizontalPixelSize");
-	    horiz.setAttribute("value", Double.toString(dotsPerMilli));
+	    horiz.setAttribute("value", Double.toString(pixelSize));
 	    IIOMetadataNode vert = new IIOMetadataNode("VerticalPixelSize");
-	    vert.setAttribute("value", Double.toString(dotsPerMilli));
+	    vert.setAttribute("value", Double.toString(pixelSize));
 	    IIOMetadataNode dim = new IIOMetadataNode("Dimension");
 	    dim.appendChild(horiz);
 	    dim.appendChild(vert);
@@ -136,6 +140,10 @@ public class ExportToImage implements IExportEngine {
 	    metadata.mergeTree("javax_imageio_1.0", root);
     }
 
+	public boolean isSupported() {
+		return ImageIO.getImageWritersByFormatName(imageType).hasNext();
+	}
+
 	public FileFilter getFileFilter() {
 		return new ExampleFileFilter(imageType, imageDescripton);
     }
@@ -23,20 +23,19 @@ import org.freeplane.core.ui.components.UITools;
 import org.freeplane.core.util.FileUtils;
 import org.freeplane.core.util.LogUtils;
 import org.freeplane.core.util.TextUtils;
+import org.freeplane.core.util.XsltTemplatesCache;
 import org.freeplane.features.map.MapWriter.Mode;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.features.mode.Controller;
-import org.freeplane.features.mode.ModeController;
 
 import javax.swing.filechooser.FileFilter;
 import javax.xml.transform.Result;
-import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 import java.io.*;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
@@ -70,20 +69,16 @@ public class ExportToOoWriter implements IExportEngine {
 	/**
 	 * @return true, if successful.
 	 */
-	private void applyXsltFile(final String xsltFileName, final StringWriter writer, final Result result)
+	private void applyXsltFile(final String xsltFileName, final File xmlFile, final Result result)
 	        throws IOException {
 		final URL xsltUrl = ResourceController.getResourceController().getResource(xsltFileName);
 		if (xsltUrl == null) {
 			LogUtils.severe("Can't find " + xsltFileName + " as resource.");
 			throw new IllegalArgumentException("Can't find " + xsltFileName + " as resource.");
 		}
-		final InputStream xsltStream = new BufferedInputStream(xsltUrl.openStream());
-		final Source xsltSource = new StreamSource(xsltStream);
 		try {
-			final StringReader reader = new StringReader(writer.getBuffer().toString());
-			final TransformerFactory transFact = TransformerFactory.newInstance();
-			final Transformer trans = transFact.newTransformer(xsltSource);
-			trans.transform(new StreamSource(reader), result);
+			final Transformer trans = XsltTemplatesCache.getInstance().getTemplates(xsltUrl).newTransformer();
+			trans.transform(new StreamSource(xmlFile), result);
 			return;
 		}
 		catch (final Exception e) {
@@ -91,37 +86,41 @@ public class ExportToOoWriter implements IExportEngine {
 			LogUtils.warn(e);
 			return;
 		}
-		finally {
-			FileUtils.silentlyClose(xsltStream);
-		}
 	}
 
 
 	public void exportToOoWriter(List<NodeModel> branches, final File file) throws IOException {
+		// the XML is transformed three times, a temporary file keeps it out of memory
+		final File xmlFile = File.createTempFile("freeplane-export", ".xml");
 		final ZipOutputStream zipout = new ZipOutputStream(new FileOutputStream(file));
 		try {
-			final StringWriter writer = new StringWriter();
-			final ModeController controller = Controller.getCurrentModeController();
-			new BranchXmlWriter(branches).writeXml(writer, Mode.EXPORT);
+			final Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(xmlFile), StandardCharsets.UTF_8));
+			try {
+				new BranchXmlWriter(branches).writeXml(writer, Mode.EXPORT);
+			}
+			finally {
+				FileUtils.silentlyClose(writer);
+			}
 			final Result result = new StreamResult(zipout);
 
 			ZipEntry entry = new ZipEntry("content.xml");
 			zipout.putNextEntry(entry);
-			applyXsltFile("/xslt/export2oowriter.xsl", writer, result);
+			applyXsltFile("/xslt/export2oowriter.xsl", xmlFile, result);
 			zipout.closeEntry();
 
 			entry = new ZipEntry("META-INF/manifest.xml");
 			zipout.putNextEntry(entry);
-			applyXsltFile("/xslt/export2oowriter.manifest.xsl", writer, result);
+			applyXsltFile("/xslt/export2oowriter.manifest.xsl", xmlFile, result);
 			zipout.closeEntry();
 
 			entry = new ZipEntry("styles.xml");
 			zipout.putNextEntry(entry);
-			applyXsltFile("/xslt/export2oowriter.styles.xsl", writer, result);
+			applyXsltFile("/xslt/export2oowriter.styles.xsl", xmlFile, result);
 			zipout.closeEntry();
 		}
 		finally {
 			zipout.close();
+			xmlFile.delete();
 		}
 	}
 }
@@ -25,12 +25,12 @@ import org.freeplane.core.util.Compat;
 import org.freeplane.core.util.FileUtils;
 import org.freeplane.core.util.LogUtils;
 import org.freeplane.core.util.TextUtils;
+import org.freeplane.core.util.XsltTemplatesCache;
 import org.freeplane.features.icon.UIIcon;
 import org.freeplane.features.map.MapModel;
 import org.freeplane.features.map.MapWriter.Mode;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.features.mode.Controller;
-import org.freeplane.features.mode.ModeController;
 import org.freeplane.features.url.UrlManager;
 
 import javax.imageio.ImageIO;
@@ -38,7 +38,6 @@ import javax.swing.*;
 import javax.swing.filechooser.FileFilter;
 import javax.xml.transform.*;
 import javax.xml.transform.stream.StreamResult;
-import javax.xml.transform.stream.StreamSource;
 import java.awt.image.RenderedImage;
 import java.io.*;
 import java.net.URI;
@@ -152,6 +151,9 @@ public class ExportWithXSLT implements IExportEngine {
 			LogUtils.severe(e1);
 			return false;
 		}
+		finally {
+			ImageCreator.dispose(image);
+		}
 	}
 
 	/**
@@ -165,15 +167,6 @@ public class ExportWithXSLT implements IExportEngine {
 		return areaCode;
 	}
 
-	private String getMapXml(List<NodeModel> nodes, final Mode mode) throws IOException {
-		final StringWriter writer = new StringWriter();
-		final ModeController modeController = Controller.getCurrentModeController();
-		final Controller controller = modeController.getController();
-		final MapModel map = controller.getMap();
-		new BranchXmlWriter(nodes).writeXml(writer, mode);
-		return writer.getBuffer().toString();
-	}
-
 	String getProperty(final String key) {
 		final String property = getProperty(key, null);
 		if (property == null)
@@ -263,20 +256,15 @@ public class ExportWithXSLT implements IExportEngine {
 	private boolean transformMapWithXslt(List<NodeModel> nodes, final String xsltFileName, final File saveFile, final String areaCode,
 										 final Mode mode, String[] parameters) throws IOException,
             TransformerFactoryConfigurationError {
-	    final String map = getMapXml(nodes, mode);
-		final StringReader reader = new StringReader(map);
 		ResourceController resourceController = ResourceController.getResourceController();
 		final URL xsltUrl = resourceController.getResource(xsltFileName);
 		if (xsltUrl == null) {
 			LogUtils.severe("Can't find " + xsltFileName + " as resource.");
 			throw new IllegalArgumentException("Can't find " + xsltFileName + " as resource.");
 		}
-		final InputStream xsltFile = new BufferedInputStream(xsltUrl.openStream());
-		final Source xsltSource = new StreamSource(xsltFile);
 		final Result result = new StreamResult(saveFile);
 		try {
-			final TransformerFactory transFact = TransformerFactory.newInstance();
-			final Transformer trans = transFact.newTransformer(xsltSource);
+			final Transformer trans = XsltTemplatesCache.getInstance().getTemplates(xsltUrl).newTransformer();
 			trans.setParameter("file_ref", saveFile.getAbsoluteFile().toURI().toString());
 			final String fileName = saveFile.getName();
 			final String fileNameEncoded = toRelativeUri(fileName);
@@ -296,15 +284,12 @@ public class ExportWithXSLT implements IExportEngine {
 
 			}
 			trans.setParameter("propertyList", sb.toString());
-			trans.transform(new StreamSource(reader), result);
+			new BranchXmlWriter(nodes).transformXml(trans, result, mode);
 		}
 		catch (final Exception e) {
 			LogUtils.warn(e);
 			return false;
 		}
-		finally {
-			FileUtils.silentlyClose(xsltFile);
-		}
 		return true;
     }
 
@@ -21,6 +21,10 @@ package org.freeplane.features.export.mindmapmode;
 
 import java.awt.Dimension;
 import java.awt.image.RenderedImage;
+import java.io.Closeable;
+import java.io.IOException;
+
+import org.freeplane.core.util.LogUtils;
 
 import org.freeplane.features.map.IMapSelection.NodePosition;
 import org.freeplane.features.map.MapModel;
@@ -54,6 +58,18 @@ class ImageCreator{
         return controller.getMapViewManager().createImage(slideSize, placedNode, placedNodePosition, imageResolutionInDpi);
 	}
 
+	/** images painted on demand keep the map view prepared for printing until they are disposed */
+	static void dispose(RenderedImage image) {
+		if (image instanceof Closeable) {
+			try {
+				((Closeable) image).close();
+			}
+			catch (IOException e) {
+				LogUtils.warn(e);
+			}
+		}
+	}
+
 	public int getImageResolutionDPI() {
 	    return imageResolutionInDpi;
     }
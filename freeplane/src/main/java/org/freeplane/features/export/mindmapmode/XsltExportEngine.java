@@ -3,17 +3,13 @@ package org.freeplane.features.export.mindmapmode;
 import org.freeplane.core.ui.components.UITools;
 import org.freeplane.core.util.LogUtils;
 import org.freeplane.core.util.TextUtils;
+import org.freeplane.core.util.XsltTemplatesCache;
 import org.freeplane.features.map.MapWriter.Mode;
 import org.freeplane.features.map.NodeModel;
-import org.freeplane.features.mode.Controller;
-import org.freeplane.features.mode.ModeController;
 
 import javax.xml.transform.Result;
-import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamResult;
-import javax.xml.transform.stream.StreamSource;
 import java.io.*;
 import java.security.Permission;
 import java.security.Policy;
@@ -80,17 +76,14 @@ public class XsltExportEngine implements IExportEngine {
 	final private File xsltFile;
 	
 	public void export(List<NodeModel> branches, File toFile) {
-		final Source xsltSource = new StreamSource(xsltFile);
-		final Source xmlSource = getMapXml(branches);
 		FileOutputStream outputStream = null;
 		final XsltExportPolicy xsltExportPolicy = new XsltExportPolicy();
         try {
         	Policy.setPolicy(xsltExportPolicy);
         	outputStream = new FileOutputStream(toFile);
         	final Result result = new StreamResult(outputStream);
-        	final TransformerFactory transFact = TransformerFactory.newInstance();
-        	final Transformer trans = transFact.newTransformer(xsltSource);
-        	trans.transform(xmlSource, result);
+        	final Transformer trans = XsltTemplatesCache.getInstance().getTemplates(xsltFile).newTransformer();
+        	new BranchXmlWriter(branches).transformXml(trans, result, Mode.EXPORT);
         }
         catch (final Exception e) {
         	UITools.errorMessage(TextUtils.getText("export_failed"));
@@ -108,12 +101,4 @@ public class XsltExportEngine implements IExportEngine {
         	}
         }
 	}
-
-	private StreamSource getMapXml(final List<NodeModel> branches) {
-		final StringWriter writer = new StringWriter();
-		final ModeController modeController = Controller.getCurrentModeController();
-		new BranchXmlWriter(branches).writeXml(writer, Mode.EXPORT);
-		final StringReader stringReader = new StringReader(writer.getBuffer().toString());
-		return new StreamSource(stringReader);
-	}
 }
@@ -21,14 +21,16 @@ package org.freeplane.features.filter;
 
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Set;
 
 import javax.swing.Icon;
 
 import org.freeplane.core.resources.ResourceController;
+import org.freeplane.features.filter.condition.ASelectableCondition;
+import org.freeplane.features.filter.condition.ConditionDependency;
 import org.freeplane.features.filter.condition.ICondition;
 import org.freeplane.features.map.IMapSelection;
 import org.freeplane.features.map.MapChangeEvent;
-import org.freeplane.features.map.MapController;
 import org.freeplane.features.map.MapModel;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.features.mode.Controller;
@@ -42,15 +44,22 @@ public class Filter {
 		return new Filter(null, resourceController.getBooleanProperty("filter.showAncestors"), resourceController.getBooleanProperty("filter.showDescendants"), false);
 	}
 
+	/** reads and writes filter flags, see {@link FilterInfo} */
 	public interface FilterInfoAccessor{
-		public FilterInfo getFilterInfo(NodeModel node);
+		public int getFilterFlags(NodeModel node);
+		public void setFilterFlags(NodeModel node, int flags);
 	}
 
 	static public FilterInfoAccessor DEFAULT_FILTER_INFO_ACCESSOR = new FilterInfoAccessor() {
 
 		@Override
-		public FilterInfo getFilterInfo(NodeModel node) {
-			return node.getFilterInfo();
+		public int getFilterFlags(NodeModel node) {
+			return node.getFilterFlags();
+		}
+
+		@Override
+		public void setFilterFlags(NodeModel node, int flags) {
+			node.setFilterFlags(flags);
 		}
 	};
 
@@ -58,16 +67,16 @@ public class Filter {
             final boolean areDescendantsShown, final boolean applyToVisibleNodesOnly) {
 
 		FilterInfoAccessor oneTimeFilterAccessor = new FilterInfoAccessor() {
-			HashMap<NodeModel, FilterInfo> filterInfos = new HashMap<>();
+			HashMap<NodeModel, Integer> filterFlags = new HashMap<>();
 
 			@Override
-			public FilterInfo getFilterInfo(NodeModel node) {
-				FilterInfo filterInfo = filterInfos.get(node);
-				if(filterInfo == null) {
-					filterInfo = new FilterInfo();
-					filterInfos.put(node, filterInfo);
-				}
-				return filterInfo;
+			public int getFilterFlags(NodeModel node) {
+				return filterFlags.getOrDefault(node, FilterInfo.FILTER_INITIAL_VALUE);
+			}
+
+			@Override
+			public void setFilterFlags(NodeModel node, int flags) {
+				filterFlags.put(node, flags);
 			}
 		};
 		return new Filter(condition, areAncestorsShown, areDescendantsShown, applyToVisibleNodesOnly, oneTimeFilterAccessor);
@@ -75,6 +84,8 @@ public class Filter {
 
 	final private boolean appliesToVisibleNodesOnly;
 	final private ICondition condition;
+	/** node contents read by the condition, null if it can read anything */
+	final private Set<ConditionDependency> conditionDependencies;
 	final int options;
 
 	final private FilterInfoAccessor accessor;
@@ -89,6 +100,8 @@ public class Filter {
 		super();
 		this.condition = condition;
 		this.accessor = accessor;
+		conditionDependencies = condition instanceof ASelectableCondition
+		        ? ((ASelectableCondition) condition).getDependencies() : null;
 		int options = FilterInfo.FILTER_INITIAL_VALUE | FilterInfo.FILTER_SHOW_MATCHED;
 		if (areAncestorsShown) {
 			options += FilterInfo.FILTER_SHOW_ANCESTOR;
@@ -102,7 +115,7 @@ public class Filter {
 	}
 
 	void addFilterResult(final NodeModel node, final int flag) {
-		getFilterInfo(node).add(flag);
+		setFilterFlags(node, FilterInfo.add(getFilterFlags(node), flag));
 	}
 
 	protected boolean appliesToVisibleNodesOnly() {
@@ -159,6 +172,144 @@ public class Filter {
 		}
 	}
 
+	/**
+	 * Tells if results of changed nodes can be updated one by one.
+	 * It needs conditions declaring which node contents they read and not depending on node visibility.
+	 */
+	boolean canUpdateFilterResultsOfChangedNodes() {
+		return conditionDependencies != null && !appliesToVisibleNodesOnly;
+	}
+
+	/** true if results of parents have to be updated when children are inserted or removed */
+	boolean dependsOnChildren() {
+		return conditionDependencies != null && conditionDependencies.contains(ConditionDependency.CHILDREN);
+	}
+
+	/** true if the node has not been filtered since it was created or displayed by resetting its filter results */
+	boolean isUnfiltered(final NodeModel node) {
+		return FilterInfo.isUnset(getFilterFlags(node));
+	}
+
+	/**
+	 * Updates filter results after the node has changed without walking the whole map.
+	 * The node and its descendants are filtered again if the node's match has changed
+	 * or if it was inserted or moved, then the ancestor results are updated.
+	 * Children are checked again too if the condition reads the parent text.
+	 * @return true if filter results have changed
+	 */
+	boolean updateFilterResults(final NodeModel node, final boolean isNodeInserted) {
+		final NodeModel parent = node.getParentNode();
+		if (parent == null || appliesToVisibleNodesOnly) {
+			// visibility dependent conditions and the root node affect the whole map
+			calculateFilterResults(node.getMap());
+			return true;
+		}
+		final boolean isFilteredAgain = isNodeInserted || isUnfiltered(node);
+		boolean resultsChanged = updateNodeResults(node, parent, isFilteredAgain);
+		if (!isFilteredAgain && conditionDependencies != null
+		        && conditionDependencies.contains(ConditionDependency.PARENT_TEXT)) {
+			for (final NodeModel child : node.getChildren()) {
+				if (!isUnfiltered(child))
+					resultsChanged |= updateFilterResults(child, false);
+			}
+		}
+		return resultsChanged;
+	}
+
+	private boolean updateNodeResults(final NodeModel node, final NodeModel parent, final boolean isFilteredAgain) {
+		final int filterFlags = getFilterFlags(node);
+		final boolean isAncestorSelected = isAncestorSelected(parent);
+		final boolean isAncestorEclipsed = isAncestorEclipsed(parent);
+		if (isFilteredAgain)
+			applyFilter(node, isAncestorSelected, isAncestorEclipsed, false);
+		else {
+			final boolean conditionSatisfied = checkNode(node);
+			if (conditionSatisfied == FilterInfo.isMatched(filterFlags))
+				return false;
+			final boolean isDescendantSelected = FilterInfo.isAncestor(filterFlags);
+			resetFilter(node);
+			addFilterResult(node, conditionSatisfied ? FilterInfo.FILTER_SHOW_MATCHED : FilterInfo.FILTER_SHOW_HIDDEN);
+			if (isAncestorSelected)
+				addFilterResult(node, FilterInfo.FILTER_SHOW_DESCENDANT);
+			if (isAncestorEclipsed)
+				addFilterResult(node, FilterInfo.FILTER_SHOW_ECLIPSED);
+			if (isDescendantSelected)
+				addFilterResult(node, FilterInfo.FILTER_SHOW_ANCESTOR);
+			updateDescendantResults(node, conditionSatisfied || isAncestorSelected,
+			    !conditionSatisfied || isAncestorEclipsed);
+		}
+		updateAncestorResults(parent);
+		return true;
+	}
+
+	/** Updates the flags which descendants get from their ancestors, their own matches are kept. */
+	private void updateDescendantResults(final NodeModel node, final boolean isAncestorSelected,
+	                                     final boolean isAncestorEclipsed) {
+		for (final NodeModel child : node.getChildren()) {
+			final int filterFlags = getFilterFlags(child);
+			if (FilterInfo.isUnset(filterFlags)) {
+				applyFilter(child, isAncestorSelected, isAncestorEclipsed, false);
+				continue;
+			}
+			final boolean wasAncestorSelected = 0 != (filterFlags & FilterInfo.FILTER_SHOW_DESCENDANT);
+			final boolean wasAncestorEclipsed = 0 != (filterFlags & FilterInfo.FILTER_SHOW_ECLIPSED);
+			if (wasAncestorSelected == isAncestorSelected && wasAncestorEclipsed == isAncestorEclipsed)
+				continue;
+			setFilterResult(child, FilterInfo.FILTER_SHOW_DESCENDANT, isAncestorSelected);
+			setFilterResult(child, FilterInfo.FILTER_SHOW_ECLIPSED, isAncestorEclipsed);
+			final boolean conditionSatisfied = FilterInfo.isMatched(filterFlags);
+			updateDescendantResults(child, conditionSatisfied || isAncestorSelected,
+			    !conditionSatisfied || isAncestorEclipsed);
+		}
+	}
+
+	private void setFilterResult(final NodeModel node, final int flag, final boolean isSet) {
+		final int filterFlags = getFilterFlags(node);
+		setFilterFlags(node, isSet ? FilterInfo.add(filterFlags, flag) : filterFlags & ~flag);
+	}
+
+	/**
+	 * Updates the ancestor flags of the node and its ancestors, e.g. after a child has been removed.
+	 * @return true if filter results have changed
+	 */
+	boolean updateAncestorResults(final NodeModel node) {
+		boolean resultsChanged = false;
+		for (NodeModel ancestor = node; ancestor != null; ancestor = ancestor.getParentNode()) {
+			final boolean isDescendantSelected = isDescendantSelected(ancestor);
+			if (FilterInfo.isAncestor(getFilterFlags(ancestor)) == isDescendantSelected)
+				break;
+			setFilterResult(ancestor, FilterInfo.FILTER_SHOW_ANCESTOR, isDescendantSelected);
+			resultsChanged = true;
+		}
+		return resultsChanged;
+	}
+
+	private boolean isDescendantSelected(final NodeModel node) {
+		for (final NodeModel child : node.getChildren()) {
+			final int filterFlags = getFilterFlags(child);
+			if (FilterInfo.isMatched(filterFlags) || FilterInfo.isAncestor(filterFlags))
+				return true;
+		}
+		return false;
+	}
+
+	private boolean isAncestorSelected(final NodeModel parent) {
+		NodeModel ancestor = parent;
+		for (; !ancestor.isRoot(); ancestor = ancestor.getParentNode()) {
+			if (FilterInfo.isMatched(getFilterFlags(ancestor)))
+				return true;
+		}
+		return checkNode(ancestor);
+	}
+
+	private boolean isAncestorEclipsed(final NodeModel parent) {
+		for (NodeModel ancestor = parent; !ancestor.isRoot(); ancestor = ancestor.getParentNode()) {
+			if (!FilterInfo.isMatched(getFilterFlags(ancestor)))
+				return true;
+		}
+		return false;
+	}
+
 	private boolean applyFilter(final NodeModel node,
 	                            final boolean isAncestorSelected, final boolean isAncestorEclipsed,
 	                            boolean isDescendantSelected) {
@@ -220,7 +371,6 @@ public class Filter {
 	private boolean filterChildren(final NodeModel node,
 	                               final boolean isAncestorSelected, final boolean isAncestorEclipsed) {
 		boolean isDescendantSelected = false;
-		MapController r = Controller.getCurrentModeController().getMapController();
 		for (final NodeModel child : node.getChildren()) {
 			isDescendantSelected = applyFilter(child, isAncestorSelected, isAncestorEclipsed,
 			    isDescendantSelected);
@@ -247,18 +397,29 @@ public class Filter {
 		if (condition == null) {
 			return true;
 		}
-		return getFilterInfo(node).isVisible(this.options);
+		return FilterInfo.isVisible(getFilterFlags(node), this.options);
+	}
+	/** shows updated filter results of the map. */
+	void showUpdatedFilterResults(Object source, final MapModel map) {
+		refreshMap(source, map);
+		if (Controller.getCurrentController().getMap() == map)
+			selectVisibleNode();
 	}
+
 	private void refreshMap(Object source, MapModel map) {
 		Controller.getCurrentModeController().getMapController().fireMapChanged(new MapChangeEvent(source, map, Filter.class, null, this, false));
 	}
 
 	private void resetFilter(final NodeModel node) {
-		getFilterInfo(node).reset();
+		setFilterFlags(node, FilterInfo.FILTER_INITIAL_VALUE);
+	}
+
+	private int getFilterFlags(final NodeModel node) {
+		return accessor.getFilterFlags(node);
 	}
 
-	private FilterInfo getFilterInfo(final NodeModel node) {
-		return accessor.getFilterInfo(node);
+	private void setFilterFlags(final NodeModel node, final int flags) {
+		accessor.setFilterFlags(node, flags);
 	}
 
 	private void selectVisibleNode() {
@@ -76,6 +76,7 @@ import org.freeplane.features.highlight.HighlightController;
 import org.freeplane.features.highlight.NodeHighlighter;
 import org.freeplane.features.map.CloneOfSelectedViewCondition;
 import org.freeplane.features.map.IMapSelectionListener;
+import org.freeplane.features.map.MapController;
 import org.freeplane.features.map.MapController.Direction;
 import org.freeplane.features.map.MapModel;
 import org.freeplane.features.map.MapNavigationUtils;
@@ -180,6 +181,13 @@ public class FilterController implements IMapSelectionListener, IExtension {
 		return getController(Controller.getCurrentController());
 	}
 
+	/** keeps filter results of maps edited by the map controller up to date. */
+	public void updateFilterResultsOnChange(final MapController mapController) {
+		final FilterUpdater filterUpdater = new FilterUpdater();
+		mapController.addNodeChangeListener(filterUpdater);
+		mapController.addMapChangeListener(filterUpdater);
+	}
+
 	public static void install() {
 		final Controller controller = Controller.getCurrentController();
 		final FilterController extension = new FilterController();
@@ -20,45 +20,74 @@
 package org.freeplane.features.filter;
 
 /**
+ * View on the filter flags of a node, see {@link org.freeplane.features.map.NodeModel#getFilterInfo()}.
+ * Filters work on the flags directly using the static methods.
  * @author Dimitry Polivaev
  */
-public class FilterInfo {
+public abstract class FilterInfo {
 	public static final int FILTER_INITIAL_VALUE = 1;
 	public static final int FILTER_SHOW_ANCESTOR = 4;
 	public static final int FILTER_SHOW_DESCENDANT = 8;
 	public static final int FILTER_SHOW_ECLIPSED = 16;
 	public static final int FILTER_SHOW_HIDDEN = 32;
 	public static final int FILTER_SHOW_MATCHED = 2;
-	private int info = FilterInfo.FILTER_INITIAL_VALUE;
 
-	/**
-	 *
-	 */
-	public FilterInfo() {
-		super();
-	}
+	protected abstract int getFlags();
 
-	void add(final int flag) {
+	protected abstract void setFlags(final int flags);
+
+	/** returns the flags with given flag added, match results replace the initial value */
+	public static int add(int flags, final int flag) {
 		if ((flag & (FilterInfo.FILTER_SHOW_MATCHED | FilterInfo.FILTER_SHOW_HIDDEN)) != 0) {
-			info &= ~FilterInfo.FILTER_INITIAL_VALUE;
+			flags &= ~FilterInfo.FILTER_INITIAL_VALUE;
 		}
-		info |= flag;
+		return flags | flag;
+	}
+
+	public static boolean isAncestor(final int flags) {
+		return (flags & FilterInfo.FILTER_SHOW_ANCESTOR) != 0;
+	}
+
+	public static boolean isMatched(final int flags) {
+		return (flags & FilterInfo.FILTER_SHOW_MATCHED) != 0;
+	}
+
+	public static boolean isUnset(final int flags) {
+		return flags == FilterInfo.FILTER_INITIAL_VALUE;
+	}
+
+	static boolean isVisible(final int flags, final int filterOptions) {
+		final boolean showAsAncestor = (filterOptions & FilterInfo.FILTER_SHOW_ANCESTOR) != 0;
+		return (showAsAncestor || (filterOptions & FilterInfo.FILTER_SHOW_ECLIPSED) >= (flags & FilterInfo.FILTER_SHOW_ECLIPSED))
+		        && ((filterOptions & flags & ~FilterInfo.FILTER_SHOW_ECLIPSED) != 0);
+	}
+
+	void add(final int flag) {
+		setFlags(add(getFlags(), flag));
+	}
+
+	int get() {
+		return getFlags();
+	}
+
+	void remove(final int flag) {
+		setFlags(getFlags() & ~flag);
 	}
 
 	/**
 	 */
 	public boolean isAncestor() {
-		return (info & FilterInfo.FILTER_SHOW_ANCESTOR) != 0;
+		return isAncestor(getFlags());
 	}
 
 	/**
 	 */
 	public boolean isMatched() {
-		return (info & FilterInfo.FILTER_SHOW_MATCHED) != 0;
+		return isMatched(getFlags());
 	}
 
 	public void reset() {
-		info = FilterInfo.FILTER_INITIAL_VALUE;
+		setFlags(FilterInfo.FILTER_INITIAL_VALUE);
 	}
 
 	public void setAncestor() {
@@ -74,12 +103,10 @@ public class FilterInfo {
 	}
 
 	public boolean isUnset() {
-		return info == FilterInfo.FILTER_INITIAL_VALUE;
+		return isUnset(getFlags());
 	}
 
 	boolean isVisible(final int filterOptions) {
-		final boolean showAsAncestor = (filterOptions & FilterInfo.FILTER_SHOW_ANCESTOR) != 0;
-		return (showAsAncestor || (filterOptions & FilterInfo.FILTER_SHOW_ECLIPSED) >= (info & FilterInfo.FILTER_SHOW_ECLIPSED))
-		        && ((filterOptions & info & ~FilterInfo.FILTER_SHOW_ECLIPSED) != 0);
+		return isVisible(getFlags(), filterOptions);
 	}
 }
@@ -0,0 +1,169 @@
+package org.freeplane.features.filter;
+
+import java.awt.EventQueue;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.freeplane.core.resources.ResourceController;
+import org.freeplane.features.map.IMapChangeListener;
+import org.freeplane.features.map.INodeChangeListener;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.NodeChangeEvent;
+import org.freeplane.features.map.NodeDeletionEvent;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.features.map.NodeMoveEvent;
+
+/**
+ * Keeps results of active filters up to date when nodes change.
+ *
+ * Changes are collected and processed together after the current event,
+ * only changed nodes are checked again and their results are propagated to their ancestors and descendants.
+ * Nodes which have not been filtered yet, like new nodes or nodes displayed by find, stay visible until they are edited.
+ * Maps are filtered again completely if the condition does not declare which node contents it reads.
+ */
+class FilterUpdater implements INodeChangeListener, IMapChangeListener {
+	static final String REAPPLY_FILTER_ON_CHANGE_PROPERTY = "reapply_filter_on_change";
+
+	/** kinds of node changes, a later kind takes precedence over an earlier one for the same node */
+	enum Change {
+		/** refreshed without being edited, e.g. formula dependents or parents of inserted and removed nodes */
+		REFRESHED,
+		EDITED,
+		/** inserted nodes which have not been filtered yet */
+		INSERTED,
+		MOVED
+	}
+
+	static class MapChanges {
+		final Map<NodeModel, Change> changedNodes = new LinkedHashMap<>();
+		final Set<NodeModel> parentsOfRemovedNodes = new LinkedHashSet<>();
+
+		void add(NodeModel node, Change change) {
+			final Change previousChange = changedNodes.get(node);
+			if (previousChange == null || previousChange.compareTo(change) < 0)
+				changedNodes.put(node, change);
+		}
+	}
+
+	private final Map<MapModel, MapChanges> pendingChanges = new LinkedHashMap<>();
+
+	@Override
+	public void nodeChanged(NodeChangeEvent event) {
+		final NodeModel node = event.getNode();
+		final MapChanges mapChanges = changesOf(node);
+		if (mapChanges != null)
+			mapChanges.add(node, event.setsDirtyFlag() ? Change.EDITED : Change.REFRESHED);
+	}
+
+	@Override
+	public void onNodeInserted(NodeModel parent, NodeModel child, int newIndex) {
+		final MapChanges mapChanges = changesOf(child);
+		if (mapChanges != null) {
+			// nodes inserted again by undo keep their results and are filtered like moved nodes
+			final Filter filter = child.getMap().getFilter();
+			mapChanges.add(child, filter.isUnfiltered(child) ? Change.INSERTED : Change.MOVED);
+			if (filter.dependsOnChildren())
+				mapChanges.add(parent, Change.REFRESHED);
+		}
+	}
+
+	@Override
+	public void onNodeMoved(NodeMoveEvent nodeMoveEvent) {
+		final MapChanges mapChanges = changesOf(nodeMoveEvent.child);
+		if (mapChanges != null) {
+			mapChanges.parentsOfRemovedNodes.add(nodeMoveEvent.oldParent);
+			if (nodeMoveEvent.child.getMap().getFilter().dependsOnChildren()) {
+				mapChanges.add(nodeMoveEvent.oldParent, Change.REFRESHED);
+				mapChanges.add(nodeMoveEvent.newParent, Change.REFRESHED);
+			}
+			mapChanges.add(nodeMoveEvent.child, Change.MOVED);
+		}
+	}
+
+	@Override
+	public void onNodeDeleted(NodeDeletionEvent nodeDeletionEvent) {
+		final MapChanges mapChanges = changesOf(nodeDeletionEvent.parent);
+		if (mapChanges != null) {
+			mapChanges.parentsOfRemovedNodes.add(nodeDeletionEvent.parent);
+			if (nodeDeletionEvent.parent.getMap().getFilter().dependsOnChildren())
+				mapChanges.add(nodeDeletionEvent.parent, Change.REFRESHED);
+		}
+	}
+
+	private MapChanges changesOf(NodeModel node) {
+		final MapModel map = node.getMap();
+		if (map == null || !isFiltered(map)
+		        || !ResourceController.getResourceController().getBooleanProperty(REAPPLY_FILTER_ON_CHANGE_PROPERTY))
+			return null;
+		if (pendingChanges.isEmpty())
+			EventQueue.invokeLater(this::updateFilterResults);
+		MapChanges mapChanges = pendingChanges.get(map);
+		if (mapChanges == null) {
+			mapChanges = new MapChanges();
+			pendingChanges.put(map, mapChanges);
+		}
+		return mapChanges;
+	}
+
+	private boolean isFiltered(final MapModel map) {
+		final Filter filter = map.getFilter();
+		return filter != null && filter.getCondition() != null;
+	}
+
+	private void updateFilterResults() {
+		for (Entry<MapModel, MapChanges> changes : pendingChanges.entrySet()) {
+			final MapModel map = changes.getKey();
+			final Filter filter = map.getFilter();
+			if (isFiltered(map) && updateFilterResults(map, filter, changes.getValue()))
+				filter.showUpdatedFilterResults(this, map);
+		}
+		pendingChanges.clear();
+	}
+
+	/** @return true if filter results have changed */
+	static boolean updateFilterResults(final MapModel map, final Filter filter, final MapChanges changes) {
+		if (!filter.canUpdateFilterResultsOfChangedNodes()) {
+			if (!requireUpdate(map, filter, changes))
+				return false;
+			filter.calculateFilterResults(map);
+			return true;
+		}
+		boolean resultsChanged = false;
+		for (NodeModel parent : changes.parentsOfRemovedNodes) {
+			if (isAttached(map, parent))
+				resultsChanged |= filter.updateAncestorResults(parent);
+		}
+		for (Entry<NodeModel, Change> changedNode : changes.changedNodes.entrySet()) {
+			final NodeModel node = changedNode.getKey();
+			final Change change = changedNode.getValue();
+			if (isAttached(map, node) && !isSkipped(filter, node, change))
+				resultsChanged |= filter.updateFilterResults(node, change == Change.MOVED);
+		}
+		return resultsChanged;
+	}
+
+	private static boolean requireUpdate(final MapModel map, final Filter filter, final MapChanges changes) {
+		for (NodeModel parent : changes.parentsOfRemovedNodes) {
+			if (isAttached(map, parent))
+				return true;
+		}
+		for (Entry<NodeModel, Change> changedNode : changes.changedNodes.entrySet()) {
+			final NodeModel node = changedNode.getKey();
+			if (isAttached(map, node) && !isSkipped(filter, node, changedNode.getValue()))
+				return true;
+		}
+		return false;
+	}
+
+	/** new nodes and nodes displayed by find are not hidden before they are edited */
+	private static boolean isSkipped(final Filter filter, final NodeModel node, final Change change) {
+		return change == Change.INSERTED || change == Change.REFRESHED && filter.isUnfiltered(node);
+	}
+
+	private static boolean isAttached(final MapModel map, NodeModel node) {
+		return node.getMap() == map && (node == map.getRootNode() || node.isDescendantOf(map.getRootNode()));
+	}
+}
@@ -4,6 +4,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.security.AccessController;
 import java.security.PrivilegedExceptionAction;
+import java.util.Set;
 
 import javax.swing.JComponent;
 import javax.swing.JLabel;
@@ -72,6 +73,14 @@ public abstract class ASelectableCondition  implements ICondition{
 	public boolean checkNodeInFormulaContext(NodeModel node){
 		return checkNode(node);
 	}
+
+	/**
+	 * Returns the node contents checked by this condition, or null if it can read anything.
+	 * Results of conditions with known dependencies are reused until these contents change.
+	 */
+	public Set<ConditionDependency> getDependencies() {
+		return null;
+	}
 	
 	final public JComponent getListCellRendererComponent() {
 		if (renderer == null) {
@@ -0,0 +1,29 @@
+package org.freeplane.features.filter.condition;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Node contents read by a condition, see {@link ASelectableCondition#getDependencies()}.
+ */
+public enum ConditionDependency {
+	TEXT, DETAILS, NOTE, PARENT_TEXT, ATTRIBUTES, LINKS, LEVEL, CHILDREN;
+
+	public static Set<ConditionDependency> of(ConditionDependency first, ConditionDependency... rest) {
+		return Collections.unmodifiableSet(EnumSet.of(first, rest));
+	}
+
+	/** returns null if any of the conditions can read anything */
+	public static Set<ConditionDependency> of(Collection<ASelectableCondition> conditions) {
+		final EnumSet<ConditionDependency> dependencies = EnumSet.noneOf(ConditionDependency.class);
+		for (ASelectableCondition condition : conditions) {
+			final Set<ConditionDependency> conditionDependencies = condition.getDependencies();
+			if (conditionDependencies == null)
+				return null;
+			dependencies.addAll(conditionDependencies);
+		}
+		return Collections.unmodifiableSet(dependencies);
+	}
+}
@@ -21,6 +21,7 @@ package org.freeplane.features.filter.condition;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Set;
 import java.util.Vector;
 
 import javax.swing.JComponent;
@@ -95,6 +96,11 @@ public class ConditionNotSatisfiedDecorator extends ASelectableCondition impleme
 	    return NAME;
     }
 	
+	@Override
+	public Set<ConditionDependency> getDependencies() {
+		return ConditionDependency.of(split());
+	}
+
 	public Collection<ASelectableCondition> split() {
 	    return Arrays.asList(new ASelectableCondition[]{originalCondition});
     }
@@ -21,6 +21,7 @@ package org.freeplane.features.filter.condition;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Set;
 import java.util.Vector;
 
 import javax.swing.JComponent;
@@ -110,6 +111,11 @@ public class ConjunctConditions extends ASelectableCondition implements ICombine
 	    return NAME;
     }
 
+	@Override
+	public Set<ConditionDependency> getDependencies() {
+		return ConditionDependency.of(split());
+	}
+
 	public Collection<ASelectableCondition> split() {
 	    return Arrays.asList(conditions);
     }
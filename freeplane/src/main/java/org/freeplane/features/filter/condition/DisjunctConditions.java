@@ -21,6 +21,7 @@ package org.freeplane.features.filter.condition;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Set;
 import java.util.Vector;
 
 import javax.swing.JComponent;
@@ -112,6 +113,11 @@ public class DisjunctConditions extends ASelectableCondition implements ICombine
     protected String getName() {
 	    return NAME;
     }
+	@Override
+	public Set<ConditionDependency> getDependencies() {
+		return ConditionDependency.of(split());
+	}
+
 	public Collection<ASelectableCondition> split() {
 	    return Arrays.asList(conditions);
     }
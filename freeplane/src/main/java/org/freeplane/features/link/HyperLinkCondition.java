@@ -20,10 +20,12 @@
 package org.freeplane.features.link;
 
 import java.net.URI;
+import java.util.Set;
 
 import org.freeplane.features.attribute.Attribute;
 import org.freeplane.features.attribute.NodeAttributeTableModel;
 import org.freeplane.features.filter.condition.ASelectableCondition;
+import org.freeplane.features.filter.condition.ConditionDependency;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.n3.nanoxml.XMLElement;
 
@@ -59,6 +61,11 @@ public abstract class HyperLinkCondition extends ASelectableCondition {
 		return false;
 	}
 
+	@Override
+	public Set<ConditionDependency> getDependencies() {
+		return ConditionDependency.of(ConditionDependency.LINKS, ConditionDependency.ATTRIBUTES);
+	}
+
 	public String getHyperlink() {
 		return hyperlink;
 	}
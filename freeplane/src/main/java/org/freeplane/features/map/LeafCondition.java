@@ -1,7 +1,10 @@
 package org.freeplane.features.map;
 
+import java.util.Set;
+
 import org.freeplane.core.util.TextUtils;
 import org.freeplane.features.filter.condition.ASelectableCondition;
+import org.freeplane.features.filter.condition.ConditionDependency;
 import org.freeplane.n3.nanoxml.XMLElement;
 
 public class LeafCondition extends ASelectableCondition {
@@ -19,6 +22,11 @@ public class LeafCondition extends ASelectableCondition {
 	    return new LeafCondition();
     }
 
+	@Override
+	public Set<ConditionDependency> getDependencies() {
+		return ConditionDependency.of(ConditionDependency.CHILDREN);
+	}
+
 	@Override
     protected String createDescription() {
 	    return TextUtils.getText(NodeLevelConditionController.FILTER_LEAF);
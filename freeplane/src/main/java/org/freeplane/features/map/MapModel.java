@@ -21,12 +21,15 @@ package org.freeplane.features.map;
 
 import java.io.File;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.Set;
 
 import org.freeplane.core.extension.ExtensionContainer;
 import org.freeplane.core.extension.IExtension;
@@ -40,8 +43,6 @@ import org.freeplane.features.mode.Controller;
 import org.freeplane.features.mode.ModeController;
 
 public class MapModel {
-	private static Random ran = new Random();
-	private static final int UNDEFINED_NODE_ID = 2000000000;
 	/**
 	 * denotes the amount of changes since the last save. The initial value is
 	 * zero, such that new models are not to be saved.
@@ -51,17 +52,19 @@ public class MapModel {
 	private Filter filter = null;
 	private IconRegistry iconRegistry;
 	final private List<IMapChangeListener> listeners;
-	final private Map<String, NodeModel> nodes;
+	final private NodeRegistry nodes;
 	private boolean readOnly = false;
 	private NodeModel root;
 	private URL url;
 	private NodeChangeAnnouncer nodeChangeAnnouncer;
+	private final Set<UnparsedChildren> unparsedChildren;
 
 	public MapModel(IconRegistry iconRegistry, NodeChangeAnnouncer nodeChangeAnnouncer) {
 		extensionContainer = new ExtensionContainer(new HashMap<Class<? extends IExtension>, IExtension>());
 		this.root = null;
 		listeners = new LinkedList<IMapChangeListener>();
-		nodes = new HashMap<String, NodeModel>();
+		nodes = new NodeRegistry();
+		unparsedChildren = Collections.newSetFromMap(new IdentityHashMap<UnparsedChildren, Boolean>());
 		final FilterController filterController = FilterController.getCurrentFilterController();
 		if (filterController != null) {
 			filter = filterController.createTransparentFilter();
@@ -117,19 +120,10 @@ public class MapModel {
 	}
 
 	public String generateNodeID(final String proposedID) {
-		if (proposedID != null && !"".equals(proposedID) && getNodeForID(proposedID) == null) {
+		if (proposedID != null && !"".equals(proposedID) && nodes.get(proposedID) == null && !nodes.isReserved(proposedID)) {
 			return proposedID;
 		}
-		String returnValue;
-		do {
-			final String prefix = "ID_";
-			/*
-			 * The prefix is to enable the id to be an ID in the sense of
-			 * XML/DTD.
-			 */
-			returnValue = prefix + Integer.toString(ran.nextInt(UNDEFINED_NODE_ID));
-		} while (nodes.containsKey(returnValue));
-		return returnValue;
+		return nodes.generateID();
 	}
 
 	public <T extends IExtension> T getExtension(final Class<T> clazz) {
@@ -161,9 +155,54 @@ public class MapModel {
 	 */
 	public NodeModel getNodeForID(final String nodeID) {
 		final NodeModel node = nodes.get(nodeID);
+		if (node == null && nodes.isReserved(nodeID))
+			return parseUnparsedChildrenReserving(nodeID);
 		return node;
 	}
 
+	void reserveNodeID(final String id, final UnparsedChildren owner) {
+		nodes.reserve(id, owner);
+	}
+
+	void releaseNodeID(final String id) {
+		nodes.release(id);
+	}
+
+	void addUnparsedChildren(final UnparsedChildren children) {
+		unparsedChildren.add(children);
+	}
+
+	void removeUnparsedChildren(final UnparsedChildren children) {
+		unparsedChildren.remove(children);
+	}
+
+	/** parses only the subtrees containing the node, nested folded subtrees reserve its ID again */
+	private NodeModel parseUnparsedChildrenReserving(final String nodeID) {
+		for (Object owner = nodes.getReservation(nodeID); owner instanceof UnparsedChildren;
+		        owner = nodes.getReservation(nodeID)) {
+			final UnparsedChildren children = (UnparsedChildren) owner;
+			if (children.isParsed() || !belongsToMap(children.getParent()))
+				return null;
+			children.parse();
+		}
+		return nodes.get(nodeID);
+	}
+
+	void parseUnparsedChildrenWithCloneReferences() {
+		for (final UnparsedChildren children : new ArrayList<UnparsedChildren>(unparsedChildren)) {
+			if (children.containsCloneReferences())
+				children.parse();
+		}
+	}
+
+	private boolean belongsToMap(final NodeModel node) {
+		for (NodeModel ancestor = node; ancestor != null; ancestor = ancestor.getParentNode()) {
+			if (ancestor == root)
+				return true;
+		}
+		return false;
+	}
+
 	public int getNumberOfChangesSinceLastSave() {
 		return changesPerformedSinceLastSave;
 	}
@@ -293,15 +332,19 @@ public class MapModel {
 		url = v;
 	}
 
+	public void unregistryNode(final NodeModel node) {
+		final String id = node.getID();
+		if (id != null && nodes.get(id) == node) {
+			nodes.put(id, null);
+		}
+	}
+
 	public void unregistryNodes(final NodeModel node) {
-		final List<NodeModel> children = node.getChildren();
+		final List<NodeModel> children = node.getParsedChildren();
 		for (final NodeModel child : children) {
 			unregistryNodes(child);
 		}
-		final String id = node.getID();
-		if (id != null) {
-			nodes.put(id, null);
-		}
+		unregistryNode(node);
 	}
 
 
@@ -23,6 +23,7 @@ import java.io.IOException;
 import java.io.Reader;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.freeplane.core.io.IElementDOMHandler;
 import org.freeplane.core.io.ReadManager;
@@ -55,17 +56,19 @@ public class MapReader implements IElementDOMHandler {
         }
 
 		public NodeModel create(final Reader pReader) throws XMLException {
-			final NodeTreeCreator oldNodeTreeCreator = nodeTreeCreator;
+			final NodeTreeCreator oldNodeTreeCreator = nodeTreeCreator.get();
 			final TreeXmlReader reader = new TreeXmlReader(readManager);
+			parsingLock.lock();
 			try {
-				nodeTreeCreator = this;
+				nodeTreeCreator.set(this);
 				reader.load(createdMap, pReader);
 				final NodeModel node = nodeBuilder.getMapChild();
 				return node;
 			}
 			finally {
 				nodeBuilder.reset();
-				nodeTreeCreator = oldNodeTreeCreator;
+				nodeTreeCreator.set(oldNodeTreeCreator);
+				parsingLock.unlock();
 			}
 		}
 
@@ -82,15 +85,18 @@ public class MapReader implements IElementDOMHandler {
 		}
 
 		public void finish(final NodeModel node) {
-			final NodeTreeCreator oldNodeTreeCreator = nodeTreeCreator;
+			final NodeTreeCreator oldNodeTreeCreator = nodeTreeCreator.get();
+			parsingLock.lock();
 			try {
-				nodeTreeCreator = this;
+				nodeTreeCreator.set(this);
 				readManager.readingCompleted(node, newIds);
+				createdMap.parseUnparsedChildrenWithCloneReferences();
 				newIds.clear();
 				createdMap = null;
 			}
 			finally {
-				nodeTreeCreator = oldNodeTreeCreator;
+				nodeTreeCreator.set(oldNodeTreeCreator);
+				parsingLock.unlock();
 			}
 		}
 
@@ -139,10 +145,13 @@ public class MapReader implements IElementDOMHandler {
 
 	private final NodeBuilder nodeBuilder;
 	final private ReadManager readManager;
-	private NodeTreeCreator nodeTreeCreator;
+	// maps loaded on worker threads are parsed while the event dispatch thread may parse unparsed children
+	private final ThreadLocal<NodeTreeCreator> nodeTreeCreator = new ThreadLocal<NodeTreeCreator>();
+	// the registered element handlers keep parsing state, so only one thread parses at a time
+	private final ReentrantLock parsingLock = new ReentrantLock();
 
 	public NodeTreeCreator getCurrentNodeTreeCreator() {
-		return nodeTreeCreator;
+		return nodeTreeCreator.get();
 	}
 
 	public MapReader(final ReadManager readManager) {
@@ -153,7 +162,7 @@ public class MapReader implements IElementDOMHandler {
 
 	@Override
 	public Object createElement(final Object parent, final String tag, final XMLElement attributes) {
-		return nodeTreeCreator.getCreatedMap();
+		return nodeTreeCreator.get().getCreatedMap();
 	}
 
 	public NodeModel createNodeTreeFromXml(final MapModel map, final Reader pReader, final Mode mode)
@@ -164,14 +173,17 @@ public class MapReader implements IElementDOMHandler {
 	}
 	public NodeModel createNodeTreeFromXml(final MapModel map, final Reader pReader, final Map<Object, Object> hints)
 	        throws IOException, XMLException {
-		final NodeTreeCreator oldNodeTreeCreator = nodeTreeCreator;
+		final NodeTreeCreator oldNodeTreeCreator = nodeTreeCreator.get();
+		parsingLock.lock();
 		try {
-			nodeTreeCreator = new NodeTreeCreator(hints);
-			final NodeModel topNode = nodeTreeCreator.createNodeTreeFromXml(map, pReader);
+			final NodeTreeCreator newNodeTreeCreator = new NodeTreeCreator(hints);
+			nodeTreeCreator.set(newNodeTreeCreator);
+			final NodeModel topNode = newNodeTreeCreator.createNodeTreeFromXml(map, pReader);
 			return topNode;
 		}
 		finally {
-			nodeTreeCreator = oldNodeTreeCreator;
+			nodeTreeCreator.set(oldNodeTreeCreator);
+			parsingLock.unlock();
 		}
 	}
 
@@ -183,8 +195,9 @@ public class MapReader implements IElementDOMHandler {
 		}
 	}
 
+	/** tells if the current thread parses a map */
 	public boolean isMapLoadingInProcess() {
-		return nodeTreeCreator != null;
+		return nodeTreeCreator.get() != null;
 	}
 
 	public NodeTreeCreator nodeTreeCreator(final MapModel map) {
@@ -23,6 +23,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.freeplane.core.io.IAttributeHandler;
+import org.freeplane.core.io.IElementContentHandler;
 import org.freeplane.core.io.IElementDOMHandler;
 import org.freeplane.core.io.IReadCompletionListener;
 import org.freeplane.core.io.ReadManager;
@@ -53,6 +54,45 @@ public class NodeBuilder implements IElementDOMHandler {
 		}
 	}
 
+	private class UnparsedChildHandler implements IElementContentHandler {
+		/**
+		 * Returns the parent node as element, if the child node should be kept unparsed.
+		 */
+		@Override
+		public Object createElement(final Object parent, final String tag, final XMLElement attributes) {
+			if (!(parent instanceof NodeModel))
+				return null;
+			final NodeModel parentNode = (NodeModel) parent;
+			if (parentNode.isFolded()
+			        && (parentNode.getChildrenInternal() instanceof UnparsedChildren || parentNode.getChildCount() == 0)
+			        && loadsFoldedChildrenLazily())
+				return parentNode;
+			return null;
+		}
+
+		@Override
+		public void endElement(final Object parent, final String tag, final Object element,
+		                       final XMLElement attributes, final String content) {
+			final NodeModel parentNode = (NodeModel) parent;
+			final List<NodeModel> children = parentNode.getChildrenInternal();
+			final UnparsedChildren unparsedChildren;
+			if (children instanceof UnparsedChildren)
+				unparsedChildren = (UnparsedChildren) children;
+			else {
+				unparsedChildren = new UnparsedChildren(mapReader, parentNode);
+				parentNode.setChildrenInternal(unparsedChildren);
+				getMap().addUnparsedChildren(unparsedChildren);
+			}
+			unparsedChildren.addUnparsedChild(UnparsedChildren.toXml(tag, attributes, content));
+		}
+
+		private boolean loadsFoldedChildrenLazily() {
+			return Mode.FILE.equals(mapReader.getCurrentNodeTreeCreator().getHint(Hint.MODE))
+			        && ResourceController.getResourceController().getBooleanProperty(
+			            NodeBuilder.RESOURCES_LOAD_FOLDED_SUBTREES_LAZILY);
+		}
+	}
+
 	static class IconProperties {
 		String iconName;
 	}
@@ -61,6 +101,7 @@ public class NodeBuilder implements IElementDOMHandler {
 	private static final String RESOURCES_ALWAYS_FOLD_ALL_AFTER_LOAD = "always_fold_all_after_load";
 	private static final String RESOURCES_ALWAYS_UNFOLD_ALL_AFTER_LOAD = "always_unfold_all_after_load";
 	private static final String RESOURCES_LOAD_FOLDING = "load_folding";
+	private static final String RESOURCES_LOAD_FOLDED_SUBTREES_LAZILY = "load_folded_subtrees_lazily";
 	private static final String RESOURCES_LOAD_FOLDING_FROM_MAP_DEFAULT_FOLD_ALL = "load_folding_from_map_default_fold_all";
 	private static final String MAX_DISPLAYED_NODE_COUNT = "max_displayed_node_count";
 	private static final String RESOURCES_ALWAYS_SHOW_LESS_THAN_N_NODES_AFTER_LOAD = "always_show_less_than_N_nodes_after_load";
@@ -262,6 +303,7 @@ public class NodeBuilder implements IElementDOMHandler {
 	public void registerBy(final ReadManager reader) {
 		registerAttributeHandlers(reader);
 		reader.addElementHandler(NodeBuilder.XML_NODE, this);
+		reader.addUnparsedElementHandler(NodeBuilder.XML_NODE, new UnparsedChildHandler());
 		reader.addElementHandler(NodeBuilder.XML_STYLENODE, this);
 	}
 
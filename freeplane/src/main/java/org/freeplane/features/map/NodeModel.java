@@ -68,9 +68,11 @@ public class NodeModel{
 	public static final String NODE_ICON_SIZE = "icon_size";
 	static public final Object HYPERLINK_CHANGED = "hyperlink_changed";
 
+	/** shared by all nodes without children until a child is inserted */
+	private static final List<NodeModel> NO_CHILDREN = Collections.unmodifiableList(new ArrayList<NodeModel>(0));
 	private List<NodeModel> children;
 	private NodeModel parent;
-	final private FilterInfo filterInfo;
+	private int filterFlags = FilterInfo.FILTER_INITIAL_VALUE;
 	private String id;
 	private MapModel map = null;
 	private int position = NodeModel.UNKNOWN_POSITION;
@@ -78,14 +80,51 @@ public class NodeModel{
 	private Collection<INodeView> views = null;
 
 	private SharedNodeData sharedData;
+	/** null while the node has no clones, its own clone lists are then created on demand */
 	private Clones[] clones;
+	private boolean isAttached;
 
 	void setClones(Clones clones) {
-		this.clones[clones.getCloneType().ordinal()] = clones;
+		storeClones(clones);
 		for(NodeModel clone : clones)
 			clone.fireNodeChanged(new NodeChangeEvent(this, NodeModel.UNKNOWN_PROPERTY, null, null, false, false));
 	}
 
+	private void storeClones(Clones newClones) {
+		if (clones == null) {
+			if (isOwnClones(newClones) && (newClones.size() != 0) == isAttached)
+				return;
+			clones = new Clones[]{ownClones(TREE), ownClones(CONTENT)};
+		}
+		clones[newClones.getCloneType().ordinal()] = newClones;
+		if (isOwnClones(clones[TREE_CLONE_INDEX]) && isOwnClones(clones[CONTENT_CLONE_INDEX])
+		        && clones[TREE_CLONE_INDEX].size() == clones[CONTENT_CLONE_INDEX].size()) {
+			isAttached = clones[TREE_CLONE_INDEX].size() != 0;
+			clones = null;
+		}
+	}
+
+	private boolean isOwnClones(Clones clones) {
+		if (clones instanceof SingleNodeList)
+			return clones.head() == this;
+		return clones instanceof DetachedNodeList && ((DetachedNodeList) clones).isDetachedNode(this);
+	}
+
+	private Clones ownClones(CloneType cloneType) {
+		return isAttached ? new SingleNodeList(this, cloneType) : new DetachedNodeList(this, cloneType);
+	}
+
+	/** false while its own clone lists are created on demand */
+	boolean storesCloneLists() {
+		return clones != null;
+	}
+
+	private int cloneCount(int cloneIndex) {
+		if (clones == null)
+			return isAttached ? 1 : 0;
+		return clones[cloneIndex].size();
+	}
+
 	public Object getUserObject() {
 		return sharedData.getUserObject();
 	}
@@ -96,19 +135,17 @@ public class NodeModel{
 
 	public NodeModel(final Object userObject, final MapModel map) {
 		this.map = map;
-		children = new ArrayList<NodeModel>();
+		children = NO_CHILDREN;
 		sharedData = new SharedNodeData();
 		init(userObject);
-		filterInfo = new FilterInfo();
-		clones = new Clones[]{new DetachedNodeList(this, TREE), new DetachedNodeList(this, CONTENT)};
 	}
 
 	private NodeModel(NodeModel toBeCloned, CloneType cloneType){
 		this.map = toBeCloned.map;
 		this.sharedData = toBeCloned.sharedData;
-		children = new ArrayList<NodeModel>();
-		filterInfo = new FilterInfo();
-		clones = new Clones[]{new DetachedNodeList(this, cloneType == TREE ? toBeCloned : this, TREE), new DetachedNodeList(this, toBeCloned, CONTENT)};
+		children = NO_CHILDREN;
+		storeClones(new DetachedNodeList(this, cloneType == TREE ? toBeCloned : this, TREE));
+		storeClones(new DetachedNodeList(this, toBeCloned, CONTENT));
 	}
 
 	protected void init(final Object userObject) {
@@ -161,6 +198,20 @@ public class NodeModel{
 	    this.children = chidren;
     }
 
+	/** replaces the shared empty list of nodes without children by a modifiable list */
+	protected List<NodeModel> getModifiableChildrenInternal() {
+		if (children == NO_CHILDREN)
+			children = new ArrayList<NodeModel>();
+		return children;
+	}
+
+	/**
+	 * Returns children without building the folded child nodes kept unparsed on map loading.
+	 */
+	List<NodeModel> getParsedChildren() {
+		return children instanceof UnparsedChildren ? ((UnparsedChildren) children).getParsedChildren() : children;
+	}
+
 	public Enumeration<NodeModel> children() {
 		final Iterator<NodeModel> i = getChildrenInternal().iterator();
 		return new Enumeration<NodeModel>() {
@@ -252,8 +303,27 @@ public class NodeModel{
 		return getExtensionContainer().getExtensions();
 	};
 
+	/** returns a view on the filter flags, filters use {@link #getFilterFlags()} to avoid its allocation */
 	public FilterInfo getFilterInfo() {
-		return filterInfo;
+		return new FilterInfo() {
+			@Override
+			protected int getFlags() {
+				return getFilterFlags();
+			}
+
+			@Override
+			protected void setFlags(int flags) {
+				setFilterFlags(flags);
+			}
+		};
+	}
+
+	public int getFilterFlags() {
+		return filterFlags;
+	}
+
+	public void setFilterFlags(int flags) {
+		filterFlags = flags;
 	}
 
 	public HistoryInformationModel getHistoryInformation() {
@@ -337,10 +407,10 @@ public class NodeModel{
 		final NodeModel childNode = child;
 		if (index < 0) {
 			index = getChildCount();
-			children.add(index, child);
+			getModifiableChildrenInternal().add(index, child);
 		}
 		else {
-			children.add(index, child);
+			getModifiableChildrenInternal().add(index, child);
 			preferredChild = childNode;
 		}
 		child.setParent(this);
@@ -488,7 +558,7 @@ public class NodeModel{
 	public void setLeft(final boolean isLeft) {
 		position = isLeft ? NodeModel.LEFT_POSITION : NodeModel.RIGHT_POSITION;
 		if (!isRoot()) {
-			for (final NodeModel child : children) {
+			for (final NodeModel child : getParsedChildren()) {
 				if (child.position != position) {
 					child.setLeft(isLeft);
 				}
@@ -500,7 +570,7 @@ public class NodeModel{
 	 */
 	public void setMap(final MapModel map) {
 		this.map = map;
-		for (final NodeModel child : children) {
+		for (final NodeModel child : getParsedChildren()) {
 			child.setMap(map);
 		}
 	}
@@ -516,29 +586,33 @@ public class NodeModel{
 
 	void attach() {
 		attachClones();
-	    for(NodeModel child : children)
+	    for(NodeModel child : getParsedChildren())
 	    	child.attach();
     }
 
 	private void attachClones() {
-		for(Clones clonesGroup : clones)
-			clonesGroup.attach();
+		final Clones treeClones = clones(TREE);
+		final Clones contentClones = clones(CONTENT);
+		treeClones.attach();
+		contentClones.attach();
 	}
 
 	private void detach() {
 		detachClones();
-	    for(NodeModel child : children)
+	    for(NodeModel child : getParsedChildren())
 	    	child.detach();
     }
 
 	private void detachClones() {
-		for(Clones clonesGroup : clones)
-			clonesGroup.detach(this);
+		final Clones treeClones = clones(TREE);
+		final Clones contentClones = clones(CONTENT);
+		treeClones.detach(this);
+		contentClones.detach(this);
 	}
 
 
 	boolean isAttached() {
-	    return clones[0].size() != 0;
+	    return cloneCount(TREE_CLONE_INDEX) != 0;
     }
 
 	public final void setText(final String text) {
@@ -587,7 +661,7 @@ public class NodeModel{
     }
 
 	void fireNodeChanged(INodeChangeListener[] nodeChangeListeners, final NodeChangeEvent nodeChangeEvent) {
-		for(NodeModel node : clones[CONTENT.ordinal()]){
+		for(NodeModel node : clones(CONTENT)){
 			final NodeChangeEvent cloneEvent = nodeChangeEvent.forNode(node);
 			node.fireSingleNodeChanged(nodeChangeListeners, cloneEvent);
 		}
@@ -627,8 +701,8 @@ public class NodeModel{
 	public void convertToClone(NodeModel node, CloneType cloneType) {
 		sharedData = node.sharedData;
 		if(cloneType == TREE)
-			this.clones[TREE.ordinal()] = new DetachedNodeList(this, node, TREE);
-		this.clones[CONTENT.ordinal()] = new DetachedNodeList(this, node, CONTENT);
+			storeClones(new DetachedNodeList(this, node, TREE));
+		storeClones(new DetachedNodeList(this, node, CONTENT));
     }
 
 	public  Clones subtreeClones() {
@@ -640,6 +714,8 @@ public class NodeModel{
     }
 
 	Clones clones(final CloneType cloneType) {
+		if (clones == null)
+			return ownClones(cloneType);
 		return clones[cloneType.ordinal()];
 	}
 
@@ -670,12 +746,12 @@ public class NodeModel{
     }
 
 	public boolean isCloneTreeRoot(){
-		return parent != null && parent.clones[TREE_CLONE_INDEX].size() < clones[TREE_CLONE_INDEX].size()
-				|| clones[TREE_CLONE_INDEX].size() == 1 && clones[CONTENT_CLONE_INDEX].size() > 1;
+		return parent != null && parent.cloneCount(TREE_CLONE_INDEX) < cloneCount(TREE_CLONE_INDEX)
+				|| cloneCount(TREE_CLONE_INDEX) == 1 && cloneCount(CONTENT_CLONE_INDEX) > 1;
 	}
 
 	public boolean isCloneTreeNode(){
-		return parent != null && clones[TREE_CLONE_INDEX].size() > 1 && parent.clones[TREE_CLONE_INDEX].size() == clones[TREE_CLONE_INDEX].size();
+		return parent != null && cloneCount(TREE_CLONE_INDEX) > 1 && parent.cloneCount(TREE_CLONE_INDEX) == cloneCount(TREE_CLONE_INDEX);
 	}
 
 	public int nextNodeIndex(int index, final boolean leftSide) {
@@ -711,12 +787,16 @@ public class NodeModel{
 		SharedNodeData sharedDataSwap = sharedData;
 		this.sharedData = duplicate.sharedData;
 		duplicate.sharedData = sharedDataSwap;
+		final Clones[] ownClonesOfDuplicate = {duplicate.clones(TREE), duplicate.clones(CONTENT)};
 		Clones[] clonesSwap = clones;
+		final boolean isAttachedSwap = isAttached;
 		this.clones = duplicate.clones;
+		this.isAttached = duplicate.isAttached;
 		duplicate.clones = clonesSwap;
+		duplicate.isAttached = isAttachedSwap;
 		for(CloneType cloneType : CloneType.values()) {
-			final DetachedNodeList detachedClone = (DetachedNodeList) clones[cloneType.ordinal()];
-			clones[cloneType.ordinal()] = detachedClone.forClone(this);
+			final DetachedNodeList detachedClone = (DetachedNodeList) ownClonesOfDuplicate[cloneType.ordinal()];
+			storeClones(detachedClone.forClone(this));
 		}
 
 		this.attachClones();
@@ -0,0 +1,169 @@
+package org.freeplane.features.map;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Nodes of a map by their IDs.
+ *
+ * IDs generated by {@link MapModel#generateNodeID(String)} consist of prefix {@value #PREFIX} and a number.
+ * Their numbers are kept in an open addressing table of ints instead of hashing the ID strings,
+ * other IDs are kept in a hash map.
+ *
+ * IDs of removed nodes stay registered without node so that they are not generated again
+ * while the nodes can be restored by undo.
+ * IDs found in the text of not yet parsed subtrees are reserved by the subtrees, so that they are neither generated
+ * nor given to other nodes before the subtrees are parsed.
+ *
+ * Generated numbers count up from 1 and from above the highest registered number,
+ * so that the same map always generates the same IDs.
+ * After {@link #MAX_NUMBER} they wrap around to the first free number.
+ */
+class NodeRegistry {
+	static final String PREFIX = "ID_";
+	private static final int NOT_A_NUMBER = -1;
+	/** the largest number of an ID, the table keeps the number + 1 */
+	static final int MAX_NUMBER = Integer.MAX_VALUE - 1;
+	private static final int INITIAL_CAPACITY = 64;
+
+	/** number + 1, 0 for free slots */
+	private int[] keys = new int[INITIAL_CAPACITY];
+	/** node, null for removed nodes or the owner of a reserved ID */
+	private Object[] nodes = new Object[INITIAL_CAPACITY];
+	private int size;
+	private final Map<String, Object> nodesByOtherID = new HashMap<String, Object>();
+	private int nextNumber = 1;
+
+	NodeModel get(String id) {
+		final Object node = lookup(id);
+		return node instanceof NodeModel ? (NodeModel) node : null;
+	}
+
+	boolean isReserved(String id) {
+		return getReservation(id) != null;
+	}
+
+	/** returns the owner which has reserved the ID or null */
+	Object getReservation(String id) {
+		final Object node = lookup(id);
+		return node instanceof NodeModel ? null : node;
+	}
+
+	private Object lookup(String id) {
+		final int number = numberOf(id);
+		if (number == NOT_A_NUMBER)
+			return nodesByOtherID.get(id);
+		final int slot = slotOf(number);
+		return keys[slot] == 0 ? null : nodes[slot];
+	}
+
+	/** @return the node registered before */
+	NodeModel put(String id, NodeModel node) {
+		final Object old = store(id, node);
+		return old instanceof NodeModel ? (NodeModel) old : null;
+	}
+
+	/** reserves an ID which has not been registered yet */
+	void reserve(String id, Object owner) {
+		if (!isRegistered(id))
+			store(id, owner);
+	}
+
+	/** makes a reserved ID available to the node which is going to be parsed with it */
+	void release(String id) {
+		if (isReserved(id))
+			store(id, null);
+	}
+
+	private boolean isRegistered(String id) {
+		final int number = numberOf(id);
+		if (number == NOT_A_NUMBER)
+			return nodesByOtherID.containsKey(id);
+		return keys[slotOf(number)] != 0;
+	}
+
+	private Object store(String id, Object node) {
+		final int number = numberOf(id);
+		if (number == NOT_A_NUMBER)
+			return nodesByOtherID.put(id, node);
+		if (number >= nextNumber)
+			nextNumber = following(number);
+		int slot = slotOf(number);
+		if (keys[slot] != 0) {
+			final Object old = nodes[slot];
+			nodes[slot] = node;
+			return old;
+		}
+		if (2 * (size + 1) > keys.length) {
+			grow();
+			slot = slotOf(number);
+		}
+		keys[slot] = number + 1;
+		nodes[slot] = node;
+		size++;
+		return null;
+	}
+
+	/**
+	 * returns an ID which has never been registered,
+	 * numbers above all registered numbers are counted up and restart from 1 after the largest number
+	 */
+	String generateID() {
+		while (keys[slotOf(nextNumber)] != 0)
+			nextNumber = following(nextNumber);
+		final int number = nextNumber;
+		nextNumber = following(number);
+		return PREFIX + number;
+	}
+
+	private static int following(int number) {
+		return number == MAX_NUMBER ? 1 : number + 1;
+	}
+
+	/** returns the slot containing the number or the free slot for it */
+	private int slotOf(int number) {
+		final int mask = keys.length - 1;
+		int slot = mix(number) & mask;
+		while (keys[slot] != 0 && keys[slot] != number + 1)
+			slot = (slot + 1) & mask;
+		return slot;
+	}
+
+	private static int mix(int number) {
+		final int h = number * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private void grow() {
+		final int[] oldKeys = keys;
+		final Object[] oldNodes = nodes;
+		keys = new int[oldKeys.length * 2];
+		nodes = new Object[oldKeys.length * 2];
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != 0) {
+				final int slot = slotOf(oldKeys[i] - 1);
+				keys[slot] = oldKeys[i];
+				nodes[slot] = oldNodes[i];
+			}
+		}
+	}
+
+	/** returns the number of IDs like ID_123 written without leading zeros, otherwise {@link #NOT_A_NUMBER} */
+	static int numberOf(String id) {
+		if (id == null)
+			return NOT_A_NUMBER;
+		final int length = id.length();
+		if (length <= PREFIX.length() || length > PREFIX.length() + 10 || !id.startsWith(PREFIX))
+			return NOT_A_NUMBER;
+		if (id.charAt(PREFIX.length()) == '0' && length > PREFIX.length() + 1)
+			return NOT_A_NUMBER;
+		long number = 0;
+		for (int i = PREFIX.length(); i < length; i++) {
+			final char c = id.charAt(i);
+			if (c < '0' || c > '9')
+				return NOT_A_NUMBER;
+			number = number * 10 + (c - '0');
+		}
+		return number <= MAX_NUMBER ? (int) number : NOT_A_NUMBER;
+	}
+}
@@ -21,6 +21,7 @@ package org.freeplane.features.map;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.freeplane.core.io.IAttributeWriter;
@@ -73,6 +74,12 @@ public class NodeWriter implements IElementWriter, IAttributeWriter {
 	}
 
 	private void saveChildren(final ITreeWriter writer, final NodeModel node) throws IOException {
+		final List<NodeModel> children = node.getChildrenInternal();
+		if (children instanceof UnparsedChildren && !((UnparsedChildren) children).isParsed()
+		        && writeInvisible && Mode.FILE.equals(mode(writer))) {
+			((UnparsedChildren) children).writeUnparsedChildren(writer);
+			return;
+		}
 		for (final NodeModel child: node.getChildren()) {
 		if (writeInvisible || child.isVisible()) {
 				writer.setHint(WriterHint.ALREADY_WRITTEN, isAlreadyWritten(child));
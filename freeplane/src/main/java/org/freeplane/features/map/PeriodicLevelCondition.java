@@ -1,7 +1,10 @@
 package org.freeplane.features.map;
 
+import java.util.Set;
+
 import org.freeplane.core.util.TextUtils;
 import org.freeplane.features.filter.condition.ASelectableCondition;
+import org.freeplane.features.filter.condition.ConditionDependency;
 import org.freeplane.n3.nanoxml.XMLElement;
 
 public class PeriodicLevelCondition extends ASelectableCondition {
@@ -40,6 +43,11 @@ public class PeriodicLevelCondition extends ASelectableCondition {
 		element.setAttribute("REMAINDER", Integer.toString(remainder));
 	}
 
+	@Override
+	public Set<ConditionDependency> getDependencies() {
+		return ConditionDependency.of(ConditionDependency.LEVEL);
+	}
+
 	@Override
     protected String createDescription() {
 	    return TextUtils.format("periodic_formula", period, remainder);
@@ -1,6 +1,7 @@
 package org.freeplane.features.map;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 
@@ -13,6 +14,7 @@ public class SummaryLevels{
 	public  final int highestSummaryLevel;
 	public  final boolean[] sides;
 	private final NodeModel parentNode;
+	private int[] summaryNodeIndices;
 	
 	public SummaryLevels(NodeModel parentNode) {
 		this(parentNode, false);
@@ -97,19 +99,36 @@ public class SummaryLevels{
 	}
 
 	public int findSummaryNodeIndex(int index) {
-		final int nodeLevel = summaryLevels[index];
-		final boolean leftSide = parentNode.getChildAt(index).isLeft();
-		for (int i = index + 1; i < parentNode.getChildCount(); i++){
+		if(summaryNodeIndices == null)
+			summaryNodeIndices = findSummaryNodeIndices();
+		return summaryNodeIndices[index];
+	}
+
+	/**
+	 * Finds summary nodes of all children in one backward pass.
+	 * The summary node of a child is the next node on its side with a higher level
+	 * unless a first group node of the child's level comes before it.
+	 */
+	private int[] findSummaryNodeIndices() {
+		final int childCount = summaryLevels.length;
+		final int[] summaryNodeIndices = new int[childCount];
+		// by side (right, left) and level: summary node of a node preceding the current one
+		final int[][] nextSummaryNodeIndices = new int[2][highestSummaryLevel + 1];
+		for (int[] indices : nextSummaryNodeIndices)
+			Arrays.fill(indices, NODE_NOT_FOUND);
+		for (int i = childCount - 1; i >= 0; i--){
+			final NodeModel child = parentNode.getChildAt(i);
+			final int side = child.isLeft() ? 1 : 0;
 			final int level = summaryLevels[i];
-			if(level == nodeLevel && SummaryNode.isFirstGroupNode(parentNode.getChildAt(i)))
-				return NODE_NOT_FOUND;
-			if(level > nodeLevel) {
-				final NodeModel summaryNode = parentNode.getChildAt(i);
-				if(summaryNode.isLeft() == leftSide)
-					return i;
+			summaryNodeIndices[i] = nextSummaryNodeIndices[side][level];
+			if(SummaryNode.isFirstGroupNode(child)) {
+				nextSummaryNodeIndices[0][level] = NODE_NOT_FOUND;
+				nextSummaryNodeIndices[1][level] = NODE_NOT_FOUND;
 			}
+			for (int lowerLevel = 0; lowerLevel < level; lowerLevel++)
+				nextSummaryNodeIndices[side][lowerLevel] = i;
 		}
-		return NODE_NOT_FOUND;
+		return summaryNodeIndices;
 	}
 	
 	public NodeModel findGroupBeginNode(int index) {
@@ -0,0 +1,214 @@
+package org.freeplane.features.map;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+
+import org.freeplane.core.io.ITreeWriter;
+import org.freeplane.core.util.LogUtils;
+import org.freeplane.features.map.MapWriter.Hint;
+import org.freeplane.features.map.MapWriter.Mode;
+import org.freeplane.n3.nanoxml.XMLElement;
+
+/**
+ * Child list of a folded node whose children were kept as xml text while the map was loaded.
+ *
+ * Its size is known without parsing, so that folded nodes can be painted and laid out.
+ * All other operations build the child nodes first.
+ * Child nodes are also built if the id of one of their nodes is looked up.
+ * Unparsed children are written back as they were read.
+ * IDs of their nodes are reserved in the map, so that new nodes do not get them before they are parsed.
+ *
+ * Connectors starting in unparsed children are not known to the map view,
+ * so they are only painted after the children have been parsed.
+ */
+class UnparsedChildren extends AbstractList<NodeModel> {
+	private static final String[] CLONE_REFERENCE_ATTRIBUTES = {" REFERENCE_ID=\"", " TREE_ID=\"", " CONTENT_ID=\""};
+
+	static String toXml(final String tag, final XMLElement attributes, final String content) {
+		final StringBuilder xml = new StringBuilder();
+		xml.append('<').append(tag);
+		final Enumeration<String> attributeNames = attributes.enumerateAttributeNames();
+		while (attributeNames.hasMoreElements()) {
+			final String name = attributeNames.nextElement();
+			xml.append(' ').append(name).append("=\"");
+			appendEscaped(xml, attributes.getAttribute(name, ""));
+			xml.append('"');
+		}
+		if (content == null || content.isEmpty())
+			xml.append("/>");
+		else
+			xml.append('>').append(content).append("</").append(tag).append('>');
+		return xml.toString();
+	}
+
+	private static void appendEscaped(final StringBuilder xml, final String value) {
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+			switch (c) {
+				case '&':
+					xml.append("&amp;");
+					break;
+				case '<':
+					xml.append("&lt;");
+					break;
+				case '>':
+					xml.append("&gt;");
+					break;
+				case '"':
+					xml.append("&quot;");
+					break;
+				default:
+					if (c < ' ')
+						xml.append("&#x").append(Integer.toString(c, 16)).append(';');
+					else
+						xml.append(c);
+			}
+		}
+	}
+
+	private final MapReader mapReader;
+	private final NodeModel parent;
+	private List<String> unparsedChildren;
+	private List<NodeModel> children;
+	private boolean containsCloneReferences;
+
+	UnparsedChildren(final MapReader mapReader, final NodeModel parent) {
+		this.mapReader = mapReader;
+		this.parent = parent;
+		this.unparsedChildren = new ArrayList<String>();
+		this.children = null;
+		this.containsCloneReferences = false;
+	}
+
+	/** returns values of all ID attributes in the xml text */
+	static List<String> idsOf(final String xml) {
+		final List<String> ids = new ArrayList<String>();
+		for (int index = xml.indexOf("ID=", 1); index != -1; index = xml.indexOf("ID=", index + 3)) {
+			final int quoteIndex = index + 3;
+			if (!Character.isWhitespace(xml.charAt(index - 1)) || quoteIndex >= xml.length())
+				continue;
+			final char quote = xml.charAt(quoteIndex);
+			if (quote != '"' && quote != '\'')
+				continue;
+			final int endIndex = xml.indexOf(quote, quoteIndex + 1);
+			if (endIndex == -1)
+				break;
+			ids.add(xml.substring(quoteIndex + 1, endIndex));
+		}
+		return ids;
+	}
+
+	void addUnparsedChild(final String xml) {
+		unparsedChildren.add(xml);
+		final MapModel map = parent.getMap();
+		for (final String id : idsOf(xml))
+			map.reserveNodeID(id, this);
+		if (!containsCloneReferences) {
+			for (final String cloneReference : CLONE_REFERENCE_ATTRIBUTES) {
+				if (xml.contains(cloneReference)) {
+					containsCloneReferences = true;
+					break;
+				}
+			}
+		}
+	}
+
+	boolean isParsed() {
+		return children != null;
+	}
+
+	boolean containsCloneReferences() {
+		return containsCloneReferences;
+	}
+
+	NodeModel getParent() {
+		return parent;
+	}
+
+	List<NodeModel> getParsedChildren() {
+		return children != null ? children : Collections.<NodeModel> emptyList();
+	}
+
+	void writeUnparsedChildren(final ITreeWriter writer) throws IOException {
+		for (final String xml : unparsedChildren) {
+			writer.addElementContent(xml);
+		}
+	}
+
+	List<NodeModel> parse() {
+		if (children != null)
+			return children;
+		children = new ArrayList<NodeModel>(unparsedChildren.size());
+		final List<String> parsedXml = unparsedChildren;
+		unparsedChildren = Collections.emptyList();
+		final MapModel map = parent.getMap();
+		map.removeUnparsedChildren(this);
+		final Map<Object, Object> hints = new HashMap<Object, Object>();
+		hints.put(Hint.MODE, Mode.FILE);
+		hints.put(NodeBuilder.FOLDING_LOADED, Boolean.TRUE);
+		for (final String xml : parsedXml) {
+			for (final String id : idsOf(xml))
+				map.releaseNodeID(id);
+			try {
+				final NodeModel child = mapReader.createNodeTreeFromXml(map, new StringReader(xml), hints);
+				children.add(child);
+				child.setParent(parent);
+			}
+			catch (final Exception e) {
+				LogUtils.severe(e);
+			}
+		}
+		if (parent.getChildrenInternal() == this)
+			parent.setChildrenInternal(children);
+		return children;
+	}
+
+	@Override
+	public int size() {
+		return children != null ? children.size() : unparsedChildren.size();
+	}
+
+	@Override
+	public NodeModel get(final int index) {
+		return parse().get(index);
+	}
+
+	@Override
+	public NodeModel set(final int index, final NodeModel element) {
+		return parse().set(index, element);
+	}
+
+	@Override
+	public void add(final int index, final NodeModel element) {
+		parse().add(index, element);
+	}
+
+	@Override
+	public NodeModel remove(final int index) {
+		return parse().remove(index);
+	}
+
+	@Override
+	public int indexOf(final Object o) {
+		return parse().indexOf(o);
+	}
+
+	@Override
+	public Iterator<NodeModel> iterator() {
+		return parse().iterator();
+	}
+
+	@Override
+	public ListIterator<NodeModel> listIterator(final int index) {
+		return parse().listIterator(index);
+	}
+}
@@ -73,7 +73,7 @@ class FNodeModel extends NodeModel {
 							final FNodeModel fileNodeModel = new FNodeModel(childFile, getMap());
 							NodeLinks.createLinkExtension(fileNodeModel).setHyperLink(childFile.toURI());
 							fileNodeModel.setLeft(isRoot() ?  (childCount % 2 == 1) : isLeft());
-							super.getChildrenInternal().add(childCount, fileNodeModel);
+							super.getModifiableChildrenInternal().add(childCount, fileNodeModel);
 							childCount++;
 							fileNodeModel.setParent(this);
 						}
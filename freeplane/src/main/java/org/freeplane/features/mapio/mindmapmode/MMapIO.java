@@ -29,6 +29,8 @@ import org.freeplane.features.map.MapModel;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.features.map.mindmapmode.MMapController;
 import org.freeplane.features.mapio.MapIO;
+import org.freeplane.features.mode.Controller;
+import org.freeplane.features.mode.ModeController;
 import org.freeplane.features.mode.mindmapmode.MModeController;
 import org.freeplane.features.url.UrlManager;
 import org.freeplane.features.url.mindmapmode.MFileManager;
@@ -43,10 +45,10 @@ import org.freeplane.n3.nanoxml.XMLParseException;
 public class MMapIO extends MapIO{
 
 
-	private static MMapIO INSTANCE;
-
+	/** returns the instance of the current controller, each controller has its own map mode controller */
 	public static MMapIO getInstance() {
-		return INSTANCE;
+		final ModeController modeController = Controller.getCurrentController().getModeController(MModeController.MODENAME);
+		return modeController != null ? (MMapIO) modeController.getExtension(MapIO.class) : null;
 	}
 
 	final private MFileManager fileManager;
@@ -58,13 +60,12 @@ public class MMapIO extends MapIO{
     }
 
 	public static void install(MModeController modeController){
-		if(INSTANCE != null) {
+		if(getInstance() != null) {
 			throw new IllegalStateException("Should be used only in one mode");
 		}
 		MFileManager urlManager = (MFileManager) modeController.getExtension(UrlManager.class);
 		MMapController mapController = (MMapController) modeController.getMapController();
-		INSTANCE = new MMapIO(urlManager, mapController);
-		modeController.addExtension(MapIO.class, INSTANCE);
+		modeController.addExtension(MapIO.class, new MMapIO(urlManager, mapController));
 	}
     @Override
 	public void load(URL url, MapModel map) throws FileNotFoundException, IOException, XMLException, XMLParseException,
@@ -268,6 +268,14 @@ public class Controller extends AController implements FreeplaneActions, IMapLif
 		currentController = controller;
 	}
 
+	/** makes given controller current for the calling thread only, null makes the application controller current again */
+	public static void setCurrentThreadController(final Controller controller){
+		if (controller != null)
+			threadController.set(controller);
+		else
+			threadController.remove();
+	}
+
 	public static ModeController getCurrentModeController() {
 	    return getCurrentController().getModeController();
     }
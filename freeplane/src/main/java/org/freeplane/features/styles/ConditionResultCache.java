@@ -0,0 +1,150 @@
+package org.freeplane.features.styles;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.freeplane.core.extension.IExtension;
+import org.freeplane.features.filter.condition.ASelectableCondition;
+import org.freeplane.features.filter.condition.ConditionDependency;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.NodeModel;
+
+/**
+ * Results of conditional style conditions per node, kept per map for conditions declaring their
+ * {@link ASelectableCondition#getDependencies() dependencies}.
+ *
+ * Every node has a change counter for each kind of dependency which is incremented by {@link LogicalStyleController}.
+ * A result is stored together with the sum of the counters of the dependencies of its condition
+ * and reused while the sum is unchanged.
+ */
+class ConditionResultCache implements IExtension {
+	static synchronized ConditionResultCache of(MapModel map) {
+		ConditionResultCache cache = map.getExtension(ConditionResultCache.class);
+		if (cache == null) {
+			cache = new ConditionResultCache();
+			map.addExtension(cache);
+		}
+		return cache;
+	}
+
+	static synchronized ConditionResultCache getExistingCache(MapModel map) {
+		return map.getExtension(ConditionResultCache.class);
+	}
+
+	private static final int UNKNOWN_DEPENDENCIES = -1;
+	private static final ConditionDependency[] DEPENDENCIES = ConditionDependency.values();
+
+	private static class NodeEntry {
+		final int[] versions = new int[DEPENDENCIES.length];
+		/** (signature + 1) << 1 | result by condition index, 0 if not evaluated */
+		long[] results = new long[0];
+
+		long signature(int dependencyMask) {
+			long signature = 0;
+			for (int i = 0; i < versions.length; i++) {
+				if ((dependencyMask & 1 << i) != 0)
+					signature += versions[i];
+			}
+			return signature;
+		}
+	}
+
+	private final Map<ASelectableCondition, Integer> conditionIndices = new IdentityHashMap<>();
+	private final ArrayList<Integer> dependencyMasks = new ArrayList<>();
+	private final Map<NodeModel, NodeEntry> entries = new HashMap<>();
+
+	ConditionResultCache() {
+	}
+
+	boolean checkNode(ASelectableCondition condition, NodeModel node) {
+		final int index;
+		final int dependencyMask;
+		final NodeEntry entry;
+		final long signature;
+		synchronized (this) {
+			index = indexOf(condition);
+			dependencyMask = dependencyMasks.get(index);
+			if (dependencyMask == UNKNOWN_DEPENDENCIES)
+				return condition.checkNodeInFormulaContext(node);
+			entry = entryOf(node);
+			signature = entry.signature(dependencyMask);
+			if (index < entry.results.length && entry.results[index] >>> 1 == signature + 1)
+				return (entry.results[index] & 1) != 0;
+		}
+		final boolean result = condition.checkNodeInFormulaContext(node);
+		synchronized (this) {
+			if (entries.get(node) == entry && entry.signature(dependencyMask) == signature) {
+				if (index >= entry.results.length) {
+					final long[] results = new long[dependencyMasks.size()];
+					System.arraycopy(entry.results, 0, results, 0, entry.results.length);
+					entry.results = results;
+				}
+				entry.results[index] = (signature + 1) << 1 | (result ? 1 : 0);
+			}
+		}
+		return result;
+	}
+
+	private int indexOf(ASelectableCondition condition) {
+		final Integer index = conditionIndices.get(condition);
+		if (index != null)
+			return index;
+		final Set<ConditionDependency> dependencies = condition.getDependencies();
+		int dependencyMask = 0;
+		if (dependencies == null)
+			dependencyMask = UNKNOWN_DEPENDENCIES;
+		else {
+			for (ConditionDependency dependency : dependencies)
+				dependencyMask |= 1 << dependency.ordinal();
+		}
+		final int newIndex = dependencyMasks.size();
+		dependencyMasks.add(dependencyMask);
+		conditionIndices.put(condition, newIndex);
+		return newIndex;
+	}
+
+	private NodeEntry entryOf(NodeModel node) {
+		NodeEntry entry = entries.get(node);
+		if (entry == null) {
+			entry = new NodeEntry();
+			entries.put(node, entry);
+		}
+		return entry;
+	}
+
+	synchronized void dependencyChanged(NodeModel node, ConditionDependency dependency) {
+		final NodeEntry entry = entries.get(node);
+		if (entry != null)
+			entry.versions[dependency.ordinal()]++;
+	}
+
+	synchronized void allDependenciesChanged(NodeModel node) {
+		final NodeEntry entry = entries.get(node);
+		if (entry != null) {
+			for (int i = 0; i < entry.versions.length; i++)
+				entry.versions[i]++;
+		}
+	}
+
+	synchronized void branchMoved(NodeModel node) {
+		dependencyChanged(node, ConditionDependency.LEVEL);
+		dependencyChanged(node, ConditionDependency.PARENT_TEXT);
+		for (NodeModel child : node.getChildren())
+			branchMoved(child);
+	}
+
+	synchronized void removeBranch(NodeModel node) {
+		entries.remove(node);
+		for (NodeModel child : node.getChildren())
+			removeBranch(child);
+	}
+
+	synchronized void clear() {
+		entries.clear();
+		conditionIndices.clear();
+		dependencyMasks.clear();
+	}
+}
@@ -3,8 +3,10 @@ package org.freeplane.features.styles;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.Set;
 
 import javax.swing.table.AbstractTableModel;
 import javax.swing.table.TableModel;
@@ -112,18 +114,23 @@ public class ConditionalStyleModel implements IExtension, Iterable<ConditionalSt
 		for (Item style : prototypeStyles)
 			styles.add(new Item(style));
 	}
-	private boolean recursiveCall;
+	/** nodes whose styles are being evaluated by the current thread, conditions checking their styles see no conditional styles */
+	private final ThreadLocal<Set<NodeModel>> nodesBeingEvaluated = ThreadLocal.withInitial(HashSet::new);
 	
 	public Collection<IStyle> getStyles(NodeModel node){
-		if(recursiveCall){
+		return getStyles(node, null);
+	}
+
+	Collection<IStyle> getStyles(NodeModel node, ConditionResultCache conditionResults){
+		final Set<NodeModel> evaluatedNodes = nodesBeingEvaluated.get();
+		if(! evaluatedNodes.add(node)){
 			return Collections.emptyList();
 		}
 		try{
-			recursiveCall = true;
 			Collection<IStyle> matchingStyles = new LinkedHashSet<IStyle>();
 			for(Item item : styles){
 				final ASelectableCondition condition = item.getCondition();
-				if( item.isActive() && (condition == null || condition.checkNodeInFormulaContext(node))){
+				if( item.isActive() && (condition == null || checkNode(condition, node, conditionResults))){
 					matchingStyles.add(item.style);
 					if(item.isLast()){
 						break;
@@ -133,9 +140,16 @@ public class ConditionalStyleModel implements IExtension, Iterable<ConditionalSt
 			return matchingStyles;
 		}
 		finally{
-			recursiveCall = false;
+			evaluatedNodes.remove(node);
 		}
 	}
+
+	private boolean checkNode(ASelectableCondition condition, NodeModel node, ConditionResultCache conditionResults) {
+		if(conditionResults != null)
+			return conditionResults.checkNode(condition, node);
+		else
+			return condition.checkNodeInFormulaContext(node);
+	}
 	
 	void addCondition(boolean isActive, ASelectableCondition condition, IStyle style, boolean isLast){
 		styles.add(new Item(isActive, condition, style, isLast));
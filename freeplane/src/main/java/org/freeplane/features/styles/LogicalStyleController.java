@@ -21,7 +21,6 @@ package org.freeplane.features.styles;
 
 import java.awt.Component;
 import java.awt.EventQueue;
-import java.lang.ref.WeakReference;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
@@ -38,7 +37,11 @@ import org.freeplane.core.resources.ResourceController;
 import org.freeplane.core.undo.IActor;
 import org.freeplane.core.util.HtmlUtils;
 import org.freeplane.core.util.TextUtils;
+import org.freeplane.features.attribute.NodeAttributeTableModel;
+import org.freeplane.features.filter.Filter;
 import org.freeplane.features.filter.condition.ASelectableCondition;
+import org.freeplane.features.filter.condition.ConditionDependency;
+import org.freeplane.features.link.NodeLinks;
 import org.freeplane.features.map.IMapChangeListener;
 import org.freeplane.features.map.INodeChangeListener;
 import org.freeplane.features.map.ITooltipProvider;
@@ -56,6 +59,7 @@ import org.freeplane.features.mode.Controller;
 import org.freeplane.features.mode.IPropertyHandler;
 import org.freeplane.features.mode.ModeController;
 import org.freeplane.features.styles.ConditionalStyleModel.Item;
+import org.freeplane.features.text.DetailTextModel;
 
 /**
  * @author Dimitry Polivaev
@@ -65,8 +69,8 @@ public class LogicalStyleController implements IExtension {
 // 	final private ModeController modeController;
 
 	private static final int STYLE_TOOLTIP = 0;
-	private WeakReference<NodeModel> cachedNode;
-	private Collection<IStyle>  cachedStyle;
+	/** per thread because formulas evaluated in parallel resolve styles on several threads */
+	private final ThreadLocal<int[]> conditionEvaluationDepth = ThreadLocal.withInitial(() -> new int[1]);
 	final private CombinedPropertyChain<Collection<IStyle>, NodeModel> styleHandlers;
 
 	public LogicalStyleController(ModeController modeController) {
@@ -84,7 +88,7 @@ public class LogicalStyleController implements IExtension {
 		addStyleGetter(IPropertyHandler.STYLE, new IPropertyHandler<Collection<IStyle>, NodeModel>() {
 			public Collection<IStyle> getProperty(NodeModel node, Collection<IStyle> currentValue) {
 				final MapStyleModel styleModel = MapStyleModel.getExtension(node.getMap());
-				Collection<IStyle> condStyles = styleModel.getConditionalStyleModel().getStyles(node);
+				Collection<IStyle> condStyles = getConditionalStyles(styleModel.getConditionalStyleModel(), node);
 				addAll(node, styleModel, currentValue, condStyles);
 				return currentValue;
 			}
@@ -99,7 +103,7 @@ public class LogicalStyleController implements IExtension {
 			public String getTooltip(ModeController modeController, NodeModel node, Component view) {
 				if(!ResourceController.getResourceController().getBooleanProperty("show_styles_in_tooltip"))
 					return null;
-				final Collection<IStyle> styles = getStyles(node);
+				final Collection<IStyle> styles = new LinkedHashSet<IStyle>(getStyles(node));
 				if(styles.size() > 0)
 					styles.remove(styles.iterator().next());
 				final String label = TextUtils.getText("node_styles");
@@ -143,8 +147,7 @@ public class LogicalStyleController implements IExtension {
 			final ConditionalStyleModel conditionalStyleModel = styleNode.getExtension(ConditionalStyleModel.class);
 			if(conditionalStyleModel == null)
 				return;
-			Collection<IStyle> styles = conditionalStyleModel.getStyles(node);
-			cachedNode = null;
+			Collection<IStyle> styles = getConditionalStyles(conditionalStyleModel, node);
 			addAll(node, styleModel, currentValue, styles);
     }
 
@@ -152,38 +155,83 @@ public class LogicalStyleController implements IExtension {
 		ModeController modeController = Controller.getCurrentModeController();
 		final MapController mapController = modeController.getMapController();
 		mapController.addMapChangeListener(new IMapChangeListener() {
-			public void onPreNodeMoved(NodeMoveEvent nodeMoveEvent) {
-				clearCache();
-			}
-
-			public void onPreNodeDelete(NodeDeletionEvent nodeDeletionEvent) {
-				clearCache();
-			}
-
 			public void onNodeMoved(NodeMoveEvent nodeMoveEvent) {
-				clearCache();
+				removeCachedBranch(nodeMoveEvent.child);
+				removeCachedStyles(nodeMoveEvent.oldParent);
+				removeCachedStyles(nodeMoveEvent.newParent);
+				final ConditionResultCache conditionResults = conditionResultsOf(nodeMoveEvent.child.getMap());
+				if (conditionResults != null) {
+					conditionResults.branchMoved(nodeMoveEvent.child);
+					conditionResults.dependencyChanged(nodeMoveEvent.oldParent, ConditionDependency.CHILDREN);
+					conditionResults.dependencyChanged(nodeMoveEvent.newParent, ConditionDependency.CHILDREN);
+				}
 			}
 
 			public void onNodeInserted(NodeModel parent, NodeModel child, int newIndex) {
-				clearCache();
+				removeCachedBranch(child);
+				removeCachedStyles(parent);
+				final ConditionResultCache conditionResults = conditionResultsOf(parent.getMap());
+				if (conditionResults != null) {
+					conditionResults.branchMoved(child);
+					conditionResults.dependencyChanged(parent, ConditionDependency.CHILDREN);
+				}
 			}
 
 			public void onNodeDeleted(NodeDeletionEvent nodeDeletionEvent) {
-				clearCache();
+				removeCachedBranch(nodeDeletionEvent.node);
+				removeCachedStyles(nodeDeletionEvent.parent);
+				final ConditionResultCache conditionResults = conditionResultsOf(nodeDeletionEvent.parent.getMap());
+				if (conditionResults != null) {
+					conditionResults.removeBranch(nodeDeletionEvent.node);
+					conditionResults.dependencyChanged(nodeDeletionEvent.parent, ConditionDependency.CHILDREN);
+				}
 			}
 
 			public void mapChanged(MapChangeEvent event) {
-				clearCache();
+				if (!Filter.class.equals(event.getProperty())) {
+					clearCache(event.getMap());
+					final ConditionResultCache conditionResults = conditionResultsOf(event.getMap());
+					if (conditionResults != null)
+						conditionResults.clear();
+				}
 			}
 		});
 		mapController.addNodeChangeListener(new INodeChangeListener() {
 			public void nodeChanged(NodeChangeEvent event) {
-				clearCache();
+				final ConditionResultCache conditionResults = conditionResultsOf(event.getNode().getMap());
+				for (NodeModel node : event.getNode().allClones()) {
+					removeCachedStyles(node);
+					if (conditionResults != null)
+						updateConditionDependencies(conditionResults, node, event.getProperty());
+				}
 			}
 		});
 
     }
 
+	private void updateConditionDependencies(final ConditionResultCache conditionResults, final NodeModel node,
+	                                         final Object property) {
+		if (NodeModel.NODE_TEXT.equals(property)) {
+			conditionResults.dependencyChanged(node, ConditionDependency.TEXT);
+			for (NodeModel child : node.getChildren())
+				conditionResults.dependencyChanged(child, ConditionDependency.PARENT_TEXT);
+		}
+		else if (NodeModel.NOTE_TEXT.equals(property))
+			conditionResults.dependencyChanged(node, ConditionDependency.NOTE);
+		else if (DetailTextModel.class.equals(property))
+			conditionResults.dependencyChanged(node, ConditionDependency.DETAILS);
+		else if (NodeAttributeTableModel.class.equals(property))
+			conditionResults.dependencyChanged(node, ConditionDependency.ATTRIBUTES);
+		else if (NodeLinks.HYPERLINK_CHANGED.equals(property))
+			conditionResults.dependencyChanged(node, ConditionDependency.LINKS);
+		else {
+			// formula results, formats and unknown changes can affect everything
+			conditionResults.allDependenciesChanged(node);
+			for (NodeModel child : node.getChildren())
+				conditionResults.dependencyChanged(child, ConditionDependency.PARENT_TEXT);
+		}
+	}
+
 	private void createBuilder() {
 		ModeController modeController = Controller.getCurrentModeController();
 		final MapController mapController = modeController.getMapController();
@@ -294,15 +342,36 @@ public class LogicalStyleController implements IExtension {
 		}
 		return MapStyleModel.DEFAULT_STYLE;
 	}
+	/** returns an unmodifiable collection cached until the node or the map styles change */
 	public Collection<IStyle>  getStyles(final NodeModel node) {
-		if(cachedNode != null && node.equals(cachedNode.get())){
-			return cachedStyle;
+		final MapModel map = node.getMap();
+		if(map == null)
+			return styleHandlers.getProperty(node, new LinkedHashSet<IStyle>());
+		final ResolvedStylesCache cache = ResolvedStylesCache.of(map);
+		final Collection<IStyle> cachedStyles = cache.get(node);
+		if(cachedStyles != null)
+			return cachedStyles;
+		// conditions evaluated while styles are resolved see incomplete styles of nodes being resolved
+		final boolean isCacheable = conditionEvaluationDepth.get()[0] == 0
+		        && !Controller.getCurrentModeController().getMapController().getMapReader().isMapLoadingInProcess();
+		final Collection<IStyle> styles = styleHandlers.getProperty(node, new LinkedHashSet<IStyle>());
+		return isCacheable ? cache.put(node, styles) : styles;
+	}
+
+	private Collection<IStyle> getConditionalStyles(final ConditionalStyleModel conditionalStyleModel,
+	                                                final NodeModel node) {
+		final MapModel map = node.getMap();
+		final ConditionResultCache conditionResults = map == null
+		        || Controller.getCurrentModeController().getMapController().getMapReader().isMapLoadingInProcess()
+		        ? null : ConditionResultCache.of(map);
+		final int[] depth = conditionEvaluationDepth.get();
+		depth[0]++;
+		try {
+			return conditionalStyleModel.getStyles(node, conditionResults);
+		}
+		finally {
+			depth[0]--;
 		}
-		cachedStyle = null;
-		cachedNode = null;
-		cachedStyle = styleHandlers.getProperty(node, new LinkedHashSet<IStyle>());
-		cachedNode = new WeakReference<NodeModel>(node);
-		return cachedStyle;
 	}
 
 	public void moveConditionalStyleDown(final ConditionalStyleModel conditionalStyleModel, int index) {
@@ -327,10 +396,29 @@ public class LogicalStyleController implements IExtension {
 	    return conditionalStyleModel.removeCondition(index);
     }
 
-	private void clearCache() {
-	    cachedStyle = null;
-	    cachedNode = null;
-    }
+	private void removeCachedStyles(final NodeModel node) {
+		final MapModel map = node.getMap();
+		final ResolvedStylesCache cache = map == null ? null : ResolvedStylesCache.getExistingCache(map);
+		if (cache != null)
+			cache.remove(node);
+	}
+
+	private void removeCachedBranch(final NodeModel node) {
+		final MapModel map = node.getMap();
+		final ResolvedStylesCache cache = map == null ? null : ResolvedStylesCache.getExistingCache(map);
+		if (cache != null)
+			cache.removeBranch(node);
+	}
+
+	private ConditionResultCache conditionResultsOf(final MapModel map) {
+		return map == null ? null : ConditionResultCache.getExistingCache(map);
+	}
+
+	private void clearCache(final MapModel map) {
+		final ResolvedStylesCache cache = ResolvedStylesCache.getExistingCache(map);
+		if (cache != null)
+			cache.clear();
+	}
 
 	public IPropertyHandler<Collection<IStyle>, NodeModel> addStyleGetter(
 		final Integer key,
@@ -358,8 +446,7 @@ public class LogicalStyleController implements IExtension {
 
 	public Collection<IStyle>  getConditionalMapStyles(final NodeModel node) {
 		final MapStyleModel styleModel = MapStyleModel.getExtension(node.getMap());
-		Collection<IStyle> condStyles = styleModel.getConditionalStyleModel().getStyles(node);
-		clearCache();
+		Collection<IStyle> condStyles = getConditionalStyles(styleModel.getConditionalStyleModel(), node);
 		return getResursively(node, condStyles);
 	}
 
@@ -372,8 +459,7 @@ public class LogicalStyleController implements IExtension {
 
 		final ConditionalStyleModel conditionalStyleModel = node.getExtension(ConditionalStyleModel.class);
 		if(conditionalStyleModel != null) {
-			Collection<IStyle> styles = conditionalStyleModel.getStyles(node);
-			clearCache();
+			Collection<IStyle> styles = getConditionalStyles(conditionalStyleModel, node);
 			condStyles.addAll(styles);
 		}
 		final Collection<IStyle> all = getResursively(node, condStyles);
@@ -0,0 +1,59 @@
+package org.freeplane.features.styles;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.freeplane.core.extension.IExtension;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.NodeModel;
+
+/**
+ * Styles of nodes including styles of matching conditions, resolved by {@link LogicalStyleController} and kept per map.
+ *
+ * Entries of changed nodes are removed by the controller, style changes remove all entries of the map.
+ */
+class ResolvedStylesCache implements IExtension {
+	static synchronized ResolvedStylesCache of(MapModel map) {
+		ResolvedStylesCache cache = map.getExtension(ResolvedStylesCache.class);
+		if (cache == null) {
+			cache = new ResolvedStylesCache();
+			map.addExtension(cache);
+		}
+		return cache;
+	}
+
+	static synchronized ResolvedStylesCache getExistingCache(MapModel map) {
+		return map.getExtension(ResolvedStylesCache.class);
+	}
+
+	private final Map<NodeModel, Collection<IStyle>> styles = new HashMap<>();
+
+	private ResolvedStylesCache() {
+	}
+
+	synchronized Collection<IStyle> get(NodeModel node) {
+		return styles.get(node);
+	}
+
+	synchronized Collection<IStyle> put(NodeModel node, Collection<IStyle> nodeStyles) {
+		final Collection<IStyle> cachedStyles = Collections.unmodifiableCollection(nodeStyles);
+		styles.put(node, cachedStyles);
+		return cachedStyles;
+	}
+
+	synchronized void remove(NodeModel node) {
+		styles.remove(node);
+	}
+
+	synchronized void removeBranch(NodeModel node) {
+		styles.remove(node);
+		for (NodeModel child : node.getChildren())
+			removeBranch(child);
+	}
+
+	synchronized void clear() {
+		styles.clear();
+	}
+}
@@ -19,9 +19,12 @@
  */
 package org.freeplane.features.text;
 
+import java.util.Set;
+
 import org.freeplane.core.util.TextUtils;
 import org.freeplane.features.filter.StringMatchingStrategy;
 import org.freeplane.features.filter.condition.ASelectableCondition;
+import org.freeplane.features.filter.condition.ConditionDependency;
 import org.freeplane.features.filter.condition.ConditionFactory;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.n3.nanoxml.XMLElement;
@@ -55,6 +58,8 @@ public class MatchCaseNodeContainsCondition extends ASelectableCondition impleme
 	}
 
 	public boolean checkNode(final NodeModel node) {
+		if (!matchApproximately && !NodeTextConditionController.mayContain(nodeItem, node, value))
+			return false;
 		final Object content[] = NodeTextConditionController.getItemsForComparison(nodeItem, node);
 		return checkText(content);
 	}
@@ -72,6 +77,11 @@ public class MatchCaseNodeContainsCondition extends ASelectableCondition impleme
 		return o != null && stringMatchingStrategy.matches(value, o.toString(), true, true);
 	}
 	
+	@Override
+	public Set<ConditionDependency> getDependencies() {
+		return NodeTextConditionController.dependenciesOf(nodeItem);
+	}
+
 	@Override
 	protected String createDescription() {
 		final String nodeCondition = TextUtils.getText(nodeItem);
@@ -19,13 +19,14 @@
  */
 package org.freeplane.features.text;
 
-import org.freeplane.core.util.HtmlUtils;
+import java.util.Set;
+
 import org.freeplane.core.util.TextUtils;
 import org.freeplane.features.filter.StringMatchingStrategy;
 import org.freeplane.features.filter.condition.ASelectableCondition;
+import org.freeplane.features.filter.condition.ConditionDependency;
 import org.freeplane.features.filter.condition.ConditionFactory;
 import org.freeplane.features.map.NodeModel;
-import org.freeplane.features.note.NoteModel;
 import org.freeplane.n3.nanoxml.XMLElement;
 
 public class MatchCaseNoteContainsCondition extends ASelectableCondition {
@@ -56,6 +57,8 @@ public class MatchCaseNoteContainsCondition extends ASelectableCondition {
 	}
 
 	public boolean checkNode(final NodeModel node) {
+		if (!matchApproximately && !NodeTextConditionController.mayContain(TextController.FILTER_NOTE, node, value))
+			return false;
 		final String text = getText(node);
 		if (text == null) {
 			return false;
@@ -64,6 +67,11 @@ public class MatchCaseNoteContainsCondition extends ASelectableCondition {
 		return stringMatchingStrategy.matches(value, text, true, matchCase());
 	}
 
+	@Override
+	public Set<ConditionDependency> getDependencies() {
+		return ConditionDependency.of(ConditionDependency.NOTE);
+	}
+
 	@Override
 	protected String createDescription() {
 		return createDescription(true);
@@ -76,8 +84,7 @@ public class MatchCaseNoteContainsCondition extends ASelectableCondition {
 	}
 
 	protected String getText(final NodeModel node) {
-		final String noteText = NoteModel.getNoteText(node);
-		return noteText == null ? null : HtmlUtils.htmlToPlain(noteText);
+		return (String) NodeTextConditionController.getItemsForComparison(TextController.FILTER_NOTE, node)[0];
 	}
 
 	public void fillXML(final XMLElement child) {
@@ -19,9 +19,12 @@
  */
 package org.freeplane.features.text;
 
+import java.util.Set;
+
 import org.freeplane.core.util.TextUtils;
 import org.freeplane.features.filter.StringMatchingStrategy;
 import org.freeplane.features.filter.condition.ASelectableCondition;
+import org.freeplane.features.filter.condition.ConditionDependency;
 import org.freeplane.features.filter.condition.ConditionFactory;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.n3.nanoxml.XMLElement;
@@ -40,14 +43,14 @@ public class NodeContainsCondition extends ASelectableCondition implements NodeI
 
 	final private String value;
 	final private String nodeItem;
-	//final private String valueLowerCase;
+	final private String valueLowerCase;
 	final private boolean matchApproximately;
 	final StringMatchingStrategy stringMatchingStrategy;
 
 	public NodeContainsCondition(String nodeItem, final String value, final boolean matchApproximately) {
 		super();
 		this.value = value;
-		//this.valueLowerCase = value.toLowerCase();
+		this.valueLowerCase = value.toLowerCase();
 		this.nodeItem = nodeItem;
 		this.matchApproximately = matchApproximately; 
 		stringMatchingStrategy = matchApproximately ? StringMatchingStrategy.DEFAULT_APPROXIMATE_STRING_MATCHING_STRATEGY :
@@ -55,6 +58,15 @@ public class NodeContainsCondition extends ASelectableCondition implements NodeI
 	}
 
 	public boolean checkNode(final NodeModel node) {
+		if (!matchApproximately) {
+			if (!NodeTextConditionController.mayContain(nodeItem, node, valueLowerCase))
+				return false;
+			for (String text : NodeTextConditionController.getLowerCaseItemsForComparison(nodeItem, node)) {
+				if (text != null && text.contains(valueLowerCase))
+					return true;
+			}
+			return false;
+		}
 		final Object content[] = NodeTextConditionController.getItemsForComparison(nodeItem, node);
 		return checkText(content);
 	}
@@ -68,10 +80,14 @@ public class NodeContainsCondition extends ASelectableCondition implements NodeI
 	}
 	
 	private boolean checkText(final Object o) {
-		//return o != null && o.toString().toLowerCase().indexOf(valueLowerCase) > -1;
 		return o != null && stringMatchingStrategy.matches(value, o.toString(), true, false);
 	}
 
+	@Override
+	public Set<ConditionDependency> getDependencies() {
+		return NodeTextConditionController.dependenciesOf(nodeItem);
+	}
+
 	@Override
 	protected String createDescription() {
 		final String nodeCondition = TextUtils.getText(nodeItem);
@@ -19,12 +19,14 @@
  */
 package org.freeplane.features.text;
 
+import java.util.Set;
 import java.util.regex.Pattern;
 
 import org.freeplane.core.io.xml.TreeXmlWriter;
 import org.freeplane.core.util.TextUtils;
 import org.freeplane.features.filter.condition.ASelectableCondition;
 import org.freeplane.features.filter.condition.CompareConditionAdapter;
+import org.freeplane.features.filter.condition.ConditionDependency;
 import org.freeplane.features.filter.condition.ConditionFactory;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.n3.nanoxml.XMLElement;
@@ -74,6 +76,11 @@ public class NodeMatchesRegexpCondition extends ASelectableCondition implements
 		return searchPattern.matcher(text).find();
 	}
 
+	@Override
+	public Set<ConditionDependency> getDependencies() {
+		return NodeTextConditionController.dependenciesOf(nodeItem);
+	}
+
 	@Override
 	protected String createDescription() {
 		final String nodeCondition = TextUtils.getText(nodeItem);
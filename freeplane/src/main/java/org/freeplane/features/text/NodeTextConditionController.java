@@ -19,6 +19,7 @@
  */
 package org.freeplane.features.text;
 
+import java.util.Set;
 import java.util.regex.PatternSyntaxException;
 
 import javax.swing.ComboBoxEditor;
@@ -32,13 +33,12 @@ import org.freeplane.core.resources.TranslatedObject;
 import org.freeplane.core.ui.FixedBasicComboBoxEditor;
 import org.freeplane.core.ui.components.TypedListCellRenderer;
 import org.freeplane.core.ui.components.UITools;
-import org.freeplane.core.util.HtmlUtils;
 import org.freeplane.core.util.TextUtils;
 import org.freeplane.features.filter.condition.ASelectableCondition;
+import org.freeplane.features.filter.condition.ConditionDependency;
 import org.freeplane.features.filter.condition.ConditionFactory;
 import org.freeplane.features.filter.condition.IElementaryConditionController;
 import org.freeplane.features.map.NodeModel;
-import org.freeplane.features.note.NoteModel;
 import org.freeplane.features.ui.FrameController;
 import org.freeplane.n3.nanoxml.XMLElement;
 
@@ -185,35 +185,72 @@ class NodeTextConditionController implements IElementaryConditionController {
 		else
 			return new Object[] { getItemForComparison(nodeItem, node) };
 	}
-	
-	private static Object getItemForComparison(Object nodeItem, final NodeModel node) {
-		final Object result;
-		if(nodeItem.equals(TextController.FILTER_NODE)){
-			result = transformedObject(node);
-		}
-		else if(nodeItem.equals(TextController.FILTER_PARENT)){
-			final NodeModel parentNode = node.getParentNode();
-			if(parentNode == null)
-				result = null;
-			else
-				result = transformedObject(parentNode);
-		}
-		else if(nodeItem.equals(TextController.FILTER_DETAILS)){
-			result = DetailTextModel.getDetailTextText(node);
-		}
-		else if(nodeItem.equals(TextController.FILTER_NOTE)){
-			result = NoteModel.getNoteText(node);
+
+	/** returns the lower case texts of {@link #getItemsForComparison(Object, NodeModel)} */
+	static String[] getLowerCaseItemsForComparison(Object nodeItem, final NodeModel node) {
+		if (nodeItem.equals(TextController.FILTER_ANYTEXT)) {
+			return new String[] { 
+					getLowerCaseItemForComparison(TextController.FILTER_NODE, node), 
+					getLowerCaseItemForComparison(TextController.FILTER_DETAILS, node),
+			        getLowerCaseItemForComparison(TextController.FILTER_NOTE, node) };
 		}
 		else
-			result = null;
-		if(result instanceof String)
-			return HtmlUtils.htmlToPlain((String)result);
-		return result;
-    }
+			return new String[] { getLowerCaseItemForComparison(nodeItem, node) };
+	}
+
+	/** returns the node contents compared by conditions on given node item */
+	static Set<ConditionDependency> dependenciesOf(Object nodeItem) {
+		if (nodeItem.equals(TextController.FILTER_ANYTEXT))
+			return ConditionDependency.of(ConditionDependency.TEXT, ConditionDependency.DETAILS, ConditionDependency.NOTE);
+		if (nodeItem.equals(TextController.FILTER_NODE))
+			return ConditionDependency.of(ConditionDependency.TEXT);
+		if (nodeItem.equals(TextController.FILTER_PARENT))
+			return ConditionDependency.of(ConditionDependency.PARENT_TEXT);
+		if (nodeItem.equals(TextController.FILTER_DETAILS))
+			return ConditionDependency.of(ConditionDependency.DETAILS);
+		if (nodeItem.equals(TextController.FILTER_NOTE))
+			return ConditionDependency.of(ConditionDependency.NOTE);
+		return null;
+	}
+
+	/** returns false if the compared items can not contain given text ignoring case, see {@link TextIndex} */
+	static boolean mayContain(Object nodeItem, final NodeModel node, String text) {
+		final NodeModel comparedNode = comparedNode(nodeItem, node);
+		return comparedNode == null || comparedItem(nodeItem) < 0 && !nodeItem.equals(TextController.FILTER_ANYTEXT)
+		        || TextIndex.mayContain(comparedNode, text);
+	}
+
+	private static Object getItemForComparison(Object nodeItem, final NodeModel node) {
+		final NodeModel comparedNode = comparedNode(nodeItem, node);
+		final int item = comparedItem(nodeItem);
+		if(comparedNode == null || item < 0)
+			return null;
+		return TextProjectionCache.getPlainText(comparedNode, item);
+	}
 
-	private static Object transformedObject(final NodeModel node) {
-		final Object userObject = node.getUserObject();
-		return TextController.getController().getTransformedObjectNoFormattingNoThrow(userObject, node, null);
+	private static String getLowerCaseItemForComparison(Object nodeItem, final NodeModel node) {
+		final NodeModel comparedNode = comparedNode(nodeItem, node);
+		final int item = comparedItem(nodeItem);
+		if(comparedNode == null || item < 0)
+			return null;
+		return TextProjectionCache.getLowerCasePlainText(comparedNode, item);
+	}
+
+	private static NodeModel comparedNode(Object nodeItem, final NodeModel node) {
+		if(nodeItem.equals(TextController.FILTER_PARENT))
+			return node.getParentNode();
+		return node;
+	}
+
+	private static int comparedItem(Object nodeItem) {
+		if(nodeItem.equals(TextController.FILTER_NODE) || nodeItem.equals(TextController.FILTER_PARENT))
+			return TextProjectionCache.NODE_TEXT;
+		else if(nodeItem.equals(TextController.FILTER_DETAILS))
+			return TextProjectionCache.DETAILS;
+		else if(nodeItem.equals(TextController.FILTER_NOTE))
+			return TextProjectionCache.NOTE;
+		else
+			return -1;
 	}
 
 	public ListCellRenderer getValueRenderer(Object selectedProperty, TranslatedObject selectedCondition) {
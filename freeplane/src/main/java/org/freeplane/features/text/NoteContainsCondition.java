@@ -19,10 +19,8 @@
  */
 package org.freeplane.features.text;
 
-import org.freeplane.core.util.HtmlUtils;
 import org.freeplane.features.filter.condition.ASelectableCondition;
 import org.freeplane.features.map.NodeModel;
-import org.freeplane.features.note.NoteModel;
 import org.freeplane.n3.nanoxml.XMLElement;
 
 public class NoteContainsCondition extends MatchCaseNoteContainsCondition {
@@ -50,7 +48,6 @@ public class NoteContainsCondition extends MatchCaseNoteContainsCondition {
 
 	@Override
 	protected String getText(final NodeModel node) {
-		final String noteText = NoteModel.getNoteText(node);
-		return noteText == null ? null : HtmlUtils.htmlToPlain(noteText).toLowerCase();
+		return NodeTextConditionController.getLowerCaseItemsForComparison(TextController.FILTER_NOTE, node)[0];
 	}
 }
@@ -98,6 +98,10 @@ public class TextController implements IExtension {
 		final WriteManager writeManager = mapController.getWriteManager();
 		final NodeTextBuilder textBuilder = new NodeTextBuilder();
 		textBuilder.registerBy(readManager, writeManager);
+		final TextProjectionCacheUpdater textProjectionCacheUpdater = new TextProjectionCacheUpdater();
+		mapController.addNodeChangeListener(textProjectionCacheUpdater);
+		mapController.addMapChangeListener(textProjectionCacheUpdater);
+		mapController.addMapLifeCycleListener(textProjectionCacheUpdater);
 		writeManager.addExtensionElementWriter(DetailTextModel.class, textBuilder);
 		writeManager.addExtensionAttributeWriter(ShortenedTextModel.class, textBuilder);
 		modeController.addAction(new ToggleDetailsAction());
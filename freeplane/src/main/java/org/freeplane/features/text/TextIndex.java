@@ -0,0 +1,278 @@
+package org.freeplane.features.text;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.freeplane.core.extension.IExtension;
+import org.freeplane.core.util.HtmlUtils;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.NodeModel;
+
+/**
+ * Trigram index of node texts, details and notes which excludes nodes not containing a searched text
+ * before the exact check of a condition.
+ *
+ * Lower case texts are split into words of letters and digits, the index maps every three character
+ * sequence found in a word to the nodes containing it.
+ * A node can only contain the searched text if it contains all trigrams of the words in the searched text.
+ *
+ * The index is built on the first search and updated before later searches
+ * for the nodes reported by {@link TextProjectionCacheUpdater}.
+ * Nodes whose text, details or note have been replaced without a reported change are not excluded
+ * and updated before the next search.
+ */
+public class TextIndex implements IExtension {
+	private static class Postings {
+		private int[] slots = new int[2];
+		private int size;
+
+		void add(int slot) {
+			if (size > 0 && slots[size - 1] == slot)
+				return;
+			if (size == slots.length)
+				slots = Arrays.copyOf(slots, size * 2);
+			slots[size++] = slot;
+		}
+	}
+
+	private interface TrigramConsumer {
+		void accept(long trigram);
+	}
+
+	/** returns false if the node, its details and note can not contain given text ignoring case */
+	public static boolean mayContain(NodeModel node, String text) {
+		final MapModel map = node.getMap();
+		if (map == null)
+			return true;
+		return of(map).mayContainText(node, text);
+	}
+
+	private static synchronized TextIndex of(MapModel map) {
+		TextIndex index = map.getExtension(TextIndex.class);
+		if (index == null) {
+			index = new TextIndex(map);
+			map.addExtension(index);
+		}
+		return index;
+	}
+
+	static synchronized TextIndex getExistingIndex(MapModel map) {
+		return map.getExtension(TextIndex.class);
+	}
+
+	private final MapModel map;
+	private final Map<NodeModel, Integer> slotsByNode = new HashMap<>();
+	private final ArrayList<NodeModel> nodesBySlot = new ArrayList<>();
+	/** indexed node contents, see {@link TextProjectionCache#sourceOf(NodeModel, int)} */
+	private final ArrayList<Object[]> sourcesBySlot = new ArrayList<>();
+	private final Map<Long, Postings> postings = new HashMap<>();
+	private final Set<NodeModel> changedNodes = new LinkedHashSet<>();
+	private boolean isBuilt;
+	private boolean isUpdating;
+	private static final int CACHED_SEARCH_COUNT = 16;
+	private static final BitSet ALL_NODES = new BitSet();
+	/** conditional styles and combined conditions search for several texts alternately */
+	private final LinkedHashMap<String, BitSet> candidatesBySearchedText = new LinkedHashMap<String, BitSet>(16, 0.75f,
+	    true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, BitSet> eldest) {
+			return size() > CACHED_SEARCH_COUNT;
+		}
+	};
+
+	private TextIndex(MapModel map) {
+		this.map = map;
+	}
+
+	private synchronized boolean mayContainText(NodeModel node, String text) {
+		if (isUpdating)
+			return true;
+		update();
+		BitSet candidates = candidatesBySearchedText.get(text);
+		if (candidates == null) {
+			candidates = findCandidates(text);
+			candidatesBySearchedText.put(text, candidates);
+		}
+		if (candidates == ALL_NODES)
+			return true;
+		final Integer slot = slotsByNode.get(node);
+		if (slot == null || candidates.get(slot))
+			return true;
+		if (isIndexed(node, sourcesBySlot.get(slot)))
+			return false;
+		changedNodes.add(node);
+		return true;
+	}
+
+	private static boolean isIndexed(NodeModel node, Object[] sources) {
+		for (int item = 0; item < sources.length; item++) {
+			if (TextProjectionCache.sourceOf(node, item) != sources[item])
+				return false;
+		}
+		return true;
+	}
+
+	private static Object[] sourcesOf(NodeModel node) {
+		final Object[] sources = new Object[TextProjectionCache.NOTE + 1];
+		for (int item = 0; item < sources.length; item++)
+			sources[item] = TextProjectionCache.sourceOf(node, item);
+		return sources;
+	}
+
+	private void update() {
+		if (isBuilt && changedNodes.isEmpty())
+			return;
+		isUpdating = true;
+		try {
+			if (!isBuilt || 2 * slotsByNode.size() + 1024 < nodesBySlot.size()) {
+				clearIndex();
+				addBranch(map.getRootNode());
+				isBuilt = true;
+			}
+			else {
+				for (NodeModel node : changedNodes) {
+					removeNode(node);
+					addNode(node);
+				}
+			}
+			changedNodes.clear();
+			candidatesBySearchedText.clear();
+		}
+		finally {
+			isUpdating = false;
+		}
+	}
+
+	private void clearIndex() {
+		slotsByNode.clear();
+		nodesBySlot.clear();
+		sourcesBySlot.clear();
+		postings.clear();
+	}
+
+	private void addBranch(NodeModel node) {
+		addNode(node);
+		for (NodeModel child : node.getChildren())
+			addBranch(child);
+	}
+
+	private void addNode(NodeModel node) {
+		final int slot = nodesBySlot.size();
+		nodesBySlot.add(node);
+		sourcesBySlot.add(sourcesOf(node));
+		slotsByNode.put(node, slot);
+		final TrigramConsumer indexer = trigram -> postings.computeIfAbsent(trigram, t -> new Postings()).add(slot);
+		for (String text : NodeTextConditionController.getLowerCaseItemsForComparison(TextController.FILTER_ANYTEXT, node)) {
+			if (text != null)
+				forEachTrigram(text, indexer);
+		}
+		final String text = node.getText();
+		if (text != null)
+			forEachTrigram(HtmlUtils.htmlToPlain(text).toLowerCase(), indexer);
+	}
+
+	private void removeNode(NodeModel node) {
+		final Integer slot = slotsByNode.remove(node);
+		if (slot != null) {
+			nodesBySlot.set(slot, null);
+			sourcesBySlot.set(slot, null);
+		}
+	}
+
+	/** returns {@link #ALL_NODES} if the text contains no trigrams */
+	private BitSet findCandidates(String text) {
+		final ArrayList<Postings> searchedPostings = new ArrayList<>();
+		final boolean[] containsUnknownTrigram = new boolean[1];
+		forEachTrigram(text.toLowerCase(), trigram -> {
+			final Postings trigramPostings = postings.get(trigram);
+			if (trigramPostings == null)
+				containsUnknownTrigram[0] = true;
+			else
+				searchedPostings.add(trigramPostings);
+		});
+		if (containsUnknownTrigram[0])
+			return new BitSet();
+		if (searchedPostings.isEmpty())
+			return ALL_NODES;
+		searchedPostings.sort((p1, p2) -> Integer.compare(p1.size, p2.size));
+		final Postings shortestPostings = searchedPostings.get(0);
+		int[] candidates = Arrays.copyOf(shortestPostings.slots, shortestPostings.size);
+		for (int i = 1; i < searchedPostings.size() && candidates.length > 0; i++)
+			candidates = intersect(candidates, searchedPostings.get(i));
+		final BitSet candidateSet = new BitSet(nodesBySlot.size());
+		for (int slot : candidates)
+			candidateSet.set(slot);
+		return candidateSet;
+	}
+
+	private static int[] intersect(int[] candidates, Postings postings) {
+		final int[] intersection = new int[candidates.length];
+		int size = 0;
+		int j = 0;
+		for (int i = 0; i < candidates.length && j < postings.size; i++) {
+			final int slot = candidates[i];
+			while (j < postings.size && postings.slots[j] < slot)
+				j++;
+			if (j < postings.size && postings.slots[j] == slot)
+				intersection[size++] = slot;
+		}
+		return Arrays.copyOf(intersection, size);
+	}
+
+	private static void forEachTrigram(String lowerCaseText, TrigramConsumer consumer) {
+		int wordLength = 0;
+		for (int i = 0; i < lowerCaseText.length(); i++) {
+			final char c = lowerCaseText.charAt(i);
+			if (!Character.isLetterOrDigit(c)) {
+				wordLength = 0;
+				continue;
+			}
+			wordLength++;
+			if (wordLength >= 3)
+				consumer.accept((long) fold(lowerCaseText.charAt(i - 2)) << 32
+				        | (long) fold(lowerCaseText.charAt(i - 1)) << 16 | fold(c));
+		}
+	}
+
+	/** final sigma depends on the following characters */
+	private static char fold(char c) {
+		return c == '\u03c2' ? '\u03c3' : c;
+	}
+
+	synchronized void nodeChanged(NodeModel node) {
+		if (isBuilt)
+			changedNodes.add(node);
+	}
+
+	synchronized void branchChanged(NodeModel node) {
+		if (isBuilt) {
+			changedNodes.add(node);
+			for (NodeModel child : node.getChildren())
+				branchChanged(child);
+		}
+	}
+
+	synchronized void branchRemoved(NodeModel node) {
+		if (isBuilt) {
+			changedNodes.remove(node);
+			removeNode(node);
+			for (NodeModel child : node.getChildren())
+				branchRemoved(child);
+		}
+	}
+
+	synchronized void clear() {
+		isBuilt = false;
+		changedNodes.clear();
+		clearIndex();
+		candidatesBySearchedText.clear();
+	}
+}
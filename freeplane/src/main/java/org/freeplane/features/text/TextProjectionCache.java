@@ -0,0 +1,240 @@
+package org.freeplane.features.text;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.freeplane.core.extension.IExtension;
+import org.freeplane.core.resources.ResourceController;
+import org.freeplane.core.util.HtmlUtils;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.features.note.NoteModel;
+
+/**
+ * Plain texts of node contents compared by filter and find conditions, cached per map.
+ *
+ * Details and notes are checked against their current html text on each access.
+ * Transformed node texts also depend on formulas, formats and styles,
+ * so they are removed by {@link TextProjectionCacheUpdater} when the node or the map change.
+ * The total size of the cached texts of all maps is limited by property {@value #CACHE_SIZE_PROPERTY},
+ * the texts of the least recently used maps and nodes are removed first.
+ */
+class TextProjectionCache implements IExtension {
+	static final String CACHE_SIZE_PROPERTY = "text_projection_cache_megabytes";
+	private static final int PROJECTION_SIZE = 64;
+	private static final AtomicLong totalSize = new AtomicLong();
+	/** caches containing texts, least recently used first, each locked only after this one */
+	private static final LinkedHashMap<TextProjectionCache, Boolean> usedCaches = new LinkedHashMap<>(16, 0.75f, true);
+
+	static final int NODE_TEXT = 0;
+	static final int DETAILS = 1;
+	static final int NOTE = 2;
+
+	private static class Projection {
+		final Object source;
+		final Object plainText;
+		String lowerCasePlainText;
+		boolean isCached;
+
+		Projection(Object source, Object plainText) {
+			this.source = source;
+			this.plainText = plainText;
+		}
+
+		long size() {
+			return PROJECTION_SIZE + sizeOf(plainText) + sizeOf(lowerCasePlainText);
+		}
+
+		private static long sizeOf(Object text) {
+			return text instanceof String ? 2L * ((String) text).length() : 0;
+		}
+	}
+
+	/** returns the plain text or, for formula results, the transformed object which conditions compare */
+	static Object getPlainText(NodeModel node, int item) {
+		final MapModel map = node.getMap();
+		if (map != null)
+			return of(map).getCachedPlainText(node, item);
+		final Object source = sourceOf(node, item);
+		return source == null ? null : plainTextOf(node, item, source);
+	}
+
+	static String getLowerCasePlainText(NodeModel node, int item) {
+		final MapModel map = node.getMap();
+		if (map != null)
+			return of(map).getCachedLowerCasePlainText(node, item);
+		final Object plainText = getPlainText(node, item);
+		return plainText == null ? null : plainText.toString().toLowerCase();
+	}
+
+	private static synchronized TextProjectionCache of(MapModel map) {
+		TextProjectionCache cache = map.getExtension(TextProjectionCache.class);
+		if (cache == null) {
+			cache = new TextProjectionCache();
+			map.addExtension(cache);
+		}
+		return cache;
+	}
+
+	static synchronized TextProjectionCache getExistingCache(MapModel map) {
+		return map.getExtension(TextProjectionCache.class);
+	}
+
+	private final LinkedHashMap<NodeModel, Projection[]> projections = new LinkedHashMap<>(16, 0.75f, true);
+	private long size;
+
+	private TextProjectionCache() {
+	}
+
+	private Object getCachedPlainText(NodeModel node, int item) {
+		final Projection projection = getProjection(node, item);
+		return projection == null ? null : projection.plainText;
+	}
+
+	private String getCachedLowerCasePlainText(NodeModel node, int item) {
+		final Projection projection = getProjection(node, item);
+		if (projection == null)
+			return null;
+		synchronized (this) {
+			if (projection.lowerCasePlainText != null)
+				return projection.lowerCasePlainText;
+		}
+		final String lowerCasePlainText = projection.plainText.toString().toLowerCase();
+		synchronized (this) {
+			if (projection.lowerCasePlainText == null) {
+				projection.lowerCasePlainText = lowerCasePlainText;
+				if (projection.isCached)
+					addSize(2L * lowerCasePlainText.length());
+			}
+			return projection.lowerCasePlainText;
+		}
+	}
+
+	private Projection getProjection(NodeModel node, int item) {
+		final Object source = sourceOf(node, item);
+		if (source == null)
+			return null;
+		synchronized (this) {
+			final Projection[] nodeProjections = projections.get(node);
+			if (nodeProjections != null) {
+				final Projection projection = nodeProjections[item];
+				if (projection != null && projection.source == source)
+					return projection;
+			}
+		}
+		final Projection projection = new Projection(source, plainTextOf(node, item, source));
+		cache(node, item, projection);
+		limitTotalSize(node);
+		return projection;
+	}
+
+	/** returns the node content the plain text is computed from, compared by identity to detect changes */
+	static Object sourceOf(NodeModel node, int item) {
+		switch (item) {
+		case NODE_TEXT:
+			return node.getUserObject();
+		case DETAILS:
+			return DetailTextModel.getDetailTextText(node);
+		default:
+			return NoteModel.getNoteText(node);
+		}
+	}
+
+	private static Object plainTextOf(NodeModel node, int item, Object source) {
+		final Object text = item == NODE_TEXT
+		        ? TextController.getController().getTransformedObjectNoFormattingNoThrow(source, node, null) : source;
+		if (text instanceof String)
+			return HtmlUtils.htmlToPlain((String) text);
+		return text;
+	}
+
+	private synchronized void cache(NodeModel node, int item, Projection projection) {
+		Projection[] nodeProjections = projections.get(node);
+		if (nodeProjections == null) {
+			nodeProjections = new Projection[NOTE + 1];
+			projections.put(node, nodeProjections);
+		}
+		final Projection replacedProjection = nodeProjections[item];
+		if (replacedProjection != null) {
+			replacedProjection.isCached = false;
+			addSize(-replacedProjection.size());
+		}
+		nodeProjections[item] = projection;
+		projection.isCached = true;
+		addSize(projection.size());
+	}
+
+	/** removes least recently used texts of all maps except those of the given node */
+	private void limitTotalSize(NodeModel usedNode) {
+		final long maximumSize = ResourceController.getResourceController().getLongProperty(CACHE_SIZE_PROPERTY, 0)
+		        * 1024 * 1024;
+		synchronized (usedCaches) {
+			usedCaches.put(this, Boolean.TRUE);
+			for (Iterator<TextProjectionCache> iterator = usedCaches.keySet().iterator(); totalSize.get() > maximumSize
+			        && iterator.hasNext();) {
+				final TextProjectionCache cache = iterator.next();
+				if (cache.removeEldest(totalSize.get() - maximumSize, cache == this ? usedNode : null))
+					iterator.remove();
+			}
+		}
+	}
+
+	/** returns true if the cache has become empty */
+	private synchronized boolean removeEldest(long excessSize, NodeModel keptNode) {
+		final long minimalSize = size - excessSize;
+		for (Iterator<Map.Entry<NodeModel, Projection[]>> iterator = projections.entrySet().iterator(); size > minimalSize
+		        && iterator.hasNext();) {
+			final Map.Entry<NodeModel, Projection[]> entry = iterator.next();
+			if (entry.getKey() != keptNode) {
+				iterator.remove();
+				uncache(entry.getValue());
+			}
+		}
+		return projections.isEmpty();
+	}
+
+	private void addSize(long delta) {
+		size += delta;
+		totalSize.addAndGet(delta);
+	}
+
+	synchronized void remove(NodeModel node) {
+		final Projection[] nodeProjections = projections.remove(node);
+		if (nodeProjections != null)
+			uncache(nodeProjections);
+	}
+
+	private void uncache(Projection[] nodeProjections) {
+		for (Projection projection : nodeProjections) {
+			if (projection != null) {
+				projection.isCached = false;
+				addSize(-projection.size());
+			}
+		}
+	}
+
+	synchronized void removeBranch(NodeModel node) {
+		remove(node);
+		for (NodeModel child : node.getChildren())
+			removeBranch(child);
+	}
+
+	void clear() {
+		synchronized (this) {
+			for (Projection[] nodeProjections : projections.values()) {
+				for (Projection projection : nodeProjections) {
+					if (projection != null)
+						projection.isCached = false;
+				}
+			}
+			projections.clear();
+			totalSize.addAndGet(-size);
+			size = 0;
+		}
+		synchronized (usedCaches) {
+			usedCaches.remove(this);
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package org.freeplane.features.text;
+
+import org.freeplane.features.attribute.ModelessAttributeController;
+import org.freeplane.features.filter.Filter;
+import org.freeplane.features.map.IMapChangeListener;
+import org.freeplane.features.map.IMapLifeCycleListener;
+import org.freeplane.features.map.INodeChangeListener;
+import org.freeplane.features.map.MapChangeEvent;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.NodeChangeEvent;
+import org.freeplane.features.map.NodeDeletionEvent;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.features.map.NodeMoveEvent;
+
+/**
+ * Removes cached plain texts of changed nodes and marks them for update in the text index.
+ *
+ * Formula plugin refreshes nodes depending on changed nodes, style and format changes are reported as map changes.
+ * Filter and attribute view changes do not change texts.
+ */
+class TextProjectionCacheUpdater implements INodeChangeListener, IMapChangeListener, IMapLifeCycleListener {
+	@Override
+	public void nodeChanged(NodeChangeEvent event) {
+		final MapModel map = event.getNode().getMap();
+		final TextProjectionCache cache = cacheOf(map);
+		if (cache != null)
+			cache.remove(event.getNode());
+		final TextIndex index = indexOf(map);
+		if (index != null)
+			index.nodeChanged(event.getNode());
+	}
+
+	@Override
+	public void mapChanged(MapChangeEvent event) {
+		final Object property = event.getProperty();
+		if (!Filter.class.equals(property) && !ModelessAttributeController.ATTRIBUTE_VIEW_TYPE.equals(property))
+			clear(event.getMap());
+	}
+
+	@Override
+	public void onNodeDeleted(NodeDeletionEvent nodeDeletionEvent) {
+		final NodeModel node = nodeDeletionEvent.node;
+		removeCachedBranch(node);
+		final TextIndex index = indexOf(node.getMap());
+		if (index != null)
+			index.branchRemoved(node);
+	}
+
+	@Override
+	public void onNodeInserted(NodeModel parent, NodeModel child, int newIndex) {
+		branchChanged(child);
+	}
+
+	@Override
+	public void onNodeMoved(NodeMoveEvent nodeMoveEvent) {
+		branchChanged(nodeMoveEvent.child);
+	}
+
+	@Override
+	public void onRemove(MapModel map) {
+		clear(map);
+	}
+
+	private void branchChanged(NodeModel node) {
+		removeCachedBranch(node);
+		final TextIndex index = indexOf(node.getMap());
+		if (index != null)
+			index.branchChanged(node);
+	}
+
+	private void removeCachedBranch(NodeModel node) {
+		final TextProjectionCache cache = cacheOf(node.getMap());
+		if (cache != null)
+			cache.removeBranch(node);
+	}
+
+	private void clear(MapModel map) {
+		final TextProjectionCache cache = cacheOf(map);
+		if (cache != null)
+			cache.clear();
+		final TextIndex index = indexOf(map);
+		if (index != null)
+			index.clear();
+	}
+
+	private TextProjectionCache cacheOf(MapModel map) {
+		return map == null ? null : TextProjectionCache.getExistingCache(map);
+	}
+
+	private TextIndex indexOf(MapModel map) {
+		return map == null ? null : TextIndex.getExistingIndex(map);
+	}
+}
@@ -37,6 +37,7 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.util.concurrent.CancellationException;
 
 import javax.swing.AbstractAction;
 import javax.swing.ActionMap;
@@ -187,7 +188,8 @@ public class UrlManager implements IExtension {
 		else if (exceptionType.equals(FileNotFoundException.class.getName())) {
 			UITools.errorMessage(ex.getMessage());
 		}
-		else if (exceptionType.equals("org.freeplane.features.url.mindmapmode.SkipException")) {
+		else if (exceptionType.equals("org.freeplane.features.url.mindmapmode.SkipException")
+		        || ex instanceof CancellationException) {
 			return;
 		}
 		else {
@@ -327,6 +329,9 @@ public class UrlManager implements IExtension {
 				}
 				Controller.getCurrentController().getViewController().openDocument(uri);
 			}
+			catch (final CancellationException e) {
+				return;
+			}
 			catch (final Exception e) {
 				LogUtils.warn("link " + uri + " not found", e);
 				UITools.errorMessage(TextUtils.format("link_not_found", uri.toString()));
@@ -0,0 +1,199 @@
+package org.freeplane.features.url.mindmapmode;
+
+import java.awt.BorderLayout;
+import java.awt.GraphicsEnvironment;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.concurrent.CancellationException;
+
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.WindowConstants;
+
+import org.freeplane.core.io.ProgressReader;
+import org.freeplane.core.resources.ResourceController;
+import org.freeplane.core.ui.components.UITools;
+import org.freeplane.core.util.LogUtils;
+import org.freeplane.core.util.TextUtils;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.MapReader;
+import org.freeplane.features.map.MapWriter.Mode;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.n3.nanoxml.XMLException;
+
+/**
+ * Parses a map file on a worker thread.
+ *
+ * While the worker runs, the event dispatch thread keeps repainting the application windows
+ * behind a modal progress dialog which also allows to cancel the loading.
+ * The dialog is only shown if loading takes longer than {@link #PROGRESS_DIALOG_DELAY} milliseconds.
+ * It is only used for maps opened in a map view, so that other callers never see a canceled load.
+ * The map reader lets only one thread parse at a time, so events handled meanwhile
+ * which parse unparsed children wait until the worker is done.
+ */
+class BackgroundMapReader {
+	static final String LOAD_MAPS_IN_BACKGROUND_PROPERTY = "load_maps_in_background";
+	private static final int PROGRESS_DIALOG_DELAY = 500;
+	private static final int PROGRESS_UPDATE_PERIOD = 100;
+
+	static boolean isEnabled(final MapReader mapReader) {
+		// a worker could not parse while this thread is parsing
+		return SwingUtilities.isEventDispatchThread()
+		        && !mapReader.isMapLoadingInProcess()
+		        && !GraphicsEnvironment.isHeadless()
+		        && ResourceController.getResourceController().getBooleanProperty(LOAD_MAPS_IN_BACKGROUND_PROPERTY);
+	}
+
+	private final File file;
+	private final ProgressReader reader;
+	private volatile NodeModel result;
+	private volatile Throwable failure;
+	private JDialog progressDialog;
+
+	BackgroundMapReader(final File file, final Reader reader) {
+		this.file = file;
+		this.reader = new ProgressReader(reader, file.length());
+	}
+
+	/**
+	 * @throws CancellationException if the user has canceled the loading
+	 */
+	NodeModel read(final MapReader mapReader, final MapModel map) throws IOException, XMLException {
+		final Thread worker = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					result = mapReader.createNodeTreeFromXml(map, reader, Mode.FILE);
+				}
+				catch (final Throwable e) {
+					failure = e;
+				}
+				finally {
+					SwingUtilities.invokeLater(new Runnable() {
+						@Override
+						public void run() {
+							closeProgressDialog();
+						}
+					});
+				}
+			}
+		}, "Map loading");
+		worker.start();
+		join(worker, PROGRESS_DIALOG_DELAY);
+		if (worker.isAlive()) {
+			showProgressDialog();
+			join(worker, 0);
+		}
+		if (reader.isCanceled()) {
+			LogUtils.info("loading of " + file + " canceled");
+			throw new CancellationException(file.getPath());
+		}
+		if (failure != null)
+			rethrowFailure();
+		return result;
+	}
+
+	private void join(final Thread worker, final long millis) {
+		try {
+			worker.join(millis);
+		}
+		catch (final InterruptedException e) {
+			reader.cancel();
+			joinUninterruptibly(worker);
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/** the canceled worker still uses the map reader, so it must stop before anything else is parsed */
+	private void joinUninterruptibly(final Thread worker) {
+		while (worker.isAlive()) {
+			try {
+				worker.join();
+			}
+			catch (final InterruptedException e) {
+				// the interruption is restored by the caller
+			}
+		}
+	}
+
+	private void rethrowFailure() throws IOException, XMLException {
+		if (failure instanceof IOException)
+			throw (IOException) failure;
+		if (failure instanceof XMLException)
+			throw (XMLException) failure;
+		if (failure instanceof RuntimeException)
+			throw (RuntimeException) failure;
+		if (failure instanceof Error)
+			throw (Error) failure;
+		throw new RuntimeException(failure);
+	}
+
+	private void showProgressDialog() {
+		progressDialog = new JDialog(UITools.getCurrentFrame(), TextUtils.removeMnemonic(TextUtils.getText("load")), true);
+		progressDialog.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+		final JProgressBar progressBar = new JProgressBar(0, 100);
+		progressBar.setStringPainted(true);
+		final JButton cancelButton = new JButton();
+		cancelButton.setText(TextUtils.removeMnemonic(TextUtils.getText("cancel")));
+		final ActionListener cancelAction = new ActionListener() {
+			@Override
+			public void actionPerformed(final ActionEvent e) {
+				cancel();
+			}
+		};
+		cancelButton.addActionListener(cancelAction);
+		progressDialog.addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowClosing(final WindowEvent e) {
+				cancel();
+			}
+		});
+		final JPanel panel = new JPanel(new BorderLayout(5, 5));
+		panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+		panel.add(new JLabel(TextUtils.format("loading_map", file.getName())), BorderLayout.NORTH);
+		panel.add(progressBar, BorderLayout.CENTER);
+		panel.add(cancelButton, BorderLayout.EAST);
+		progressDialog.getContentPane().add(panel);
+		progressDialog.pack();
+		progressDialog.setLocationRelativeTo(progressDialog.getOwner());
+		final Timer progressTimer = new Timer(PROGRESS_UPDATE_PERIOD, new ActionListener() {
+			@Override
+			public void actionPerformed(final ActionEvent e) {
+				final int percentage = reader.getPercentage();
+				progressBar.setIndeterminate(percentage < 0);
+				if (percentage >= 0)
+					progressBar.setValue(percentage);
+			}
+		});
+		progressTimer.start();
+		try {
+			progressDialog.setVisible(true);
+		}
+		finally {
+			progressTimer.stop();
+		}
+	}
+
+	private void cancel() {
+		reader.cancel();
+		closeProgressDialog();
+	}
+
+	private void closeProgressDialog() {
+		if (progressDialog != null) {
+			progressDialog.dispose();
+			progressDialog = null;
+		}
+	}
+}
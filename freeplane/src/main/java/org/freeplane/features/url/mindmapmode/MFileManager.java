@@ -51,6 +51,7 @@ import java.util.Collection;
 import java.util.LinkedList;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
 import java.util.Vector;
 import java.util.regex.Pattern;
 
@@ -83,6 +84,7 @@ import org.freeplane.features.link.LinkController;
 import org.freeplane.features.map.MapChangeEvent;
 import org.freeplane.features.map.MapController;
 import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.MapReader;
 import org.freeplane.features.map.MapWriter.Mode;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.features.map.mindmapmode.DocuMapAttribute;
@@ -105,6 +107,7 @@ import org.freeplane.n3.nanoxml.XMLParseException;
  */
 public class MFileManager extends UrlManager implements IMapViewChangeListener {
 	public static final String STANDARD_TEMPLATE = "standard_template";
+	public static final String SAVE_MAPS_IN_BACKGROUND_PROPERTY = "save_maps_in_background";
 	private static final String DEFAULT_SAVE_DIR_PROPERTY = "default_save_dir";
 	private static final String BACKUP_EXTENSION = "bak";
 	private static final int DEBUG_OFFSET = 0;
@@ -256,6 +259,10 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 		super.init();
 		createActions();
 		createPreferences();
+		final MapController mapController = Controller.getCurrentModeController().getMapController();
+		final MapJournal.ChangeRecorder journalChangeRecorder = new MapJournal.ChangeRecorder();
+		mapController.addNodeChangeListener(journalChangeRecorder);
+		mapController.addMapChangeListener(journalChangeRecorder);
 		if (ResourceController.getResourceController().getBooleanProperty("single_backup_directory")) {
 			String value = ResourceController.getResourceController().getProperty("single_backup_directory_path");
 			// vb, 2010-10-14: I'm not exactly happy with putting this here - if you have a better place move it!
@@ -497,10 +504,21 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 	}
 
 	public NodeModel loadTree(final MapModel map, final File file) throws XMLParseException, IOException {
+		return loadTree(map, file, false);
+	}
+
+	/**
+	 * @param inBackground parses the file on a worker thread behind a progress dialog if enabled,
+	 * throws {@link CancellationException} if the user cancels it
+	 */
+	NodeModel loadTree(final MapModel map, final File file, boolean inBackground) throws XMLParseException, IOException {
 		try {
-			final NodeModel rootNode = loadTreeImpl(map, file);
+			final NodeModel rootNode = loadTreeImpl(map, file, inBackground);
 			return rootNode;
 		}
+		catch (final CancellationException ex) {
+			throw ex;
+		}
 		catch (final Exception ex) {
 			final String errorMessage = "Error while parsing file:" + file;
 			LogUtils.warn(errorMessage, ex);
@@ -511,8 +529,14 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 		}
 	}
 
-	private NodeModel loadTreeImpl(final MapModel map, final File f) throws FileNotFoundException, IOException,
+	NodeModel loadTreeImpl(final MapModel map, final File f) throws FileNotFoundException, IOException,
 	        XMLException, MapConversionException {
+		return loadTreeImpl(map, f, false);
+	}
+
+	NodeModel loadTreeImpl(final MapModel map, final File f, boolean inBackground) throws FileNotFoundException, IOException,
+	        XMLException, MapConversionException {
+		MapFileWriter.waitForPendingWrites();
 		final BufferedInputStream file = new BufferedInputStream(new FileInputStream(f));
 		int versionInfoLength = 1000;
 		final byte[] buffer = new byte[versionInfoLength];
@@ -523,14 +547,20 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 		Reader reader = null;
 		MapVersionInterpreter versionInterpreter = MapVersionInterpreter.getVersionInterpreter(mapStart);
 		map.addExtension(versionInterpreter);
+		// without user interface there is nobody to ask, so messages are logged and maps are converted
+		final boolean isHeadless = Controller.getCurrentController().getViewController().isHeadless();
 		if (versionInterpreter.anotherDialect) {
 			String message = versionInterpreter.getDialectInfo(f.getAbsolutePath());
-			UITools.showMessage(message, JOptionPane.WARNING_MESSAGE);
+			if (isHeadless)
+				LogUtils.warn(message);
+			else
+				UITools.showMessage(message, JOptionPane.WARNING_MESSAGE);
 		}
 		if (versionInterpreter.needsConversion) {
-			final int showResult = OptionalDontShowMeAgainDialog.show("really_convert_to_current_version",
-			    "confirmation", MMapController.RESOURCES_CONVERT_TO_CURRENT_VERSION,
-			    OptionalDontShowMeAgainDialog.ONLY_OK_SELECTION_IS_STORED);
+			final int showResult = isHeadless ? JOptionPane.OK_OPTION
+			        : OptionalDontShowMeAgainDialog.show("really_convert_to_current_version", "confirmation",
+			            MMapController.RESOURCES_CONVERT_TO_CURRENT_VERSION,
+			            OptionalDontShowMeAgainDialog.ONLY_OK_SELECTION_IS_STORED);
 			IMapInputStreamConverter isConverter = versionInterpreter.getMapInputStreamConverter();
 			if (showResult != JOptionPane.OK_OPTION || isConverter == null) {
 				reader = new InputStreamReader(sequencedInput, FileUtils.defaultCharset());
@@ -545,8 +575,13 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 			reader = new InputStreamReader(sequencedInput, FileUtils.defaultCharset());
 		}
 		try {
-			return Controller.getCurrentModeController().getMapController().getMapReader()
-			    .createNodeTreeFromXml(map, reader, Mode.FILE);
+			final MapReader mapReader = Controller.getCurrentModeController().getMapController().getMapReader();
+			final NodeModel root;
+			if (inBackground && BackgroundMapReader.isEnabled(mapReader))
+				root = new BackgroundMapReader(f, reader).read(mapReader, map);
+			else
+				root = mapReader.createNodeTreeFromXml(map, reader, Mode.FILE);
+			return MapJournal.load(mapReader, map, root, f);
 		}
 		finally {
 			FileUtils.silentlyClose(reader);
@@ -769,7 +804,6 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 		final MMapController mapController = (MMapController) Controller.getCurrentModeController().getMapController();
 		if(! urlAfter.equals(urlBefore))
 			mapController.fireMapChanged(new MapChangeEvent(this, map, UrlManager.MAP_URL, urlBefore, urlAfter, false));
-		mapController.setSaved(map, true);
 		return true;
 	}
 
@@ -825,6 +859,21 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 		return false;
 	}
 
+	/**
+	 * Writes the map to its file on the calling thread and throws the failure instead of showing it,
+	 * e.g. for batch processing. The journal of the map is restarted.
+	 */
+	public void saveSynchronously(final MapModel map) throws IOException {
+		final File file = map.getFile();
+		if (file == null)
+			throw new IOException("map has no file");
+		final MapController mapController = Controller.getCurrentModeController().getMapController();
+		MapFileWriter.replace(file, MapFileWriter.serialize(map, mapController.getMapWriter()));
+		MapJournal.restart(map, file);
+		MapFileWriter.waitForPendingWrites();
+		mapController.setSaved(map, true);
+	}
+
 	/**
 	 * This method is intended to provide both normal save routines and saving
 	 * of temporary (internal) files.
@@ -834,18 +883,19 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 			if (map.getTimerForAutomaticSaving() != null) {
 				map.getTimerForAutomaticSaving().cancel();
 			}
-			writeToFile(map, file);
+			if (isInternal)
+				writeMapFile(map, file, true);
+			else if (saveToJournal(map, file))
+				Controller.getCurrentModeController().getMapController().setSaved(map, true);
+			else {
+				writeMapFile(map, file, false);
+				MapJournal.restart(map, file);
+			}
 			map.scheduleTimerForAutomaticSaving();
 			return true;
 		}
 		catch (final IOException e) {
-			final String message = TextUtils.format("save_failed", file.getName());
-			if (!isInternal) {
-				UITools.errorMessage(message);
-			}
-			else {
-				Controller.getCurrentController().getViewController().out(message);
-			}
+			showSaveFailedMessage(file, isInternal);
 		}
 		catch (final Exception e) {
 			LogUtils.severe("Error in MapModel.save(): ", e);
@@ -854,6 +904,50 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 		return false;
 	}
 
+	private void showSaveFailedMessage(final File file, final boolean isInternal) {
+		final String message = TextUtils.format("save_failed", file.getName());
+		if (!isInternal) {
+			UITools.errorMessage(message);
+		}
+		else {
+			Controller.getCurrentController().getViewController().out(message);
+		}
+	}
+
+	/** maps written in background stay unsaved until their file is written and they are not changed meanwhile */
+	private void writeMapFile(final MMapModel map, final File file, final boolean isInternal) throws IOException {
+		final MapController mapController = Controller.getCurrentModeController().getMapController();
+		if (!MapFileWriter.isEnabled()) {
+			writeToFile(map, file);
+			if (!isInternal)
+				mapController.setSaved(map, true);
+			return;
+		}
+		final int changesBeforeSaving = map.getNumberOfChangesSinceLastSave();
+		MapFileWriter.write(map, mapController.getMapWriter(), file, new Runnable() {
+			@Override
+			public void run() {
+				if (!isInternal && map.getNumberOfChangesSinceLastSave() == changesBeforeSaving)
+					mapController.setSaved(map, true);
+			}
+		}, new Runnable() {
+			@Override
+			public void run() {
+				showSaveFailedMessage(file, isInternal);
+				if (!isInternal) {
+					map.removeExtension(MapJournal.class);
+					mapController.setSaved(map, false);
+				}
+			}
+		});
+	}
+
+	private boolean saveToJournal(final MapModel map, final File file) {
+		final MapJournal journal = map.getExtension(MapJournal.class);
+		return journal != null
+		        && journal.save(map, file, Controller.getCurrentModeController().getMapController().getMapWriter());
+	}
+
 	/**@deprecated -- use MMapIO*/
 	@Deprecated
 	public void writeToFile(final MapModel map, final File file) throws FileNotFoundException, IOException {
@@ -0,0 +1,272 @@
+package org.freeplane.features.url.mindmapmode;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.AclFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+import org.freeplane.core.resources.ResourceController;
+import org.freeplane.core.util.FileUtils;
+import org.freeplane.core.util.LogUtils;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.MapWriter;
+import org.freeplane.features.map.MapWriter.Mode;
+
+/**
+ * Writes map files on a background thread.
+ *
+ * The map is serialized into memory on the calling thread, so that later changes do not affect the saved state.
+ * Files are written in the order of submission to a temporary file which then replaces the target file.
+ * The temporary file is forced to the disk before, so that a crash leaves either the old or the new content.
+ * Files locked by other applications are not replaced.
+ * Pending writes are completed before the application exits.
+ */
+class MapFileWriter {
+	private static final long SHUTDOWN_TIMEOUT = 60;
+	private static final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(final Runnable runnable) {
+			final Thread thread = new Thread(runnable, "Map saving");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			@Override
+			public void run() {
+				executor.shutdown();
+				try {
+					executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS);
+				}
+				catch (final InterruptedException e) {
+				}
+			}
+		});
+	}
+
+	static boolean isEnabled() {
+		return ResourceController.getResourceController().getBooleanProperty(MFileManager.SAVE_MAPS_IN_BACKGROUND_PROPERTY);
+	}
+
+	/**
+	 * Serializes the map on the calling thread and writes it on the background thread.
+	 * @param successHandler runs on the event dispatch thread after the file has been written
+	 * @param failureHandler runs on the event dispatch thread if the file can not be written
+	 */
+	static void write(final MapModel map, final MapWriter mapWriter, final File file, final Runnable successHandler,
+	                  final Runnable failureHandler)
+	        throws IOException {
+		final long startTime = System.nanoTime();
+		final String content = serialize(map, mapWriter);
+		final long snapshotTime = System.nanoTime() - startTime;
+		executor.submit(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					final long writeStartTime = System.nanoTime();
+					replace(file, content);
+					LogUtils.info("saved " + file + ": snapshot " + TimeUnit.NANOSECONDS.toMillis(snapshotTime)
+					        + " ms, writing " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - writeStartTime)
+					        + " ms");
+					SwingUtilities.invokeLater(successHandler);
+				}
+				catch (final Exception e) {
+					LogUtils.warn("can not save " + file, e);
+					SwingUtilities.invokeLater(failureHandler);
+				}
+			}
+		});
+	}
+
+	static String serialize(final MapModel map, final MapWriter mapWriter) throws IOException {
+		final StringWriter xml = new StringWriter();
+		mapWriter.writeMapAsXml(map, xml, Mode.FILE, true, false);
+		return xml.toString();
+	}
+
+	/**
+	 * Writes the content to a temporary file in the same directory and moves it over the target file.
+	 * Symbolic links are kept by replacing the file they point to.
+	 * The temporary file gets the permissions and the owner of the replaced file,
+	 * if the owner can not be kept the replaced file is overwritten instead.
+	 */
+	static void replace(final File file, final String content) throws IOException {
+		final Path target = realPath(file.toPath());
+		final boolean targetExists = Files.exists(target);
+		if (targetExists)
+			checkNotLockedByOtherApplication(target);
+		final Path tempFile = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+		try {
+			write(tempFile, content);
+			if (targetExists && !copyAttributes(target, tempFile)) {
+				write(target, content);
+				return;
+			}
+			try {
+				Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (final AtomicMoveNotSupportedException e) {
+				Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+			forceDirectory(target.getParent());
+		}
+		finally {
+			try {
+				Files.deleteIfExists(tempFile);
+			}
+			catch (final IOException e) {
+				LogUtils.warn("can not delete " + tempFile);
+			}
+		}
+	}
+
+	private static Path realPath(final Path path) throws IOException {
+		final Path absolutePath = path.toAbsolutePath();
+		return Files.exists(absolutePath) ? absolutePath.toRealPath() : absolutePath;
+	}
+
+	private static void checkNotLockedByOtherApplication(final Path file) throws IOException {
+		final FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE);
+		try {
+			FileLock lock = null;
+			try {
+				lock = channel.tryLock();
+			}
+			catch (final Exception e) {
+				LogUtils.warn(e.getMessage());
+				return;
+			}
+			if (lock == null)
+				throw new IOException("can not obtain file lock for " + file);
+			lock.release();
+		}
+		finally {
+			channel.close();
+		}
+	}
+
+	/** uses the charset maps are read with and forces the content to the disk */
+	private static void write(final Path file, final String content) throws IOException {
+		final FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+		    StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			final Writer out = new OutputStreamWriter(Channels.newOutputStream(channel), FileUtils.defaultCharset());
+			out.write(content);
+			out.flush();
+			channel.force(true);
+		}
+		finally {
+			channel.close();
+		}
+	}
+
+	/** makes the moved file entry durable where directories can be opened, like on linux */
+	private static void forceDirectory(final Path directory) {
+		try {
+			final FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ);
+			try {
+				channel.force(true);
+			}
+			finally {
+				channel.close();
+			}
+		}
+		catch (final IOException e) {
+			// not supported on this platform
+		}
+	}
+
+	/** @return false if the owner of the source file can not be given to the target file */
+	private static boolean copyAttributes(final Path source, final Path target) throws IOException {
+		final PosixFileAttributeView sourcePosixView = Files.getFileAttributeView(source, PosixFileAttributeView.class);
+		if (sourcePosixView != null) {
+			final PosixFileAttributes attributes = sourcePosixView.readAttributes();
+			final PosixFileAttributeView targetPosixView = Files.getFileAttributeView(target,
+			    PosixFileAttributeView.class);
+			final PosixFileAttributes targetAttributes = targetPosixView.readAttributes();
+			try {
+				if (!attributes.owner().equals(targetAttributes.owner()))
+					targetPosixView.setOwner(attributes.owner());
+				if (!attributes.group().equals(targetAttributes.group()))
+					targetPosixView.setGroup(attributes.group());
+			}
+			catch (final IOException e) {
+				return false;
+			}
+			targetPosixView.setPermissions(attributes.permissions());
+			return true;
+		}
+		final AclFileAttributeView sourceAclView = Files.getFileAttributeView(source, AclFileAttributeView.class);
+		if (sourceAclView != null) {
+			final AclFileAttributeView targetAclView = Files.getFileAttributeView(target, AclFileAttributeView.class);
+			try {
+				final UserPrincipal owner = sourceAclView.getOwner();
+				if (!owner.equals(targetAclView.getOwner()))
+					targetAclView.setOwner(owner);
+				targetAclView.setAcl(sourceAclView.getAcl());
+			}
+			catch (final IOException e) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	static <T> Future<T> submit(final Callable<T> task) {
+		return executor.submit(task);
+	}
+
+	static Future<?> submit(final Runnable task) {
+		return executor.submit(task);
+	}
+
+	static void waitForPendingWrites() throws IOException {
+		await(submit(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				return null;
+			}
+		}));
+	}
+
+	static <T> T await(final Future<T> future) throws IOException {
+		try {
+			return future.get();
+		}
+		catch (final InterruptedException e) {
+			throw new InterruptedIOException();
+		}
+		catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof IOException)
+				throw (IOException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			throw new RuntimeException(cause);
+		}
+	}
+}
@@ -0,0 +1,457 @@
+package org.freeplane.features.url.mindmapmode;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import org.freeplane.core.extension.IExtension;
+import org.freeplane.core.resources.ResourceController;
+import org.freeplane.core.util.LogUtils;
+import org.freeplane.features.map.EncryptionModel;
+import org.freeplane.features.map.IMapChangeListener;
+import org.freeplane.features.map.INodeChangeListener;
+import org.freeplane.features.map.MapChangeEvent;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.MapReader;
+import org.freeplane.features.map.MapWriter;
+import org.freeplane.features.map.MapWriter.Hint;
+import org.freeplane.features.map.MapWriter.Mode;
+import org.freeplane.features.map.NodeBuilder;
+import org.freeplane.features.map.NodeChangeEvent;
+import org.freeplane.features.map.NodeDeletionEvent;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.features.map.NodeMoveEvent;
+import org.freeplane.n3.nanoxml.XMLException;
+
+/**
+ * Saves changes of a map as appended records in a journal file next to the map file.
+ *
+ * Each save appends the content and the child ids of all nodes changed since the previous save.
+ * The journal is applied when the map file is loaded.
+ * When the journal grows beyond a quarter of the map file, the map file is rewritten
+ * on a background thread and the journal is deleted.
+ * Changes of map properties and of cloned or encrypted nodes are saved by rewriting the map file.
+ */
+class MapJournal implements IExtension {
+	static final String SAVE_CHANGES_TO_JOURNAL_PROPERTY = "save_changes_to_journal";
+	private static final String JOURNAL_EXTENSION = ".journal";
+	private static final String JOURNAL_HEADER = "freeplane-journal";
+	private static final int JOURNAL_VERSION = 1;
+	private static final int COMMIT_MARK = -1;
+
+	static class ChangeRecorder implements INodeChangeListener, IMapChangeListener {
+		@Override
+		public void nodeChanged(final NodeChangeEvent event) {
+			final NodeModel node = event.getNode();
+			final MapJournal journal = getJournal(node.getMap());
+			if (journal != null)
+				journal.changedNodes.add(node);
+		}
+
+		@Override
+		public void mapChanged(final MapChangeEvent event) {
+			final MapJournal journal = getJournal(event.getMap());
+			if (journal != null && event.setsDirtyFlag())
+				journal.requiresFullSave = true;
+		}
+
+		@Override
+		public void onNodeInserted(final NodeModel parent, final NodeModel child, final int newIndex) {
+			final MapJournal journal = getJournal(parent.getMap());
+			if (journal != null) {
+				journal.changedNodes.add(parent);
+				journal.addSubtree(child);
+			}
+		}
+
+		@Override
+		public void onNodeDeleted(final NodeDeletionEvent nodeDeletionEvent) {
+			final MapJournal journal = getJournal(nodeDeletionEvent.parent.getMap());
+			if (journal != null)
+				journal.changedNodes.add(nodeDeletionEvent.parent);
+		}
+
+		@Override
+		public void onNodeMoved(final NodeMoveEvent nodeMoveEvent) {
+			final MapJournal journal = getJournal(nodeMoveEvent.newParent.getMap());
+			if (journal != null) {
+				journal.changedNodes.add(nodeMoveEvent.oldParent);
+				journal.changedNodes.add(nodeMoveEvent.newParent);
+				journal.changedNodes.add(nodeMoveEvent.child);
+			}
+		}
+
+		private MapJournal getJournal(final MapModel map) {
+			return map != null ? map.getExtension(MapJournal.class) : null;
+		}
+	}
+
+	private static class Entry {
+		static Entry read(final DataInputStream in) throws IOException {
+			final String id = in.readUTF();
+			final String[] childIds = new String[in.readInt()];
+			for (int i = 0; i < childIds.length; i++)
+				childIds[i] = in.readUTF();
+			final byte[] xml = new byte[in.readInt()];
+			in.readFully(xml);
+			return new Entry(id, childIds, new String(xml, StandardCharsets.UTF_8));
+		}
+
+		final String id;
+		final String[] childIds;
+		final String xml;
+
+		Entry(final String id, final String[] childIds, final String xml) {
+			this.id = id;
+			this.childIds = childIds;
+			this.xml = xml;
+		}
+
+		void write(final DataOutputStream out) throws IOException {
+			out.writeUTF(id);
+			out.writeInt(childIds.length);
+			for (final String childId : childIds)
+				out.writeUTF(childId);
+			final byte[] bytes = xml.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	static boolean isEnabled() {
+		return ResourceController.getResourceController().getBooleanProperty(SAVE_CHANGES_TO_JOURNAL_PROPERTY);
+	}
+
+	static File journalFile(final File mapFile) {
+		return new File(mapFile.getPath() + JOURNAL_EXTENSION);
+	}
+
+	/**
+	 * Applies the journal of the map file to the loaded map and starts recording changes.
+	 * @return the root node, which is replaced if the journal contains changes of it
+	 */
+	static NodeModel load(final MapReader mapReader, final MapModel map, final NodeModel root, final File file) {
+		if (map.getRootNode() != root)
+			return root;
+		NodeModel loadedRoot = root;
+		long journalLength = 0;
+		final File journalFile = journalFile(file);
+		if (journalFile.exists()) {
+			try {
+				final Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+				journalLength = readJournal(Files.readAllBytes(journalFile.toPath()), file, entries);
+				if (!entries.isEmpty())
+					loadedRoot = apply(mapReader, map, entries.values());
+			}
+			catch (final Exception e) {
+				LogUtils.severe("can not apply journal " + journalFile, e);
+			}
+		}
+		if (isEnabled())
+			map.putExtension(new MapJournal(file, journalLength));
+		return loadedRoot;
+	}
+
+	/**
+	 * Deletes the outdated journal after the map file has been rewritten.
+	 */
+	static void restart(final MapModel map, final File file) {
+		final File journalFile = journalFile(file);
+		MapFileWriter.submit(new Runnable() {
+			@Override
+			public void run() {
+				if (journalFile.exists() && !journalFile.delete())
+					LogUtils.warn("can not delete " + journalFile);
+			}
+		});
+		if (isEnabled())
+			map.putExtension(new MapJournal(file, 0));
+		else
+			map.removeExtension(MapJournal.class);
+	}
+
+	private static long readJournal(final byte[] journal, final File file, final Map<String, Entry> entries)
+	        throws IOException {
+		final DataInputStream in = new DataInputStream(new ByteArrayInputStream(journal));
+		long validLength = 0;
+		try {
+			if (!JOURNAL_HEADER.equals(in.readUTF()) || in.readInt() != JOURNAL_VERSION
+			        || in.readLong() != file.length() || in.readLong() != file.lastModified())
+				return 0;
+			validLength = journal.length - in.available();
+			while (in.available() > 0) {
+				final int entryCount = in.readInt();
+				final List<Entry> savedEntries = new ArrayList<Entry>(entryCount);
+				for (int i = 0; i < entryCount; i++)
+					savedEntries.add(Entry.read(in));
+				if (in.readInt() != COMMIT_MARK)
+					break;
+				for (final Entry entry : savedEntries) {
+					entries.remove(entry.id);
+					entries.put(entry.id, entry);
+				}
+				validLength = journal.length - in.available();
+			}
+		}
+		catch (final EOFException e) {
+			LogUtils.warn("incomplete journal entry ignored");
+		}
+		return validLength;
+	}
+
+	private static NodeModel apply(final MapReader mapReader, final MapModel map, final Collection<Entry> entries)
+	        throws IOException, XMLException {
+		final Map<String, NodeModel> replacedNodes = new HashMap<String, NodeModel>();
+		for (final Entry entry : entries) {
+			final NodeModel node = map.getNodeForID(entry.id);
+			if (node != null)
+				replacedNodes.put(entry.id, node);
+		}
+		for (final NodeModel node : replacedNodes.values())
+			map.unregistryNode(node);
+		final Map<Object, Object> hints = new HashMap<Object, Object>();
+		hints.put(Hint.MODE, Mode.FILE);
+		hints.put(NodeBuilder.FOLDING_LOADED, Boolean.TRUE);
+		final Map<String, NodeModel> loadedNodes = new LinkedHashMap<String, NodeModel>();
+		for (final Entry entry : entries)
+			loadedNodes.put(entry.id, mapReader.createNodeTreeFromXml(map, new StringReader(entry.xml), hints));
+		final Set<NodeModel> movedNodes = new LinkedHashSet<NodeModel>(loadedNodes.values());
+		for (final Entry entry : entries) {
+			final NodeModel node = loadedNodes.get(entry.id);
+			for (final String childId : entry.childIds) {
+				NodeModel child = loadedNodes.get(childId);
+				if (child == null)
+					child = map.getNodeForID(childId);
+				if (child == null || child == node)
+					continue;
+				final NodeModel oldParent = child.getParentNode();
+				if (oldParent != null)
+					oldParent.remove(oldParent.getIndex(child));
+				node.insert(child, node.getChildCount());
+				movedNodes.add(child);
+			}
+		}
+		NodeModel root = map.getRootNode();
+		for (final Map.Entry<String, NodeModel> replaced : replacedNodes.entrySet()) {
+			final NodeModel oldNode = replaced.getValue();
+			final NodeModel node = loadedNodes.get(replaced.getKey());
+			final NodeModel parent = oldNode.getParentNode();
+			if (oldNode == root)
+				root = node;
+			else if (parent != null && node.getParentNode() == null) {
+				final int index = parent.getIndex(oldNode);
+				parent.remove(index);
+				parent.insert(node, index);
+			}
+		}
+		if (root != map.getRootNode())
+			map.setRoot(root);
+		for (final NodeModel node : loadedNodes.values()) {
+			if (node != root && node.getParentNode() == null) {
+				movedNodes.remove(node);
+				map.unregistryNodes(node);
+			}
+		}
+		for (final NodeModel oldNode : replacedNodes.values()) {
+			// ids of replaced nodes are registered to the loaded nodes, only deleted descendants are unregistered
+			if (!isAttachedTo(oldNode, root))
+				map.unregistryNodes(oldNode);
+		}
+		updateSides(root, movedNodes);
+		return root;
+	}
+
+	private static void updateSides(final NodeModel root, final Set<NodeModel> movedNodes) {
+		final List<NodeModel> nodes = new ArrayList<NodeModel>(movedNodes);
+		Collections.sort(nodes, new Comparator<NodeModel>() {
+			@Override
+			public int compare(final NodeModel node1, final NodeModel node2) {
+				return node1.getNodeLevel(true) - node2.getNodeLevel(true);
+			}
+		});
+		for (final NodeModel node : nodes) {
+			final NodeModel parent = node.getParentNode();
+			if (parent != null && parent != root)
+				node.setLeft(parent.isLeft());
+		}
+	}
+
+	private final File file;
+	private final Set<NodeModel> changedNodes;
+	private boolean requiresFullSave;
+	// written by the map file writer thread, read by the saving thread
+	private volatile long baseLength;
+	private volatile long baseLastModified;
+	private volatile long journalLength;
+
+	private MapJournal(final File file, final long journalLength) {
+		this.file = file;
+		this.changedNodes = new LinkedHashSet<NodeModel>();
+		this.requiresFullSave = false;
+		this.journalLength = journalLength;
+		MapFileWriter.submit(new Runnable() {
+			@Override
+			public void run() {
+				baseLength = file.length();
+				baseLastModified = file.lastModified();
+			}
+		});
+	}
+
+	private void addSubtree(final NodeModel node) {
+		changedNodes.add(node);
+		for (final NodeModel child : node.getChildren())
+			addSubtree(child);
+	}
+
+	/**
+	 * Appends the changes to the journal.
+	 * Waits until all pending map file writes are completed.
+	 * @return false if the map file needs to be rewritten
+	 */
+	boolean save(final MapModel map, final File file, final MapWriter mapWriter) {
+		try {
+			final List<Entry> entries = requiresFullSave || !this.file.equals(file) ? null : createEntries(map, mapWriter);
+			if (entries == null) {
+				MapFileWriter.waitForPendingWrites();
+				return false;
+			}
+			final boolean saved = MapFileWriter.await(MapFileWriter.submit(new Callable<Boolean>() {
+				@Override
+				public Boolean call() throws Exception {
+					return append(entries);
+				}
+			}));
+			if (!saved)
+				return false;
+			changedNodes.clear();
+			if (journalLength > baseLength / 4)
+				compact(map, mapWriter);
+			return true;
+		}
+		catch (final IOException e) {
+			LogUtils.warn("can not write journal of " + file, e);
+			return false;
+		}
+	}
+
+	private List<Entry> createEntries(final MapModel map, final MapWriter mapWriter) throws IOException {
+		final List<Entry> entries = new ArrayList<Entry>(changedNodes.size());
+		for (final NodeModel node : changedNodes) {
+			if (!isAttachedTo(node, map.getRootNode()))
+				continue;
+			if (!canBeJournaled(node))
+				return null;
+			final StringWriter xml = new StringWriter();
+			mapWriter.writeNodeAsXml(xml, node, Mode.FILE, true, false, false);
+			final List<NodeModel> children = node.getChildren();
+			final String[] childIds = new String[children.size()];
+			for (int i = 0; i < childIds.length; i++)
+				childIds[i] = children.get(i).createID();
+			entries.add(new Entry(node.createID(), childIds, xml.toString()));
+		}
+		return entries;
+	}
+
+	private static boolean isAttachedTo(final NodeModel node, final NodeModel root) {
+		for (NodeModel ancestor = node; ancestor != null; ancestor = ancestor.getParentNode()) {
+			if (ancestor == root)
+				return true;
+		}
+		return false;
+	}
+
+	private boolean canBeJournaled(final NodeModel node) {
+		if (node.allClones().size() > 1 || node.subtreeClones().size() > 1)
+			return false;
+		for (NodeModel ancestor = node; ancestor != null; ancestor = ancestor.getParentNode()) {
+			if (EncryptionModel.getModel(ancestor) != null)
+				return false;
+		}
+		return true;
+	}
+
+	private boolean isBaseUnchanged() {
+		return file.length() == baseLength && file.lastModified() == baseLastModified;
+	}
+
+	private boolean append(final List<Entry> entries) throws IOException {
+		if (!isBaseUnchanged())
+			return false;
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(bytes);
+		if (journalLength == 0) {
+			out.writeUTF(JOURNAL_HEADER);
+			out.writeInt(JOURNAL_VERSION);
+			out.writeLong(baseLength);
+			out.writeLong(baseLastModified);
+		}
+		out.writeInt(entries.size());
+		for (final Entry entry : entries)
+			entry.write(out);
+		out.writeInt(COMMIT_MARK);
+		out.flush();
+		final FileChannel channel = FileChannel.open(journalFile(file).toPath(), StandardOpenOption.CREATE,
+		    StandardOpenOption.WRITE);
+		try {
+			channel.truncate(journalLength);
+			channel.position(journalLength);
+			final ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+			channel.force(false);
+		}
+		finally {
+			channel.close();
+		}
+		journalLength += bytes.size();
+		return true;
+	}
+
+	private void compact(final MapModel map, final MapWriter mapWriter) throws IOException {
+		final String content = MapFileWriter.serialize(map, mapWriter);
+		MapFileWriter.submit(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					replaceMapFile(content);
+				}
+				catch (final IOException e) {
+					LogUtils.warn("can not merge journal into " + file, e);
+				}
+			}
+		});
+	}
+
+	private void replaceMapFile(final String content) throws IOException {
+		if (!isBaseUnchanged())
+			return;
+		MapFileWriter.replace(file, content);
+		baseLength = file.length();
+		baseLastModified = file.lastModified();
+		journalLength = 0;
+		Files.deleteIfExists(journalFile(file).toPath());
+	}
+}
@@ -21,6 +21,7 @@ import org.freeplane.features.map.mindmapmode.MMapModel;
 import org.freeplane.features.mode.Controller;
 import org.freeplane.features.mode.ModeController;
 import org.freeplane.features.ui.IMapViewManager;
+import org.freeplane.features.url.MapConversionException;
 import org.freeplane.features.url.mindmapmode.MFileManager.AlternativeFileMode;
 import org.freeplane.n3.nanoxml.XMLException;
 
@@ -34,6 +35,7 @@ public class MapLoader{
 	private boolean withView;
 	private boolean unsetMapLocation;
 	private boolean asDocumentation;
+	private boolean failOnLoadingErrors;
 	private String selectedNodeId;
 
 	public MapLoader(ModeController modeController) {
@@ -81,12 +83,21 @@ public class MapLoader{
 		return this;
 	}
 
+	/** throws errors of loading the map file instead of creating a map which shows the error */
+	public MapLoader failOnLoadingErrors() {
+		failOnLoadingErrors = true;
+		return this;
+	}
+
 	public MapLoader selectNodeById(String nodeId) {
 		withView = true;
 		selectedNodeId = nodeId;
 		return this;
 	}
 
+	/**
+	 * @throws java.util.concurrent.CancellationException if the user cancels loading of a map opened in a view
+	 */
 	public MapModel getMap() {
 		final MapModel oldMap = controller().getMap();
 		if(unsetMapLocation) {
@@ -194,7 +205,8 @@ public class MapLoader{
 		final MMapModel map = AccessController.doPrivileged(new PrivilegedExceptionAction<MMapModel>() {
 
 			@Override
-			public MMapModel run() throws FileNotFoundException, XMLException, URISyntaxException, IOException {
+			public MMapModel run() throws FileNotFoundException, XMLException, URISyntaxException, IOException,
+			        MapConversionException {
 				return  loadMap(actualSourceLocation);
 			}
 		});
@@ -219,7 +231,7 @@ public class MapLoader{
 	}
 
 	private MMapModel loadMap(URL sourceLocation)
-			throws URISyntaxException, FileNotFoundException, IOException, XMLException {
+			throws URISyntaxException, FileNotFoundException, IOException, XMLException, MapConversionException {
 		final MMapModel map = new MMapModel();
 		MFileManager fileManager = fileManager();
 		if(asDocumentation) {
@@ -238,7 +250,8 @@ public class MapLoader{
 				if (file.length() != 0) {
 					//DOCEAR - fixed: set the file for the map before parsing the xml, necessary for some events
 					fileManager.setFile(map, file);
-					NodeModel root = fileManager.loadTree(map, file);
+					// only loads opening a view can be canceled by the user
+					NodeModel root = failOnLoadingErrors ? fileManager.loadTreeImpl(map, file, withView) : fileManager.loadTree(map, file, withView);
 					assert (map.getRootNode() == root);
 				}
 			}
@@ -33,6 +33,7 @@ import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.StringTokenizer;
+import java.util.concurrent.CancellationException;
 
 import javax.swing.Action;
 import javax.swing.JOptionPane;
@@ -349,6 +350,9 @@ public class LastOpenedList implements IMapViewChangeListener, IMapChangeListene
 		try {
 			open(recentFile);
 		}
+		catch (final CancellationException ex) {
+			return;
+		}
 		catch (final Exception ex) {
 			LogUtils.warn(ex);
 			final String message = TextUtils.format("remove_file_from_list_on_error", recentFile.restorable);
@@ -0,0 +1,379 @@
+package org.freeplane.main.headlessmode;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.PrivilegedActionException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.filechooser.FileFilter;
+
+import org.freeplane.core.util.LogUtils;
+import org.freeplane.features.attribute.Attribute;
+import org.freeplane.features.attribute.NodeAttributeTableModel;
+import org.freeplane.features.export.mindmapmode.ExportController;
+import org.freeplane.features.export.mindmapmode.IExportEngine;
+import org.freeplane.features.filter.FilterController;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.features.mode.Controller;
+import org.freeplane.features.mode.ModeController;
+import org.freeplane.features.mode.mindmapmode.MModeController;
+import org.freeplane.features.note.NoteModel;
+import org.freeplane.features.script.IScriptStarter;
+import org.freeplane.features.text.DetailTextModel;
+import org.freeplane.features.text.TextController;
+import org.freeplane.features.url.mindmapmode.MFileManager;
+import org.freeplane.features.url.mindmapmode.MapLoader;
+import org.freeplane.main.mindmapmode.stylemode.ExtensionInstaller;
+
+/**
+ * Processes map files without user interface on a pool of worker threads.
+ *
+ * Every worker thread starts its own headless controller which is only current for this thread,
+ * so that maps processed in parallel do not share map readers, undo handlers or the current map.
+ * Worker controllers never become the application controller seen by other threads,
+ * and they save maps on their worker thread instead of the shared background writer.
+ * Scripting state is shared by all controllers: the compiled script caches of the scripting plugin are
+ * thread safe, but scripts redirect the process wide System.out, so formula evaluation and scripts
+ * run by the processors here are executed by one worker at a time.
+ * Each map is loaded, passed to the {@link MapProcessor}s in the given order and closed,
+ * load and processing times of every file and the throughput are reported at the end.
+ *
+ * Freeplane runs the batch with installed plugins instead of starting normally if system property
+ * org.freeplane.main.application.FreeplaneStarter.batch is true, the command line arguments are passed to
+ * {@link #run(String[], ExtensionInstaller)}. Property java.awt.headless should be true as well.
+ */
+public class BatchProcessor {
+	public interface MapProcessor {
+		void process(ModeController modeController, MapModel map) throws Exception;
+	}
+
+	public static class FileResult {
+		private final File file;
+		private long loadNanos;
+		private long processNanos;
+		private Exception failure;
+
+		FileResult(File file) {
+			this.file = file;
+		}
+
+		public File getFile() {
+			return file;
+		}
+
+		public long getLoadNanos() {
+			return loadNanos;
+		}
+
+		public long getProcessNanos() {
+			return processNanos;
+		}
+
+		public Exception getFailure() {
+			return failure;
+		}
+	}
+
+	private static final String HELP_MESSAGE = "Usage: [options] <map files and directories>\n"
+	        + "Processes all given maps and all .mm files found in given directories, options are applied in given order.\n"
+	        + "  -w<count>      number of worker threads, default is the number of processors\n"
+	        + "  -e             evaluate formulas of node texts, details, notes and attributes\n"
+	        + "  -s<file>       run given script on the root node\n"
+	        + "  -S             save changed maps\n"
+	        + "  -x<extension>  export the map to a file with given extension using the matching map export\n"
+	        + "  -o<directory>  directory for exported files, default is the directory of the map\n"
+	        + "  -h, --help     show this message";
+	private static final Object workerCreationLock = new Object();
+	private static final Object scriptExecutionLock = new Object();
+
+	private final int workerCount;
+	private final ExtensionInstaller extensionInstaller;
+	private final List<MapProcessor> processors = new ArrayList<MapProcessor>();
+
+	/** @param extensionInstaller installs plugins into the controller of each worker, can be null */
+	public BatchProcessor(int workerCount, ExtensionInstaller extensionInstaller) {
+		if (workerCount < 1)
+			throw new IllegalArgumentException("worker count must be positive");
+		this.workerCount = workerCount;
+		this.extensionInstaller = extensionInstaller;
+	}
+
+	public BatchProcessor addProcessor(MapProcessor processor) {
+		processors.add(processor);
+		return this;
+	}
+
+	/** @return results in the order of given files */
+	public List<FileResult> process(List<File> files) throws InterruptedException {
+		final FileResult[] results = new FileResult[files.size()];
+		final AtomicInteger nextFile = new AtomicInteger();
+		final Thread[] workers = new Thread[Math.min(workerCount, Math.max(1, files.size()))];
+		for (int i = 0; i < workers.length; i++) {
+			workers[i] = new Thread(() -> {
+				final FreeplaneHeadlessStarter starter;
+				final ModeController modeController;
+				try {
+					starter = FreeplaneHeadlessStarter.forCurrentThread();
+					modeController = startController(starter);
+				}
+				catch (RuntimeException e) {
+					LogUtils.severe(e);
+					for (int index = nextFile.getAndIncrement(); index < results.length; index = nextFile
+					    .getAndIncrement()) {
+						results[index] = new FileResult(files.get(index));
+						results[index].failure = e;
+					}
+					return;
+				}
+				try {
+					for (int index = nextFile.getAndIncrement(); index < results.length; index = nextFile
+					    .getAndIncrement())
+						results[index] = processFile(modeController, files.get(index));
+				}
+				finally {
+					starter.stop();
+					Controller.setCurrentThreadController(null);
+				}
+			}, "Batch worker " + (i + 1));
+			workers[i].start();
+		}
+		for (Thread worker : workers)
+			worker.join();
+		return Arrays.asList(results);
+	}
+
+	/** controllers are created one after another because their installation uses shared factories */
+	private ModeController startController(FreeplaneHeadlessStarter starter) {
+		synchronized (workerCreationLock) {
+			final Controller controller = starter.createController();
+			starter.createModeControllers(controller);
+			if (extensionInstaller != null)
+				extensionInstaller.installExtensions(controller);
+			FilterController.getController(controller).loadDefaultConditions();
+			controller.getResourceController().setProperty(MFileManager.SAVE_MAPS_IN_BACKGROUND_PROPERTY, false);
+			starter.createFrame(new String[] {});
+			return controller.getModeController(MModeController.MODENAME);
+		}
+	}
+
+	private FileResult processFile(ModeController modeController, File file) {
+		final FileResult result = new FileResult(file);
+		final long startTime = System.nanoTime();
+		MapModel map = null;
+		try {
+			map = new MapLoader(modeController).load(file).failOnLoadingErrors().getMap();
+			modeController.getMapController().createMapView(map);
+			final long loadTime = System.nanoTime();
+			result.loadNanos = loadTime - startTime;
+			for (MapProcessor processor : processors)
+				processor.process(modeController, map);
+			result.processNanos = System.nanoTime() - loadTime;
+		}
+		catch (Exception e) {
+			result.failure = unwrap(e);
+			LogUtils.warn("processing of " + file + " failed", e);
+		}
+		finally {
+			if (map != null) {
+				modeController.getController().getMapViewManager().closeWithoutSaving();
+				modeController.getMapController().closeWithoutSaving(map);
+			}
+		}
+		return result;
+	}
+
+	/** map loading wraps the exceptions of reading into runtime and privileged action exceptions */
+	private static Exception unwrap(Exception e) {
+		Throwable exception = e;
+		while ((exception.getClass() == RuntimeException.class || exception instanceof PrivilegedActionException)
+		        && exception.getCause() instanceof Exception)
+			exception = exception.getCause();
+		return (Exception) exception;
+	}
+
+	public static MapProcessor formulaEvaluation() {
+		return (modeController, map) -> {
+			synchronized (scriptExecutionLock) {
+				evaluateFormulas(TextController.getController(modeController), map.getRootNode());
+			}
+		};
+	}
+
+	private static void evaluateFormulas(TextController textController, NodeModel node) throws Exception {
+		textController.getTransformedObject(node);
+		final String details = DetailTextModel.getDetailTextText(node);
+		if (details != null)
+			textController.getTransformedObject(details, node, null);
+		final String note = NoteModel.getNoteText(node);
+		if (note != null)
+			textController.getTransformedObject(note, node, null);
+		for (Attribute attribute : NodeAttributeTableModel.getModel(node).getAttributes())
+			textController.getTransformedObject(attribute.getValue(), node, null);
+		for (NodeModel child : node.getChildren())
+			evaluateFormulas(textController, child);
+	}
+
+	public static MapProcessor script(String scriptText) {
+		return (modeController, map) -> {
+			final IScriptStarter scriptStarter = modeController.getExtension(IScriptStarter.class);
+			if (scriptStarter == null)
+				throw new IllegalStateException("scripting is not available");
+			synchronized (scriptExecutionLock) {
+				scriptStarter.executeScript(map.getRootNode(), scriptText);
+			}
+		};
+	}
+
+	/** writes changed maps before the next processor runs, failures are reported in the results */
+	public static MapProcessor save() {
+		return (modeController, map) -> {
+			if (!map.isSaved())
+				MFileManager.getController(modeController).saveSynchronously(map);
+		};
+	}
+
+	/** @param outputDirectory null to write the exported file next to the map */
+	public static MapProcessor export(String extension, File outputDirectory) {
+		return (modeController, map) -> {
+			final File mapFile = map.getFile();
+			final String name = mapFile.getName();
+			final int extensionStart = name.lastIndexOf('.');
+			final String exportedName = (extensionStart > 0 ? name.substring(0, extensionStart) : name) + '.'
+			        + extension;
+			final File exportedFile = new File(outputDirectory != null ? outputDirectory : mapFile.getParentFile(),
+			    exportedName);
+			findExportEngine(ExportController.getController(modeController), exportedFile)
+			    .export(Collections.singletonList(map.getRootNode()), exportedFile);
+		};
+	}
+
+	private static IExportEngine findExportEngine(ExportController exportController, File exportedFile) {
+		for (FileFilter filter : exportController.getMapExportFileFilters()) {
+			if (filter.accept(exportedFile))
+				return exportController.getMapExportEngines().get(filter);
+		}
+		throw new IllegalArgumentException("no export for " + exportedFile.getName());
+	}
+
+	/** returns given files and all .mm files found in given directories */
+	public static List<File> findMaps(List<File> filesAndDirectories) {
+		final List<File> maps = new ArrayList<File>();
+		for (File file : filesAndDirectories)
+			addMaps(file, maps);
+		return maps;
+	}
+
+	private static void addMaps(File file, List<File> maps) {
+		if (!file.isDirectory()) {
+			maps.add(file);
+			return;
+		}
+		final File[] children = file.listFiles();
+		if (children == null)
+			return;
+		Arrays.sort(children);
+		for (File child : children) {
+			if (child.isDirectory() || child.getName().endsWith(".mm"))
+				addMaps(child, maps);
+		}
+	}
+
+	public static void printReport(PrintStream out, List<FileResult> results, long elapsedNanos) {
+		int failureCount = 0;
+		out.println("load ms\tprocess ms\tfile");
+		for (FileResult result : results) {
+			if (result.failure == null)
+				out.println(String.format(Locale.ROOT, "%.1f\t%.1f\t%s", millis(result.loadNanos),
+				    millis(result.processNanos), result.file));
+			else {
+				failureCount++;
+				out.println(String.format(Locale.ROOT, "failed\t\t%s: %s", result.file, result.failure));
+			}
+		}
+		final double seconds = elapsedNanos / 1e9;
+		out.println(String.format(Locale.ROOT, "%d files, %d failed, %.2f s, %.2f files/s", results.size(),
+		    failureCount, seconds, seconds > 0 ? results.size() / seconds : 0));
+	}
+
+	private static double millis(long nanos) {
+		return nanos / 1e6;
+	}
+
+	/**
+	 * Runs the batch configured by given command line arguments and prints the report to standard output.
+	 * @return 0 if all files were processed, 1 if processing of some files failed, 2 for invalid arguments
+	 */
+	public static int run(String[] args, ExtensionInstaller extensionInstaller) {
+		final PrintStream out = System.out;
+		int workerCount = Runtime.getRuntime().availableProcessors();
+		File outputDirectory = null;
+		for (String arg : args) {
+			if (arg.startsWith("-o"))
+				outputDirectory = new File(arg.substring(2));
+		}
+		final List<MapProcessor> processors = new ArrayList<MapProcessor>();
+		final List<File> filesAndDirectories = new ArrayList<File>();
+		try {
+			for (String arg : args) {
+				if (arg.equals("-h") || arg.equals("--help")) {
+					out.println(HELP_MESSAGE);
+					return 0;
+				}
+				else if (arg.startsWith("-w"))
+					workerCount = Integer.parseInt(arg.substring(2));
+				else if (arg.equals("-e"))
+					processors.add(formulaEvaluation());
+				else if (arg.startsWith("-s"))
+					processors.add(script(new String(Files.readAllBytes(new File(arg.substring(2)).toPath()),
+					    StandardCharsets.UTF_8)));
+				else if (arg.equals("-S"))
+					processors.add(save());
+				else if (arg.startsWith("-x"))
+					processors.add(export(arg.substring(2), outputDirectory));
+				else if (!arg.startsWith("-o"))
+					filesAndDirectories.add(new File(arg));
+			}
+		}
+		catch (NumberFormatException | IOException e) {
+			System.err.println(e.getMessage());
+			System.err.println(HELP_MESSAGE);
+			return 2;
+		}
+		if (filesAndDirectories.isEmpty() || workerCount < 1) {
+			System.err.println(HELP_MESSAGE);
+			return 2;
+		}
+		final BatchProcessor batchProcessor = new BatchProcessor(workerCount, extensionInstaller);
+		processors.forEach(batchProcessor::addProcessor);
+		final List<File> maps = findMaps(filesAndDirectories);
+		final long startTime = System.nanoTime();
+		final List<FileResult> results;
+		try {
+			results = batchProcessor.process(maps);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return 1;
+		}
+		printReport(out, results, System.nanoTime() - startTime);
+		for (FileResult result : results) {
+			if (result.failure != null)
+				return 1;
+		}
+		return 0;
+	}
+
+	/** runs the batch without plugins, see {@link #run(String[], ExtensionInstaller)} */
+	public static void main(String[] args) {
+		System.exit(run(args, null));
+	}
+}
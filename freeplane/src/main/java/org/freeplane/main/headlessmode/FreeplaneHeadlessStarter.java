@@ -48,13 +48,28 @@ public class FreeplaneHeadlessStarter implements FreeplaneStarter {
 
 	private ApplicationResourceController applicationResourceController;
 	private HeadlessUIController viewController;
+	private final boolean isBoundToThread;
 // // 	private Controller controller;
 	/** allows to disable loadLastMap(s) if there already is a second instance running. */
 	public FreeplaneHeadlessStarter() {
+		this(false);
+	}
+
+	private FreeplaneHeadlessStarter(boolean isBoundToThread) {
 		super();
+		this.isBoundToThread = isBoundToThread;
 		applicationResourceController = new ApplicationResourceController();
 	}
 
+	/**
+	 * Creates a starter whose controller is only current for the calling thread,
+	 * so that several controllers can process maps in parallel.
+	 * Logging is not initialized and opened maps are not added to the list of recent files.
+	 */
+	public static FreeplaneHeadlessStarter forCurrentThread() {
+		return new FreeplaneHeadlessStarter(true);
+	}
+
 	@Override
 	public void setDontLoadLastMaps() {
     }
@@ -62,11 +77,20 @@ public class FreeplaneHeadlessStarter implements FreeplaneStarter {
 	@Override
 	public Controller createController() {
 		try {
+			final Controller applicationController = Controller.getCurrentController();
 			Controller controller = new Controller(applicationResourceController);
-			Controller.setCurrentController(controller);
+			if (isBoundToThread) {
+				// the first created controller becomes the application controller unless it is bound to a thread
+				Controller.setCurrentController(applicationController);
+				Controller.setCurrentThreadController(controller);
+			}
+			else
+				Controller.setCurrentController(controller);
 			applicationResourceController.init();
-			LogInitializer.createLogger();
-			FreeplaneGUIStarter.showSysInfo();
+			if (!isBoundToThread) {
+				LogInitializer.createLogger();
+				FreeplaneGUIStarter.showSysInfo();
+			}
 			final HeadlessMapViewController mapViewController = new HeadlessMapViewController();
 			controller.setMapViewManager(mapViewController);
 			viewController = new HeadlessUIController(controller, mapViewController, "");
@@ -99,8 +123,9 @@ public class FreeplaneHeadlessStarter implements FreeplaneStarter {
 	@Override
 	public void createModeControllers(final Controller controller) {
 		HeadlessMModeControllerFactory.createModeController();
-		controller.getModeController(MModeController.MODENAME).getMapController().addMapChangeListener(
-			applicationResourceController.getLastOpenedList());
+		if (!isBoundToThread)
+			controller.getModeController(MModeController.MODENAME).getMapController().addMapChangeListener(
+				applicationResourceController.getLastOpenedList());
     }
 
 	@Override
@@ -73,7 +73,7 @@ import org.freeplane.view.swing.ui.UserInputListenerFactory;
 public class HeadlessMModeControllerFactory {
 	private static HeadlessMModeControllerFactory instance;
 
-	public static MModeController createModeController() {
+	public static synchronized MModeController createModeController() {
 		return HeadlessMModeControllerFactory.getInstance().createModeControllerImpl();
 	}
 
@@ -179,7 +179,8 @@ public class HeadlessMapViewController implements IMapViewManager {
 
 	@Override
 	public JComponent getMapViewComponent() {
-		throw new RuntimeException("Method not implemented");
+		// map views created for printing and export listen to property changes for the current map view
+		return null;
 	}
 
 	@Override
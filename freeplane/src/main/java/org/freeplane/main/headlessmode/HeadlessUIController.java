@@ -50,7 +50,10 @@ public class HeadlessUIController extends FrameController {
 	final private ExecutorService worker = Executors.newSingleThreadExecutor(new ThreadFactory() {
 		@Override
 		public Thread newThread(Runnable r) {
-			final Thread thread = Executors.defaultThreadFactory().newThread(r);
+			final Thread thread = Executors.defaultThreadFactory().newThread(() -> {
+				Controller.setCurrentThreadController(controller);
+				r.run();
+			});
 			workingThreadId.set(thread.getId());
 			return thread;
 		}
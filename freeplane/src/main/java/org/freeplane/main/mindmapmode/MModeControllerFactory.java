@@ -263,6 +263,7 @@ public class MModeControllerFactory {
 		UIComponentVisibilityDispatcher.install(toolbar, "toolbarVisible");
 		userInputListenerFactory.addToolBar("/main_toolbar", ViewController.TOP, toolbar);
 		userInputListenerFactory.addToolBar("/filter_toolbar", FilterController.TOOLBAR_SIDE, FilterController.getController(controller).getFilterToolbar());
+		FilterController.getController(controller).updateFilterResultsOnChange(modeController.getMapController());
 		userInputListenerFactory.addToolBar("/status", ViewController.BOTTOM, frameController
 		    .getStatusBar());
 		final JTabbedPane formattingPanel = new JTabbedPane();
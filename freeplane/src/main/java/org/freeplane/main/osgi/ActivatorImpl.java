@@ -29,6 +29,7 @@ import org.freeplane.features.mode.ModeController;
 import org.freeplane.main.application.FreeplaneGUIStarter;
 import org.freeplane.main.application.FreeplaneStarter;
 import org.freeplane.main.application.SingleInstanceManager;
+import org.freeplane.main.headlessmode.BatchProcessor;
 import org.freeplane.main.headlessmode.FreeplaneHeadlessStarter;
 import org.freeplane.main.mindmapmode.stylemode.ExtensionInstaller;
 import org.freeplane.main.mindmapmode.stylemode.SModeControllerFactory;
@@ -49,6 +50,7 @@ import java.util.jar.Manifest;
  */
 class ActivatorImpl implements BundleActivator {
 	private static final String HEADLESS_RUN_PROPERTY_NAME = FreeplaneStarter.class.getName() + ".headless";
+	private static final String BATCH_RUN_PROPERTY_NAME = FreeplaneStarter.class.getName() + ".batch";
 	private FreeplaneStarter starter;
 
 	private String[] getCallParameters() {
@@ -161,6 +163,10 @@ class ActivatorImpl implements BundleActivator {
 			catch (final MalformedURLException e) {
 			}
 		}
+		if (runsBatch()) {
+			loadPlugins(context);
+			System.exit(BatchProcessor.run(getCallParameters(), new OsgiExtentionInstaller(context)));
+		}
 		// initialize ApplicationController - SingleInstanceManager needs the configuration
 		starter =  createStarter();
 		final SingleInstanceManager singleInstanceManager = new SingleInstanceManager(starter, runsHeadless());
@@ -270,6 +276,10 @@ class ActivatorImpl implements BundleActivator {
 		return Boolean.getBoolean(HEADLESS_RUN_PROPERTY_NAME);
 	}
 
+	private boolean runsBatch() {
+		return Boolean.getBoolean(BATCH_RUN_PROPERTY_NAME);
+	}
+
     private void registerClasspathUrlHandler(final BundleContext context) {
         Hashtable<String, String[]> properties = new Hashtable<String, String[]>();
         properties.put(URLConstants.URL_HANDLER_PROTOCOL, new String[] { ResourceController.FREEPLANE_RESOURCE_URL_PROTOCOL });
@@ -278,7 +288,8 @@ class ActivatorImpl implements BundleActivator {
 
 	@Override
 	public void stop(final BundleContext context) throws Exception {
-		starter.stop();
+		if (starter != null)
+			starter.stop();
 		final Bundle[] bundles = context.getBundles();
 		for (int i = 0; i < bundles.length; i++) {
 			final Bundle bundle = bundles[i];
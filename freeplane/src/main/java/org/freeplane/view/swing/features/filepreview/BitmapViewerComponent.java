@@ -19,12 +19,11 @@
  */
 package org.freeplane.view.swing.features.filepreview;
 
+import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Image;
 import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.ref.WeakReference;
@@ -33,16 +32,15 @@ import java.net.URI;
 import java.net.URL;
 import java.util.Iterator;
 
-import javax.imageio.IIOException;
 import javax.imageio.ImageIO;
 import javax.imageio.ImageReader;
 import javax.imageio.stream.ImageInputStream;
 import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
 
 import org.freeplane.core.resources.ResourceController;
 import org.freeplane.core.util.LogUtils;
-
-import com.thebuzzmedia.imgscalr.Scalr;
+import org.freeplane.view.swing.map.MapView;
 
 /**
  * @author Dimitry Polivaev
@@ -55,7 +53,6 @@ public class BitmapViewerComponent extends JComponent implements ScalableCompone
 	}
 
 	private static final long serialVersionUID = 1L;
-	private File cacheFile;
 	private int hint;
 	private BufferedImage cachedImage;
 	private WeakReference<BufferedImage> cachedImageWeakRef;
@@ -66,7 +63,7 @@ public class BitmapViewerComponent extends JComponent implements ScalableCompone
 	private boolean scaleEnabled;
 	private Dimension maximumSize = null;
 	private boolean center;
-	private final static Object LOCK = new Object();
+	private static final Color PLACEHOLDER_COLOR = new Color(128, 128, 128, 32);
 	private static boolean disabledDueToJavaBug = false;
 
 	public BitmapViewerComponent(final URI uri) throws MalformedURLException, IOException {
@@ -138,36 +135,14 @@ public class BitmapViewerComponent extends JComponent implements ScalableCompone
 			cachedImage = cachedImageWeakRef.get();
 			cachedImageWeakRef = null;
 		}
-		if (cachedImage == null && cacheFile != null) {
-			loadImageFromCacheFile();
-			if (!isCachedImageValid()) {
-				cacheFile.delete();
-				cacheFile = null;
-			}
-		}
 		if (!isCachedImageValid()) {
-			final BufferedImage image = loadImageFromURL();
-			if (image == null || hasNoArea(image)) {
+			final BufferedImage scaledImage = getScaledImage();
+			if (scaledImage == null) {
+				paintPlaceholder(g);
 				return;
 			}
-			BufferedImage scaledImage = null;
-			try {
-				scaledImage = Scalr.resize(image, Scalr.Mode.BEST_FIT_BOTH, getWidth(), getHeight());
-			}
-			catch (final Exception e) {
-				LogUtils.severe(e);
-				return;
-			}
-			finally {
-				image.flush();
-			}
-			final int scaledImageHeight = scaledImage.getHeight();
-			final int scaledImageWidth = scaledImage.getWidth();
-			centerImagePosition(scaledImageWidth, scaledImageHeight);
+			centerImagePosition(scaledImage.getWidth(), scaledImage.getHeight());
 			cachedImage = scaledImage;
-			if (getCacheType().equals(CacheType.IC_FILE)) {
-				writeCacheFile();
-			}
 		}
 		try {
 			g.drawImage(cachedImage, imageX, imageY, null);
@@ -179,6 +154,34 @@ public class BitmapViewerComponent extends JComponent implements ScalableCompone
 		flushImage();
 	}
 
+	private BufferedImage getScaledImage() {
+		final Dimension size = getSize();
+		if (isPrinting() || !SwingUtilities.isEventDispatchThread()) {
+			return ScaledImageCache.INSTANCE.loadImage(url, size);
+		}
+		return ScaledImageCache.INSTANCE.getImage(url, size, this::repaint);
+	}
+
+	private boolean isPrinting() {
+		final MapView mapView = (MapView) SwingUtilities.getAncestorOfClass(MapView.class, this);
+		return mapView != null && mapView.isPrinting();
+	}
+
+	/** shows the previously scaled image or a shaded area while the image is loaded */
+	private void paintPlaceholder(final Graphics g) {
+		if (cachedImage != null) {
+			final double scale = Math.min((double) getWidth() / cachedImage.getWidth(),
+			    (double) getHeight() / cachedImage.getHeight());
+			final int width = (int) (cachedImage.getWidth() * scale);
+			final int height = (int) (cachedImage.getHeight() * scale);
+			g.drawImage(cachedImage, (getWidth() - width) / 2, (getHeight() - height) / 2, width, height, null);
+		}
+		else {
+			g.setColor(PLACEHOLDER_COLOR);
+			g.fillRect(0, 0, getWidth(), getHeight());
+		}
+	}
+
 	private void centerImagePosition(final int scaledImageWidth, final int scaledImageHeight) {
 		if (center) {
 			imageX = (getWidth() - scaledImageWidth) / 2;
@@ -200,24 +203,6 @@ public class BitmapViewerComponent extends JComponent implements ScalableCompone
 		return getWidth() == 0 || getHeight() == 0;
 	}
 
-	private boolean hasNoArea(final BufferedImage image) {
-		final int imageWidth = image.getWidth();
-		final int imageHeight = image.getHeight();
-		if (imageWidth == 0 || imageHeight == 0) {
-			return true;
-		}
-		return false;
-	}
-
-	private void loadImageFromCacheFile() {
-		try {
-			cachedImage = ImageIO.read(cacheFile);
-		}
-		catch (final IOException e) {
-			logImageReadingException(e);
-		}
-	}
-
 	private boolean isCachedImageValid() {
 		return cachedImage != null
 		        && (!scaleEnabled || componentHasSameWidthAsCachedImage()
@@ -241,31 +226,6 @@ public class BitmapViewerComponent extends JComponent implements ScalableCompone
 		return 1 >= Math.abs(getWidth() - cachedImage.getWidth());
 	}
 
-	private BufferedImage loadImageFromURL() {
-		BufferedImage tempImage = null;
-		try {
-			tempImage = ImageIO.read(url);
-		}
-		catch (final IOException e) {
-			logImageReadingException(e);
-		}
-		return tempImage;
-	}
-
-	private void logImageReadingException(final IOException e) {
-		if((e instanceof FileNotFoundException) || (e instanceof IIOException)) {
-			LogUtils.warn(e.getMessage());
-			return;
-		}
-		final Throwable cause = e.getCause();
-		if((cause instanceof FileNotFoundException) || (cause instanceof IIOException)) {
-			LogUtils.warn(cause.getMessage());
-			return;
-		}
-
-		LogUtils.severe(e);
-	}
-
 	private void flushImage() {
 		final CacheType cacheType = getCacheType();
 		if (CacheType.IC_RAM.equals(cacheType)) {
@@ -281,38 +241,6 @@ public class BitmapViewerComponent extends JComponent implements ScalableCompone
 		return ResourceController.getResourceController().getEnumProperty("image_cache", CacheType.IC_DISABLE);
 	}
 
-	private void writeCacheFile() {
-		final File tempDir = new File(System.getProperty("java.io.tmpdir"), "freeplane");
-		tempDir.mkdirs();
-		try {
-			synchronized(LOCK) {
-				if(cacheFile == null)
-					cacheFile = File.createTempFile("cachedImage", ".jpg", tempDir);
-				else{
-					cacheFile.delete();
-					cacheFile.createNewFile();
-				}
-
-			}
-			ImageIO.write(cachedImage, "jpg", cacheFile);
-		}
-		catch (final IOException e) {
-			if(cacheFile != null) {
-				cacheFile.delete();
-				cacheFile = null;
-			}
-		}
-	}
-
-	@Override
-	public void removeNotify() {
-		super.removeNotify();
-		if (cacheFile != null) {
-			cacheFile.delete();
-			cacheFile = null;
-		}
-	}
-
 	@Override
 	public void setFinalViewerSize(final Dimension size) {
 		final Dimension sizeWithScaleCorrection = fitToMaximumSize(size);
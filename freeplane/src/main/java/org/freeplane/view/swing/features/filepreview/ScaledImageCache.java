@@ -0,0 +1,367 @@
+package org.freeplane.view.swing.features.filepreview;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.IIOException;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.swing.SwingUtilities;
+
+import org.freeplane.core.resources.ResourceController;
+import org.freeplane.core.util.LogUtils;
+import org.freeplane.view.swing.features.filepreview.BitmapViewerComponent.CacheType;
+
+import com.thebuzzmedia.imgscalr.Scalr;
+
+/**
+ * Decodes and scales bitmap images on background threads, shared by all viewers showing the same image at the same size.
+ *
+ * Scaled images are kept in memory up to the size given by property {@value #MEMORY_LIMIT_PROPERTY}
+ * and, if property image_cache is ic_file, in files named after the image location, modification time and size.
+ * Large images are decoded with subsampling close to the requested size before they are scaled.
+ * Images which can not be loaded are not tried again until their file changes or a map is loaded.
+ */
+class ScaledImageCache {
+	static final String MEMORY_LIMIT_PROPERTY = "image_cache_megabytes";
+	private static final String CACHE_DIRECTORY = "imagecache";
+	private static final long UNUSED_FILE_LIFETIME = TimeUnit.DAYS.toMillis(30);
+	private static final int MAXIMAL_FAILED_IMAGE_COUNT = 1024;
+	static final ScaledImageCache INSTANCE = new ScaledImageCache();
+
+	private final LinkedHashMap<String, BufferedImage> images = new LinkedHashMap<>(16, 0.75f, true);
+	private long imageBytes;
+	private final Map<String, List<ImageLoadingListener>> loadingImages = new HashMap<>();
+	/** keys of images which could not be loaded by their location and size */
+	private final LinkedHashMap<String, String> failedImages = new LinkedHashMap<String, String>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<String, String> eldest) {
+			return size() > MAXIMAL_FAILED_IMAGE_COUNT;
+		}
+	};
+	private final ThreadPoolExecutor executor;
+	private File cacheDirectory;
+
+	private ScaledImageCache() {
+		final int threadCount = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+		executor = new ThreadPoolExecutor(threadCount, threadCount, 10, TimeUnit.SECONDS,
+		    new LinkedBlockingQueue<Runnable>(), runnable -> {
+			    final Thread thread = new Thread(runnable, "Image loading");
+			    thread.setDaemon(true);
+			    thread.setPriority(Thread.NORM_PRIORITY - 1);
+			    return thread;
+		    });
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Returns the image scaled to fit into given size if it is available,
+	 * otherwise starts loading it and returns null.
+	 * @param listener is notified on the event dispatch thread after the image is loaded
+	 */
+	BufferedImage getImage(final URL url, final Dimension size, final ImageLoadingListener listener) {
+		final String key = keyOf(url, size);
+		synchronized (this) {
+			final BufferedImage image = images.get(key);
+			if (image != null || hasFailed(key, url, size)) {
+				return image;
+			}
+			final List<ImageLoadingListener> listeners = loadingImages.get(key);
+			if (listeners != null) {
+				listeners.add(listener);
+				return null;
+			}
+			final List<ImageLoadingListener> newListeners = new ArrayList<>();
+			newListeners.add(listener);
+			loadingImages.put(key, newListeners);
+		}
+		executor.execute(() -> {
+			try {
+				load(key, url, size);
+			}
+			catch (final RuntimeException e) {
+				LogUtils.severe(e);
+			}
+			finally {
+				final List<ImageLoadingListener> listeners;
+				synchronized (this) {
+					listeners = loadingImages.remove(key);
+				}
+				SwingUtilities.invokeLater(() -> {
+					for (final ImageLoadingListener imageLoadingListener : listeners) {
+						imageLoadingListener.imageLoaded();
+					}
+				});
+			}
+		});
+		return null;
+	}
+
+	/** Loads the image on the calling thread if it is not available */
+	BufferedImage loadImage(final URL url, final Dimension size) {
+		final String key = keyOf(url, size);
+		synchronized (this) {
+			final BufferedImage image = images.get(key);
+			if (image != null || hasFailed(key, url, size)) {
+				return image;
+			}
+		}
+		return load(key, url, size);
+	}
+
+	/** records images which could not be loaded as failed, also if loading throws */
+	private BufferedImage load(final String key, final URL url, final Dimension size) {
+		BufferedImage image = null;
+		try {
+			final File cacheFile = getCacheFile(key);
+			image = cacheFile != null ? readCacheFile(cacheFile) : null;
+			if (image == null) {
+				image = decode(url, size);
+				if (image != null && cacheFile != null) {
+					writeCacheFile(image, cacheFile);
+				}
+			}
+		}
+		finally {
+			synchronized (this) {
+				if (image == null) {
+					failedImages.put(locationKeyOf(url, size), key);
+				}
+				else {
+					put(key, image);
+				}
+			}
+		}
+		return image;
+	}
+
+	/** the failure is forgotten if the image file has been changed since */
+	private boolean hasFailed(final String key, final URL url, final Dimension size) {
+		final String locationKey = locationKeyOf(url, size);
+		final String failedKey = failedImages.get(locationKey);
+		if (failedKey == null) {
+			return false;
+		}
+		if (failedKey.equals(key)) {
+			return true;
+		}
+		failedImages.remove(locationKey);
+		return false;
+	}
+
+	/** lets images which could not be loaded be loaded again, e.g. after the user has fixed their files */
+	synchronized void forgetFailedImages() {
+		failedImages.clear();
+	}
+
+	private void put(final String key, final BufferedImage image) {
+		final BufferedImage replacedImage = images.put(key, image);
+		if (replacedImage != null) {
+			imageBytes -= bytesOf(replacedImage);
+		}
+		imageBytes += bytesOf(image);
+		final long memoryLimit = ResourceController.getResourceController().getLongProperty(MEMORY_LIMIT_PROPERTY, 0)
+		        * 1024 * 1024;
+		for (final Iterator<BufferedImage> iterator = images.values().iterator(); imageBytes > memoryLimit
+		        && iterator.hasNext();) {
+			final BufferedImage evictedImage = iterator.next();
+			if (evictedImage != image) {
+				imageBytes -= bytesOf(evictedImage);
+				iterator.remove();
+			}
+		}
+	}
+
+	private static long bytesOf(final BufferedImage image) {
+		return 4L * image.getWidth() * image.getHeight();
+	}
+
+	private String keyOf(final URL url, final Dimension size) {
+		final StringBuilder key = new StringBuilder(url.toExternalForm());
+		final File file = fileOf(url);
+		if (file != null) {
+			key.append('|').append(file.lastModified()).append('|').append(file.length());
+		}
+		return key.append('|').append(size.width).append('x').append(size.height).toString();
+	}
+
+	private static String locationKeyOf(final URL url, final Dimension size) {
+		return url.toExternalForm() + '|' + size.width + 'x' + size.height;
+	}
+
+	private static File fileOf(final URL url) {
+		if (!"file".equals(url.getProtocol())) {
+			return null;
+		}
+		try {
+			return new File(url.toURI());
+		}
+		catch (URISyntaxException | IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	private BufferedImage decode(final URL url, final Dimension size) {
+		final BufferedImage image;
+		try {
+			image = read(url, size);
+		}
+		catch (final IOException e) {
+			logImageReadingException(e);
+			return null;
+		}
+		if (image == null || image.getWidth() == 0 || image.getHeight() == 0) {
+			return null;
+		}
+		try {
+			if (image.getWidth() == size.width && image.getHeight() <= size.height
+			        || image.getHeight() == size.height && image.getWidth() <= size.width) {
+				return image;
+			}
+			final BufferedImage scaledImage = Scalr.resize(image, Scalr.Mode.BEST_FIT_BOTH, size.width, size.height);
+			image.flush();
+			return scaledImage;
+		}
+		catch (final Exception e) {
+			LogUtils.severe(e);
+			return null;
+		}
+	}
+
+	private BufferedImage read(final URL url, final Dimension size) throws IOException {
+		try (InputStream inputStream = url.openStream();
+		        ImageInputStream in = ImageIO.createImageInputStream(inputStream)) {
+			final Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+			if (!readers.hasNext()) {
+				return null;
+			}
+			final ImageReader reader = readers.next();
+			try {
+				reader.setInput(in, true, true);
+				final ImageReadParam param = reader.getDefaultReadParam();
+				final int subsampling = Math.min(reader.getWidth(0) / Math.max(1, size.width),
+				    reader.getHeight(0) / Math.max(1, size.height)) / 2;
+				if (subsampling > 1) {
+					param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+				}
+				return reader.read(0, param);
+			}
+			finally {
+				reader.dispose();
+			}
+		}
+	}
+
+	private void logImageReadingException(final IOException e) {
+		if ((e instanceof FileNotFoundException) || (e instanceof IIOException)) {
+			LogUtils.warn(e.getMessage());
+			return;
+		}
+		final Throwable cause = e.getCause();
+		if ((cause instanceof FileNotFoundException) || (cause instanceof IIOException)) {
+			LogUtils.warn(cause.getMessage());
+			return;
+		}
+		LogUtils.severe(e);
+	}
+
+	private File getCacheFile(final String key) {
+		if (!CacheType.IC_FILE.equals(
+		    ResourceController.getResourceController().getEnumProperty("image_cache", CacheType.IC_DISABLE))) {
+			return null;
+		}
+		final File directory = getCacheDirectory();
+		return directory == null ? null : new File(directory, hashOf(key) + ".png");
+	}
+
+	private synchronized File getCacheDirectory() {
+		if (cacheDirectory == null) {
+			final File directory = new File(ResourceController.getResourceController().getFreeplaneUserDirectory(),
+			    CACHE_DIRECTORY);
+			if (!directory.isDirectory() && !directory.mkdirs()) {
+				return null;
+			}
+			deleteUnusedFiles(directory);
+			cacheDirectory = directory;
+		}
+		return cacheDirectory;
+	}
+
+	private void deleteUnusedFiles(final File directory) {
+		final File[] files = directory.listFiles();
+		if (files == null) {
+			return;
+		}
+		final long oldestUse = System.currentTimeMillis() - UNUSED_FILE_LIFETIME;
+		for (final File file : files) {
+			if (file.lastModified() < oldestUse) {
+				file.delete();
+			}
+		}
+	}
+
+	private static String hashOf(final String key) {
+		try {
+			final byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8));
+			final StringBuilder hash = new StringBuilder(2 * digest.length);
+			for (final byte b : digest) {
+				hash.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+			}
+			return hash.toString();
+		}
+		catch (final NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private BufferedImage readCacheFile(final File cacheFile) {
+		if (!cacheFile.isFile()) {
+			return null;
+		}
+		try {
+			final BufferedImage image = ImageIO.read(cacheFile);
+			cacheFile.setLastModified(System.currentTimeMillis());
+			return image;
+		}
+		catch (final IOException e) {
+			cacheFile.delete();
+			return null;
+		}
+	}
+
+	private void writeCacheFile(final BufferedImage image, final File cacheFile) {
+		final File tempFile = new File(cacheFile.getPath() + ".tmp" + Thread.currentThread().getId());
+		try {
+			if (ImageIO.write(image, "png", tempFile) && (cacheFile.delete() || !cacheFile.exists())
+			        && tempFile.renameTo(cacheFile)) {
+				return;
+			}
+		}
+		catch (final IOException e) {
+			LogUtils.warn(e.getMessage());
+		}
+		tempFile.delete();
+	}
+}
@@ -35,6 +35,7 @@ import org.freeplane.core.util.HtmlUtils;
 import org.freeplane.core.util.LogUtils;
 import org.freeplane.core.util.TextUtils;
 import org.freeplane.features.link.LinkController;
+import org.freeplane.features.map.IMapLifeCycleListener;
 import org.freeplane.features.map.INodeView;
 import org.freeplane.features.map.MapModel;
 import org.freeplane.features.map.NodeModel;
@@ -412,6 +413,12 @@ public class ViewerController extends PersistentNodeHook implements INodeViewLif
 		final ModeController modeController = Controller.getCurrentModeController();
 		modeController.addINodeViewLifeCycleListener(this);
 		modeController.addExtension(this.getClass(), this);
+		modeController.getMapController().addMapLifeCycleListener(new IMapLifeCycleListener() {
+			@Override
+			public void onCreate(final MapModel map) {
+				ScaledImageCache.INSTANCE.forgetFailedImages();
+			}
+		});
 		factories.add(new BitmapViewerFactory());
 	}
 
@@ -33,6 +33,7 @@ import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTabbedPane;
+import javax.swing.SwingUtilities;
 import javax.swing.Timer;
 
 import org.freeplane.core.extension.IExtension;
@@ -59,6 +60,7 @@ import org.freeplane.features.mode.NodeHookDescriptor;
 import org.freeplane.features.mode.PersistentNodeHook;
 import org.freeplane.features.script.IScriptStarter;
 import org.freeplane.features.text.TextController;
+import org.freeplane.features.ui.ViewController;
 import org.freeplane.n3.nanoxml.XMLElement;
 import org.freeplane.view.swing.features.time.mindmapmode.TimeManagement.JTimePanel;
 import org.freeplane.view.swing.features.time.mindmapmode.nodelist.AllMapsNodeListAction;
@@ -141,7 +143,9 @@ public class ReminderHook extends PersistentNodeHook implements IExtension {
 	static final String UNIT = "UNIT";
 	static final String SCRIPT = "SCRIPT";
 	private static final Integer REMINDER_TOOLTIP = 12;
+	private static final String REMINDER_STATUS = "reminders";
 	private ModeController modeController;
+	private final ReminderScheduler reminderScheduler;
 
 	/**
 	 *
@@ -149,6 +153,8 @@ public class ReminderHook extends PersistentNodeHook implements IExtension {
 	public ReminderHook(ModeController modeController){
 		super();
 		this.modeController = modeController;
+		reminderScheduler = new ReminderScheduler(this::showReminderCounts);
+		modeController.getMapController().addMapLifeCycleListener(reminderScheduler);
 		registerAction(new TimeManagementAction(this));
 		registerAction(new TimeListAction());
 		registerAction(new NodeListAction());
@@ -344,6 +350,27 @@ public class ReminderHook extends PersistentNodeHook implements IExtension {
 	ModeController getModeController() {
     	return modeController;
     }
+
+	public ReminderScheduler getReminderScheduler() {
+		return reminderScheduler;
+	}
+
+	/** shows the numbers of pending and due reminders in the status bar */
+	private void showReminderCounts() {
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				final int pendingCount = reminderScheduler.getPendingReminderCount();
+				final int firedCount = reminderScheduler.getFiredReminderCount();
+				final ViewController viewController = modeController.getController().getViewController();
+				if (pendingCount == 0 && firedCount == 0)
+					viewController.removeStatus(REMINDER_STATUS);
+				else
+					viewController.addStatusInfo(REMINDER_STATUS,
+					    TextUtils.format("reminder_status", pendingCount, firedCount));
+			}
+		});
+	}
+
 	public void runScript(ReminderExtension reminderExtension) {
 		final String script = reminderExtension.getScript();
 		if(script == null || script.equals(""))
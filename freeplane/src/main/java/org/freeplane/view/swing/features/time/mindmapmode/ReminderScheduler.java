@@ -0,0 +1,93 @@
+package org.freeplane.view.swing.features.time.mindmapmode;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.Timer;
+
+import org.freeplane.core.util.SysUtils;
+import org.freeplane.features.map.IMapLifeCycleListener;
+import org.freeplane.features.map.MapModel;
+
+/**
+ * Runs the blink tasks of all reminders on a single timer thread.
+ *
+ * The thread is started with the first scheduled reminder and stopped when no reminder is left.
+ * Reminders of closed maps are cancelled.
+ * The count listener is notified on the calling thread whenever the number of pending or fired reminders changes.
+ */
+public class ReminderScheduler implements IMapLifeCycleListener {
+	private static final int PURGE_THRESHOLD = 1024;
+	private Timer timer;
+	private final Set<TimerBlinkTask> pendingTasks = new HashSet<>();
+	private final Set<TimerBlinkTask> firedTasks = new HashSet<>();
+	private int cancelledTaskCount;
+	private final Runnable countListener;
+
+	ReminderScheduler(final Runnable countListener) {
+		this.countListener = countListener;
+	}
+
+	synchronized void schedule(final TimerBlinkTask task, final Date date) {
+		if (timer == null) {
+			timer = SysUtils.createTimer(getClass().getSimpleName());
+		}
+		timer.schedule(task, date, ReminderExtension.BLINKING_PERIOD);
+		pendingTasks.add(task);
+		countListener.run();
+	}
+
+	synchronized void fired(final TimerBlinkTask task) {
+		if (pendingTasks.remove(task)) {
+			firedTasks.add(task);
+			countListener.run();
+		}
+	}
+
+	synchronized void cancel(final TimerBlinkTask task) {
+		task.cancel();
+		if (!pendingTasks.remove(task) && !firedTasks.remove(task)) {
+			return;
+		}
+		countListener.run();
+		if (pendingTasks.isEmpty() && firedTasks.isEmpty()) {
+			timer.cancel();
+			timer = null;
+			cancelledTaskCount = 0;
+		}
+		else if (++cancelledTaskCount >= PURGE_THRESHOLD) {
+			timer.purge();
+			cancelledTaskCount = 0;
+		}
+	}
+
+	/** number of reminders waiting for their time */
+	public synchronized int getPendingReminderCount() {
+		return pendingTasks.size();
+	}
+
+	/** number of reminders whose time has come and which are still active */
+	public synchronized int getFiredReminderCount() {
+		return firedTasks.size();
+	}
+
+	synchronized boolean isTimerRunning() {
+		return timer != null;
+	}
+
+	@Override
+	public void onRemove(final MapModel map) {
+		final ArrayList<TimerBlinkTask> tasks;
+		synchronized (this) {
+			tasks = new ArrayList<>(pendingTasks);
+			tasks.addAll(firedTasks);
+		}
+		for (final TimerBlinkTask task : tasks) {
+			final ReminderExtension reminderExtension = task.getReminderExtension();
+			if (reminderExtension.getNode().getMap() == map) {
+				reminderExtension.deactivateTimer();
+			}
+		}
+	}
+}
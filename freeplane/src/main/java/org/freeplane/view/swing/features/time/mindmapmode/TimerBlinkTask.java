@@ -55,6 +55,7 @@ class TimerBlinkTask extends TimerTask {
 
 	@Override
 	public void run() {
+		getScheduler().fired(this);
 		SwingUtilities.invokeLater(new Runnable() {
 
 			public void run() {
@@ -79,6 +80,14 @@ class TimerBlinkTask extends TimerTask {
 		});
 	}
 	
+	ReminderExtension getReminderExtension() {
+		return reminderExtension;
+	}
+
+	ReminderScheduler getScheduler() {
+		return reminderController.getReminderScheduler();
+	}
+
 	public boolean alreadyExecuted(){
 		return alreadyExecuted; 
 	}
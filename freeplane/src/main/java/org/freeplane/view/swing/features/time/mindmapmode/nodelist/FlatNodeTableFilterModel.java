@@ -28,6 +28,8 @@ import javax.swing.event.TableModelListener;
 import javax.swing.table.AbstractTableModel;
 import javax.swing.table.TableModel;
 
+import org.freeplane.features.text.TextIndex;
+
 /**
  * @author foltin
  */
@@ -137,6 +139,8 @@ class FlatNodeTableFilterModel extends AbstractTableModel {
 			}
 			for(int nodeTextColumn : mNodeTextColumns){
 				final TextHolder nodeContent = (TextHolder) mTableModel.getValueAt(i, nodeTextColumn);
+				if(mPattern == null && ! TextIndex.mayContain(nodeContent.getNode(), mFilterRegexp))
+					continue;
 				if(mPattern == null && (
 						matchCase && nodeContent.toString().contains(mFilterRegexp)
 						|| ! matchCase && nodeContent.toString().toLowerCase().contains(mFilterRegexp))
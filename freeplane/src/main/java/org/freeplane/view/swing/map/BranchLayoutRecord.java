@@ -0,0 +1,72 @@
+package org.freeplane.view.swing.map;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.swing.JComponent;
+
+import org.freeplane.features.map.NodeModel;
+
+/**
+ * Layout of a node view whose child views were released because its branch is far outside of the viewport.
+ *
+ * It keeps the size of the branch and the content bounds the parent layout and the edges need,
+ * and the records of child branches from which their views are created again when they come near the viewport.
+ * Changes of released nodes are corrected when their views are created, the map restores all views when it is zoomed.
+ */
+class BranchLayoutRecord {
+	private final int width;
+	private final int height;
+	private final Rectangle contentBounds;
+	private final int topOverlap;
+	private final int bottomOverlap;
+	private final Object hiddenChildren;
+	private final Map<NodeModel, BranchLayoutRecord> childRecords;
+
+	BranchLayoutRecord(final NodeView view) {
+		width = view.getWidth();
+		height = view.getHeight();
+		contentBounds = view.getContent().getBounds();
+		topOverlap = view.getTopOverlap();
+		bottomOverlap = view.getBottomOverlap();
+		hiddenChildren = view.getClientProperty(NodeView.Properties.HIDDEN_CHILDREN);
+		Map<NodeModel, BranchLayoutRecord> childRecords = null;
+		for (final NodeView child : view.getChildrenViews()) {
+			final BranchLayoutRecord childRecord = child.getBranchLayoutRecord() != null ? child.getBranchLayoutRecord()
+			        : child.getComponentCount() > 1 || child.hasHiddenChildren() ? new BranchLayoutRecord(child) : null;
+			if (childRecord != null) {
+				if (childRecords == null)
+					childRecords = new HashMap<>();
+				childRecords.put(child.getModel(), childRecord);
+			}
+		}
+		this.childRecords = childRecords != null ? childRecords : Collections.<NodeModel, BranchLayoutRecord> emptyMap();
+	}
+
+	BranchLayoutRecord getChildRecord(final NodeModel child) {
+		return childRecords.get(child);
+	}
+
+	/** restores the hidden children of the recorded view */
+	void restoreHiddenChildren(final NodeView view) {
+		if (hiddenChildren != null)
+			view.putClientProperty(NodeView.Properties.HIDDEN_CHILDREN, hiddenChildren);
+	}
+
+	void layout(final NodeView view) {
+		final JComponent content = view.getContent();
+		content.setVisible(view.isContentVisible());
+		final Dimension contentSize = ContentSizeCalculator.INSTANCE.calculateContentSize(view);
+		final int contentX = contentBounds.x;
+		final int contentY = contentBounds.y;
+		content.setBounds(contentX, contentY, contentSize.width, contentSize.height);
+		final int spaceAround = view.getSpaceAround();
+		view.setSize(Math.max(width, contentX + contentSize.width + spaceAround),
+		    Math.max(height, contentY + contentSize.height + spaceAround));
+		view.setTopOverlap(topOverlap);
+		view.setBottomOverlap(bottomOverlap);
+	}
+}
@@ -0,0 +1,112 @@
+package org.freeplane.view.swing.map;
+
+import java.awt.Color;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.freeplane.view.swing.map.link.ILinkView;
+
+/**
+ * Connector views painted by {@link MapView} and a uniform grid of their bounds,
+ * so that repaints and hit tests only touch the connectors near the clip or the point.
+ *
+ * The views are created by walking the node views around the viewport and reused until the index is invalidated
+ * by layout, connector or selection changes, or until the viewport leaves the covered area.
+ * Views without bounds like edge like connectors are always painted.
+ */
+class ConnectorIndex {
+	private static final int CELL_SIZE = 256;
+	private final ArrayList<ILinkView> views = new ArrayList<>();
+	private final Map<Long, BitSet> cells = new HashMap<>();
+	private final BitSet viewsWithoutBounds = new BitSet();
+	private Rectangle coveredArea;
+	private Color background;
+	private String showConnectors;
+	private boolean hideSingleEndConnectors;
+	private boolean isValid;
+
+	boolean isValidFor(Rectangle viewRect, Color background, String showConnectors, boolean hideSingleEndConnectors) {
+		return isValid
+				&& (coveredArea == null || viewRect != null && coveredArea.contains(viewRect))
+				&& Objects.equals(this.background, background)
+				&& Objects.equals(this.showConnectors, showConnectors)
+				&& this.hideSingleEndConnectors == hideSingleEndConnectors;
+	}
+
+	/** @param coveredArea area around the viewport containing the connected nodes, null for all nodes */
+	void rebuild(Rectangle coveredArea, Color background, String showConnectors, boolean hideSingleEndConnectors) {
+		views.clear();
+		cells.clear();
+		viewsWithoutBounds.clear();
+		this.coveredArea = coveredArea;
+		this.background = background;
+		this.showConnectors = showConnectors;
+		this.hideSingleEndConnectors = hideSingleEndConnectors;
+		isValid = true;
+	}
+
+	void invalidate() {
+		isValid = false;
+	}
+
+	/** @param bounds painted area of the view, null or empty if unknown */
+	void add(ILinkView view, Rectangle bounds) {
+		final int index = views.size();
+		views.add(view);
+		if (bounds == null || bounds.isEmpty()) {
+			viewsWithoutBounds.set(index);
+			return;
+		}
+		final int lastColumn = cellOf(bounds.x + bounds.width - 1);
+		final int lastRow = cellOf(bounds.y + bounds.height - 1);
+		for (int column = cellOf(bounds.x); column <= lastColumn; column++) {
+			for (int row = cellOf(bounds.y); row <= lastRow; row++) {
+				cells.computeIfAbsent(key(column, row), k -> new BitSet()).set(index);
+			}
+		}
+	}
+
+	List<ILinkView> getViews() {
+		return views;
+	}
+
+	/** returns views whose bounds may intersect the area in painting order, all views if the area is null */
+	List<ILinkView> getViews(Rectangle area) {
+		if (area == null)
+			return views;
+		final BitSet found = (BitSet) viewsWithoutBounds.clone();
+		if (!area.isEmpty()) {
+			final int lastColumn = cellOf(area.x + area.width - 1);
+			final int lastRow = cellOf(area.y + area.height - 1);
+			for (int column = cellOf(area.x); column <= lastColumn; column++) {
+				for (int row = cellOf(area.y); row <= lastRow; row++) {
+					final BitSet cell = cells.get(key(column, row));
+					if (cell != null)
+						found.or(cell);
+				}
+			}
+		}
+		final ArrayList<ILinkView> foundViews = new ArrayList<>(found.cardinality());
+		for (int i = found.nextSetBit(0); i >= 0; i = found.nextSetBit(i + 1))
+			foundViews.add(views.get(i));
+		return foundViews;
+	}
+
+	List<ILinkView> getViews(Point point, int tolerance) {
+		return getViews(new Rectangle(point.x - tolerance, point.y - tolerance, 2 * tolerance + 1, 2 * tolerance + 1));
+	}
+
+	private static int cellOf(int coordinate) {
+		return Math.floorDiv(coordinate, CELL_SIZE);
+	}
+
+	private static long key(int column, int row) {
+		return (long) column << 32 | row & 0xFFFFFFFFL;
+	}
+}
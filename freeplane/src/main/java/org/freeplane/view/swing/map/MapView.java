@@ -60,13 +60,14 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.Vector;
 
 import javax.swing.JComponent;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JViewport;
 import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 
 import org.freeplane.core.extension.Configurable;
 import org.freeplane.core.extension.HighlightedElements;
@@ -123,7 +124,8 @@ import org.freeplane.view.swing.map.link.ILinkView;
  * This class represents the view of a whole MindMap (in analogy to class
  * JTree).
  */
-public class MapView extends JPanel implements Printable, Autoscroll, IMapChangeListener, IFreeplanePropertyListener, Configurable {
+public class MapView extends JPanel implements Printable, Autoscroll, IMapChangeListener, IFreeplanePropertyListener, Configurable,
+		TiledMapImage.PrintedView {
 
 	private static final String UNFOLD_ON_NAVIGATION = "unfold_on_navigation";
 	private final MapScroller mapScroller;
@@ -508,6 +510,9 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 
 	}
 
+	private static final int ARROW_SIZE = 10;
+	/** half side of the square around the mouse searched for connectors, see CollisionDetector */
+	private static final int COLLISION_TOLERANCE = 8;
 	private static final int margin = 20;
 	static boolean printOnWhiteBackground;
 	static private IFreeplanePropertyListener propertyChangeListener;
@@ -522,6 +527,7 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 	private static final String HIDE_CONNECTORS = "never".intern();
 	private static final String SHOW_CONNECTORS_FOR_SELECTION = "for_selection".intern();
 	private static final String SHOW_ICONS_PROPERTY = "show_icons";
+	private static final String VIRTUALIZE_NODE_VIEWS_PROPERTY = "virtualize_node_views";
 	private static final String OUTLINE_VIEW_FITS_WINDOW_WIDTH = "outline_view_fits_window_width";
 	private static final String OUTLINE_HGAP_PROPERTY = "outline_hgap";
 
@@ -538,7 +544,7 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 	static Color standardSelectColor;
 	static Color standardSelectRectangleColor;
 	/** Used to identify a right click onto a link curve. */
-	private Vector<ILinkView> arrowLinkViews;
+	private final ConnectorIndex connectorIndex = new ConnectorIndex();
 	private Color background = null;
 	private JComponent backgroundComponent;
 	private Rectangle boundingRectangle = null;
@@ -566,12 +572,16 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 	private String showConnectors;
 	private boolean hideSingleEndConnectors;
 	private static boolean showIcons;
+	private static boolean virtualizesNodeViews;
+	private boolean containsReleasedNodeViews;
+	private boolean isNodeViewReleaseScheduled;
 	private boolean fitToViewport;
 	private static Color spotlightBackgroundColor;
 	private static int outlineHGap;
 	private static boolean outlineViewFitsWindowWidth;
 
 	final private ComponentAdapter viewportSizeChangeListener;
+	final private ChangeListener viewportChangeListener;
 	private final INodeChangeListener connectorChangeListener;
 	public static final String SPOTLIGHT_ENABLED = "spotlight";
 
@@ -595,6 +605,7 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 			hideSingleEndConnectorsPropertyValue = resourceController.getBooleanProperty(HIDE_SINGLE_END_CONNECTORS);
 			showConnectorsPropertyValue = resourceController.getProperty(SHOW_CONNECTORS_PROPERTY).intern();
 			showIcons = resourceController.getBooleanProperty(SHOW_ICONS_PROPERTY);
+			virtualizesNodeViews = resourceController.getBooleanProperty(VIRTUALIZE_NODE_VIEWS_PROPERTY);
 			outlineHGap = resourceController.getLengthProperty(OUTLINE_HGAP_PROPERTY);
 			outlineViewFitsWindowWidth = resourceController.getBooleanProperty(OUTLINE_VIEW_FITS_WINDOW_WIDTH);
 
@@ -643,12 +654,20 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 		    MapStyle.FIT_TO_VIEWPORT);
 		fitToViewport = Boolean.parseBoolean(fitToViewportAsString);
 		loadBackgroundImage();
+		viewportChangeListener = new ChangeListener() {
+			@Override
+			public void stateChanged(final ChangeEvent e) {
+				scheduleNodeViewRelease();
+			}
+		};
 		connectorChangeListener = new INodeChangeListener() {
 			@Override
 			public void nodeChanged(final NodeChangeEvent event) {
-				if(NodeLinks.CONNECTOR.equals(event.getProperty()) &&
-						event.getNode().getMap().equals(getModel()))
-					repaint();
+				if(event.getNode().getMap().equals(getModel())) {
+					connectorIndex.invalidate();
+					if(NodeLinks.CONNECTOR.equals(event.getProperty()))
+						repaint();
+				}
 			}
 		};
 		addPropertyChangeListener(SPOTLIGHT_ENABLED, repaintOnClientPropertyChangeListener);
@@ -691,6 +710,7 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 	    super.addNotify();
 	    modeController.getMapController().addNodeChangeListener(connectorChangeListener);
 	    getParent().addComponentListener(viewportSizeChangeListener);
+	    ((JViewport) getParent()).addChangeListener(viewportChangeListener);
 		adjustViewportScrollMode();
     }
 
@@ -706,6 +726,7 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
     public void removeNotify() {
 		modeController.getMapController().removeNodeChangeListener(connectorChangeListener);
 		getParent().removeComponentListener(viewportSizeChangeListener);
+		((JViewport) getParent()).removeChangeListener(viewportChangeListener);
 	    super.removeNotify();
     }
 
@@ -773,6 +794,12 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 					return;
 				}
 
+				if (propertyName.equals(VIRTUALIZE_NODE_VIEWS_PROPERTY)) {
+					MapView.virtualizesNodeViews = ResourceController.getResourceController().getBooleanProperty(VIRTUALIZE_NODE_VIEWS_PROPERTY);
+					mapView.scheduleNodeViewRelease();
+					return;
+				}
+
 				if(propertyName.equals(OUTLINE_VIEW_FITS_WINDOW_WIDTH)) {
 					outlineViewFitsWindowWidth = ResourceController.getResourceController().getBooleanProperty(OUTLINE_VIEW_FITS_WINDOW_WIDTH);
 					if (mapView.isOutlineLayoutSet()) {
@@ -793,24 +820,22 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 	}
 
 	private void onSelectionChange(final NodeView node) {
-		if(SHOW_CONNECTORS_FOR_SELECTION == showConnectors)
+		if(SHOW_CONNECTORS_FOR_SELECTION == showConnectors) {
+			connectorIndex.invalidate();
 			repaint(getVisibleRect());
+		}
 		else
 			node.repaintSelected();
 	}
 
 	public Object detectCollision(final Point p) {
-		if (arrowLinkViews == null) {
-			return null;
-		}
-		for (int i = 0; i < arrowLinkViews.size(); ++i) {
-			final ILinkView arrowView = arrowLinkViews.get(i);
+		final List<ILinkView> arrowLinkViews = connectorIndex.getViews(p, COLLISION_TOLERANCE);
+		for (final ILinkView arrowView : arrowLinkViews) {
 			if (arrowView.detectCollision(p, true)) {
 				return arrowView.getModel();
 			}
 		}
-		for (int i = 0; i < arrowLinkViews.size(); ++i) {
-			final ILinkView arrowView = arrowLinkViews.get(i);
+		for (final ILinkView arrowView : arrowLinkViews) {
 			if (arrowView.detectCollision(p, false)) {
 				return arrowView.getModel();
 			}
@@ -836,6 +861,7 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 		if (MapView.printOnWhiteBackground) {
 			setBackground(background);
 		}
+		scheduleNodeViewRelease();
 	}
 
 	/*
@@ -858,11 +884,8 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 	public Rectangle getInnerBounds() {
 		final Rectangle innerBounds = rootView.getBounds();
 		final Rectangle maxBounds = new Rectangle(0, 0, getWidth(), getHeight());
-		if(arrowLinkViews != null)
-			for (int i = 0; i < arrowLinkViews.size(); ++i) {
-				final ILinkView arrowView = arrowLinkViews.get(i);
-				arrowView.increaseBounds(innerBounds);
-			}
+		for (final ILinkView arrowView : connectorIndex.getViews())
+			arrowView.increaseBounds(innerBounds);
 		return innerBounds.intersection(maxBounds);
 	}
 
@@ -1256,6 +1279,7 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 
 	@Override
 	public void mapChanged(final MapChangeEvent event) {
+		connectorIndex.invalidate();
 		final Object property = event.getProperty();
 		if (property.equals(MapStyle.RESOURCES_BACKGROUND_COLOR)) {
 			setBackground(requiredBackground());
@@ -1714,7 +1738,7 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 						else
 							break;
 						arrowLink.paint(graphics);
-						arrowLinkViews.add(arrowLink);
+						connectorIndex.add(arrowLink, paintedBounds(arrowLink, ref));
 					}
 				}
 			}
@@ -1725,15 +1749,50 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 	}
 
 	private void paintConnectors(final Graphics2D graphics) {
-		arrowLinkViews = new Vector<ILinkView>();
 		final Object renderingHint = getModeController().getController().getMapViewManager().setEdgesRenderingHint(
 		    graphics);
-		if(hasNodeLinks())
-			paintConnectors(rootView, graphics, new HashSet<ConnectorModel>());
+		final Rectangle viewRect = isPrinting ? null : ((JViewport) getParent()).getViewRect();
+		if(connectorIndex.isValidFor(viewRect, getBackground(), showConnectors, hideSingleEndConnectors)) {
+			final Font font = graphics.getFont();
+			try {
+				for (final ILinkView arrowLink : connectorIndex.getViews(graphics.getClipBounds()))
+					arrowLink.paint(graphics);
+			}
+			finally {
+				graphics.setFont(font);
+			}
+		}
+		else {
+			final Rectangle coveredArea;
+			if (viewRect != null) {
+				coveredArea = new Rectangle(viewRect.x - viewRect.width, viewRect.y - viewRect.height,
+					viewRect.width * 3, viewRect.height * 3);
+			}
+			else
+				coveredArea = null;
+			connectorIndex.rebuild(coveredArea, getBackground(), showConnectors, hideSingleEndConnectors);
+			if(hasNodeLinks())
+				paintConnectors(rootView, graphics, new HashSet<ConnectorModel>(), coveredArea);
+			if(isPrinting)
+				connectorIndex.invalidate();
+		}
 		graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, renderingHint);
 	}
 
-	private void paintConnectors(final NodeView source, final Graphics2D graphics, final HashSet<ConnectorModel> alreadyPaintedConnectors) {
+	/** bounds of connector curve and labels enlarged by arrows and line width */
+	private Rectangle paintedBounds(final ILinkView arrowLink, final ConnectorModel connector) {
+		final Rectangle bounds = new Rectangle(0, 0, -1, -1);
+		arrowLink.increaseBounds(bounds);
+		if(bounds.isEmpty())
+			return null;
+		final int width = LinkController.getController(getModeController()).getWidth(connector);
+		final int padding = Math.round(Math.max(1f, zoom) * (width + ARROW_SIZE)) + COLLISION_TOLERANCE;
+		bounds.grow(padding, padding);
+		return bounds;
+	}
+
+	private void paintConnectors(final NodeView source, final Graphics2D graphics, final HashSet<ConnectorModel> alreadyPaintedConnectors,
+	                             final Rectangle coveredArea) {
 		final NodeModel node = source.getModel();
 		final Collection<? extends NodeLinkModel> outLinks = getLinksFrom(node);
 		paintConnectors(outLinks, graphics, alreadyPaintedConnectors);
@@ -1750,17 +1809,11 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 				if(!child.isHierarchyVisible())
 					continue;
 				final Rectangle bounds = SwingUtilities.convertRectangle(source, child.getBounds(), this);
-				final JViewport vp = (JViewport) getParent();
-				final Rectangle viewRect = vp.getViewRect();
-				viewRect.x -= viewRect.width;
-				viewRect.y -= viewRect.height;
-				viewRect.width *= 3;
-				viewRect.height *= 3;
-				if (!viewRect.intersects(bounds)) {
+				if (!coveredArea.intersects(bounds)) {
 					continue;
 				}
 			}
-			paintConnectors(child, graphics, alreadyPaintedConnectors);
+			paintConnectors(child, graphics, alreadyPaintedConnectors, coveredArea);
 		}
 	}
 
@@ -1844,6 +1897,12 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 	public void preparePrinting() {
 		isPrinting = true;
 		if (!isPreparedForPrinting) {
+			if (containsReleasedNodeViews) {
+				restoreAllNodeViews();
+				synchronized (getTreeLock()) {
+					validateTree();
+				}
+			}
 			if (zoom == 1f) {
 				getRoot().updateAll();
 				synchronized (getTreeLock()) {
@@ -2020,6 +2079,7 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 	 * if yes, the selection will extended with this node and its children
 	 */
 	private void addBranchToSelection(final NodeView newlySelectedNodeView) {
+		newlySelectedNodeView.restoreChildViews();
 		if (newlySelectedNodeView.isContentVisible()) {
 			addSelected(newlySelectedNodeView, false);
 		}
@@ -2085,6 +2145,8 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 
 	public void setZoom(final float zoom) {
 		this.zoom = zoom;
+		if (containsReleasedNodeViews)
+			restoreAllNodeViews();
 		mapScroller.anchorToNode(getSelected(), CENTER_ALIGNMENT, CENTER_ALIGNMENT);
 		getRoot().updateAll();
 		adjustBackgroundComponentScale();
@@ -2165,12 +2227,88 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 	@Override
 	protected void validateTree() {
 		if(isDisplayable()) {
+			connectorIndex.invalidate();
 			validateSelecteds();
 			getRoot().validateTree();
 			super.validateTree();
+			scheduleNodeViewRelease();
 		}
 	}
 
+	private void scheduleNodeViewRelease() {
+		if (isNodeViewReleaseScheduled || ! (virtualizesNodeViews || containsReleasedNodeViews))
+			return;
+		isNodeViewReleaseScheduled = true;
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				isNodeViewReleaseScheduled = false;
+				updateReleasedNodeViews();
+			}
+		});
+	}
+
+	/**
+	 * Releases child views of branches far outside of the viewport and restores them when they come near it again.
+	 * Branches containing selected nodes are kept.
+	 */
+	private void updateReleasedNodeViews() {
+		if (! isDisplayable() || isPrinting || ! isValid())
+			return;
+		if (! virtualizesNodeViews) {
+			if (containsReleasedNodeViews)
+				restoreAllNodeViews();
+			return;
+		}
+		final Rectangle viewRect = ((JViewport) getParent()).getViewRect();
+		if (viewRect.isEmpty())
+			return;
+		final Rectangle restoredArea = new Rectangle(viewRect.x - viewRect.width, viewRect.y - viewRect.height,
+		    viewRect.width * 3, viewRect.height * 3);
+		final Rectangle keptArea = new Rectangle(viewRect.x - 2 * viewRect.width, viewRect.y - 2 * viewRect.height,
+		    viewRect.width * 5, viewRect.height * 5);
+		updateReleasedNodeViews(rootView, rootView.getX(), rootView.getY(), restoredArea, keptArea);
+	}
+
+	private void updateReleasedNodeViews(final NodeView view, final int x, final int y, final Rectangle restoredArea,
+	                                     final Rectangle keptArea) {
+		final int componentCount = view.getComponentCount();
+		for (int i = 0; i < componentCount; i++) {
+			final Component component = view.getComponent(i);
+			if (!(component instanceof NodeView))
+				continue;
+			final NodeView child = (NodeView) component;
+			final Rectangle bounds = new Rectangle(x + child.getX(), y + child.getY(), child.getWidth(), child.getHeight());
+			if (child.hasReleasedChildViews()) {
+				if (bounds.intersects(restoredArea))
+					child.restoreChildViews();
+			}
+			else if (bounds.intersects(restoredArea))
+				updateReleasedNodeViews(child, bounds.x, bounds.y, restoredArea, keptArea);
+			else if (! bounds.intersects(keptArea) && child.getComponentCount() > 1) {
+				if (containsSelected(child))
+					updateReleasedNodeViews(child, bounds.x, bounds.y, restoredArea, keptArea);
+				else {
+					child.releaseChildViews();
+					containsReleasedNodeViews = true;
+				}
+			}
+		}
+	}
+
+	private boolean containsSelected(final NodeView branch) {
+		for (final NodeView selected : selection.selectedSet) {
+			if (SwingUtilities.isDescendingFrom(selected, branch))
+				return true;
+		}
+		return false;
+	}
+
+	private void restoreAllNodeViews() {
+		containsReleasedNodeViews = false;
+		rootView.restoreAllChildViews();
+	}
+
 	@Override
 	public void onPreNodeMoved(final NodeMoveEvent nodeMoveEvent) {
 	}
@@ -2288,6 +2426,7 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 		final NodeView parentView = getNodeView(parentNode);
 		if(parentView == null)
 			return;
+		parentView.restoreChildViews();
 		parentView.setFolded(false);
 	}
 
@@ -135,7 +135,11 @@ public class NodeView extends JComponent implements INodeView {
 	private int topOverlap;
 	private int bottomOverlap;
 	private boolean isFolded;
+	/** node numbering shown by this view, numbers of the following siblings depend on it */
+	private boolean isNumbered;
 	private DashVariant edgeDash = DashVariant.DEFAULT;
+	/** layout of the released child views, null if the child views exist */
+	private BranchLayoutRecord branchLayoutRecord;
 
 	public static final int DETAIL_VIEWER_POSITION = 2;
 
@@ -144,6 +148,7 @@ public class NodeView extends JComponent implements INodeView {
 		this.model = model;
 		this.map = map;
 		this.isFolded = map.getModeController().getMapController().isFolded(model);
+		this.isNumbered = TextController.getController(map.getModeController()).getNodeNumbering(model);
 	}
 
 	public boolean isFolded(){
@@ -797,7 +802,7 @@ public class NodeView extends JComponent implements INodeView {
 	}
 
 	void addChildViews() {
-		if(isFolded)
+		if(isFolded || branchLayoutRecord != null)
 			return;
 		int index = 0;
 		MapController r = getMap().getModeController().getMapController();
@@ -814,6 +819,52 @@ public class NodeView extends JComponent implements INodeView {
 			NodeViewFactory.getInstance().newNodeView(newNode, getMap(), this, index);
 	}
 
+	BranchLayoutRecord getBranchLayoutRecord() {
+		return branchLayoutRecord;
+	}
+
+	boolean hasReleasedChildViews() {
+		return branchLayoutRecord != null;
+	}
+
+	/** removes all descendant views keeping the layout of the branch */
+	void releaseChildViews() {
+		final BranchLayoutRecord record = new BranchLayoutRecord(this);
+		for (final NodeView child : getChildrenViews()) {
+			child.remove();
+		}
+		branchLayoutRecord = record;
+	}
+
+	/** creates the child views again, their child views are created from their records when they are needed */
+	void restoreChildViews() {
+		final BranchLayoutRecord record = branchLayoutRecord;
+		if(record == null)
+			return;
+		branchLayoutRecord = null;
+		if(! isFolded) {
+			int index = 0;
+			for (NodeModel child : getModel().getChildren()) {
+				if(isChildHidden(child))
+					break;
+				NodeViewFactory.getInstance().newNodeView(child, getMap(), this, index++, record.getChildRecord(child));
+			}
+		}
+		revalidate();
+	}
+
+	void restoreAllChildViews() {
+		restoreChildViews();
+		for (final NodeView child : getChildrenViews())
+			child.restoreAllChildViews();
+	}
+
+	void setBranchLayoutRecord(BranchLayoutRecord record) {
+		record.restoreHiddenChildren(this);
+		if(! isFolded)
+			branchLayoutRecord = record;
+	}
+
 	/* fc, 25.1.2004: Refactoring necessary: should call the model. */
 	public boolean isChildOf(final NodeView myNodeView) {
 		return getParentView() == myNodeView;
@@ -903,8 +954,6 @@ public class NodeView extends JComponent implements INodeView {
 			return;
 		}
 		update();
-		if (!isRoot())
-			getParentView().numberingChanged(node.getParentNode().getIndex(node) + 1);
 	}
 
 	public void setFolded(boolean folded) {
@@ -926,6 +975,10 @@ public class NodeView extends JComponent implements INodeView {
 
 	@Override
 	public void onNodeDeleted(NodeDeletionEvent nodeDeletionEvent) {
+		if (branchLayoutRecord != null) {
+			restoreChildViews();
+			return;
+		}
 		if (nodeDeletionEvent.index >= getComponentCount() - 1) {
 			return;
 		}
@@ -976,6 +1029,10 @@ public class NodeView extends JComponent implements INodeView {
 		if (isFolded) {
 			return;
 		}
+		if (branchLayoutRecord != null) {
+			restoreChildViews();
+			return;
+		}
 		addChildView(child, index);
 		numberingChanged(index + 1);
 		revalidate();
@@ -1371,6 +1428,7 @@ public class NodeView extends JComponent implements INodeView {
 	 * event.TreeModelEvent)
 	 */
 	private void treeStructureChanged() {
+		branchLayoutRecord = null;
 		map.keepRootNodePosition();
 		for (NodeView child : getChildrenViews()) {
 			child.remove();
@@ -1382,6 +1440,7 @@ public class NodeView extends JComponent implements INodeView {
 
 	public void update() {
 		invalidate();
+		updateNumbering();
 		updateShape();
 		updateEdge();
 		if (!isContentVisible()) {
@@ -1430,6 +1489,14 @@ public class NodeView extends JComponent implements INodeView {
 		repaint();
 	}
 
+	/** numbering can also change with styles, numbers of the following siblings depend on it */
+	private void updateNumbering() {
+		final boolean wasNumbered = isNumbered;
+		isNumbered = TextController.getController(getMap().getModeController()).getNodeNumbering(model);
+		if (!isRoot() && wasNumbered != isNumbered)
+			getParentView().numberingChanged(model.getParentNode().getIndex(model) + 1);
+	}
+
 	public boolean isShortened() {
 	    final ModeController modeController = getMap().getModeController();
 		final TextController textController = TextController.getController(modeController);
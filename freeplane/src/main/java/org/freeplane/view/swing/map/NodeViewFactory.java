@@ -123,7 +123,15 @@ class NodeViewFactory {
 	 * Factory method which creates the right NodeView for the model.
 	 */
 	NodeView newNodeView(final NodeModel model, final MapView map, final Container parent, final int index) {
+		return newNodeView(model, map, parent, index, null);
+	}
+
+	/** @param record layout of the branch if the child views are created later, or null */
+	NodeView newNodeView(final NodeModel model, final MapView map, final Container parent, final int index,
+	                     final BranchLayoutRecord record) {
 		final NodeView newView = new NodeView(model, map, parent);
+		if(record != null)
+			newView.setBranchLayoutRecord(record);
 		parent.add(newView, index);
 		newView.setMainView(newMainView(newView));
 		if(map.isDisplayable())
@@ -37,7 +37,11 @@ public class SelectableLayout implements INodeViewLayout {
 	}
 
 	public void layoutContainer(final Container parent) {
-		getLayout(parent).layoutContainer(parent);
+		final NodeView view = (NodeView) parent;
+		if (view.hasReleasedChildViews())
+			view.getBranchLayoutRecord().layout(view);
+		else
+			getLayout(parent).layoutContainer(parent);
 	}
 
 	public Dimension minimumLayoutSize(final Container parent) {
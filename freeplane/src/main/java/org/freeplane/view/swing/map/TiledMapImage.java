@@ -0,0 +1,246 @@
+package org.freeplane.view.swing.map;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.SystemColor;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.io.Closeable;
+import java.util.Vector;
+
+import org.freeplane.core.ui.svgicons.GraphicsHints;
+
+/**
+ * Image of a map area which is painted strip by strip only when image writers request its pixels.
+ *
+ * Image writers like the PNG writer request the image row by row,
+ * so only the strip containing the current rows is kept in memory.
+ * The map view stays prepared for printing until the last strip is painted or the image is closed.
+ */
+class TiledMapImage implements RenderedImage, Closeable {
+	interface PrintedView {
+		void preparePrinting();
+
+		Color getBackground();
+
+		void print(Graphics g);
+
+		void endPrinting();
+	}
+
+
+	private static final int MAXIMAL_STRIP_PIXEL_COUNT = 1 << 22;
+	// thin curves are rasterized slightly differently near clip borders, so strips are painted with overlapping rows
+	private static final int STRIP_OVERLAP = 16;
+	private static final ColorModel COLOR_MODEL = new DirectColorModel(24, 0xff0000, 0x00ff00, 0x0000ff);
+	private final PrintedView view;
+	private final Rectangle printedArea;
+	private final double scaleFactor;
+	private final int width;
+	private final int height;
+	private final int stripHeight;
+	private final SampleModel sampleModel;
+	private int paintedStripIndex = -1;
+	private Raster paintedStrip;
+	private boolean isPrinting;
+
+	TiledMapImage(final MapView view, final Rectangle printedArea, final double scaleFactor) {
+		this(view, printedArea, scaleFactor, MAXIMAL_STRIP_PIXEL_COUNT);
+	}
+
+	TiledMapImage(final PrintedView view, final Rectangle printedArea, final double scaleFactor,
+	              final int maximalStripPixelCount) {
+		this.view = view;
+		this.printedArea = printedArea;
+		this.scaleFactor = scaleFactor;
+		width = (int) Math.ceil(printedArea.width * scaleFactor);
+		height = (int) Math.ceil(printedArea.height * scaleFactor);
+		stripHeight = Math.max(1, Math.min(height, maximalStripPixelCount / Math.max(1, width)));
+		sampleModel = COLOR_MODEL.createCompatibleSampleModel(Math.max(1, width), stripHeight);
+		isPrinting = true;
+	}
+
+	/** ends printing of the map view if the image writer has not requested the last strip */
+	@Override
+	public void close() {
+		if (isPrinting) {
+			isPrinting = false;
+			view.endPrinting();
+		}
+	}
+
+	@Override
+	public Vector<RenderedImage> getSources() {
+		return null;
+	}
+
+	@Override
+	public Object getProperty(final String name) {
+		return Image.UndefinedProperty;
+	}
+
+	@Override
+	public String[] getPropertyNames() {
+		return null;
+	}
+
+	@Override
+	public ColorModel getColorModel() {
+		return COLOR_MODEL;
+	}
+
+	@Override
+	public SampleModel getSampleModel() {
+		return sampleModel;
+	}
+
+	@Override
+	public int getWidth() {
+		return width;
+	}
+
+	@Override
+	public int getHeight() {
+		return height;
+	}
+
+	@Override
+	public int getMinX() {
+		return 0;
+	}
+
+	@Override
+	public int getMinY() {
+		return 0;
+	}
+
+	@Override
+	public int getNumXTiles() {
+		return 1;
+	}
+
+	@Override
+	public int getNumYTiles() {
+		return (height + stripHeight - 1) / stripHeight;
+	}
+
+	@Override
+	public int getMinTileX() {
+		return 0;
+	}
+
+	@Override
+	public int getMinTileY() {
+		return 0;
+	}
+
+	@Override
+	public int getTileWidth() {
+		return width;
+	}
+
+	@Override
+	public int getTileHeight() {
+		return stripHeight;
+	}
+
+	@Override
+	public int getTileGridXOffset() {
+		return 0;
+	}
+
+	@Override
+	public int getTileGridYOffset() {
+		return 0;
+	}
+
+	@Override
+	public Raster getTile(final int tileX, final int tileY) {
+		if (tileY != paintedStripIndex) {
+			// the previous strip can be collected while the next one is painted
+			paintedStrip = null;
+			paintedStrip = paintStrip(tileY);
+			paintedStripIndex = tileY;
+		}
+		return paintedStrip;
+	}
+
+	private Raster paintStrip(final int stripIndex) {
+		final int top = stripIndex * stripHeight;
+		final int paintedTop = Math.max(0, top - STRIP_OVERLAP);
+		final int bottom = Math.min(top + stripHeight, height);
+		final int paintedBottom = Math.min(bottom + STRIP_OVERLAP, height);
+		final BufferedImage strip = new BufferedImage(width, paintedBottom - paintedTop, BufferedImage.TYPE_INT_RGB);
+		final Graphics2D g = strip.createGraphics();
+		try {
+			view.preparePrinting();
+			isPrinting = true;
+			Color background = view.getBackground();
+			if (background == null) {
+				background = SystemColor.window;
+			}
+			g.setBackground(background);
+			g.clearRect(0, 0, strip.getWidth(), strip.getHeight());
+			g.translate(0, -paintedTop);
+			g.scale(scaleFactor, scaleFactor);
+			g.translate(-printedArea.x, -printedArea.y);
+			// the map view paints only nodes and connectors intersecting the clip
+			final int clipTop = (int) Math.floor(paintedTop / scaleFactor);
+			final int clipBottom = (int) Math.ceil(paintedBottom / scaleFactor);
+			g.clipRect(printedArea.x, printedArea.y + clipTop, printedArea.width, clipBottom - clipTop);
+			g.setRenderingHint(GraphicsHints.CACHE_ICONS, Boolean.TRUE);
+			view.print(g);
+		}
+		finally {
+			g.dispose();
+		}
+		if (stripIndex == getNumYTiles() - 1) {
+			close();
+		}
+		return strip.getRaster().createChild(0, top - paintedTop, width, bottom - top, 0, top, null);
+	}
+
+	@Override
+	public Raster getData() {
+		return getData(new Rectangle(0, 0, width, height));
+	}
+
+	@Override
+	public Raster getData(final Rectangle rect) {
+		final int stripIndex = rect.y / stripHeight;
+		if (rect.y >= 0 && (rect.y + rect.height - 1) / stripHeight == stripIndex
+		        && new Rectangle(0, 0, width, height).contains(rect)) {
+			// painted strips are never changed, so rows of a single strip are not copied
+			return getTile(0, stripIndex).createChild(rect.x, rect.y, rect.width, rect.height, rect.x, rect.y, null);
+		}
+		final WritableRaster raster = Raster.createWritableRaster(
+		    sampleModel.createCompatibleSampleModel(rect.width, rect.height), new Point(rect.x, rect.y));
+		return copyData(raster);
+	}
+
+	@Override
+	public WritableRaster copyData(WritableRaster raster) {
+		if (raster == null) {
+			raster = Raster.createWritableRaster(sampleModel.createCompatibleSampleModel(width, height), null);
+		}
+		final Rectangle copiedArea = raster.getBounds().intersection(new Rectangle(0, 0, width, height));
+		if (copiedArea.isEmpty()) {
+			return raster;
+		}
+		final int firstStrip = copiedArea.y / stripHeight;
+		final int lastStrip = (copiedArea.y + copiedArea.height - 1) / stripHeight;
+		for (int stripIndex = firstStrip; stripIndex <= lastStrip; stripIndex++) {
+			raster.setRect(getTile(0, stripIndex));
+		}
+		return raster;
+	}
+}
@@ -133,7 +133,7 @@ public class UserInputListenerFactory implements IUserInputListenerFactory {
 		Controller controller = Controller.getCurrentController();
 		controller.getMapViewManager().addMapSelectionListener(new IMapSelectionListener() {
 			public void afterMapChange(final MapModel oldMap, final MapModel newMap) {
-				if (modeController.equals(Controller.getCurrentModeController())) {
+				if (genericMenuStructure != null && modeController.equals(Controller.getCurrentModeController())) {
 					final RecursiveMenuStructureProcessor recursiveMenuStructureProcessor = new RecursiveMenuStructureProcessor();
 					recursiveMenuStructureProcessor.setDefaultBuilder(new EntryVisitor() {
 						EntryAccessor entryAccessor = new EntryAccessor();
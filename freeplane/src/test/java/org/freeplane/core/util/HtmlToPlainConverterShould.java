@@ -0,0 +1,143 @@
+package org.freeplane.core.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+public class HtmlToPlainConverterShould {
+	private static final String NODE_TEXT = "<html>\n"
+	        + "  <head>\n"
+	        + "    \n"
+	        + "  </head>\n"
+	        + "  <body>\n"
+	        + "    <p>\n"
+	        + "      first <b>bold</b>&#160;and <i>italic</i> line\n"
+	        + "    </p>\n"
+	        + "    <p>\n"
+	        + "      second line &lt;tag&gt; &amp;amp; &quot;quoted&quot;&nbsp;\n"
+	        + "    </p>\n"
+	        + "  </body>\n"
+	        + "</html>\n";
+
+	private static final String LIST_AND_TABLE = "<html>\n"
+	        + "  <body>\n"
+	        + "    <ul>\n"
+	        + "      <li>\n"
+	        + "        one\n"
+	        + "      </li>\n"
+	        + "      <li>\n"
+	        + "        two\n"
+	        + "      </li>\n"
+	        + "    </ul>\n"
+	        + "    <table border=\"0\">\n"
+	        + "      <tr>\n"
+	        + "        <td>\n"
+	        + "          a\n"
+	        + "        </td>\n"
+	        + "        <td>\n"
+	        + "          b\n"
+	        + "        </td>\n"
+	        + "      </tr>\n"
+	        + "    </table>\n"
+	        + "    <div>\n"
+	        + "      <dl><dt>term</dt><dd>definition</dd></dl>x<br/>y\n"
+	        + "    </div>\n"
+	        + "  </body>\n"
+	        + "</html>\n";
+
+	private static final String[] FRAGMENTS = { "<html>", "<body>", "</body>", "<head>", "</head>", "<p>", "<P class=\"x\">",
+	        "</p>", "<pre>", "<div>", "</div>", "<tr>", "</tr>", "<td>", "</td>", "<br>", "<BR/>", "<dt>", "<dd>", "<ul>",
+	        "<ol>", "<li>", "</li>", "<link>", "<b>", "</b>", "<table>", "<dir>", "<d>", "</>", "<\np>", "a", "Text",
+	        " ", "  ", "\n", "\t", "\r", "\f", "\u00a0", "&lt;", "&GT;", "&quot;", "&nbsp;", "&amp;", "&amp;lt;", "&#38;",
+	        "&#60;", "&#x41;", "&#X41;", "&#160;", "&#10;", "&#9;", "&#1;", "&#x;", "&foo;", "&", ";", "lt", "#", "65",
+	        "*", ">" };
+
+	@Test
+	public void convertNodeText() throws Exception {
+		assertThat(HtmlToPlainConverter.convert(NODE_TEXT, true))
+		    .isEqualTo("first bold and italic line\nsecond line <tag> &amp; \"quoted\" ");
+	}
+
+	@Test
+	public void convertListsAndTables() throws Exception {
+		assertThat(HtmlToPlainConverter.convert(LIST_AND_TABLE, true))
+		    .isEqualTo("*  one\n   *  two\n  a   b\n\nterm\n   definitionx\ny");
+	}
+
+	@Test
+	public void keepNewLines() throws Exception {
+		assertThat(HtmlToPlainConverter.convert("<html><body>a\n\nb<br>\tc</body></html>", false)).isEqualTo("a\n\nb\nc");
+	}
+
+	@Test
+	public void produceSameOutputAsRegularExpressions() throws Exception {
+		assertSameOutputAsRegularExpressions(NODE_TEXT);
+		assertSameOutputAsRegularExpressions(LIST_AND_TABLE);
+		final Random random = new Random(1);
+		final StringBuilder html = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			html.setLength(0);
+			final int fragmentCount = random.nextInt(12);
+			for (int j = 0; j < fragmentCount; j++)
+				html.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+			assertSameOutputAsRegularExpressions(html.toString());
+		}
+	}
+
+	private void assertSameOutputAsRegularExpressions(String html) {
+		for (boolean removeNewLines : new boolean[] { true, false }) {
+			final String expected;
+			try {
+				expected = RegularExpressions.htmlToPlain(html, removeNewLines);
+			}
+			catch (StringIndexOutOfBoundsException e) {
+				// regular expressions fail on entities "&;" and "&#;"
+				continue;
+			}
+			assertThat(HtmlToPlainConverter.convert(html, removeNewLines)).as("%s", html).isEqualTo(expected);
+		}
+	}
+
+	/** former implementation of htmlToPlain */
+	private static class RegularExpressions {
+		private static final Pattern[] PATTERNS = new Pattern[] {
+		        Pattern.compile("(?ims)>[\n\t]+"),
+		        Pattern.compile("(?ims)[\n\t ]+"),
+		        Pattern.compile("(?ims)<br[^>]*>"),
+		        Pattern.compile("(?ims)<p[^>]*>\\s+"),
+		        Pattern.compile("(?ims)<div[^>]*>\\s+"),
+		        Pattern.compile("(?ims)<tr[^>]*>\\s+"),
+		        Pattern.compile("(?ims)<dt[^>]*>"),
+		        Pattern.compile("(?ims)<dd[^>]*>"),
+		        Pattern.compile("(?ims)<td[^>]*>"),
+		        Pattern.compile("(?ims)<[uo]l[^>]*>"),
+		        Pattern.compile("(?ims)<li[^>]*>"),
+		        Pattern.compile("(?ims) *</[^>]*>"),
+		        Pattern.compile("(?ims)<[^/][^>]*> *"),
+		        Pattern.compile("^\n+"),
+		        Pattern.compile("(?ims)&lt;"),
+		        Pattern.compile("(?ims)&gt;"),
+		        Pattern.compile("(?ims)&quot;"),
+		        Pattern.compile("(?ims)&nbsp;"),
+		        Pattern.compile("(?ims)&amp;"),
+		        Pattern.compile("(?ims)[ \t]+\n") };
+		private static final String[] REPLACEMENTS = { ">", " ", "\n", "\n", "\n", "\n", "\n", "\n   ", " ", "\n",
+		        "\n   * ", "", "", "", "<", ">", "\"", " ", "&", "\n" };
+
+		static String htmlToPlain(String text, boolean removeNewLines) {
+			String intermediate = text;
+			for (int i = 0; i < PATTERNS.length; i++) {
+				if (i == 14) {
+					intermediate = intermediate.trim();
+					intermediate = HtmlUtils.unescapeHTMLUnicodeEntity(intermediate);
+				}
+				if (removeNewLines || i != 1 && i != 13)
+					intermediate = PATTERNS[i].matcher(intermediate).replaceAll(REPLACEMENTS[i]);
+			}
+			return intermediate.replace('\u00a0', ' ');
+		}
+	}
+}
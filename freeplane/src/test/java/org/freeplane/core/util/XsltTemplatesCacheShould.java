@@ -0,0 +1,60 @@
+package org.freeplane.core.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class XsltTemplatesCacheShould {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final XsltTemplatesCache cache = new XsltTemplatesCache();
+
+	private File stylesheet(String output) throws IOException {
+		final File file = new File(folder.getRoot(), "test.xsl");
+		final String xsl = "<xsl:stylesheet version='1.0' xmlns:xsl='http://www.w3.org/1999/XSL/Transform'>"
+		        + "<xsl:output method='text'/>"
+		        + "<xsl:template match='/'>" + output + "<xsl:value-of select='map/@name'/></xsl:template>"
+		        + "</xsl:stylesheet>";
+		Files.write(file.toPath(), xsl.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	private String transform(Templates templates) throws Exception {
+		final StringWriter result = new StringWriter();
+		templates.newTransformer().transform(new StreamSource(new StringReader("<map name='m'/>")), new StreamResult(result));
+		return result.toString();
+	}
+
+	@Test
+	public void reuseTemplatesOfUnchangedFile() throws Exception {
+		final File file = stylesheet("first ");
+		final Templates templates = cache.getTemplates(file);
+		assertThat(cache.getTemplates(file)).isSameAs(templates);
+		assertThat(transform(templates)).isEqualTo("first m");
+	}
+
+	@Test
+	public void compileChangedFileAgain() throws Exception {
+		final File file = stylesheet("first ");
+		final Templates templates = cache.getTemplates(file);
+		stylesheet("second ");
+		file.setLastModified(file.lastModified() + 2000);
+		final Templates changedTemplates = cache.getTemplates(file);
+		assertThat(changedTemplates).isNotSameAs(templates);
+		assertThat(transform(changedTemplates)).isEqualTo("second m");
+	}
+}
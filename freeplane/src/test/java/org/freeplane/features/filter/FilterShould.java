@@ -0,0 +1,202 @@
+package org.freeplane.features.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.freeplane.features.filter.FilterUpdater.Change;
+import org.freeplane.features.filter.FilterUpdater.MapChanges;
+import org.freeplane.features.filter.condition.ASelectableCondition;
+import org.freeplane.features.filter.condition.ConditionDependency;
+import org.freeplane.features.filter.condition.ICondition;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.NodeModel;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class FilterShould {
+	private final MapModel map = Mockito.mock(MapModel.class);
+	private final Set<NodeModel> matchingNodes = new HashSet<>();
+	private final ICondition condition = matchingNodes::contains;
+	private final List<NodeModel> nodes = new ArrayList<>();
+	private final NodeModel root = node("root", null);
+	private final NodeModel a = node("a", root);
+	private final NodeModel a1 = node("a1", a);
+	private final NodeModel a11 = node("a11", a1);
+	private final NodeModel a2 = node("a2", a);
+	private final NodeModel b = node("b", root);
+	private final NodeModel b1 = node("b1", b);
+	{
+		Mockito.when(map.getRootNode()).thenReturn(root);
+	}
+
+	private NodeModel node(String text, NodeModel parent) {
+		final NodeModel node = new NodeModel(text, map);
+		if (parent != null)
+			parent.insert(node);
+		nodes.add(node);
+		return node;
+	}
+
+	private static class FilterResults implements Filter.FilterInfoAccessor {
+		final HashMap<NodeModel, Integer> filterFlags = new HashMap<>();
+
+		@Override
+		public int getFilterFlags(NodeModel node) {
+			return filterFlags.getOrDefault(node, FilterInfo.FILTER_INITIAL_VALUE);
+		}
+
+		@Override
+		public void setFilterFlags(NodeModel node, int flags) {
+			filterFlags.put(node, flags);
+		}
+	}
+
+	private final FilterResults incrementalResults = new FilterResults();
+
+	private Filter filter(FilterResults results, boolean areAncestorsShown, boolean areDescendantsShown) {
+		return new Filter(condition, areAncestorsShown, areDescendantsShown, false, results);
+	}
+
+	private class DependentCondition extends ASelectableCondition {
+		private final Set<ConditionDependency> dependencies;
+
+		DependentCondition(Set<ConditionDependency> dependencies) {
+			this.dependencies = dependencies;
+		}
+
+		@Override
+		public boolean checkNode(NodeModel node) {
+			return matchingNodes.contains(node);
+		}
+
+		@Override
+		public Set<ConditionDependency> getDependencies() {
+			return dependencies;
+		}
+
+		@Override
+		protected String createDescription() {
+			return "matching nodes";
+		}
+
+		@Override
+		protected String getName() {
+			return "dependent_condition";
+		}
+	}
+
+	private Filter filter(Set<ConditionDependency> dependencies) {
+		return new Filter(new DependentCondition(dependencies), true, true, false, incrementalResults);
+	}
+
+	private boolean update(Filter filter, NodeModel node, Change change) {
+		final MapChanges changes = new MapChanges();
+		changes.add(node, change);
+		return FilterUpdater.updateFilterResults(map, filter, changes);
+	}
+
+	private void assertIncrementalResultsEqualFullResults() {
+		final FilterResults fullResults = new FilterResults();
+		filter(fullResults, true, true).calculateFilterResults(map);
+		for (NodeModel node : nodes) {
+			if (node == root || node.isDescendantOf(root))
+				assertThat(incrementalResults.getFilterFlags(node)).as(node.getText())
+				    .isEqualTo(fullResults.getFilterFlags(node));
+		}
+	}
+
+	@Test
+	public void updateResultsOfChangedNodeAncestorsAndDescendants() throws Exception {
+		final Filter filter = filter(incrementalResults, true, true);
+		matchingNodes.add(b1);
+		filter.calculateFilterResults(map);
+		for (NodeModel changedNode : nodes) {
+			if (!matchingNodes.remove(changedNode))
+				matchingNodes.add(changedNode);
+			filter.updateFilterResults(changedNode, false);
+			assertIncrementalResultsEqualFullResults();
+		}
+	}
+
+	@Test
+	public void reportUnchangedResults() throws Exception {
+		final Filter filter = filter(incrementalResults, true, true);
+		matchingNodes.add(a1);
+		filter.calculateFilterResults(map);
+		assertThat(filter.updateFilterResults(a11, false)).isFalse();
+	}
+
+	@Test
+	public void filterInsertedNodes() throws Exception {
+		final Filter filter = filter(incrementalResults, true, true);
+		matchingNodes.add(a);
+		filter.calculateFilterResults(map);
+		final NodeModel inserted = node("inserted", b1);
+		matchingNodes.add(inserted);
+		filter.updateFilterResults(inserted, true);
+		assertIncrementalResultsEqualFullResults();
+	}
+
+	@Test
+	public void updateAncestorsOfRemovedNodes() throws Exception {
+		final Filter filter = filter(incrementalResults, true, true);
+		matchingNodes.add(a11);
+		filter.calculateFilterResults(map);
+		a1.remove(0);
+		assertThat(filter.updateAncestorResults(a1)).isTrue();
+		assertIncrementalResultsEqualFullResults();
+	}
+
+	@Test
+	public void keepNodesDisplayedByFindVisibleWhenTheyAreRefreshed() throws Exception {
+		final Filter filter = filter(ConditionDependency.of(ConditionDependency.TEXT));
+		matchingNodes.add(a);
+		filter.calculateFilterResults(map);
+		incrementalResults.setFilterFlags(b1, FilterInfo.FILTER_INITIAL_VALUE);
+		assertThat(update(filter, b1, Change.REFRESHED)).isFalse();
+		assertThat(filter.isVisible(b1)).isTrue();
+		assertThat(update(filter, b1, Change.EDITED)).isTrue();
+		assertThat(filter.isVisible(b1)).isFalse();
+	}
+
+	@Test
+	public void filterInsertedNodesAfterTheyAreEdited() throws Exception {
+		final Filter filter = filter(ConditionDependency.of(ConditionDependency.TEXT));
+		matchingNodes.add(a);
+		filter.calculateFilterResults(map);
+		final NodeModel inserted = node("", b1);
+		final MapChanges changes = new MapChanges();
+		changes.add(inserted, Change.INSERTED);
+		changes.add(inserted, Change.EDITED);
+		assertThat(FilterUpdater.updateFilterResults(map, filter, changes)).isFalse();
+		assertThat(filter.isVisible(inserted)).isTrue();
+		assertThat(update(filter, inserted, Change.EDITED)).isTrue();
+		assertIncrementalResultsEqualFullResults();
+	}
+
+	@Test
+	public void filterAllNodesAgainForConditionsWithoutDependencies() throws Exception {
+		final Filter filter = filter((Set<ConditionDependency>) null);
+		matchingNodes.add(a11);
+		filter.calculateFilterResults(map);
+		// the condition reads other nodes, so the change of a1 changes the match of b1
+		matchingNodes.add(b1);
+		assertThat(update(filter, a1, Change.EDITED)).isTrue();
+		assertIncrementalResultsEqualFullResults();
+	}
+
+	@Test
+	public void checkChildrenOfChangedNodesAgainForConditionsReadingParentText() throws Exception {
+		final Filter filter = filter(ConditionDependency.of(ConditionDependency.PARENT_TEXT));
+		matchingNodes.add(a1);
+		filter.calculateFilterResults(map);
+		matchingNodes.add(a11);
+		assertThat(update(filter, a1, Change.EDITED)).isTrue();
+		assertIncrementalResultsEqualFullResults();
+	}
+}
@@ -129,4 +129,60 @@ public class ClonesTest {
 		assertThat(clone.subtreeContainsCloneOf(child), is(true));
 	}
 
+	@Test
+	public void nodesWithoutClonesStoreNoCloneLists() {
+		final NodeModel parent = root();
+		final NodeModel node = new NodeModel("node", map);
+		assertThat(node.storesCloneLists(), is(false));
+		parent.insert(node);
+		assertThat(node.storesCloneLists(), is(false));
+		parent.remove(parent.getIndex(node));
+		assertThat(node.storesCloneLists(), is(false));
+		assertThat(node.subtreeClones(), IsEmptyIterable.<NodeModel>emptyIterable());
+	}
+
+	@Test
+	public void releaseCloneListsAfterTreeClonesAreRemoved() {
+		final NodeModel parent = root();
+		final NodeModel node = new NodeModel("node", map);
+		parent.insert(node);
+		final NodeModel clone = node.cloneTree();
+		parent.insert(clone);
+		assertThat(node.storesCloneLists(), is(true));
+		parent.remove(parent.getIndex(clone));
+		assertThat(node.storesCloneLists(), is(false));
+		assertThat(node.subtreeClones(), contains(node));
+		assertThat(node.allClones(), contains(node));
+		assertThat(node.isCloneTreeRoot(), is(false));
+	}
+
+	@Test
+	public void releaseCloneListsAfterContentClonesAreRemoved() {
+		final NodeModel parent = root();
+		final NodeModel node = new NodeModel("node", map);
+		parent.insert(node);
+		final NodeModel clone = node.cloneContent();
+		parent.insert(clone);
+		assertThat(node.subtreeClones(), contains(node));
+		assertThat(node.allClones(), contains(node, clone));
+		assertThat(node.isCloneTreeRoot(), is(true));
+		parent.remove(parent.getIndex(clone));
+		assertThat(node.storesCloneLists(), is(false));
+		assertThat(node.allClones(), contains(node));
+		assertThat(node.isCloneTreeRoot(), is(false));
+	}
+
+	@Test
+	public void attachRemovedClonesAgain() {
+		final NodeModel parent = root();
+		final NodeModel node = new NodeModel("node", map);
+		parent.insert(node);
+		final NodeModel clone = node.cloneTree();
+		parent.insert(clone);
+		final int index = parent.getIndex(clone);
+		parent.remove(index);
+		parent.insert(clone, index);
+		assertThat(node.subtreeClones(), contains(node, clone));
+		assertThat(clone.allClones(), contains(node, clone));
+	}
 }
@@ -0,0 +1,99 @@
+package org.freeplane.features.map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class NodeRegistryShould {
+	private final MapModel map = Mockito.mock(MapModel.class);
+	private final NodeRegistry registry = new NodeRegistry();
+
+	@Test
+	public void findNodesByNumberedAndOtherIDs() throws Exception {
+		final NodeModel numbered = new NodeModel(map);
+		final NodeModel leadingZero = new NodeModel(map);
+		final NodeModel other = new NodeModel(map);
+		registry.put("ID_123", numbered);
+		registry.put("ID_0123", leadingZero);
+		registry.put("Freemind_Link_1", other);
+		assertThat(registry.get("ID_123")).isSameAs(numbered);
+		assertThat(registry.get("ID_0123")).isSameAs(leadingZero);
+		assertThat(registry.get("Freemind_Link_1")).isSameAs(other);
+		assertThat(registry.get("ID_124")).isNull();
+	}
+
+	@Test
+	public void keepNodesWhileGrowing() throws Exception {
+		final NodeModel[] nodes = new NodeModel[1000];
+		for (int i = 0; i < nodes.length; i++) {
+			nodes[i] = new NodeModel(map);
+			registry.put("ID_" + i * 7919, nodes[i]);
+		}
+		for (int i = 0; i < nodes.length; i++)
+			assertThat(registry.get("ID_" + i * 7919)).isSameAs(nodes[i]);
+	}
+
+	@Test
+	public void generateSameIDsForSameMaps() throws Exception {
+		assertThat(registry.generateID()).isEqualTo("ID_1");
+		registry.put("ID_1723255651", new NodeModel(map));
+		assertThat(registry.generateID()).isEqualTo("ID_1723255652");
+		assertThat(new NodeRegistry().generateID()).isEqualTo("ID_1");
+	}
+
+	@Test
+	public void generateIDsAboveRegisteredIDs() throws Exception {
+		registry.put("ID_2", new NodeModel(map));
+		assertThat(registry.generateID()).isEqualTo("ID_3");
+		assertThat(registry.generateID()).isEqualTo("ID_4");
+		registry.put("ID_10", new NodeModel(map));
+		assertThat(registry.generateID()).isEqualTo("ID_11");
+	}
+
+	@Test
+	public void notGenerateIDsOfRemovedNodes() throws Exception {
+		registry.put("ID_1", new NodeModel(map));
+		registry.put("ID_1", null);
+		assertThat(registry.get("ID_1")).isNull();
+		assertThat(registry.generateID()).isEqualTo("ID_2");
+	}
+
+	@Test
+	public void restartFromFirstFreeNumberAfterLargestNumber() throws Exception {
+		registry.put("ID_1", new NodeModel(map));
+		registry.put("ID_" + (NodeRegistry.MAX_NUMBER - 1), new NodeModel(map));
+		assertThat(registry.generateID()).isEqualTo("ID_" + NodeRegistry.MAX_NUMBER);
+		assertThat(registry.generateID()).isEqualTo("ID_2");
+		registry.put("ID_2", new NodeModel(map));
+		registry.put("ID_" + NodeRegistry.MAX_NUMBER, new NodeModel(map));
+		assertThat(registry.generateID()).isEqualTo("ID_3");
+		assertThat(NodeRegistry.numberOf("ID_" + Integer.MAX_VALUE)).isEqualTo(-1);
+	}
+
+	@Test
+	public void keepReservedIDsUntilReleased() throws Exception {
+		final Object owner = new Object();
+		registry.reserve("ID_7", owner);
+		registry.reserve("Freemind_Link_1", owner);
+		assertThat(registry.get("ID_7")).isNull();
+		assertThat(registry.getReservation("ID_7")).isSameAs(owner);
+		assertThat(registry.isReserved("Freemind_Link_1")).isTrue();
+		assertThat(registry.generateID()).isEqualTo("ID_8");
+		registry.release("ID_7");
+		assertThat(registry.isReserved("ID_7")).isFalse();
+		final NodeModel node = new NodeModel(map);
+		registry.put("ID_7", node);
+		assertThat(registry.get("ID_7")).isSameAs(node);
+	}
+
+	@Test
+	public void notReserveRegisteredIDs() throws Exception {
+		final NodeModel node = new NodeModel(map);
+		registry.put("ID_7", node);
+		registry.reserve("ID_7", new Object());
+		assertThat(registry.isReserved("ID_7")).isFalse();
+		assertThat(registry.get("ID_7")).isSameAs(node);
+	}
+
+}
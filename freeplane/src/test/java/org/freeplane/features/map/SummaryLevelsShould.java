@@ -31,6 +31,22 @@ public class SummaryLevelsShould {
 			assertThat(summaryLevels.findSummaryNodeIndex(0), equalTo(summaryNode.getIndex()));
 
 		}
+
+		@Test
+		public void returnSummaryNodesOfAllNodesInSuccessiveGroups() throws Exception {
+			mapFake.addNode("1");
+			mapFake.addSummaryNode();
+			mapFake.addGroupBeginNode();
+			mapFake.addNode("2");
+			mapFake.addSummaryNode();
+			mapFake.addSummaryNode();
+			mapFake.addNode("3");
+			final SummaryLevels summaryLevels = new SummaryLevels(mapFake.getRoot());
+			final int[] summaryNodeIndices = new int[7];
+			for (int i = 0; i < summaryNodeIndices.length; i++)
+				summaryNodeIndices[i] = summaryLevels.findSummaryNodeIndex(i);
+			assertThat(summaryNodeIndices, equalTo(new int[] {1, 5, 4, 4, 5, -1, -1}));
+		}
 	}
 	public static class FindSummaryNode extends SummaryLevelsShould{
 
@@ -0,0 +1,56 @@
+package org.freeplane.features.map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+
+import org.freeplane.core.ui.menubuilders.HeadlessFreeplaneRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class UnparsedChildrenShould {
+	static {
+		new HeadlessFreeplaneRunner();
+	}
+
+	private final MapModel map = new MapModel(null, null);
+	private final NodeModel root = new NodeModel(map);
+
+	@Before
+	public void setup() {
+		map.setRoot(root);
+	}
+
+	@Test
+	public void notGiveIDsOfUnparsedSubtreesToNewNodes() throws Exception {
+		new UnparsedChildren(null, root).addUnparsedChild(
+		    "<node TEXT=\"child\" ID=\"ID_5\"><node TREE_ID=\"ID_6\" ID='ID_1234567'/></node>");
+		assertThat(map.generateNodeID("ID_5")).isNotEqualTo("ID_5");
+		assertThat(map.generateNodeID("ID_1234567")).isNotEqualTo("ID_1234567");
+		assertThat(map.generateNodeID("ID_6")).isEqualTo("ID_6");
+		map.releaseNodeID("ID_5");
+		assertThat(map.generateNodeID("ID_5")).isEqualTo("ID_5");
+	}
+
+	@Test
+	public void parseOnlySubtreesReservingLookedUpIDs() throws Exception {
+		final MapReader mapReader = Mockito.mock(MapReader.class);
+		Mockito.when(mapReader.createNodeTreeFromXml(Mockito.same(map), Mockito.any(Reader.class), Mockito.anyMap()))
+		    .thenAnswer(invocation -> {
+			    final NodeModel child = new NodeModel(map);
+			    child.setID("ID_5");
+			    return child;
+		    });
+		final UnparsedChildren first = new UnparsedChildren(mapReader, root);
+		first.addUnparsedChild("<node TEXT=\"first\" ID=\"ID_5\"/>");
+		final UnparsedChildren second = new UnparsedChildren(mapReader, root);
+		second.addUnparsedChild("<node TEXT=\"second\" ID=\"ID_6\"/>");
+		assertThat(map.getNodeForID("ID_7")).isNull();
+		assertThat(first.isParsed()).isFalse();
+		assertThat(second.isParsed()).isFalse();
+		assertThat(map.getNodeForID("ID_5").getID()).isEqualTo("ID_5");
+		assertThat(first.isParsed()).isTrue();
+		assertThat(second.isParsed()).isFalse();
+	}
+}
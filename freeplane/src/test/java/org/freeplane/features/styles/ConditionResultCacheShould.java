@@ -0,0 +1,85 @@
+package org.freeplane.features.styles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Set;
+
+import org.freeplane.features.filter.condition.ASelectableCondition;
+import org.freeplane.features.filter.condition.ConditionDependency;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.NodeModel;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class ConditionResultCacheShould {
+	private static class CountingCondition extends ASelectableCondition {
+		private final Set<ConditionDependency> dependencies;
+		int evaluationCount;
+
+		CountingCondition(Set<ConditionDependency> dependencies) {
+			this.dependencies = dependencies;
+		}
+
+		@Override
+		public boolean checkNode(NodeModel node) {
+			evaluationCount++;
+			return true;
+		}
+
+		@Override
+		public Set<ConditionDependency> getDependencies() {
+			return dependencies;
+		}
+
+		@Override
+		protected String createDescription() {
+			return "counting";
+		}
+
+		@Override
+		protected String getName() {
+			return "counting";
+		}
+	}
+
+	private final MapModel map = Mockito.mock(MapModel.class);
+	private final NodeModel node = new NodeModel("node", map);
+	private final ConditionResultCache cache = new ConditionResultCache();
+	private final CountingCondition textCondition = new CountingCondition(ConditionDependency.of(ConditionDependency.TEXT));
+
+	@Test
+	public void reuseResultWhileDependenciesAreUnchanged() throws Exception {
+		assertThat(cache.checkNode(textCondition, node)).isTrue();
+		assertThat(cache.checkNode(textCondition, node)).isTrue();
+		cache.dependencyChanged(node, ConditionDependency.NOTE);
+		cache.checkNode(textCondition, node);
+		assertThat(textCondition.evaluationCount).isEqualTo(1);
+	}
+
+	@Test
+	public void evaluateConditionAgainAfterDependencyChange() throws Exception {
+		cache.checkNode(textCondition, node);
+		cache.dependencyChanged(node, ConditionDependency.TEXT);
+		cache.checkNode(textCondition, node);
+		cache.allDependenciesChanged(node);
+		cache.checkNode(textCondition, node);
+		assertThat(textCondition.evaluationCount).isEqualTo(3);
+	}
+
+	@Test
+	public void evaluateConditionAgainAfterMove() throws Exception {
+		final CountingCondition levelCondition = new CountingCondition(ConditionDependency.of(ConditionDependency.LEVEL));
+		cache.checkNode(levelCondition, node);
+		cache.branchMoved(node);
+		cache.checkNode(levelCondition, node);
+		assertThat(levelCondition.evaluationCount).isEqualTo(2);
+	}
+
+	@Test
+	public void alwaysEvaluateConditionsWithUnknownDependencies() throws Exception {
+		final CountingCondition condition = new CountingCondition(null);
+		cache.checkNode(condition, node);
+		cache.checkNode(condition, node);
+		assertThat(condition.evaluationCount).isEqualTo(2);
+	}
+}
@@ -0,0 +1,127 @@
+package org.freeplane.features.styles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.freeplane.core.ui.menubuilders.HeadlessFreeplaneRunner;
+import org.freeplane.features.filter.Filter;
+import org.freeplane.features.map.MapChangeEvent;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.MapWriter.Mode;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.features.map.mindmapmode.MMapController;
+import org.freeplane.features.map.mindmapmode.MMapModel;
+import org.freeplane.features.mode.Controller;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ResolvedStylesCacheShould {
+	static {
+		new HeadlessFreeplaneRunner();
+	}
+
+	private final MapModel map = new MMapModel();
+	private MMapController mapController;
+	private LogicalStyleController styleController;
+	private NodeModel root;
+	private NodeModel parent;
+	private NodeModel child;
+	private NodeModel sibling;
+
+	@Before
+	public void setup() throws Exception {
+		mapController = (MMapController) Controller.getCurrentModeController().getMapController();
+		styleController = LogicalStyleController.getController();
+		root = mapController.getMapReader().createNodeTreeFromXml(map,
+		    new StringReader("<map version=\"freeplane 1.7.0\"><node TEXT=\"root\">"
+		            + "<node TEXT=\"parent\"><node TEXT=\"child\"/></node>"
+		            + "<node TEXT=\"sibling\"/>"
+		            + "</node></map>"),
+		    Mode.FILE);
+		mapController.fireMapCreated(map);
+		parent = root.getChildAt(0);
+		child = parent.getChildAt(0);
+		sibling = root.getChildAt(1);
+	}
+
+	private Collection<IStyle> styles(NodeModel node) {
+		return styleController.getStyles(node);
+	}
+
+	@Test
+	public void keepStylesUntilNodesChange() throws Exception {
+		final Collection<IStyle> childStyles = styles(child);
+		final Collection<IStyle> siblingStyles = styles(sibling);
+		assertThat(styles(child)).isSameAs(childStyles);
+		mapController.nodeRefresh(child);
+		assertThat(styles(child)).isNotSameAs(childStyles).hasSameSizeAs(childStyles);
+		assertThat(styles(sibling)).isSameAs(siblingStyles);
+	}
+
+	@Test
+	public void removeStylesOfClonesWhenNodesChange() throws Exception {
+		final NodeModel clone = child.cloneTree();
+		mapController.insertNodeIntoWithoutUndo(clone, sibling, 0);
+		final Collection<IStyle> cloneStyles = styles(clone);
+		mapController.nodeRefresh(child);
+		assertThat(styles(clone)).isNotSameAs(cloneStyles);
+	}
+
+	@Test
+	public void removeStylesOfInsertedBranchesAndTheirParents() throws Exception {
+		final Collection<IStyle> parentStyles = styles(parent);
+		final Collection<IStyle> siblingStyles = styles(sibling);
+		final NodeModel newChild = new NodeModel("new", map);
+		final Collection<IStyle> newChildStyles = styles(newChild);
+		mapController.insertNodeIntoWithoutUndo(newChild, parent, 0);
+		assertThat(styles(newChild)).isNotSameAs(newChildStyles);
+		assertThat(styles(parent)).isNotSameAs(parentStyles);
+		assertThat(styles(sibling)).isSameAs(siblingStyles);
+	}
+
+	@Test
+	public void removeStylesOfMovedBranchesAndTheirOldAndNewParents() throws Exception {
+		final Collection<IStyle> parentStyles = styles(parent);
+		final Collection<IStyle> childStyles = styles(child);
+		final Collection<IStyle> siblingStyles = styles(sibling);
+		final Collection<IStyle> rootStyles = styles(root);
+		mapController.moveNodes(Arrays.asList(child), sibling, 0);
+		assertThat(child.getParentNode()).isSameAs(sibling);
+		assertThat(styles(child)).isNotSameAs(childStyles);
+		assertThat(styles(parent)).isNotSameAs(parentStyles);
+		assertThat(styles(sibling)).isNotSameAs(siblingStyles);
+		assertThat(styles(root)).isSameAs(rootStyles);
+	}
+
+	@Test
+	public void removeStylesOfDeletedBranchesAndTheirParents() throws Exception {
+		styles(parent);
+		styles(child);
+		final Collection<IStyle> siblingStyles = styles(sibling);
+		final Collection<IStyle> rootStyles = styles(root);
+		mapController.deleteNode(parent);
+		assertThat(ResolvedStylesCache.getExistingCache(map).get(parent)).isNull();
+		assertThat(ResolvedStylesCache.getExistingCache(map).get(child)).isNull();
+		assertThat(styles(root)).isNotSameAs(rootStyles);
+		assertThat(styles(sibling)).isSameAs(siblingStyles);
+	}
+
+	@Test
+	public void removeAllStylesWhenMapStylesChange() throws Exception {
+		final Collection<IStyle> childStyles = styles(child);
+		final Collection<IStyle> siblingStyles = styles(sibling);
+		mapController.fireMapChanged(new MapChangeEvent(this, map, MapStyle.MAP_STYLES, null, null));
+		assertThat(styles(child)).isNotSameAs(childStyles);
+		assertThat(styles(sibling)).isNotSameAs(siblingStyles);
+	}
+
+	@Test
+	public void keepStylesWhenFilterChanges() throws Exception {
+		final Collection<IStyle> childStyles = styles(child);
+		mapController.fireMapChanged(new MapChangeEvent(this, map, Filter.class, null, null, false));
+		assertThat(styles(child)).isSameAs(childStyles);
+	}
+}
@@ -0,0 +1,105 @@
+package org.freeplane.features.text;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.StringReader;
+
+import org.freeplane.core.ui.menubuilders.HeadlessFreeplaneRunner;
+import org.freeplane.features.map.MapController;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.MapWriter.Mode;
+import org.freeplane.features.map.NodeChangeEvent;
+import org.freeplane.features.map.NodeDeletionEvent;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.features.map.mindmapmode.MMapModel;
+import org.freeplane.features.mode.Controller;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TextIndexShould {
+	static {
+		new HeadlessFreeplaneRunner();
+	}
+
+	private final MapModel map = new MMapModel();
+	private final TextProjectionCacheUpdater updater = new TextProjectionCacheUpdater();
+	private NodeModel root;
+	private NodeModel greeting;
+	private NodeModel greek;
+
+	@Before
+	public void setup() throws Exception {
+		final MapController mapController = Controller.getCurrentModeController().getMapController();
+		root = mapController.getMapReader().createNodeTreeFromXml(map,
+		    new StringReader("<map version=\"freeplane 1.7.0\"><node TEXT=\"root\">"
+		            + "<node TEXT=\"Hello World\"/>"
+		            + "<node TEXT=\"ΟΔΟΣ\"/>"
+		            + "</node></map>"),
+		    Mode.FILE);
+		mapController.fireMapCreated(map);
+		greeting = root.getChildAt(0);
+		greek = root.getChildAt(1);
+	}
+
+	@Test
+	public void ignoreCase() throws Exception {
+		assertThat(TextIndex.mayContain(greeting, "WORLD")).isTrue();
+		assertThat(TextIndex.mayContain(greeting, "hello w")).isTrue();
+		assertThat(TextIndex.mayContain(root, "World")).isFalse();
+		assertThat(TextIndex.mayContain(greeting, "word")).isFalse();
+	}
+
+	@Test
+	public void findWordsEndingWithSigmaInAnyForm() throws Exception {
+		// lower case conversion turns the last capital sigma into the final sigma
+		assertThat(TextIndex.mayContain(greek, "οδος")).isTrue();
+		assertThat(TextIndex.mayContain(greek, "οδοσ")).isTrue();
+		assertThat(TextIndex.mayContain(greek, "ΟΔΟΣ")).isTrue();
+		assertThat(TextIndex.mayContain(greeting, "οδοσ")).isFalse();
+	}
+
+	@Test
+	public void considerAllNodesForTextsShorterThanTrigrams() throws Exception {
+		assertThat(TextIndex.mayContain(root, "he")).isTrue();
+		assertThat(TextIndex.mayContain(greeting, "zz")).isTrue();
+		assertThat(TextIndex.mayContain(greek, "a b")).isTrue();
+	}
+
+	@Test
+	public void updateChangedNodes() throws Exception {
+		assertThat(TextIndex.mayContain(greeting, "changed")).isFalse();
+		greeting.setText("changed");
+		updater.nodeChanged(new NodeChangeEvent(greeting, NodeModel.NODE_TEXT, null, null, true, false));
+		assertThat(TextIndex.mayContain(greeting, "changed")).isTrue();
+		assertThat(TextIndex.mayContain(greeting, "hello")).isFalse();
+	}
+
+	@Test
+	public void findTextsChangedWithoutEvents() throws Exception {
+		assertThat(TextIndex.mayContain(greeting, "changed")).isFalse();
+		greeting.setText("changed");
+		assertThat(TextIndex.mayContain(greeting, "changed")).isTrue();
+		assertThat(TextIndex.mayContain(greeting, "hello")).isFalse();
+		assertThat(TextIndex.mayContain(greek, "changed")).isFalse();
+	}
+
+	@Test
+	public void findNodesRemovedAndInsertedAgain() throws Exception {
+		assertThat(TextIndex.mayContain(greeting, "hello")).isTrue();
+		root.remove(0);
+		updater.onNodeDeleted(new NodeDeletionEvent(root, greeting, 0));
+		assertThat(TextIndex.mayContain(greek, "hello")).isFalse();
+		root.insert(greeting, 0);
+		updater.onNodeInserted(root, greeting, 0);
+		assertThat(TextIndex.mayContain(greeting, "hello")).isTrue();
+		assertThat(TextIndex.mayContain(greek, "hello")).isFalse();
+		assertThat(TextIndex.mayContain(greek, "οδοσ")).isTrue();
+	}
+
+	@Test
+	public void checkParentTextsForParentConditions() throws Exception {
+		assertThat(NodeTextConditionController.mayContain(TextController.FILTER_PARENT, greeting, "root")).isTrue();
+		assertThat(NodeTextConditionController.mayContain(TextController.FILTER_PARENT, greeting, "hello")).isFalse();
+		assertThat(NodeTextConditionController.mayContain(TextController.FILTER_PARENT, root, "hello")).isTrue();
+	}
+}
@@ -0,0 +1,137 @@
+package org.freeplane.features.text;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.StringReader;
+
+import org.freeplane.core.resources.ResourceController;
+import org.freeplane.core.ui.menubuilders.HeadlessFreeplaneRunner;
+import org.freeplane.features.filter.Filter;
+import org.freeplane.features.map.MapChangeEvent;
+import org.freeplane.features.map.MapController;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.MapWriter.Mode;
+import org.freeplane.features.map.NodeChangeEvent;
+import org.freeplane.features.map.NodeDeletionEvent;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.features.map.mindmapmode.MMapModel;
+import org.freeplane.features.mode.Controller;
+import org.freeplane.features.styles.MapStyle;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TextProjectionCacheShould {
+	static {
+		new HeadlessFreeplaneRunner();
+	}
+
+	private final MapModel map = new MMapModel();
+	private NodeModel root;
+	private NodeModel child;
+	private final TextProjectionCacheUpdater updater = new TextProjectionCacheUpdater();
+	private String suffix = "1";
+
+	/** appends a suffix which changes without changing node texts, like formula results do */
+	private final IContentTransformer transformer = new AbstractContentTransformer(1) {
+		@Override
+		public Object transformContent(TextController textController, Object content, NodeModel node,
+		                               Object transformedExtension) {
+			return node.getMap() == map ? content + "-" + suffix : content;
+		}
+	};
+
+	@Before
+	public void setup() throws Exception {
+		final MapController mapController = Controller.getCurrentModeController().getMapController();
+		root = mapController.getMapReader().createNodeTreeFromXml(map,
+		    new StringReader("<map version=\"freeplane 1.7.0\"><node TEXT=\"root\"><node TEXT=\"child\"/></node></map>"),
+		    Mode.FILE);
+		mapController.fireMapCreated(map);
+		child = root.getChildAt(0);
+		TextController.getController().addTextTransformer(transformer);
+	}
+
+	@After
+	public void removeTransformer() {
+		TextController.getController().removeTextTransformer(transformer);
+		ResourceController.getResourceController().setProperty(TextProjectionCache.CACHE_SIZE_PROPERTY, "64");
+		updater.onRemove(map);
+	}
+
+	private Object plainText(NodeModel node) {
+		return TextProjectionCache.getPlainText(node, TextProjectionCache.NODE_TEXT);
+	}
+
+	@Test
+	public void keepTransformedTextsUntilNodesChange() throws Exception {
+		assertThat(plainText(child)).isEqualTo("child-1");
+		assertThat(TextProjectionCache.getLowerCasePlainText(child, TextProjectionCache.NODE_TEXT))
+		    .isEqualTo("child-1");
+		suffix = "2";
+		assertThat(plainText(child)).isEqualTo("child-1");
+		updater.nodeChanged(new NodeChangeEvent(child, NodeModel.UNKNOWN_PROPERTY, null, null, false, false));
+		assertThat(plainText(child)).isEqualTo("child-2");
+	}
+
+	@Test
+	public void removeTextsOfDeletedBranches() throws Exception {
+		assertThat(plainText(root)).isEqualTo("root-1");
+		assertThat(plainText(child)).isEqualTo("child-1");
+		suffix = "2";
+		root.remove(0);
+		updater.onNodeDeleted(new NodeDeletionEvent(root, child, 0));
+		assertThat(plainText(child)).isEqualTo("child-2");
+		assertThat(plainText(root)).isEqualTo("root-1");
+	}
+
+	@Test
+	public void removeAllTextsWhenMapStylesChange() throws Exception {
+		assertThat(plainText(root)).isEqualTo("root-1");
+		assertThat(plainText(child)).isEqualTo("child-1");
+		suffix = "2";
+		updater.mapChanged(new MapChangeEvent(this, map, MapStyle.MAP_STYLES, null, null));
+		assertThat(plainText(root)).isEqualTo("root-2");
+		assertThat(plainText(child)).isEqualTo("child-2");
+	}
+
+	@Test
+	public void keepTextsWhenFilterChanges() throws Exception {
+		assertThat(plainText(child)).isEqualTo("child-1");
+		suffix = "2";
+		updater.mapChanged(new MapChangeEvent(this, map, Filter.class, null, null, false));
+		assertThat(plainText(child)).isEqualTo("child-1");
+	}
+
+	@Test
+	public void compareChangedTextsWithoutEvents() throws Exception {
+		assertThat(plainText(child)).isEqualTo("child-1");
+		child.setText("renamed");
+		assertThat(plainText(child)).isEqualTo("renamed-1");
+	}
+
+	@Test
+	public void removeTextsOfLeastRecentlyUsedMapsWhenCacheIsFull() throws Exception {
+		ResourceController.getResourceController().setProperty(TextProjectionCache.CACHE_SIZE_PROPERTY, "0");
+		assertThat(plainText(child)).isEqualTo("child-1");
+		final MapController mapController = Controller.getCurrentModeController().getMapController();
+		final MapModel otherMap = new MMapModel();
+		final NodeModel otherNode = mapController.getMapReader().createNodeTreeFromXml(otherMap,
+		    new StringReader("<map version=\"freeplane 1.7.0\"><node TEXT=\"other\"/></map>"), Mode.FILE);
+		mapController.fireMapCreated(otherMap);
+		assertThat(plainText(otherNode)).isEqualTo("other");
+		suffix = "2";
+		assertThat(plainText(child)).isEqualTo("child-2");
+		updater.onRemove(otherMap);
+	}
+
+	@Test
+	public void keepTextsOfLastUsedNodeWhenCacheIsFull() throws Exception {
+		ResourceController.getResourceController().setProperty(TextProjectionCache.CACHE_SIZE_PROPERTY, "0");
+		assertThat(plainText(root)).isEqualTo("root-1");
+		assertThat(plainText(child)).isEqualTo("child-1");
+		suffix = "2";
+		assertThat(plainText(child)).isEqualTo("child-1");
+		assertThat(plainText(root)).isEqualTo("root-2");
+	}
+}
@@ -0,0 +1,69 @@
+package org.freeplane.features.url.mindmapmode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+
+import org.freeplane.core.util.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MapFileWriterShould {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private String read(final Path file) throws Exception {
+		return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void createNewFiles() throws Exception {
+		final File file = new File(folder.getRoot(), "new.mm");
+		MapFileWriter.replace(file, "<map/>");
+		assertThat(read(file.toPath())).isEqualTo("<map/>");
+		assertThat(folder.getRoot().list()).containsExactly("new.mm");
+	}
+
+	@Test
+	public void replaceFilesLinksPointTo() throws Exception {
+		final Path target = folder.newFile("target.mm").toPath();
+		final Path link = folder.getRoot().toPath().resolve("link.mm");
+		try {
+			Files.createSymbolicLink(link, target);
+		}
+		catch (final UnsupportedOperationException e) {
+			assumeTrue(false);
+		}
+		MapFileWriter.replace(link.toFile(), "<map/>");
+		assertThat(Files.isSymbolicLink(link)).isTrue();
+		assertThat(read(target)).isEqualTo("<map/>");
+	}
+
+	@Test
+	public void keepPermissionsOfReplacedFiles() throws Exception {
+		assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+		final Path file = folder.newFile("map.mm").toPath();
+		final Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-r-----");
+		Files.setPosixFilePermissions(file, permissions);
+		MapFileWriter.replace(file.toFile(), "<map/>");
+		assertThat(read(file)).isEqualTo("<map/>");
+		assertThat(Files.getPosixFilePermissions(file)).isEqualTo(permissions);
+	}
+
+	@Test
+	public void writeWithCharsetOfReadMaps() throws Exception {
+		final Path file = folder.getRoot().toPath().resolve("map.mm");
+		final String content = "<map>\u00e4\u03a3</map>";
+		MapFileWriter.replace(file.toFile(), content);
+		assertThat(Files.readAllBytes(file)).isEqualTo(content.getBytes(FileUtils.defaultCharset()));
+	}
+}
@@ -0,0 +1,145 @@
+package org.freeplane.features.url.mindmapmode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.freeplane.core.resources.ResourceController;
+import org.freeplane.core.ui.menubuilders.HeadlessFreeplaneRunner;
+import org.freeplane.features.map.MapController;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.MapWriter.Mode;
+import org.freeplane.features.map.NodeChangeEvent;
+import org.freeplane.features.map.NodeDeletionEvent;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.features.map.mindmapmode.MMapModel;
+import org.freeplane.features.mode.Controller;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MapJournalShould {
+	static {
+		new HeadlessFreeplaneRunner();
+	}
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	private final MapJournal.ChangeRecorder recorder = new MapJournal.ChangeRecorder();
+	private MapController mapController;
+	private File file;
+
+	@Before
+	public void setup() throws Exception {
+		ResourceController.getResourceController().setProperty(MapJournal.SAVE_CHANGES_TO_JOURNAL_PROPERTY, true);
+		mapController = Controller.getCurrentModeController().getMapController();
+		file = folder.newFile("map.mm");
+		writeMapFile("text");
+	}
+
+	private void writeMapFile(final String text) throws Exception {
+		// long enough for small journals not to be merged into the map file
+		final StringBuilder padding = new StringBuilder();
+		for (int i = 0; i < 1000; i++)
+			padding.append("padding ");
+		final String content = "<map version=\"freeplane 1.7.0\">"
+		        + "<node TEXT=\"root\" ID=\"ID_1\">"
+		        + "<node TEXT=\"" + text + "\" ID=\"ID_2\"/>"
+		        + "<node TEXT=\"deleted\" ID=\"ID_3\"><node TEXT=\"grandchild\" ID=\"ID_4\"/></node>"
+		        + "<node TEXT=\"" + padding + "\" ID=\"ID_5\"/>"
+		        + "</node></map>";
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private MapModel load() throws Exception {
+		final MapModel map = new MMapModel();
+		final Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8);
+		try {
+			final NodeModel root = mapController.getMapReader().createNodeTreeFromXml(map, reader, Mode.FILE);
+			MapJournal.load(mapController.getMapReader(), map, root, file);
+		}
+		finally {
+			reader.close();
+		}
+		MapFileWriter.waitForPendingWrites();
+		return map;
+	}
+
+	private boolean save(final MapModel map) throws Exception {
+		final boolean saved = map.getExtension(MapJournal.class).save(map, file, mapController.getMapWriter());
+		MapFileWriter.waitForPendingWrites();
+		return saved;
+	}
+
+	private void changeText(final MapModel map, final String id, final String text) {
+		final NodeModel node = map.getNodeForID(id);
+		final Object oldText = node.getUserObject();
+		node.setText(text);
+		recorder.nodeChanged(new NodeChangeEvent(node, NodeModel.NODE_TEXT, oldText, text, true, false));
+	}
+
+	@Test
+	public void appendChangesWithoutRewritingMapFile() throws Exception {
+		final byte[] content = Files.readAllBytes(file.toPath());
+		final MapModel map = load();
+		changeText(map, "ID_2", "changed");
+		assertThat(save(map)).isTrue();
+		assertThat(Files.readAllBytes(file.toPath())).isEqualTo(content);
+		assertThat(MapJournal.journalFile(file)).exists();
+	}
+
+	@Test
+	public void replayChangesOfAllSaves() throws Exception {
+		final MapModel map = load();
+		changeText(map, "ID_2", "first");
+		changeText(map, "ID_4", "grandchild changed");
+		assertThat(save(map)).isTrue();
+		changeText(map, "ID_2", "second");
+		assertThat(save(map)).isTrue();
+		final MapModel reloadedMap = load();
+		assertThat(reloadedMap.getNodeForID("ID_2").getText()).isEqualTo("second");
+		assertThat(reloadedMap.getNodeForID("ID_4").getText()).isEqualTo("grandchild changed");
+		assertThat(reloadedMap.getNodeForID("ID_4").getParentNode()).isSameAs(reloadedMap.getNodeForID("ID_3"));
+		assertThat(reloadedMap.getRootNode().getChildCount()).isEqualTo(3);
+	}
+
+	@Test
+	public void replayDeletionsAndUnregisterDeletedNodes() throws Exception {
+		final MapModel map = load();
+		final NodeModel root = map.getRootNode();
+		final NodeModel deleted = map.getNodeForID("ID_3");
+		final int index = root.getIndex(deleted);
+		root.remove(index);
+		recorder.onNodeDeleted(new NodeDeletionEvent(root, deleted, index));
+		assertThat(save(map)).isTrue();
+		final MapModel reloadedMap = load();
+		assertThat(reloadedMap.getRootNode().getChildCount()).isEqualTo(2);
+		assertThat(reloadedMap.getNodeForID("ID_3")).isNull();
+		assertThat(reloadedMap.getNodeForID("ID_4")).isNull();
+		assertThat(reloadedMap.getNodeForID("ID_2").getParentNode()).isSameAs(reloadedMap.getRootNode());
+	}
+
+	@Test
+	public void ignoreJournalOfChangedMapFile() throws Exception {
+		final MapModel map = load();
+		changeText(map, "ID_2", "changed");
+		assertThat(save(map)).isTrue();
+		writeMapFile("edited elsewhere");
+		final MapModel reloadedMap = load();
+		assertThat(reloadedMap.getNodeForID("ID_2").getText()).isEqualTo("edited elsewhere");
+	}
+
+	@Test
+	public void notAppendToJournalOfChangedMapFile() throws Exception {
+		final MapModel map = load();
+		writeMapFile("edited elsewhere");
+		changeText(map, "ID_2", "changed");
+		assertThat(save(map)).isFalse();
+	}
+}
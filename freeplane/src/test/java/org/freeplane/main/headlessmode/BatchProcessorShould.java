@@ -0,0 +1,127 @@
+package org.freeplane.main.headlessmode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.freeplane.core.resources.ResourceController;
+import org.freeplane.features.mode.Controller;
+import org.freeplane.features.url.mindmapmode.MFileManager;
+import org.freeplane.main.headlessmode.BatchProcessor.FileResult;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BatchProcessorShould {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File writeMap(final File directory, final String name, final String text) throws Exception {
+		final File file = new File(directory, name);
+		final String content = "<map version=\"freeplane 1.7.0\"><node TEXT=\"" + text + "\" ID=\"ID_1\">"
+		        + "<node TEXT=\"child\" ID=\"ID_2\"/></node></map>";
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	private String read(final File file) throws Exception {
+		return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void findMapsInDirectoriesAndKeepGivenFiles() throws Exception {
+		final File directory = folder.newFolder("maps");
+		final File subdirectory = new File(directory, "sub");
+		subdirectory.mkdir();
+		final File b = writeMap(directory, "b.mm", "b");
+		final File a = writeMap(directory, "a.mm", "a");
+		final File c = writeMap(subdirectory, "c.mm", "c");
+		new File(directory, "notes.txt").createNewFile();
+		final File given = folder.newFile("given.xml");
+		assertThat(BatchProcessor.findMaps(Arrays.asList(given, directory))).containsExactly(given, a, b, c);
+	}
+
+	@Test
+	public void rejectInvalidArguments() throws Exception {
+		final String map = writeMap(folder.getRoot(), "map.mm", "map").getPath();
+		assertThat(BatchProcessor.run(new String[] {}, null)).isEqualTo(2);
+		assertThat(BatchProcessor.run(new String[] { "-wmany", map }, null)).isEqualTo(2);
+		assertThat(BatchProcessor.run(new String[] { "-w0", map }, null)).isEqualTo(2);
+		assertThat(BatchProcessor.run(new String[] { "-s" + new File(folder.getRoot(), "missing.groovy"), map },
+		    null)).isEqualTo(2);
+		assertThat(BatchProcessor.run(new String[] { "-h" }, null)).isEqualTo(0);
+	}
+
+	@Test
+	public void reportFailedFilesInExitCode() throws Exception {
+		final File directory = folder.newFolder("maps");
+		writeMap(directory, "a.mm", "a");
+		writeMap(directory, "b.mm", "b");
+		assertThat(BatchProcessor.run(new String[] { "-w2", directory.getPath() }, null)).isEqualTo(0);
+		Files.write(new File(directory, "broken.mm").toPath(), "<map><node".getBytes(StandardCharsets.UTF_8));
+		assertThat(BatchProcessor.run(new String[] { "-w2", directory.getPath() }, null)).isEqualTo(1);
+	}
+
+	@Test
+	public void processAndSaveMapsOnTwoWorkers() throws Exception {
+		final File directory = folder.newFolder("maps");
+		for (int i = 0; i < 6; i++)
+			writeMap(directory, "map" + i + ".mm", "text" + i);
+		final List<File> maps = BatchProcessor.findMaps(Arrays.asList(directory));
+		final List<FileResult> results = new BatchProcessor(2, null)
+		    .addProcessor((modeController, map) -> {
+			    map.getRootNode().setText(map.getRootNode().getText() + " changed");
+			    modeController.getMapController().setSaved(map, false);
+		    })
+		    .addProcessor(BatchProcessor.save())
+		    .process(maps);
+		assertThat(results).hasSize(maps.size());
+		for (int i = 0; i < results.size(); i++) {
+			final FileResult result = results.get(i);
+			assertThat(result.getFile()).isEqualTo(maps.get(i));
+			assertThat(result.getFailure()).isNull();
+			assertThat(read(result.getFile())).contains("TEXT=\"text" + i + " changed\"");
+		}
+	}
+
+	@Test
+	public void reportFailuresOfSaving() throws Exception {
+		final File directory = folder.newFolder("maps");
+		final File file = writeMap(directory, "map.mm", "text");
+		final List<FileResult> results = new BatchProcessor(1, null)
+		    .addProcessor((modeController, map) -> {
+			    file.delete();
+			    directory.delete();
+			    modeController.getMapController().setSaved(map, false);
+		    })
+		    .addProcessor(BatchProcessor.save())
+		    .process(Arrays.asList(file));
+		assertThat(results.get(0).getFailure()).isInstanceOf(IOException.class);
+	}
+
+	@Test
+	public void keepWorkerControllersOffOtherThreads() throws Exception {
+		final Controller applicationController = Controller.getCurrentController();
+		Controller.setCurrentController(null);
+		try {
+			final File file = writeMap(folder.getRoot(), "map.mm", "text");
+			final List<FileResult> results = new BatchProcessor(1, null)
+			    .addProcessor((modeController, map) -> {
+				    assertThat(Controller.getCurrentController()).isSameAs(modeController.getController());
+				    assertThat(ResourceController.getResourceController()
+				        .getBooleanProperty(MFileManager.SAVE_MAPS_IN_BACKGROUND_PROPERTY)).isFalse();
+			    })
+			    .process(Arrays.asList(file));
+			assertThat(results.get(0).getFailure()).isNull();
+			assertThat(Controller.getCurrentController()).isNull();
+		}
+		finally {
+			Controller.setCurrentController(applicationController);
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package org.freeplane.view.swing.features.filepreview;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import org.freeplane.core.ui.menubuilders.HeadlessFreeplaneRunner;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ScaledImageCacheShould {
+	static {
+		new HeadlessFreeplaneRunner();
+	}
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	private final Dimension size = new Dimension(4, 4);
+
+	private void writeImage(final File file) throws Exception {
+		ImageIO.write(new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB), "png", file);
+	}
+
+	@Test
+	public void loadImagesAgainAfterTheirFilesChange() throws Exception {
+		final File file = folder.newFile("image.png");
+		Files.write(file.toPath(), new byte[] { 1, 2, 3 });
+		final URL url = file.toURI().toURL();
+		assertThat(ScaledImageCache.INSTANCE.loadImage(url, size)).isNull();
+		writeImage(file);
+		file.setLastModified(file.lastModified() - 10000);
+		assertThat(ScaledImageCache.INSTANCE.loadImage(url, size)).isNotNull();
+	}
+
+	@Test
+	public void loadImagesAgainAfterFailuresAreForgotten() throws Exception {
+		final File file = folder.newFile("image.png");
+		writeImage(file);
+		final byte[] image = Files.readAllBytes(file.toPath());
+		final long lastModified = file.lastModified() - 10000;
+		// files of same length and modification time are not recognized as changed
+		Files.write(file.toPath(), new byte[image.length]);
+		file.setLastModified(lastModified);
+		final URL url = file.toURI().toURL();
+		assertThat(ScaledImageCache.INSTANCE.loadImage(url, size)).isNull();
+		Files.write(file.toPath(), image);
+		file.setLastModified(lastModified);
+		assertThat(ScaledImageCache.INSTANCE.loadImage(url, size)).isNull();
+		ScaledImageCache.INSTANCE.forgetFailedImages();
+		assertThat(ScaledImageCache.INSTANCE.loadImage(url, size)).isNotNull();
+	}
+
+	@Test
+	public void notifyListenersAndRecordFailureIfLoadingThrows() throws Exception {
+		final AtomicInteger openedStreamCount = new AtomicInteger();
+		final URL url = new URL("broken", null, -1, "/image.png", new URLStreamHandler() {
+			@Override
+			protected URLConnection openConnection(final URL u) {
+				return new URLConnection(u) {
+					@Override
+					public void connect() {
+					}
+
+					@Override
+					public InputStream getInputStream() {
+						openedStreamCount.incrementAndGet();
+						throw new IllegalStateException("broken stream");
+					}
+				};
+			}
+		});
+		final CountDownLatch loaded = new CountDownLatch(1);
+		assertThat(ScaledImageCache.INSTANCE.getImage(url, size, loaded::countDown)).isNull();
+		assertThat(loaded.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(ScaledImageCache.INSTANCE.loadImage(url, size)).isNull();
+		assertThat(openedStreamCount.get()).isEqualTo(1);
+	}
+}
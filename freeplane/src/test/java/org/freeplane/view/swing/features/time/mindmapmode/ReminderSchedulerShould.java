@@ -0,0 +1,103 @@
+package org.freeplane.view.swing.features.time.mindmapmode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.freeplane.core.ui.menubuilders.HeadlessFreeplaneRunner;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.NodeModel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReminderSchedulerShould {
+	static {
+		new HeadlessFreeplaneRunner();
+	}
+
+	private final AtomicInteger countChanges = new AtomicInteger();
+	private final ReminderScheduler scheduler = new ReminderScheduler(countChanges::incrementAndGet);
+	private final ReminderHook hook = mock(ReminderHook.class);
+	private final MapModel map = mock(MapModel.class);
+	private final Date future = new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1));
+
+	@Before
+	public void setup() {
+		when(hook.getReminderScheduler()).thenReturn(scheduler);
+	}
+
+	@After
+	public void stopTimer() {
+		scheduler.onRemove(map);
+	}
+
+	private ReminderExtension reminder(final MapModel map) {
+		return new ReminderExtension(new NodeModel("node", map));
+	}
+
+	private TimerBlinkTask task(final ReminderExtension reminder) {
+		return new TimerBlinkTask(hook, reminder, false, false);
+	}
+
+	@Test
+	public void countPendingAndFiredReminders() throws Exception {
+		final TimerBlinkTask task = task(reminder(map));
+		scheduler.schedule(task, future);
+		assertThat(scheduler.getPendingReminderCount()).isEqualTo(1);
+		assertThat(scheduler.getFiredReminderCount()).isEqualTo(0);
+		scheduler.fired(task);
+		scheduler.fired(task);
+		assertThat(scheduler.getPendingReminderCount()).isEqualTo(0);
+		assertThat(scheduler.getFiredReminderCount()).isEqualTo(1);
+		assertThat(countChanges.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void stopTimerWhenLastReminderIsCancelled() throws Exception {
+		final TimerBlinkTask pendingTask = task(reminder(map));
+		final TimerBlinkTask firedTask = task(reminder(map));
+		assertThat(scheduler.isTimerRunning()).isFalse();
+		scheduler.schedule(pendingTask, future);
+		scheduler.schedule(firedTask, future);
+		scheduler.fired(firedTask);
+		assertThat(scheduler.isTimerRunning()).isTrue();
+		scheduler.cancel(firedTask);
+		assertThat(scheduler.isTimerRunning()).isTrue();
+		assertThat(scheduler.getFiredReminderCount()).isEqualTo(0);
+		scheduler.cancel(pendingTask);
+		assertThat(scheduler.isTimerRunning()).isFalse();
+		assertThat(scheduler.getPendingReminderCount()).isEqualTo(0);
+		scheduler.cancel(pendingTask);
+		assertThat(countChanges.get()).isEqualTo(5);
+	}
+
+	@Test
+	public void restartTimerForRemindersScheduledAfterShutdown() throws Exception {
+		final TimerBlinkTask task = task(reminder(map));
+		scheduler.schedule(task, future);
+		scheduler.cancel(task);
+		scheduler.schedule(task(reminder(map)), future);
+		assertThat(scheduler.isTimerRunning()).isTrue();
+		assertThat(scheduler.getPendingReminderCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void cancelRemindersOfRemovedMaps() throws Exception {
+		final MapModel otherMap = mock(MapModel.class);
+		final ReminderExtension reminder = reminder(map);
+		final ReminderExtension otherReminder = reminder(otherMap);
+		reminder.scheduleTimer(task(reminder), future);
+		otherReminder.scheduleTimer(task(otherReminder), future);
+		scheduler.onRemove(map);
+		assertThat(scheduler.getPendingReminderCount()).isEqualTo(1);
+		assertThat(scheduler.isTimerRunning()).isTrue();
+		scheduler.onRemove(otherMap);
+		assertThat(scheduler.getPendingReminderCount()).isEqualTo(0);
+		assertThat(scheduler.isTimerRunning()).isFalse();
+	}
+}
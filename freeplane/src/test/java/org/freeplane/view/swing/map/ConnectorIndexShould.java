@@ -0,0 +1,48 @@
+package org.freeplane.view.swing.map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.awt.Color;
+import java.awt.Point;
+import java.awt.Rectangle;
+
+import org.freeplane.view.swing.map.link.ILinkView;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class ConnectorIndexShould {
+	private final ConnectorIndex index = new ConnectorIndex();
+	private final ILinkView near = Mockito.mock(ILinkView.class);
+	private final ILinkView far = Mockito.mock(ILinkView.class);
+	private final ILinkView negative = Mockito.mock(ILinkView.class);
+	private final ILinkView withoutBounds = Mockito.mock(ILinkView.class);
+
+	private void addViews() {
+		index.rebuild(new Rectangle(-3000, -3000, 9000, 9000), Color.WHITE, "true", false);
+		index.add(near, new Rectangle(10, 10, 100, 100));
+		index.add(withoutBounds, null);
+		index.add(far, new Rectangle(2000, 2000, 600, 10));
+		index.add(negative, new Rectangle(-300, -20, 10, 10));
+	}
+
+	@Test
+	public void findViewsIntersectingAreaInPaintingOrder() throws Exception {
+		addViews();
+		assertThat(index.getViews(new Rectangle(0, 0, 50, 50))).containsExactly(near, withoutBounds);
+		assertThat(index.getViews(new Rectangle(-400, -100, 3000, 3000))).containsExactly(near, withoutBounds, far, negative);
+		assertThat(index.getViews(new Point(-295, -15), 8)).containsExactly(withoutBounds, negative);
+		assertThat(index.getViews(null)).containsExactly(near, withoutBounds, far, negative);
+	}
+
+	@Test
+	public void beValidOnlyForCoveredViewportAndSameSettings() throws Exception {
+		addViews();
+		assertThat(index.isValidFor(new Rectangle(0, 0, 1000, 1000), Color.WHITE, "true", false)).isTrue();
+		assertThat(index.isValidFor(new Rectangle(5500, 0, 1000, 1000), Color.WHITE, "true", false)).isFalse();
+		assertThat(index.isValidFor(new Rectangle(0, 0, 1000, 1000), Color.BLACK, "true", false)).isFalse();
+		assertThat(index.isValidFor(new Rectangle(0, 0, 1000, 1000), Color.WHITE, "false", false)).isFalse();
+		assertThat(index.isValidFor(new Rectangle(0, 0, 1000, 1000), Color.WHITE, "true", true)).isFalse();
+		index.invalidate();
+		assertThat(index.isValidFor(new Rectangle(0, 0, 1000, 1000), Color.WHITE, "true", false)).isFalse();
+	}
+}
@@ -0,0 +1,118 @@
+package org.freeplane.view.swing.map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.awt.Rectangle;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.swing.JScrollPane;
+import javax.swing.SwingUtilities;
+
+import org.freeplane.core.ui.menubuilders.HeadlessFreeplaneRunner;
+import org.freeplane.features.map.MapController;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.MapWriter.Mode;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.features.map.mindmapmode.MMapModel;
+import org.freeplane.features.mode.Controller;
+import org.freeplane.features.mode.ModeController;
+import org.junit.Test;
+
+public class NodeViewVirtualizationShould {
+	static {
+		new HeadlessFreeplaneRunner();
+	}
+
+	private final ModeController modeController = Controller.getCurrentModeController();
+	private MapModel map;
+
+	private MapModel createMap() throws Exception {
+		final StringBuilder xml = new StringBuilder("<map version=\"freeplane 1.7.0\"><node TEXT=\"root\">");
+		for (int i = 0; i < 4; i++) {
+			xml.append("<node TEXT=\"branch ").append(i).append("\">");
+			for (int j = 0; j < 3; j++) {
+				xml.append("<node TEXT=\"child ").append(i).append(j).append("\">");
+				for (int k = 0; k < 2; k++)
+					xml.append("<node TEXT=\"grandchild ").append(i).append(j).append(k).append("\"/>");
+				xml.append("</node>");
+			}
+			xml.append("</node>");
+		}
+		xml.append("</node></map>");
+		final MapModel map = new MMapModel();
+		final MapController mapController = modeController.getMapController();
+		mapController.getMapReader().createNodeTreeFromXml(map, new StringReader(xml.toString()), Mode.FILE);
+		mapController.fireMapCreated(map);
+		unfold(map.getRootNode());
+		return map;
+	}
+
+	private void unfold(final NodeModel node) {
+		node.setFolded(false);
+		for (final NodeModel child : node.getChildren())
+			unfold(child);
+	}
+
+	private MapView layout() {
+		final MapView mapView = new MapView(map, modeController);
+		final JScrollPane scrollPane = new JScrollPane(mapView);
+		scrollPane.setSize(1600, 1000);
+		scrollPane.addNotify();
+		scrollPane.validate();
+		return mapView;
+	}
+
+	/** map views differ in their margins, so bounds are relative to the root node */
+	private Map<NodeModel, Rectangle> boundsOfNodes(final MapView mapView) {
+		final Map<NodeModel, Rectangle> bounds = new HashMap<>();
+		addBounds(mapView.getRoot().getMainView(), mapView.getRoot(), bounds);
+		return bounds;
+	}
+
+	private void addBounds(final MainView root, final NodeView view, final Map<NodeModel, Rectangle> bounds) {
+		final MainView mainView = view.getMainView();
+		bounds.put(view.getModel(), SwingUtilities.convertRectangle(mainView.getParent(), mainView.getBounds(), root));
+		for (final NodeView child : view.getChildrenViews())
+			addBounds(root, child, bounds);
+	}
+
+	private void validate(final MapView mapView) {
+		SwingUtilities.getAncestorOfClass(JScrollPane.class, mapView).validate();
+	}
+
+	@Test
+	public void keepLayoutOfReleasedAndRestoredBranches() throws Exception {
+		map = createMap();
+		final Map<NodeModel, Rectangle> expectedBounds = boundsOfNodes(layout());
+		assertThat(expectedBounds).hasSize(1 + 4 + 4 * 3 + 4 * 3 * 2);
+		final MapView mapView = layout();
+		final NodeView branch = mapView.getNodeView(map.getRootNode().getChildAt(1));
+		branch.releaseChildViews();
+		validate(mapView);
+		assertThat(branch.getChildrenViews()).isEmpty();
+		final Map<NodeModel, Rectangle> boundsWithReleasedBranch = boundsOfNodes(mapView);
+		for (final Map.Entry<NodeModel, Rectangle> nodeBounds : boundsWithReleasedBranch.entrySet())
+			assertThat(nodeBounds.getValue()).as(nodeBounds.getKey().getText())
+			    .isEqualTo(expectedBounds.get(nodeBounds.getKey()));
+		branch.restoreAllChildViews();
+		validate(mapView);
+		assertThat(boundsOfNodes(mapView)).isEqualTo(expectedBounds);
+	}
+
+	@Test
+	public void restoreReleasedBranchesWhenChildrenAreDeleted() throws Exception {
+		map = createMap();
+		final MapView mapView = layout();
+		final NodeModel branchNode = map.getRootNode().getChildAt(2);
+		final NodeView branch = mapView.getNodeView(branchNode);
+		branch.releaseChildViews();
+		// removal notifies the node views
+		branchNode.remove(1);
+		assertThat(branch.hasReleasedChildViews()).isFalse();
+		branch.restoreAllChildViews();
+		validate(mapView);
+		assertThat(boundsOfNodes(mapView)).isEqualTo(boundsOfNodes(layout()));
+	}
+}
@@ -0,0 +1,121 @@
+package org.freeplane.view.swing.map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+
+import org.junit.Test;
+
+public class TiledMapImageShould {
+	private static final int WIDTH = 10;
+	private static final int HEIGHT = 95;
+
+	/** paints every row in the blue value of its y coordinate */
+	private static class RowPaintingView implements TiledMapImage.PrintedView {
+		int preparedPrintingCount;
+		int endedPrintingCount;
+		Rectangle lastClip;
+
+		@Override
+		public void preparePrinting() {
+			preparedPrintingCount++;
+		}
+
+		@Override
+		public Color getBackground() {
+			return Color.WHITE;
+		}
+
+		@Override
+		public void print(final Graphics g) {
+			lastClip = g.getClipBounds();
+			for (int y = 0; y < HEIGHT; y++) {
+				g.setColor(new Color(y));
+				g.fillRect(0, y, WIDTH, 1);
+			}
+		}
+
+		@Override
+		public void endPrinting() {
+			endedPrintingCount++;
+		}
+	}
+
+	private final RowPaintingView view = new RowPaintingView();
+	// strips of ten rows
+	private final TiledMapImage image = new TiledMapImage(view, new Rectangle(0, 0, WIDTH, HEIGHT), 1, WIDTH * 10);
+
+	private void assertRows(final Raster raster) {
+		final Rectangle bounds = raster.getBounds();
+		for (int y = bounds.y; y < bounds.y + bounds.height; y++) {
+			for (int x = bounds.x; x < bounds.x + bounds.width; x++) {
+				assertThat(raster.getPixel(x, y, (int[]) null)).as("x=%d y=%d", x, y).containsExactly(0, 0, y);
+			}
+		}
+	}
+
+	@Test
+	public void splitImageIntoStrips() throws Exception {
+		assertThat(image.getTileHeight()).isEqualTo(10);
+		assertThat(image.getNumYTiles()).isEqualTo(10);
+		final Raster lastStrip = image.getTile(0, 9);
+		assertThat(lastStrip.getBounds()).isEqualTo(new Rectangle(0, 90, WIDTH, 5));
+		assertRows(lastStrip);
+	}
+
+	@Test
+	public void clipStripsWithOverlappingRows() throws Exception {
+		image.getTile(0, 0);
+		assertThat(view.lastClip).isEqualTo(new Rectangle(0, 0, WIDTH, 26));
+		image.getTile(0, 5);
+		assertThat(view.lastClip).isEqualTo(new Rectangle(0, 34, WIDTH, 42));
+	}
+
+	@Test
+	public void getDataWithinSingleStrip() throws Exception {
+		final Raster data = image.getData(new Rectangle(2, 21, 3, 8));
+		assertThat(data.getBounds()).isEqualTo(new Rectangle(2, 21, 3, 8));
+		assertRows(data);
+		assertThat(view.preparedPrintingCount).isEqualTo(1);
+	}
+
+	@Test
+	public void getDataAcrossStripBorders() throws Exception {
+		final Raster data = image.getData(new Rectangle(1, 8, 4, 25));
+		assertThat(data.getBounds()).isEqualTo(new Rectangle(1, 8, 4, 25));
+		assertRows(data);
+		assertThat(view.preparedPrintingCount).isEqualTo(4);
+	}
+
+	@Test
+	public void copyWholeImage() throws Exception {
+		final WritableRaster data = image.copyData(null);
+		assertThat(data.getBounds()).isEqualTo(new Rectangle(0, 0, WIDTH, HEIGHT));
+		assertRows(data);
+		assertThat(view.endedPrintingCount).isEqualTo(1);
+	}
+
+	@Test
+	public void copyDataIntoRastersExceedingImage() throws Exception {
+		final WritableRaster raster = Raster.createWritableRaster(
+		    image.getSampleModel().createCompatibleSampleModel(WIDTH, 20), new Point(0, 85));
+		image.copyData(raster);
+		assertRows(raster.createChild(0, 85, WIDTH, 10, 0, 85, null));
+		assertThat(raster.getPixel(0, 95, (int[]) null)).containsExactly(0, 0, 0);
+	}
+
+	@Test
+	public void endPrintingOnceWhenClosed() throws Exception {
+		image.getTile(0, 2);
+		image.close();
+		image.close();
+		assertThat(view.endedPrintingCount).isEqualTo(1);
+		image.getTile(0, 9);
+		assertThat(view.endedPrintingCount).isEqualTo(2);
+	}
+}
@@ -9,6 +9,9 @@ public interface Loader extends HeadlessLoader {
 	/**
 	 * Creates and selects a map view or selects already existing map view.
 	 *
+	 * The user can cancel loading of large maps, {@code getMap()} throws
+	 * {@link java.util.concurrent.CancellationException} then.
+	 *
 	 * @since 1.7.1
 	 */
 	Loader withView();
@@ -0,0 +1,74 @@
+package org.freeplane.benchmarks;
+
+import java.awt.Dimension;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JScrollPane;
+
+import org.freeplane.features.attribute.AttributeRegistry;
+import org.freeplane.features.attribute.AttributeTableLayoutModel;
+import org.freeplane.features.map.MapController;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.view.swing.map.MapView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Changes the text of a leaf node of a fully unfolded map and lays out the displayed map view again.
+ *
+ * Only the changed node view and its ancestors are laid out again, so the time should not depend on the map size.
+ * Siblings added to the changed node show how it depends on the number of siblings.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class EditLayoutBenchmark {
+	@Param({ "0", "5000" })
+	public int addedSiblingCount;
+	private MapController mapController;
+	private MapView mapView;
+	private JScrollPane scrollPane;
+	private NodeModel editedNode;
+	private int editCount;
+
+	@Setup(Level.Trial)
+	public void createMapView(final MapState state) {
+		mapController = state.modeController.getMapController();
+		editedNode = state.map.getRootNode();
+		while (editedNode.hasChildren())
+			editedNode = editedNode.getChildAt(0);
+		final NodeModel parent = editedNode.getParentNode();
+		for (int i = 0; i < addedSiblingCount; i++)
+			parent.insert(new NodeModel(SyntheticMap.text(i), state.map), parent.getChildCount());
+		SyntheticMap.unfold(state.map.getRootNode());
+		// attribute tables need a graphics context for their layout
+		AttributeRegistry.getRegistry(state.map).setAttributeViewType(AttributeTableLayoutModel.HIDE_ALL);
+		mapView = new MapView(state.map, state.modeController);
+		scrollPane = new JScrollPane(mapView);
+		scrollPane.setSize(1600, 1000);
+		// makes node views displayable, otherwise only the root view is laid out
+		scrollPane.addNotify();
+		scrollPane.validate();
+	}
+
+	@Benchmark
+	public Dimension editAndLayout() {
+		editedNode.setUserObject(editCount++ % 2 == 0 ? "changed text" : "changed text which is longer");
+		mapController.nodeChanged(editedNode);
+		scrollPane.validate();
+		return mapView.getSize();
+	}
+}
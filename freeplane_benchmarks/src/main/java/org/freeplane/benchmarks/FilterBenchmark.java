@@ -0,0 +1,39 @@
+package org.freeplane.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.freeplane.features.filter.Filter;
+import org.freeplane.features.text.NodeContainsCondition;
+import org.freeplane.features.text.TextController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Calculates which nodes of the map match a text filter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class FilterBenchmark {
+	@Param({ "42" })
+	public String value;
+
+	@Benchmark
+	public Filter filter(final MapState state) {
+		final Filter filter = new Filter(new NodeContainsCondition(TextController.FILTER_NODE, value, false), false,
+		    false, false);
+		filter.calculateFilterResults(state.map);
+		return filter;
+	}
+}
@@ -0,0 +1,39 @@
+package org.freeplane.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.freeplane.features.filter.condition.ICondition;
+import org.freeplane.features.map.MapController.Direction;
+import org.freeplane.features.map.MapNavigationUtils;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.features.text.NodeContainsCondition;
+import org.freeplane.features.text.TextController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Searches the map in document order for the node with the highest index, like "find next" does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class FindBenchmark {
+	@Benchmark
+	public NodeModel findNext(final MapState state) {
+		final ICondition condition = new NodeContainsCondition(TextController.FILTER_NODE,
+		    SyntheticMap.text(state.nodeCount - 1), false);
+		final NodeModel root = state.map.getRootNode();
+		NodeModel current = root;
+		do {
+			current = MapNavigationUtils.findNext(Direction.FORWARD, current, root);
+		} while (current != null && !condition.checkNode(current));
+		return current;
+	}
+}
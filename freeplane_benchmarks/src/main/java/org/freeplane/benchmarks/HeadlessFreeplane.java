@@ -0,0 +1,62 @@
+package org.freeplane.benchmarks;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.freeplane.features.filter.FilterController;
+import org.freeplane.features.mode.Controller;
+import org.freeplane.features.mode.ModeController;
+import org.freeplane.features.mode.mindmapmode.MModeController;
+import org.freeplane.main.headlessmode.FreeplaneHeadlessStarter;
+import org.freeplane.main.osgi.IModeControllerExtensionProvider;
+import org.freeplane.plugin.script.Activator;
+import org.osgi.framework.BundleContext;
+
+/**
+ * Starts Freeplane without user interface once per benchmark process, with the scripting plugin installed.
+ */
+public class HeadlessFreeplane {
+	private static ModeController modeController;
+
+	public static synchronized ModeController start() {
+		if (modeController == null) {
+			if (null == System.getProperty("org.freeplane.core.dir.lib", null)) {
+				System.setProperty("org.freeplane.core.dir.lib", "/lib/");
+			}
+			final FreeplaneHeadlessStarter starter = new FreeplaneHeadlessStarter();
+			final Controller controller = starter.createController();
+			starter.createModeControllers(controller);
+			FilterController.getController(controller).loadDefaultConditions();
+			final ModeController mModeController = controller.getModeController(MModeController.MODENAME);
+			installScripting(mModeController);
+			starter.createFrame(new String[] {});
+			modeController = mModeController;
+		}
+		return modeController;
+	}
+
+	/** installs the mode controller extensions of the scripting plugin like the OSGi framework does */
+	private static void installScripting(final ModeController modeController) {
+		final List<IModeControllerExtensionProvider> providers = new ArrayList<IModeControllerExtensionProvider>();
+		final BundleContext context = (BundleContext) Proxy.newProxyInstance(HeadlessFreeplane.class.getClassLoader(),
+		    new Class<?>[] { BundleContext.class }, new InvocationHandler() {
+			    @Override
+			    public Object invoke(final Object proxy, final Method method, final Object[] args) {
+				    if (method.getName().equals("registerService") && args[1] instanceof IModeControllerExtensionProvider)
+					    providers.add((IModeControllerExtensionProvider) args[1]);
+				    return null;
+			    }
+		    });
+		try {
+			new Activator().start(context);
+		}
+		catch (final Exception e) {
+			throw new IllegalStateException(e);
+		}
+		for (final IModeControllerExtensionProvider provider : providers)
+			provider.installExtension(modeController);
+	}
+}
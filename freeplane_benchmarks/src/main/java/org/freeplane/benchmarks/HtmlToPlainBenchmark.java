@@ -0,0 +1,72 @@
+package org.freeplane.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.freeplane.core.util.HtmlUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Converts rich text node content as written by the html editor to plain text, like find and filters do for each node.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class HtmlToPlainBenchmark {
+	private static final String PARAGRAPH = "    <p>\n"
+	        + "      Paragraph with <b>bold</b>, <i>italic</i> and <font color=\"#ff0000\">colored</font> text,\n"
+	        + "      entities like &lt;tag&gt;, &quot;quotes&quot;, &amp;&#160;and&nbsp;non breaking spaces.\n"
+	        + "    </p>\n";
+	private static final String LIST = "    <ul>\n"
+	        + "      <li>\n"
+	        + "        first item\n"
+	        + "      </li>\n"
+	        + "      <li>\n"
+	        + "        second item with a <a href=\"https://www.freeplane.org\">link</a>\n"
+	        + "      </li>\n"
+	        + "    </ul>\n";
+	private static final String TABLE = "    <table border=\"0\" style=\"width: 80%\">\n"
+	        + "      <tr>\n"
+	        + "        <td>\n"
+	        + "          cell 1\n"
+	        + "        </td>\n"
+	        + "        <td>\n"
+	        + "          cell 2\n"
+	        + "        </td>\n"
+	        + "      </tr>\n"
+	        + "    </table>\n";
+
+	@Param({ "1", "10", "100" })
+	public int blockCount;
+	private String html;
+
+	@Setup
+	public void setUp() {
+		final StringBuilder builder = new StringBuilder("<html>\n  <head>\n    \n  </head>\n  <body>\n");
+		for (int i = 0; i < blockCount; i++) {
+			builder.append(PARAGRAPH);
+			if (i % 3 == 1)
+				builder.append(LIST);
+			if (i % 5 == 4)
+				builder.append(TABLE);
+		}
+		html = builder.append("  </body>\n</html>\n").toString();
+	}
+
+	@Benchmark
+	public String htmlToPlain() {
+		return HtmlUtils.htmlToPlain(html);
+	}
+}
@@ -0,0 +1,61 @@
+package org.freeplane.benchmarks;
+
+import java.awt.Dimension;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JScrollPane;
+
+import org.freeplane.features.attribute.AttributeRegistry;
+import org.freeplane.features.attribute.AttributeTableLayoutModel;
+import org.freeplane.view.swing.map.MapView;
+import org.freeplane.view.swing.map.NodeView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lays out all node views of the map without a window.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class LayoutBenchmark {
+	private MapView mapView;
+
+	@Setup(Level.Trial)
+	public void createMapView(final MapState state) {
+		SyntheticMap.unfold(state.map.getRootNode());
+		// attribute tables need a graphics context for their layout
+		AttributeRegistry.getRegistry(state.map).setAttributeViewType(AttributeTableLayoutModel.HIDE_ALL);
+		mapView = new MapView(state.map, state.modeController);
+		final JScrollPane scrollPane = new JScrollPane(mapView);
+		scrollPane.setSize(1600, 1000);
+		// makes node views displayable, otherwise their styles are not loaded
+		scrollPane.addNotify();
+	}
+
+	@Benchmark
+	public Dimension layout() {
+		invalidate(mapView.getRoot());
+		mapView.getRoot().validate();
+		mapView.doLayout();
+		return mapView.getPreferredSize();
+	}
+
+	private void invalidate(final NodeView node) {
+		node.invalidate();
+		for (final NodeView child : node.getChildrenViews())
+			invalidate(child);
+	}
+}
@@ -0,0 +1,32 @@
+package org.freeplane.benchmarks;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.freeplane.features.map.MapWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serializes the loaded map to xml in memory, as it is done before the map file is written.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class MapSaveBenchmark {
+	@Benchmark
+	public int serialize(final MapState state) throws IOException {
+		final StringWriter xml = new StringWriter();
+		state.modeController.getMapController().getMapWriter().writeMapAsXml(state.map, xml, MapWriter.Mode.FILE,
+		    true, false);
+		return xml.getBuffer().length();
+	}
+}
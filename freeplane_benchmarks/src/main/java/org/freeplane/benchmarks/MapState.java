@@ -0,0 +1,50 @@
+package org.freeplane.benchmarks;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.MapWriter.Mode;
+import org.freeplane.features.map.mindmapmode.MMapModel;
+import org.freeplane.features.mode.ModeController;
+import org.freeplane.n3.nanoxml.XMLException;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Synthetic map file and the map loaded from it, shared by all benchmark threads of a trial.
+ */
+@State(Scope.Benchmark)
+public class MapState {
+	@Param({ "1000", "10000", "100000", "1000000" })
+	public int nodeCount;
+	public ModeController modeController;
+	public File file;
+	public MapModel map;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException, XMLException {
+		modeController = HeadlessFreeplane.start();
+		file = SyntheticMap.create(nodeCount);
+		map = load();
+	}
+
+	public MapModel load() throws IOException, XMLException {
+		final MapModel map = new MMapModel();
+		final Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8);
+		try {
+			modeController.getMapController().getMapReader().createNodeTreeFromXml(map, reader, Mode.FILE);
+		}
+		finally {
+			reader.close();
+		}
+		return map;
+	}
+}
@@ -0,0 +1,36 @@
+package org.freeplane.benchmarks;
+
+import org.freeplane.features.map.MapModel;
+
+/**
+ * Prints the heap retained by a loaded synthetic map per node.
+ *
+ * usage: gradle :freeplane_benchmarks:nodeMemoryReport [-PnodeCount=1000000]
+ */
+public class NodeMemoryReport {
+	public static void main(final String[] args) throws Exception {
+		final MapState state = new MapState();
+		state.nodeCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		state.setUp();
+		state.map = null;
+		final long heapBefore = usedHeap();
+		MapModel map = state.load();
+		final long heapAfter = usedHeap();
+		System.out.printf("%d nodes: %d bytes, %d bytes per node%n", state.nodeCount, heapAfter - heapBefore,
+		    (heapAfter - heapBefore) / state.nodeCount);
+		if (map.getRootNode() == null)
+			throw new IllegalStateException();
+		System.exit(0);
+	}
+
+	private static long usedHeap() throws InterruptedException {
+		final Runtime runtime = Runtime.getRuntime();
+		long used = Long.MAX_VALUE;
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+			Thread.sleep(100);
+			used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+		}
+		return used;
+	}
+}
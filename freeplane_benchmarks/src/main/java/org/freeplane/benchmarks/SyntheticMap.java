@@ -0,0 +1,155 @@
+package org.freeplane.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import org.freeplane.features.map.NodeModel;
+
+/**
+ * Generates map files of a given size which use the features found in real maps:
+ * attributes, notes, formulas, connectors, content clones and conditional styles.
+ *
+ * Nodes form a balanced tree with {@link #CHILD_COUNT} children per node.
+ * Node with index i has id "ID_i" and text {@link #text(int)}, children of node i have indices i * CHILD_COUNT + 1 ...
+ */
+public class SyntheticMap {
+	public static final int CHILD_COUNT = 8;
+	private static final int NOTE_PERIOD = 5;
+	private static final int FORMULA_PERIOD = 10;
+	private static final int CONNECTOR_PERIOD = 50;
+	private static final int CLONE_PERIOD = 100;
+
+	public static String text(final int index) {
+		return String.format("Topic %07d", index);
+	}
+
+	public static File create(final int nodeCount) throws IOException {
+		final File file = File.createTempFile("synthetic-" + nodeCount + "-", ".mm");
+		file.deleteOnExit();
+		final Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+		try {
+			new SyntheticMap(nodeCount, out).write();
+		}
+		finally {
+			out.close();
+		}
+		return file;
+	}
+
+	/** unfolds all nodes of the branch, loaded maps show only the first levels */
+	public static void unfold(final NodeModel node) {
+		node.setFolded(false);
+		for (final NodeModel child : node.getChildren())
+			unfold(child);
+	}
+
+	private final int nodeCount;
+	private final Writer out;
+
+	private SyntheticMap(final int nodeCount, final Writer out) {
+		this.nodeCount = nodeCount;
+		this.out = out;
+	}
+
+	private void write() throws IOException {
+		out.write("<map version=\"freeplane 1.6.0\">\n");
+		writeNode(0);
+		out.write("</map>\n");
+	}
+
+	private void writeNode(final int index) throws IOException {
+		final boolean isClone = isClone(index);
+		out.write("<node ID=\"ID_");
+		out.write(Integer.toString(index));
+		if (isClone) {
+			// content clones are written without own content, the referenced node precedes them in document order
+			out.write("\" CONTENT_ID=\"ID_");
+			out.write(Integer.toString(index - 1));
+		}
+		else {
+			out.write("\" TEXT=\"");
+			if (index % FORMULA_PERIOD == 3)
+				out.write("=node.parent['weight'].num + " + index);
+			else
+				out.write(text(index));
+		}
+		out.write("\">\n");
+		if (index == 0)
+			writeMapStyle();
+		if (!isClone) {
+			writeAttributes(index);
+			if (index % NOTE_PERIOD == 0)
+				writeNote(index);
+			if (index % CONNECTOR_PERIOD == CONNECTOR_PERIOD / 2)
+				writeConnector(index);
+		}
+		final int firstChild = index * CHILD_COUNT + 1;
+		for (int child = firstChild; child < firstChild + CHILD_COUNT && child < nodeCount; child++)
+			writeNode(child);
+		out.write("</node>\n");
+	}
+
+	private boolean isClone(final int index) {
+		return index > 0 && index % CLONE_PERIOD == 0 && (index - 1) % CHILD_COUNT != 0;
+	}
+
+	private void writeAttributes(final int index) throws IOException {
+		out.write("<attribute NAME=\"weight\" VALUE=\"" + index % 100 + "\"/>\n");
+		out.write("<attribute NAME=\"owner\" VALUE=\"user" + index % 10 + "\"/>\n");
+	}
+
+	private void writeNote(final int index) throws IOException {
+		out.write("<richcontent TYPE=\"NOTE\">\n<html>\n<head>\n</head>\n<body>\n<p>\nNote of <b>");
+		out.write(text(index));
+		out.write("</b>\n</p>\n</body>\n</html>\n</richcontent>\n");
+	}
+
+	private void writeConnector(final int index) throws IOException {
+		final int destination = (int) ((long) index * 7919 % nodeCount);
+		out.write("<arrowlink DESTINATION=\"ID_" + destination + "\" STARTARROW=\"NONE\" ENDARROW=\"DEFAULT\"/>\n");
+	}
+
+	private void writeMapStyle() throws IOException {
+		out.write("<hook NAME=\"MapStyle\">\n"
+		        + "<conditional_styles>\n"
+		        + "<conditional_style ACTIVE=\"true\" LOCALIZED_STYLE_REF=\"styles.topic\">\n"
+		        + "<node_level_condition VALUE=\"1\" IGNORE_CASE=\"true\" COMPARATION_RESULT=\"0\" SUCCEED=\"true\"/>\n"
+		        + "</conditional_style>\n"
+		        + "<conditional_style ACTIVE=\"true\" LOCALIZED_STYLE_REF=\"styles.subtopic\">\n"
+		        + "<node_level_condition VALUE=\"2\" IGNORE_CASE=\"true\" COMPARATION_RESULT=\"0\" SUCCEED=\"true\"/>\n"
+		        + "</conditional_style>\n"
+		        + "<conditional_style ACTIVE=\"true\" LOCALIZED_STYLE_REF=\"styles.important\">\n"
+		        + "<node_contains_condition VALUE=\"77\" ITEM=\"filter_node\" MATCH_APPROXIMATELY=\"false\"/>\n"
+		        + "</conditional_style>\n"
+		        + "</conditional_styles>\n"
+		        + "<map_styles>\n"
+		        + "<stylenode LOCALIZED_TEXT=\"styles.root_node\" STYLE=\"oval\">\n"
+		        + "<stylenode LOCALIZED_TEXT=\"styles.predefined\" POSITION=\"right\">\n"
+		        + "<stylenode LOCALIZED_TEXT=\"default\" COLOR=\"#000000\" STYLE=\"fork\">\n"
+		        + "<font NAME=\"SansSerif\" SIZE=\"10\" BOLD=\"false\" ITALIC=\"false\"/>\n"
+		        + "</stylenode>\n"
+		        + "<stylenode LOCALIZED_TEXT=\"defaultstyle.details\"/>\n"
+		        + "<stylenode LOCALIZED_TEXT=\"defaultstyle.note\"/>\n"
+		        + "<stylenode LOCALIZED_TEXT=\"defaultstyle.floating\"/>\n"
+		        + "</stylenode>\n"
+		        + "<stylenode LOCALIZED_TEXT=\"styles.user-defined\" POSITION=\"right\">\n"
+		        + "<stylenode LOCALIZED_TEXT=\"styles.topic\" COLOR=\"#18898b\" STYLE=\"fork\">\n"
+		        + "<font NAME=\"SansSerif\" SIZE=\"10\" BOLD=\"true\"/>\n"
+		        + "</stylenode>\n"
+		        + "<stylenode LOCALIZED_TEXT=\"styles.subtopic\" COLOR=\"#cc3300\" STYLE=\"fork\">\n"
+		        + "<font NAME=\"SansSerif\" SIZE=\"10\" BOLD=\"true\"/>\n"
+		        + "</stylenode>\n"
+		        + "<stylenode LOCALIZED_TEXT=\"styles.important\">\n"
+		        + "<icon BUILTIN=\"yes\"/>\n"
+		        + "</stylenode>\n"
+		        + "</stylenode>\n"
+		        + "</stylenode>\n"
+		        + "</map_styles>\n"
+		        + "</hook>\n");
+	}
+}
@@ -1,49 +1,153 @@
 package org.freeplane.plugin.script;
 
-import java.util.LinkedHashMap;
-import java.util.Map.Entry;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.function.IntSupplier;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
 import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 
+/**
+ * Concurrent cache bounded by the total weight of its entries, e.g. their estimated size in bytes.
+ *
+ * Lookups do not lock. A missing value is computed once even if several threads ask for it at the same time,
+ * the other threads wait for the result.
+ * When the weight bound is exceeded the inserting thread evicts the least recently used entries.
+ */
 public class ConcurrentCache <K, V> {
 
-	private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+	private static class Entry<V> {
+		final CompletableFuture<V> value = new CompletableFuture<>();
+		final long weight;
+		volatile long lastAccess;
+		// stable copy of lastAccess for sorting, written under the eviction lock
+		long lastAccessBeforeEviction;
 
-    private final ReentrantReadWriteLock rwl = new ReentrantReadWriteLock();
-    private final ReentrantReadWriteLock.ReadLock readLock = rwl.readLock();
-    private final ReentrantReadWriteLock.WriteLock writeLock = rwl.writeLock();
+		Entry(long weight, long lastAccess) {
+			this.weight = weight;
+			this.lastAccess = lastAccess;
+		}
 
-	private final LinkedHashMap<K, V> cache ;
-	@SuppressWarnings("serial")
-	public ConcurrentCache(IntSupplier maxSize) {
-		super();
-		cache = new  LinkedHashMap<K, V>(maxSize.getAsInt() + 1, DEFAULT_LOAD_FACTOR, true){
-			@Override
-			protected boolean removeEldestEntry(Entry<K, V> eldest) {
-				return size() > maxSize.getAsInt();
+		V await() {
+			try {
+				return value.join();
+			}
+			catch (CompletionException e) {
+				final Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException)
+					throw (RuntimeException) cause;
+				if (cause instanceof Error)
+					throw (Error) cause;
+				throw e;
 			}
-		};
+		}
+	}
+
+	private final ConcurrentHashMap<K, Entry<V>> cache = new ConcurrentHashMap<>();
+	private final LongSupplier maxWeight;
+	private final ToLongFunction<K> weigher;
+	private final AtomicLong clock = new AtomicLong();
+	private final AtomicLong totalWeight = new AtomicLong();
+	private final ReentrantLock evictionLock = new ReentrantLock();
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	private final LongAdder evictionCount = new LongAdder();
+
+	/**
+	 * @param maxWeight maximal total weight, it is read on each eviction so that it can change
+	 * @param weigher weight of the entry with the given key
+	 */
+	public ConcurrentCache(LongSupplier maxWeight, ToLongFunction<K> weigher) {
+		super();
+		this.maxWeight = maxWeight;
+		this.weigher = weigher;
 	}
 
 	public V computeIfAbsent(K key, Supplier<? extends V> supplier) {
-        readLock.lock();
-        try {
-            V value = cache.get(key);
-            if (null != value) {
-                return value;
-            }
-        } finally {
-            readLock.unlock();
-        }
-        V value = supplier.get();
-        writeLock.lock();
-        try {
-            V oldValue = cache.putIfAbsent(key, value);
-            return null != oldValue ? oldValue : value;
-        } finally {
-        	writeLock.unlock();
-        }
+		final Entry<V> cachedEntry = cache.get(key);
+		if (cachedEntry != null)
+			return hit(cachedEntry);
+		final Entry<V> newEntry = new Entry<>(weigher.applyAsLong(key), clock.incrementAndGet());
+		final Entry<V> concurrentlyAddedEntry = cache.putIfAbsent(key, newEntry);
+		if (concurrentlyAddedEntry != null)
+			return hit(concurrentlyAddedEntry);
+		missCount.increment();
+		totalWeight.addAndGet(newEntry.weight);
+		final V value;
+		try {
+			value = supplier.get();
+		}
+		catch (RuntimeException | Error e) {
+			cache.remove(key, newEntry);
+			totalWeight.addAndGet(-newEntry.weight);
+			newEntry.value.completeExceptionally(e);
+			throw e;
+		}
+		newEntry.value.complete(value);
+		if (totalWeight.get() > maxWeight.getAsLong())
+			evict();
+		return value;
+	}
+
+	private V hit(final Entry<V> entry) {
+		hitCount.increment();
+		entry.lastAccess = clock.incrementAndGet();
+		return entry.await();
+	}
+
+	private void evict() {
+		if (!evictionLock.tryLock())
+			return;
+		try {
+			final List<Map.Entry<K, Entry<V>>> entries = new ArrayList<>(cache.entrySet());
+			for (Map.Entry<K, Entry<V>> e : entries)
+				e.getValue().lastAccessBeforeEviction = e.getValue().lastAccess;
+			entries.sort(Comparator.comparingLong(e -> e.getValue().lastAccessBeforeEviction));
+			for (Map.Entry<K, Entry<V>> eldest : entries) {
+				if (totalWeight.get() <= maxWeight.getAsLong())
+					break;
+				final Entry<V> entry = eldest.getValue();
+				if (entry.value.isDone() && cache.remove(eldest.getKey(), entry)) {
+					totalWeight.addAndGet(-entry.weight);
+					evictionCount.increment();
+				}
+			}
+		}
+		finally {
+			evictionLock.unlock();
+		}
 	}
 
+	public int size() {
+		return cache.size();
+	}
+
+	public long getWeight() {
+		return totalWeight.get();
+	}
+
+	public long getHitCount() {
+		return hitCount.sum();
+	}
+
+	public long getMissCount() {
+		return missCount.sum();
+	}
+
+	public long getEvictionCount() {
+		return evictionCount.sum();
+	}
+
+	@Override
+	public String toString() {
+		return "ConcurrentCache [size=" + size() + ", weight=" + getWeight() + ", hits=" + getHitCount() + ", misses="
+		        + getMissCount() + ", evictions=" + getEvictionCount() + "]";
+	}
 }
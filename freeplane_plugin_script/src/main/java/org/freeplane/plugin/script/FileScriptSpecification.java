@@ -15,6 +15,11 @@ class FileScriptSpecification implements ScriptSpecification{
 		this.source = source;
 		this.permissions = permissions;
 	}
+	@Override
+	public long estimateCompiledSize() {
+		return COMPILED_SCRIPT_BASE_SIZE + source.length() * COMPILED_SIZE_PER_SOURCE_CHARACTER;
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -1,23 +1,37 @@
 package org.freeplane.plugin.script;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.freeplane.core.extension.IExtension;
 import org.freeplane.features.map.MapModel;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.features.mode.Controller;
+import org.freeplane.plugin.script.dependencies.EvaluationDependencies;
 import org.freeplane.plugin.script.dependencies.RelatedElements;
 
+/** Formula results of the least recently evaluated nodes are evicted when more than
+ * {@link #FORMULA_CACHE_SIZE} nodes have cached results.
+ * Eviction does not affect updates because dependencies are kept in {@link EvaluationDependencies}. */
 public class FormulaCache implements IExtension{
-	private final HashMap<String, LinkedHashMap<String, CachedResult>> cache = new HashMap<String, LinkedHashMap<String, CachedResult>>();
-	// don't let caching use too much memory - but currently there are little means to cope with unavailable
-	// dependency data. It has to be tested but it should "only" lead to some missing updates.
+	private static final String FORMULA_CACHE_SIZE = "formula_cache_size";
+	private static final int DEFAULT_FORMULA_CACHE_SIZE = 100000;
+	private final LinkedHashMap<String, LinkedHashMap<String, CachedResult>> cache;
 	static final boolean ENABLE_CACHING = !Controller.getCurrentController().getResourceController()
 	    .getBooleanProperty("formula_disable_caching");
 
-	static void removeFromCache(final ArrayList<NodeModel> dependencies) {
+	@SuppressWarnings("serial")
+	private FormulaCache(final int maximumNodeCount) {
+		cache = new LinkedHashMap<String, LinkedHashMap<String, CachedResult>>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<String, LinkedHashMap<String, CachedResult>> eldest) {
+				return size() > maximumNodeCount;
+			}
+		};
+	}
+
+	static void removeFromCache(final List<NodeModel> dependencies) {
 			if (ENABLE_CACHING) {
 				for (final NodeModel nodeModel : dependencies) {
 					FormulaCache.of(nodeModel.getMap()).remove(nodeModel);
@@ -56,17 +70,14 @@ public class FormulaCache implements IExtension{
 	}
 
 	void remove(final NodeModel node) {
-		final LinkedHashMap<String, CachedResult> entry = cache.get(node.getID());
-		if (entry != null) {
-//			System.out.println("clearing cache for " + node);
-			entry.clear();
-		}
+		cache.remove(node.getID());
 	}
 
 	static FormulaCache of(final MapModel map) {
 		FormulaCache formulaCache = map.getExtension(FormulaCache.class);
 		if (formulaCache == null) {
-			formulaCache = new FormulaCache();
+			formulaCache = new FormulaCache(Controller.getCurrentController().getResourceController()
+			    .getIntProperty(FORMULA_CACHE_SIZE, DEFAULT_FORMULA_CACHE_SIZE));
 			map.addExtension(formulaCache);
 		}
 		return formulaCache;
@@ -1,42 +1,47 @@
 package org.freeplane.plugin.script;
 
 import java.util.ArrayList;
-import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
-import java.util.function.Consumer;
+import java.util.Map;
+import java.util.Map.Entry;
 
 import org.freeplane.features.map.MapModel;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.plugin.script.dependencies.EvaluationDependencies;
 
 public class FormulaDependencies{
+	/** @return formula nodes which depend on the changed nodes in the order they should be evaluated.
+	 * Their cached values are discarded. */
 	public static List<NodeModel> manageChangeAndReturnDependencies(boolean includeChanged, final NodeModel... changedNodes) {
-		final ArrayList<NodeModel> dependencies = getAllChangedDependencies(includeChanged, changedNodes);
-		FormulaCache.removeFromCache(dependencies);
+		final ArrayList<NodeModel> dependencies = new ArrayList<NodeModel>();
+		for (Entry<MapModel, List<NodeModel>> changedMapNodes : byMap(changedNodes).entrySet()) {
+			final EvaluationDependencies evaluationDependencies = EvaluationDependencies.of(changedMapNodes.getKey());
+			final List<NodeModel> nodes = changedMapNodes.getValue();
+			dependencies.addAll(invalidate(evaluationDependencies,
+				evaluationDependencies.getChangedDependencies(includeChanged, nodes.toArray(new NodeModel[nodes.size()]))));
+		}
 		return dependencies;
 	}
 
+	private static Map<MapModel, List<NodeModel>> byMap(final NodeModel... nodes) {
+		final LinkedHashMap<MapModel, List<NodeModel>> nodesByMap = new LinkedHashMap<MapModel, List<NodeModel>>(1);
+		for (NodeModel node : nodes) {
+			List<NodeModel> mapNodes = nodesByMap.get(node.getMap());
+			if (mapNodes == null) {
+				mapNodes = new ArrayList<NodeModel>(nodes.length);
+				nodesByMap.put(node.getMap(), mapNodes);
+			}
+			mapNodes.add(node);
+		}
+		return nodesByMap;
+	}
+
 	public static void clearCache(final MapModel map) {
 		FormulaCache.removeFrom(map);
 		map.removeExtension(EvaluationDependencies.class);
 	}
 
-
-	private static ArrayList<NodeModel> getAllChangedDependencies(boolean includeChanged, final NodeModel... changedNodes) {
-		final ArrayList<NodeModel> dependencies = new ArrayList<NodeModel>();
-		for (int i = 0; i < changedNodes.length; i++) {
-			final LinkedHashSet<NodeModel> accessingNodes = new LinkedHashSet<NodeModel>(0);
-			EvaluationDependencies.of(changedNodes[i].getMap()).getChangedDependencies(accessingNodes, changedNodes[i]);
-			if (accessingNodes != null)
-				dependencies.addAll(accessingNodes);
-			if (includeChanged)
-				dependencies.add(changedNodes[i]);
-		}
-		return dependencies;
-	}
-
-
 	static void accessNode(NodeModel accessingNode, NodeModel accessedNode) {
 		EvaluationDependencies.of(accessedNode.getMap()).accessNode(accessingNode, accessedNode);
 	}
@@ -59,19 +64,17 @@ public class FormulaDependencies{
 	}
 
 	public static List<NodeModel> manageChangeAndReturnGlobalDependencies(MapModel map) {
-		return manageChangeAndReturnDependencies(EvaluationDependencies.of(map)::getGlobalDependencies);
+		final EvaluationDependencies evaluationDependencies = EvaluationDependencies.of(map);
+		return invalidate(evaluationDependencies, evaluationDependencies.getGlobalDependencies());
 	}
 
 	public static List<NodeModel> removeAndReturnMapDependencies(MapModel map) {
-		return manageChangeAndReturnDependencies(
-			set -> EvaluationDependencies.of(map).removeAndReturnChangedDependencies(set, map));
+		final EvaluationDependencies evaluationDependencies = EvaluationDependencies.of(map);
+		return invalidate(evaluationDependencies, evaluationDependencies.removeAndReturnChangedDependencies(map));
 	}
 
-	private static List<NodeModel> manageChangeAndReturnDependencies(Consumer<Set<NodeModel>> loader) {
-		final LinkedHashSet<NodeModel> accessingNodes = new LinkedHashSet<NodeModel>(0);
-		loader.accept(accessingNodes);
-		final ArrayList<NodeModel> dependencies = new ArrayList<NodeModel>();
-		dependencies.addAll(accessingNodes);
+	private static List<NodeModel> invalidate(EvaluationDependencies evaluationDependencies, List<NodeModel> dependencies) {
+		evaluationDependencies.removePrecedents(dependencies);
 		FormulaCache.removeFromCache(dependencies);
 		return dependencies;
 	}
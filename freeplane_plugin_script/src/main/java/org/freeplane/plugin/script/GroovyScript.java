@@ -26,6 +26,7 @@ import java.security.AccessController;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.regex.Matcher;
 
 import javax.swing.SwingUtilities;
@@ -53,6 +54,10 @@ public class GroovyScript implements IScript {
 
     private FreeplaneScriptBaseClass compiledScript;
 
+    /** instances of the compiled script class which are not running.
+     * The same script can be executed by nested formula evaluations. */
+    private final ConcurrentLinkedQueue<FreeplaneScriptBaseClass> idleInstances = new ConcurrentLinkedQueue<>();
+
     private Throwable errorsInScript;
 
     private CompileTimeStrategy compileTimeStrategy;
@@ -103,12 +108,17 @@ public class GroovyScript implements IScript {
             final PrintStream oldOut = System.out;
             ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
             try {
-                trustedCompileAndCache(outStream);
+                final FreeplaneScriptBaseClass scriptInstance = acquireInstance(trustedCompileAndCache(outStream));
                 Thread.currentThread().setContextClassLoader(scriptClassLoader);
-                updateBinding(node, scriptContext);
+                updateBinding(scriptInstance, node, scriptContext);
                 System.setOut(outStream);
-				final Object result = compiledScript.run();
-				return result;
+				try {
+					final Object result = scriptInstance.run();
+					return result;
+				}
+				finally {
+					idleInstances.offer(scriptInstance);
+				}
             } finally {
                 System.setOut(oldOut);
                 Thread.currentThread().setContextClassLoader(contextClassLoader);
@@ -139,7 +149,7 @@ public class GroovyScript implements IScript {
                 .getScriptingSecurityManager();
     }
 
-    private void trustedCompileAndCache(PrintStream outStream) throws Throwable {
+    private synchronized FreeplaneScriptBaseClass trustedCompileAndCache(PrintStream outStream) throws Throwable {
     	final ScriptingSecurityManager scriptingSecurityManager = createScriptingSecurityManager(outStream);
     	AccessController.doPrivileged(new PrivilegedExceptionAction<Void>() {
 
@@ -157,8 +167,20 @@ public class GroovyScript implements IScript {
 				return null;
 			}
 		});
+    	return compiledScript;
 	}
 
+    private FreeplaneScriptBaseClass acquireInstance(final FreeplaneScriptBaseClass compiledScript)
+            throws ReflectiveOperationException {
+        for (FreeplaneScriptBaseClass idleInstance = idleInstances.poll(); idleInstance != null; idleInstance = idleInstances.poll()) {
+            if (idleInstance.getClass() == compiledScript.getClass())
+                return idleInstance;
+        }
+        final FreeplaneScriptBaseClass newInstance = compiledScript.getClass().newInstance();
+        newInstance.setBinding(createBindingForCompilation());
+        return newInstance;
+    }
+
     private static boolean accessPermissionCheckerChecked = false;
     private Script compileAndCache(final ScriptingSecurityManager scriptingSecurityManager) throws Throwable {
     	checkAccessPermissionCheckerExists();
@@ -175,17 +197,28 @@ public class GroovyScript implements IScript {
                 final Binding binding = createBindingForCompilation();
 				scriptClassLoader = ScriptClassLoader.createClassLoader();
 				scriptClassLoader.setSecurityManager(scriptingSecurityManager);
-				final GroovyShell shell = new GroovyShell(scriptClassLoader, binding,
-                        createCompilerConfiguration());
+                final CompilerConfiguration compilerConfiguration = createCompilerConfiguration();
+                final ScriptClassCache scriptClassCache = ScriptClassCache.getInstance();
+                final String cacheKey = scriptClassCache.keyOf(script, specificPermissions, compilerConfiguration);
+                final Class<?> cachedScriptClass = cacheKey != null
+                        ? scriptClassCache.load(cacheKey, scriptClassLoader, GroovyShell.codeSourceOf(script)) : null;
                 compileTimeStrategy.scriptCompileStart();
-                if (script instanceof String) {
-                    compiledScript = (FreeplaneScriptBaseClass) shell.parse((String) script);
-                } else if (script instanceof File) {
-                    compiledScript = (FreeplaneScriptBaseClass) shell.parse((File) script);
+                if (cachedScriptClass != null) {
+                    compiledScript = (FreeplaneScriptBaseClass) InvokerHelper.createScript(cachedScriptClass, binding);
                 } else {
-                    throw new IllegalArgumentException();
+                    final GroovyShell shell = new GroovyShell(scriptClassLoader, binding, compilerConfiguration);
+                    if (script instanceof String) {
+                        compiledScript = (FreeplaneScriptBaseClass) shell.parse((String) script);
+                    } else if (script instanceof File) {
+                        compiledScript = (FreeplaneScriptBaseClass) shell.parse((File) script);
+                    } else {
+                        throw new IllegalArgumentException();
+                    }
+                    if (cacheKey != null)
+                        scriptClassCache.store(cacheKey, compiledScript.getClass().getName(), shell.getCompiledClasses());
                 }
                 compileTimeStrategy.scriptCompiled();
+                idleInstances.offer(compiledScript);
                 return compiledScript;
             } catch (Throwable e) {
                 errorsInScript = e;
@@ -211,17 +244,18 @@ public class GroovyScript implements IScript {
         if (compiledScript != null) {
             InvokerHelper.removeClass(compiledScript.getClass());
             compiledScript = null;
+            idleInstances.clear();
         }
     }
 
-    private void updateBinding(final NodeModel node, ScriptContext scriptContext) {
-    	Binding binding = compiledScript.getBinding();
+    private void updateBinding(final FreeplaneScriptBaseClass scriptInstance, final NodeModel node, ScriptContext scriptContext) {
+    	Binding binding = scriptInstance.getBinding();
         binding.setVariable("c", ProxyFactory.createController(scriptContext));
         binding.setVariable("node", ProxyFactory.createNode(node, scriptContext));
 	    for (Entry<String, Object> entry : ScriptingConfiguration.getStaticProperties().entrySet()) {
             binding.setProperty(entry.getKey(), entry.getValue());
         }
-        compiledScript.updateBoundVariables();
+        scriptInstance.updateBoundVariables();
     }
 
     private Binding createBindingForCompilation() {
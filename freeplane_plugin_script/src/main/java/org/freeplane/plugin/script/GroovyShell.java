@@ -19,12 +19,18 @@ package org.freeplane.plugin.script;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
 import java.security.AccessController;
 import java.security.CodeSource;
 import java.security.PermissionCollection;
 import java.security.Permissions;
 import java.security.PrivilegedAction;
+import java.security.cert.Certificate;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+import org.codehaus.groovy.ast.ClassNode;
 import org.codehaus.groovy.control.CompilationFailedException;
 import org.codehaus.groovy.control.CompilationUnit;
 import org.codehaus.groovy.control.CompilerConfiguration;
@@ -51,7 +57,7 @@ class GroovyShell extends GroovyObjectSupport {
 	private Binding binding;
 	private int counter;
 	private CompilerConfiguration config;
-	private GroovyClassLoader loader;
+	private MyGroovyClassLoader loader;
 
 	GroovyShell(ClassLoader parent, Binding binding, final CompilerConfiguration config) {
 		if (binding == null) {
@@ -61,9 +67,9 @@ class GroovyShell extends GroovyObjectSupport {
 			throw new IllegalArgumentException("Compiler configuration must not be null.");
 		}
 		final ClassLoader parentLoader = (parent != null) ? parent : GroovyShell.class.getClassLoader();
-		this.loader = AccessController.doPrivileged(new PrivilegedAction<GroovyClassLoader>() {
+		this.loader = AccessController.doPrivileged(new PrivilegedAction<MyGroovyClassLoader>() {
 			@Override
-			public GroovyClassLoader run() {
+			public MyGroovyClassLoader run() {
 				return new MyGroovyClassLoader(parentLoader, config);
 			}
 		});
@@ -151,9 +157,22 @@ class GroovyShell extends GroovyObjectSupport {
 	protected synchronized String generateScriptName() {
 		return "Script" + (++counter) + ".groovy";
 	}
+
+	/** @return names and bytecode of all classes compiled by this shell */
+	Map<String, byte[]> getCompiledClasses() {
+		return loader.compiledClasses;
+	}
+
+	/** @return the code source given to classes compiled from the script */
+	static CodeSource codeSourceOf(Object script) throws MalformedURLException {
+		final URL url = script instanceof File ? ((File) script).toURI().toURL() : new URL("file", "", DEFAULT_CODE_BASE);
+		return new CodeSource(url, (Certificate[]) null);
+	}
 }
 
 class MyGroovyClassLoader extends GroovyClassLoader {
+	final Map<String, byte[]> compiledClasses = new LinkedHashMap<>();
+
 	MyGroovyClassLoader(ClassLoader loader, CompilerConfiguration config) {
 		super(loader, config);
 	}
@@ -195,6 +214,12 @@ class MyGroovyClassLoader extends GroovyClassLoader {
 		});
 		return new ClassCollector(loader, unit, su) {
 			// use inner class to call protected constructor
+
+			@Override
+			protected Class createClass(byte[] code, ClassNode classNode) {
+				compiledClasses.put(classNode.getName(), code);
+				return super.createClass(code, classNode);
+			}
 		};
 	}
 }
@@ -0,0 +1,238 @@
+package org.freeplane.plugin.script;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PermissionCollection;
+import java.security.Permissions;
+import java.security.SecureClassLoader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.customizers.CompilationCustomizer;
+
+import org.freeplane.core.resources.ResourceController;
+import org.freeplane.core.util.FreeplaneVersion;
+import org.freeplane.core.util.LogUtils;
+
+import groovy.lang.GroovySystem;
+
+/**
+ * Keeps the bytecode of compiled scripts and formulas on disk, so that they are not compiled again after restart.
+ *
+ * Entries are keyed by a hash of the script source, the script permissions, the compiler configuration
+ * and the Groovy and Freeplane versions.
+ * Compilation customizers are identified by their classes, their settings are defined by the Freeplane version.
+ * Each entry file holds the script class name followed by names and bytecode of all classes compiled from the script.
+ * Entries which were not used for {@link #MAXIMAL_ENTRY_AGE_DAYS} days are removed on startup.
+ */
+class ScriptClassCache {
+	static final String PERSIST_COMPILED_SCRIPTS = "persist_compiled_scripts";
+	private static final String ENTRY_EXTENSION = ".classes";
+	private static final int ENTRY_FORMAT = 0xF5C1A550;
+	private static final long MAXIMAL_ENTRY_AGE_DAYS = 30;
+
+	private static ScriptClassCache instance;
+
+	static synchronized ScriptClassCache getInstance() {
+		if (instance == null)
+			instance = new ScriptClassCache(ScriptResources.getScriptClassCacheDir());
+		return instance;
+	}
+
+	private final File directory;
+
+	ScriptClassCache(File directory) {
+		this.directory = directory;
+		removeOldEntries();
+	}
+
+	private boolean isEnabled() {
+		return ResourceController.getResourceController().getBooleanProperty(PERSIST_COMPILED_SCRIPTS);
+	}
+
+	/** @return the cache key or null if the script can not be cached */
+	String keyOf(Object script, ScriptingPermissions permissions, CompilerConfiguration configuration) {
+		return isEnabled() ? hashOf(script, permissions, configuration) : null;
+	}
+
+	/** @return the hash of everything the compiled classes depend on or null if the script can not be cached */
+	String hashOf(Object script, ScriptingPermissions permissions, CompilerConfiguration configuration) {
+		if (!(script instanceof String || script instanceof File))
+			return null;
+		try {
+			final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			update(digest, GroovySystem.getVersion());
+			update(digest, FreeplaneVersion.getVersion().toString());
+			update(digest, configuration);
+			if (permissions != null) {
+				for (String permissionName : ScriptingPermissions.PERMISSION_NAMES)
+					update(digest, permissionName + '=' + permissions.get(permissionName));
+			}
+			if (script instanceof String)
+				update(digest, (String) script);
+			else {
+				final File file = (File) script;
+				update(digest, file.getAbsolutePath());
+				digest.update(Files.readAllBytes(file.toPath()));
+			}
+			final StringBuilder key = new StringBuilder();
+			for (byte b : digest.digest())
+				key.append(String.format("%02x", b));
+			return key.toString();
+		}
+		catch (NoSuchAlgorithmException | IOException e) {
+			LogUtils.warn(e);
+			return null;
+		}
+	}
+
+	private void update(final MessageDigest digest, CompilerConfiguration configuration) {
+		update(digest, String.valueOf(configuration.getScriptBaseClass()));
+		update(digest, String.valueOf(configuration.getClasspath()));
+		update(digest, String.valueOf(configuration.getTargetBytecode()));
+		update(digest, String.valueOf(configuration.getSourceEncoding()));
+		update(digest, String.valueOf(new TreeMap<>(configuration.getOptimizationOptions())));
+		final Set<String> disabledTransformations = configuration.getDisabledGlobalASTTransformations();
+		if (disabledTransformations != null)
+			update(digest, String.valueOf(new TreeSet<>(disabledTransformations)));
+		for (CompilationCustomizer customizer : configuration.getCompilationCustomizers())
+			update(digest, customizer.getClass().getName() + '@' + customizer.getPhase());
+	}
+
+	private void update(final MessageDigest digest, String value) {
+		digest.update(value.getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+	}
+
+	/** @return the script class loaded from the cache entry or null if there is no usable entry */
+	Class<?> load(String key, ClassLoader parent, CodeSource codeSource) {
+		final File entry = entryFile(key);
+		if (!entry.isFile())
+			return null;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(entry)))) {
+			if (in.readInt() != ENTRY_FORMAT)
+				return null;
+			final String scriptClassName = in.readUTF();
+			final int classCount = in.readInt();
+			final Map<String, byte[]> classes = new HashMap<>(classCount);
+			for (int i = 0; i < classCount; i++) {
+				final String className = in.readUTF();
+				final byte[] bytecode = new byte[in.readInt()];
+				in.readFully(bytecode);
+				classes.put(className, bytecode);
+			}
+			final Class<?> scriptClass = new CachedClassLoader(parent, codeSource, classes).loadClass(scriptClassName);
+			entry.setLastModified(System.currentTimeMillis());
+			return scriptClass;
+		}
+		catch (IOException | ClassNotFoundException | LinkageError e) {
+			LogUtils.warn("can not load cached script classes from " + entry, e);
+			entry.delete();
+			return null;
+		}
+	}
+
+	void store(String key, String scriptClassName, Map<String, byte[]> classes) {
+		try {
+			directory.mkdirs();
+			final File entry = entryFile(key);
+			final File tempFile = File.createTempFile(key, ".tmp", directory);
+			try {
+				try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+					out.writeInt(ENTRY_FORMAT);
+					out.writeUTF(scriptClassName);
+					out.writeInt(classes.size());
+					for (Entry<String, byte[]> compiledClass : classes.entrySet()) {
+						out.writeUTF(compiledClass.getKey());
+						out.writeInt(compiledClass.getValue().length);
+						out.write(compiledClass.getValue());
+					}
+				}
+				try {
+					Files.move(tempFile.toPath(), entry.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					    StandardCopyOption.ATOMIC_MOVE);
+				}
+				catch (AtomicMoveNotSupportedException e) {
+					Files.move(tempFile.toPath(), entry.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				}
+			}
+			finally {
+				tempFile.delete();
+			}
+		}
+		catch (IOException e) {
+			LogUtils.warn("can not store compiled script classes", e);
+		}
+	}
+
+	/** removes all entries, e.g. because classes they may refer to have been recompiled. */
+	void clear() {
+		final File[] entries = directory.listFiles();
+		if (entries != null) {
+			for (File entry : entries)
+				entry.delete();
+		}
+	}
+
+	private void removeOldEntries() {
+		final File[] entries = directory.listFiles();
+		if (entries == null)
+			return;
+		final long oldestAllowedModificationTime = System.currentTimeMillis()
+		        - TimeUnit.DAYS.toMillis(MAXIMAL_ENTRY_AGE_DAYS);
+		for (File entry : entries) {
+			if (entry.lastModified() < oldestAllowedModificationTime)
+				entry.delete();
+		}
+	}
+
+	private File entryFile(String key) {
+		return new File(directory, key + ENTRY_EXTENSION);
+	}
+
+	/** Defines cached classes with the same code source and permissions as {@link MyGroovyClassLoader}. */
+	private static class CachedClassLoader extends SecureClassLoader {
+		private final CodeSource codeSource;
+		private final Map<String, byte[]> classes;
+
+		CachedClassLoader(ClassLoader parent, CodeSource codeSource, Map<String, byte[]> classes) {
+			super(parent);
+			this.codeSource = codeSource;
+			this.classes = classes;
+		}
+
+		@Override
+		protected Class<?> findClass(String name) throws ClassNotFoundException {
+			final byte[] bytecode = classes.get(name);
+			if (bytecode == null)
+				throw new ClassNotFoundException(name);
+			return defineClass(name, bytecode, 0, bytecode.length, codeSource);
+		}
+
+		@Override
+		protected PermissionCollection getPermissions(CodeSource codeSource) {
+			PermissionCollection perms = new Permissions();
+			perms.setReadOnly();
+			return perms;
+		}
+	}
+}
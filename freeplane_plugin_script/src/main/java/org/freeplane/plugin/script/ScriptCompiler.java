@@ -72,6 +72,8 @@ public class ScriptCompiler {
 			try {
 				GroovyScript.checkAccessPermissionCheckerExists();
 				compile(dir, compiledScriptFiles);
+				// cached scripts may refer to recompiled classes
+				ScriptClassCache.getInstance().clear();
 				LogUtils.info("compiled in " + dir + ": " + createNameList(allScriptFiles));
 			}
 			catch (Exception e) {
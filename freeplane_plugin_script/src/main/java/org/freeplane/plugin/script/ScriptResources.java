@@ -29,6 +29,7 @@ public class ScriptResources {
 	private static final String BUILTIN_SCRIPTS_DIR_PROPERTY = "org.freeplane.builtin.scripts.dir";
 	private static final String BUILTIN_SCRIPTS_DIR = System.getProperty(BUILTIN_SCRIPTS_DIR_PROPERTY,"scripts");
     private static final String COMPILED_SCRIPTS_DIRECTORY = "compiledscripts";
+    private static final String SCRIPT_CLASS_CACHE_DIRECTORY = "scriptclasscache";
     private static List<String> classpath;
     private static final File builtinScriptsDir = buildBuiltinScriptsDir();
     private static final File userScriptsDir = buildUserScriptsDir(ScriptResources.USER_SCRIPTS_DIR);
@@ -61,11 +62,14 @@ public class ScriptResources {
         return classpath;
     }
 
-    /** allows to set the classpath for scripts. Due to security considerations it's not possible to set
-     * this more than once. */
+    /** allows to set the classpath for scripts. Due to security considerations it's not possible to change
+     * it once it is set, setting the same classpath again is allowed for controllers started later. */
     static void setClasspath(final List<String> newClasspath) {
-        if (classpath != null)
+        if (classpath != null) {
+            if (classpath.equals(newClasspath))
+                return;
             throw new SecurityException("reset of script classpath is forbidden.");
+        }
         classpath = Collections.unmodifiableList(newClasspath);
         if (!classpath.isEmpty())
             LogUtils.info("extending script's classpath by " + classpath);
@@ -83,4 +87,8 @@ public class ScriptResources {
 		return buildUserScriptsDir(COMPILED_SCRIPTS_DIRECTORY);
 	}
 
+	static File getScriptClassCacheDir() {
+		return buildUserScriptsDir(SCRIPT_CLASS_CACHE_DIRECTORY);
+	}
+
 }
@@ -1,4 +1,9 @@
 package org.freeplane.plugin.script;
 
 interface ScriptSpecification {
+	/** rough size of a compiled script class in bytes, it is used to bound the memory taken by cached scripts. */
+	long COMPILED_SCRIPT_BASE_SIZE = 8 * 1024;
+	int COMPILED_SIZE_PER_SOURCE_CHARACTER = 8;
+
+	long estimateCompiledSize();
 }
@@ -42,9 +42,9 @@ public class ScriptingEngine {
 	// need a File for caching! Scripts from String have to be cached elsewhere
     private static Map<File, IScript> fileScripts = new ConcurrentHashMap<File, IScript>();
     private static ConcurrentCache<ScriptSpecification, IScript> scripts
-    	= new ConcurrentCache(ScriptingEngine::getCompiledScriptCacheSize);
-    private static int getCompiledScriptCacheSize() {
-		return ResourceController.getResourceController().getIntProperty("compiled_script_cache_size");
+    	= new ConcurrentCache<>(ScriptingEngine::getCompiledScriptCacheSize, ScriptSpecification::estimateCompiledSize);
+    private static long getCompiledScriptCacheSize() {
+		return ResourceController.getResourceController().getIntProperty("compiled_script_cache_megabytes") * 1024L * 1024L;
 	}
 	/**
 	 * @param permissions if null use default scripting permissions.
@@ -2,7 +2,9 @@ package org.freeplane.plugin.script.dependencies;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.WeakHashMap;
@@ -13,18 +15,74 @@ import org.freeplane.features.map.NodeModel;
 
 public class EvaluationDependencies implements IExtension{
 
-	static class DependentNodeReferences implements Iterable<NodeModel>{
+	static class NodeReferences implements Iterable<NodeModel>{
 		final private WeakHashMap<NodeModel, Void> references = new WeakHashMap<>();
 		void add(NodeModel node) {
 			references.put(node, null);
 		}
 
+		void remove(NodeModel node) {
+			references.remove(node);
+		}
+
+		boolean isEmpty() {
+			return references.isEmpty();
+		}
+
 		@Override
 		public Iterator<NodeModel> iterator() {
 			return references.keySet().iterator();
 		}
 	}
 
+	/** nodes, branches and maps accessed by the last evaluation of a formula node. */
+	static class Precedents {
+		final NodeReferences nodes = new NodeReferences();
+		final NodeReferences branches = new NodeReferences();
+		final WeakHashMap<MapModel, Void> maps = new WeakHashMap<>();
+	}
+
+	/** Collects dependent formula nodes depth first, so that reversed finishing order is an evaluation order. */
+	private class DependentsCollector {
+		private final Set<NodeModel> visited = new HashSet<>();
+		private final ArrayList<NodeModel> finished = new ArrayList<>();
+
+		void add(NodeModel accessingNode) {
+			// nodes of a cycle are visited once, their evaluation reports the cyclic reference
+			if (visited.add(accessingNode)) {
+				addDependentsOf(accessingNode);
+				finished.add(accessingNode);
+			}
+		}
+
+		void addAll(Iterable<NodeModel> accessingNodes) {
+			for (NodeModel node : accessingNodes)
+				add(node);
+		}
+
+		void addDependentsOf(NodeModel accessedNode) {
+			final NodeReferences onNode = onNodeDependencies.get(accessedNode);
+			if (onNode != null)
+				addAll(new ArrayList<>(onNode.references.keySet()));
+			for (NodeModel ancestor = accessedNode.getParentNode(); ancestor != null; ancestor = ancestor.getParentNode()) {
+				final NodeReferences onBranch = onBranchDependencies.get(ancestor);
+				if (onBranch != null)
+					addAll(new ArrayList<>(onBranch.references.keySet()));
+			}
+			if (!onAnyNodeDependencies.isEmpty()) {
+				final ArrayList<NodeModel> onAnyNode = new ArrayList<>(onAnyNodeDependencies.keySet());
+				onAnyNodeDependencies.clear();
+				addAll(onAnyNode);
+			}
+		}
+
+		List<NodeModel> inEvaluationOrder() {
+			final ArrayList<NodeModel> evaluationOrder = new ArrayList<>(finished);
+			Collections.reverse(evaluationOrder);
+			return evaluationOrder;
+		}
+	}
+
 	enum Access {
 		NODE, BRANCH, ALL
 	}
@@ -39,54 +97,83 @@ public class EvaluationDependencies implements IExtension{
 		return dependencies;
 	}
 
-	private final WeakHashMap<MapModel, DependentNodeReferences> onMapDependencies = new WeakHashMap<>();
+	private final WeakHashMap<MapModel, NodeReferences> onMapDependencies = new WeakHashMap<>();
 
-	private final WeakHashMap<NodeModel, DependentNodeReferences> onNodeDependencies = new WeakHashMap<>();
+	private final WeakHashMap<NodeModel, NodeReferences> onNodeDependencies = new WeakHashMap<>();
 	// FIXME: organize node and branch dependencies in a tree?
-	private final WeakHashMap<NodeModel, DependentNodeReferences> onBranchDependencies = new WeakHashMap<>();
+	private final WeakHashMap<NodeModel, NodeReferences> onBranchDependencies = new WeakHashMap<>();
 	private final WeakHashMap<NodeModel, Void> onAnyNodeDependencies = new WeakHashMap<>();
 	private final WeakHashMap<NodeModel, Void> onGlobalNodeDependencies = new WeakHashMap<>();
 
-	public void getChangedDependencies(Set<NodeModel> accessingNodes, final NodeModel accessedNode) {
-		final Iterable<NodeModel> onNode = onNodeDependencies.get(accessedNode);
-		if (onNode != null)
-			getRecursively(accessingNodes, onNode);
-		ArrayList<Entry<NodeModel, DependentNodeReferences>> onBranchDependencyList = new ArrayList<>(onBranchDependencies.entrySet());
-		for (Entry<NodeModel, DependentNodeReferences> entry : onBranchDependencyList) {
-			final NodeModel branchNode = entry.getKey();
-			if (accessedNode.isDescendantOf(branchNode)) {
-				onBranchDependencies.get(branchNode);
-				getRecursively(accessingNodes, entry.getValue());
-			}
+	private final WeakHashMap<NodeModel, Precedents> precedents = new WeakHashMap<>();
+
+	/** @return formula nodes depending directly or transitively on the changed nodes,
+	 * each one following the nodes it depends on. */
+	public List<NodeModel> getChangedDependencies(boolean includeChanged, final NodeModel... changedNodes) {
+		final DependentsCollector collector = new DependentsCollector();
+		for (NodeModel changedNode : changedNodes) {
+			if (includeChanged)
+				collector.add(changedNode);
+			else
+				collector.addDependentsOf(changedNode);
 		}
-		getRecursively(accessingNodes, onAnyNodeDependencies.keySet());
-		onAnyNodeDependencies.clear();
-//		System.out.println("dependencies on(" + node + "): " + accessingNodes);
+		return collector.inEvaluationOrder();
 	}
 
-	public void getGlobalDependencies(Set<NodeModel> accessingNodes) {
-		getRecursively(accessingNodes, onGlobalNodeDependencies.keySet());
-//		System.out.println("dependencies on(" + node + "): " + accessingNodes);
+	public List<NodeModel> getGlobalDependencies() {
+		final DependentsCollector collector = new DependentsCollector();
+		collector.addAll(new ArrayList<>(onGlobalNodeDependencies.keySet()));
+		return collector.inEvaluationOrder();
 	}
 
-	public void removeAndReturnChangedDependencies(Set<NodeModel> accessingNodes, final MapModel accessedMap) {
-		final Iterable<NodeModel> onMap = onMapDependencies.remove(accessedMap);
+	public List<NodeModel> removeAndReturnChangedDependencies(final MapModel accessedMap) {
+		final DependentsCollector collector = new DependentsCollector();
+		final NodeReferences onMap = onMapDependencies.remove(accessedMap);
 		if (onMap != null)
-			getRecursively(accessingNodes, onMap);
+			collector.addAll(new ArrayList<>(onMap.references.keySet()));
+		return collector.inEvaluationOrder();
+	}
+
+	/** Removes the recorded accesses of formula nodes whose cached values are discarded.
+	 * They are recorded again when the formulas are evaluated next time. */
+	public void removePrecedents(final Iterable<NodeModel> accessingNodes) {
+		for (NodeModel accessingNode : accessingNodes) {
+			final Precedents removed = precedents.remove(accessingNode);
+			if (removed != null) {
+				removeDependent(accessingNode, removed.nodes, onNodeDependencies);
+				removeDependent(accessingNode, removed.branches, onBranchDependencies);
+				removeDependent(accessingNode, removed.maps.keySet(), onMapDependencies);
+			}
+			onGlobalNodeDependencies.remove(accessingNode);
+		}
 	}
-	private void getRecursively(Set<NodeModel> accessingNodes, final Iterable<NodeModel> changedAccessedNodes) {
-		for (NodeModel node : changedAccessedNodes) {
-			// avoid loops
-			if (accessingNodes.add(node)) {
-				getChangedDependencies(accessingNodes, node);
+
+	private <T> void removeDependent(NodeModel accessingNode, Iterable<T> accessedElements,
+	                                 final WeakHashMap<T, NodeReferences> dependenciesMap) {
+		for (T accessed : accessedElements) {
+			final NodeReferences dependents = dependenciesMap.get(accessed);
+			if (dependents != null) {
+				dependents.remove(accessingNode);
+				if (dependents.isEmpty())
+					dependenciesMap.remove(accessed);
 			}
 		}
 	}
 
+	private Precedents providePrecedents(NodeModel accessingNode) {
+		Precedents accessed = precedents.get(accessingNode);
+		if (accessed == null) {
+			accessed = new Precedents();
+			precedents.put(accessingNode, accessed);
+		}
+		return accessed;
+	}
+
 	/** accessedNode was accessed when accessingNode was evaluated. */
 	public void accessNode(NodeModel accessingNode, NodeModel accessedNode) {
 		// FIXME: check if accessedNode is already covered by other accessModes
 		provideDependencySet(accessedNode, onNodeDependencies).add(accessingNode);
+		providePrecedents(accessingNode).nodes.add(accessedNode);
 		addAccessedMap(accessingNode, accessedNode);
 //		System.out.println(accessingNode + " accesses " + accessedNode + ". current dependencies:\n" + this);
 	}
@@ -95,14 +182,17 @@ public class EvaluationDependencies implements IExtension{
 	public void accessBranch(NodeModel accessingNode, NodeModel accessedNode) {
 		// FIXME: check if accessedNode is already covered by other accessModes
 		provideDependencySet(accessedNode, onBranchDependencies).add(accessingNode);
+		providePrecedents(accessingNode).branches.add(accessedNode);
 		addAccessedMap(accessingNode, accessedNode);
 //		System.out.println(accessingNode + " accesses branch of " + accessedNode + ". current dependencies:\n" + this);
 	}
 
 	private void addAccessedMap(NodeModel accessingNode, NodeModel accessedNode) {
 		final MapModel accessedMap = accessedNode.getMap();
-		if(accessedMap != accessingNode.getMap())
+		if(accessedMap != accessingNode.getMap()) {
 			provideDependencySet(accessedMap, onMapDependencies).add(accessingNode);
+			providePrecedents(accessingNode).maps.put(accessedMap, null);
+		}
 	}
 
 	/** a method was used on the accessingNode that may use any node in the map. */
@@ -116,11 +206,11 @@ public class EvaluationDependencies implements IExtension{
 		onGlobalNodeDependencies.put(accessingNode, null);
 	}
 
-	private <T>DependentNodeReferences provideDependencySet(final T accessed,
-														 final WeakHashMap<T, DependentNodeReferences> dependenciesMap) {
-		DependentNodeReferences set = dependenciesMap.get(accessed);
+	private <T>NodeReferences provideDependencySet(final T accessed,
+														 final WeakHashMap<T, NodeReferences> dependenciesMap) {
+		NodeReferences set = dependenciesMap.get(accessed);
 		if (set == null) {
-			set = new DependentNodeReferences();
+			set = new NodeReferences();
 			dependenciesMap.put(accessed, set);
 		}
 		return set;
@@ -134,13 +224,13 @@ public class EvaluationDependencies implements IExtension{
 	@Override
 	public String toString() {
 		StringBuilder builder = new StringBuilder();
-		for (Entry<NodeModel, DependentNodeReferences> entry : onNodeDependencies.entrySet()) {
+		for (Entry<NodeModel, NodeReferences> entry : onNodeDependencies.entrySet()) {
 			builder.append("onNode (" + entry.getKey().getText() + "):\n");
 			for (NodeModel nodeModel : entry.getValue()) {
 				builder.append("  " + nodeModel + "\n");
 			}
 		}
-		for (Entry<NodeModel, DependentNodeReferences> entry : onBranchDependencies.entrySet()) {
+		for (Entry<NodeModel, NodeReferences> entry : onBranchDependencies.entrySet()) {
 			builder.append("onBranch (" + entry.getKey().getText() + "):\n");
 			for (NodeModel nodeModel : entry.getValue()) {
 				builder.append("  " + nodeModel + "\n");
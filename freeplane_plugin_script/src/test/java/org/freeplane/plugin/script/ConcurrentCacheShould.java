@@ -0,0 +1,71 @@
+package org.freeplane.plugin.script;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class ConcurrentCacheShould {
+	private final ConcurrentCache<String, String> cache = new ConcurrentCache<>(() -> 3, key -> 1);
+
+	@Test
+	public void computeMissingValueOnceForConcurrentRequests() throws Exception {
+		final AtomicInteger computationCount = new AtomicInteger();
+		final CountDownLatch start = new CountDownLatch(1);
+		final ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			final List<Future<String>> results = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				results.add(executor.submit(() -> {
+					start.await();
+					return cache.computeIfAbsent("key", () -> {
+						computationCount.incrementAndGet();
+						return "value";
+					});
+				}));
+			}
+			start.countDown();
+			for (Future<String> result : results)
+				assertThat(result.get()).isEqualTo("value");
+		}
+		finally {
+			executor.shutdown();
+		}
+		assertThat(computationCount.get()).isEqualTo(1);
+		assertThat(cache.getMissCount()).isEqualTo(1);
+		assertThat(cache.getHitCount()).isEqualTo(7);
+	}
+
+	@Test
+	public void evictLeastRecentlyUsedEntriesExceedingMaximalWeight() throws Exception {
+		cache.computeIfAbsent("a", () -> "a");
+		cache.computeIfAbsent("b", () -> "b");
+		cache.computeIfAbsent("c", () -> "c");
+		cache.computeIfAbsent("a", () -> "a2");
+		cache.computeIfAbsent("d", () -> "d");
+		assertThat(cache.size()).isEqualTo(3);
+		assertThat(cache.getEvictionCount()).isEqualTo(1);
+		assertThat(cache.computeIfAbsent("a", () -> "a3")).isEqualTo("a");
+		assertThat(cache.computeIfAbsent("b", () -> "b2")).isEqualTo("b2");
+	}
+
+	@Test
+	public void notCacheFailedComputations() throws Exception {
+		try {
+			cache.computeIfAbsent("key", () -> {
+				throw new IllegalStateException();
+			});
+		}
+		catch (IllegalStateException e) {
+		}
+		assertThat(cache.computeIfAbsent("key", () -> "value")).isEqualTo("value");
+		assertThat(cache.getWeight()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,69 @@
+package org.freeplane.plugin.script;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.customizers.ImportCustomizer;
+import org.codehaus.groovy.runtime.InvokerHelper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import groovy.lang.Binding;
+import groovy.lang.Script;
+
+public class ScriptClassCacheShould {
+	private static final String KEY = "key";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void loadStoredScriptClassesWithClosures() throws Exception {
+		final ClassLoader classLoader = getClass().getClassLoader();
+		final ScriptClassCache cache = new ScriptClassCache(folder.getRoot());
+		final String script = "[1, 2, 3].collect { it * 2 }.sum()";
+		final GroovyShell shell = new GroovyShell(classLoader, new Binding(), new CompilerConfiguration());
+		cache.store(KEY, shell.parse(script).getClass().getName(), shell.getCompiledClasses());
+
+		final Class<?> scriptClass = new ScriptClassCache(folder.getRoot()).load(KEY, classLoader,
+		    GroovyShell.codeSourceOf(script));
+
+		final Script loadedScript = InvokerHelper.createScript(scriptClass, new Binding());
+		assertThat(loadedScript.run()).isEqualTo(12);
+	}
+
+	@Test
+	public void returnNullForMissingEntries() throws Exception {
+		assertThat(new ScriptClassCache(folder.getRoot()).load(KEY, getClass().getClassLoader(),
+		    GroovyShell.codeSourceOf(""))).isNull();
+	}
+
+	@Test
+	public void removeAllEntriesOnClear() throws Exception {
+		final ScriptClassCache cache = new ScriptClassCache(folder.getRoot());
+		final GroovyShell shell = new GroovyShell(getClass().getClassLoader(), new Binding(), new CompilerConfiguration());
+		cache.store(KEY, shell.parse("1").getClass().getName(), shell.getCompiledClasses());
+		cache.clear();
+		assertThat(folder.getRoot().listFiles()).isEmpty();
+	}
+
+	@Test
+	public void distinguishScriptsCompiledWithDifferentConfigurations() throws Exception {
+		final ScriptClassCache cache = new ScriptClassCache(folder.getRoot());
+		final String script = "1";
+		final String hash = cache.hashOf(script, null, new CompilerConfiguration());
+		assertThat(cache.hashOf(script, null, new CompilerConfiguration())).isEqualTo(hash);
+		final CompilerConfiguration configurationWithImports = new CompilerConfiguration();
+		configurationWithImports.addCompilationCustomizers(new ImportCustomizer().addStarImports("java.time"));
+		assertThat(cache.hashOf(script, null, configurationWithImports)).isNotEqualTo(hash);
+		final CompilerConfiguration configurationWithClasspath = new CompilerConfiguration();
+		configurationWithClasspath.setClasspathList(Arrays.asList("lib"));
+		assertThat(cache.hashOf(script, null, configurationWithClasspath)).isNotEqualTo(hash);
+		final CompilerConfiguration configurationWithBaseClass = new CompilerConfiguration();
+		configurationWithBaseClass.setScriptBaseClass(FreeplaneScriptBaseClass.class.getName());
+		assertThat(cache.hashOf(script, null, configurationWithBaseClass)).isNotEqualTo(hash);
+	}
+}
@@ -0,0 +1,52 @@
+package org.freeplane.plugin.script.dependencies;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.freeplane.features.map.NodeModel;
+import org.junit.Test;
+
+public class EvaluationDependenciesShould {
+	private final EvaluationDependencies dependencies = new EvaluationDependencies();
+	private final NodeModel root = new NodeModel("root", null);
+	private final NodeModel a = new NodeModel("a", null);
+	private final NodeModel b = new NodeModel("=a", null);
+	private final NodeModel c = new NodeModel("=a + b", null);
+
+	@Test
+	public void returnTransitiveDependentsAfterTheirPrecedents() throws Exception {
+		dependencies.accessNode(c, a);
+		dependencies.accessNode(c, b);
+		dependencies.accessNode(b, a);
+		assertThat(dependencies.getChangedDependencies(false, a)).containsExactly(b, c);
+	}
+
+	@Test
+	public void includeChangedNodeBeforeItsDependents() throws Exception {
+		dependencies.accessNode(b, a);
+		assertThat(dependencies.getChangedDependencies(true, a)).containsExactly(a, b);
+	}
+
+	@Test
+	public void returnEachNodeOfCycleOnce() throws Exception {
+		dependencies.accessNode(b, a);
+		dependencies.accessNode(c, b);
+		dependencies.accessNode(b, c);
+		assertThat(dependencies.getChangedDependencies(false, a)).containsOnly(b, c).hasSize(2);
+	}
+
+	@Test
+	public void returnDependentsOfAncestorBranches() throws Exception {
+		root.insert(a);
+		dependencies.accessBranch(b, root);
+		assertThat(dependencies.getChangedDependencies(false, a)).containsExactly(b);
+	}
+
+	@Test
+	public void forgetAccessesOfRemovedPrecedents() throws Exception {
+		dependencies.accessNode(b, a);
+		dependencies.accessNode(c, a);
+		dependencies.removePrecedents(asList(b));
+		assertThat(dependencies.getChangedDependencies(false, a)).containsExactly(c);
+	}
+}